@@ -0,0 +1,71 @@
+package com.rest.server.benchmarks;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+// Overhead of the ShallowEtagHeaderFilter registered on /api/* (buffering + MD5 of the body) versus no filter
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EtagFilterBenchmark {
+
+    @Param({"1024", "16384", "131072"})
+    public int bodySize;
+
+    private ShallowEtagHeaderFilter filter;
+    private HttpServlet servlet;
+
+    @Setup
+    public void setup() {
+        filter = new ShallowEtagHeaderFilter();
+        byte[] body = new byte[bodySize];
+        Arrays.fill(body, (byte) 'a');
+        byte[] json = ("{\"data\":\"" + new String(body, StandardCharsets.US_ASCII) + "\"}").getBytes(StandardCharsets.UTF_8);
+        servlet = new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                response.setContentType("application/json");
+                response.getOutputStream().write(json);
+            }
+        };
+    }
+
+    @Benchmark
+    public MockHttpServletResponse withoutFilter() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/test/greeting");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        new MockFilterChain(servlet).doFilter(request, response);
+        return response;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse withEtagFilter() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/test/greeting");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        new MockFilterChain(servlet, filter).doFilter(request, response);
+        return response;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse conditionalRequestWithEtagFilter() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/test/greeting");
+        request.addHeader("If-None-Match", "\"0000000000000000000000000000000000\"");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        new MockFilterChain(servlet, filter).doFilter(request, response);
+        return response;
+    }
+}
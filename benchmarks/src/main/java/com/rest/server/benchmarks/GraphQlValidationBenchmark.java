@@ -0,0 +1,104 @@
+package com.rest.server.benchmarks;
+
+import graphql.language.Document;
+import graphql.parser.Parser;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.SchemaParser;
+import graphql.schema.idl.TypeDefinitionRegistry;
+import graphql.schema.idl.UnExecutableSchemaGenerator;
+import graphql.validation.ValidationError;
+import graphql.validation.Validator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Parse and validation cost of the operations clients actually send, against the shipped schema.graphqls
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GraphQlValidationBenchmark {
+
+    private static final Map<String, String> OPERATIONS = Map.of(
+            "posts", """
+                    query Posts($page: Int, $limit: Int) {
+                      posts(page: $page, limit: $limit) {
+                        data { postId postText postImage postLikes postTags postPublishDate ownerId { id firstName lastName } }
+                        total page limit
+                      }
+                    }""",
+            "postsByTag", """
+                    query PostsByTag($tag: String!, $page: Int) {
+                      postsByTag(tag: $tag, page: $page) {
+                        data { postId postText postTags postPublishDate }
+                        total
+                      }
+                    }""",
+            "commentsByPost", """
+                    query CommentsByPost($postId: ID!) {
+                      commentsByPost(postId: $postId, page: 1, limit: 20) {
+                        data { commentId commentMessage commentOwner commentPublishDate }
+                        total
+                      }
+                    }""",
+            "createComment", """
+                    mutation CreateComment($input: CommentCreateInput!) {
+                      createComment(input: $input) { commentId commentMessage commentPost commentPublishDate }
+                    }""",
+            "users", """
+                    query Users {
+                      users(page: 1, limit: 10) {
+                        data { id firstName lastName email registerDate location { locationCity locationCountry } }
+                        total
+                      }
+                    }""");
+
+    @Param({"posts", "postsByTag", "commentsByPost", "createComment", "users"})
+    public String operation;
+
+    private GraphQLSchema schema;
+    private String source;
+    private Document document;
+    private Validator validator;
+
+    @Setup
+    public void setup() throws Exception {
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream("graphql/schema.graphqls")) {
+            if (in == null) {
+                throw new IllegalStateException("graphql/schema.graphqls not found on the classpath");
+            }
+            TypeDefinitionRegistry registry = new SchemaParser().parse(new InputStreamReader(in, StandardCharsets.UTF_8));
+            schema = UnExecutableSchemaGenerator.makeUnExecutableSchema(registry);
+        }
+        source = OPERATIONS.get(operation);
+        document = Parser.parse(source);
+        validator = new Validator();
+        List<ValidationError> errors = validator.validateDocument(schema, document, Locale.ENGLISH);
+        if (!errors.isEmpty()) {
+            throw new IllegalStateException("Operation " + operation + " is not valid against the schema: " + errors);
+        }
+    }
+
+    @Benchmark
+    public Document parse() {
+        return Parser.parse(source);
+    }
+
+    @Benchmark
+    public List<ValidationError> validate() {
+        return validator.validateDocument(schema, document, Locale.ENGLISH);
+    }
+
+    @Benchmark
+    public List<ValidationError> parseAndValidate() {
+        return validator.validateDocument(schema, Parser.parse(source), Locale.ENGLISH);
+    }
+}
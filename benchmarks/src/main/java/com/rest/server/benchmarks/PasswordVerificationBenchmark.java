@@ -0,0 +1,70 @@
+package com.rest.server.benchmarks;
+
+import com.rest.server.models.User;
+import com.rest.server.repositories.UserRepository;
+import com.rest.server.services.AuthenticationService;
+import com.rest.server.services.PasswordHashingService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// Cost of AuthenticationService.authenticate with the repository stubbed out, i.e. BCrypt verification plus the hand-off to the hashing pool
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordVerificationBenchmark {
+
+    private static final String EMAIL = "jean.dupont@example.com";
+    private static final String PASSWORD = "s3cret-password";
+
+    private AuthenticationService authenticationService;
+    private PasswordHashingService passwordHashingService;
+
+    @Setup
+    public void setup() {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder();
+        User user = new User();
+        user.setId("65f1c2a9e4b0a1b2c3d4e5f6");
+        user.setUserEmail(EMAIL);
+        user.setUserPassword(encoder.encode(PASSWORD));
+
+        UserRepository repository = (UserRepository) Proxy.newProxyInstance(
+                UserRepository.class.getClassLoader(),
+                new Class<?>[]{UserRepository.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("findByUserEmail")) {
+                        return EMAIL.equals(args[0]) ? Optional.of(user) : Optional.empty();
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+
+        authenticationService = new AuthenticationService();
+        ReflectionTestUtils.setField(authenticationService, "userRepository", repository);
+        passwordHashingService = new PasswordHashingService(encoder, new SimpleMeterRegistry(), 1, 64, Duration.ofSeconds(30));
+        ReflectionTestUtils.setField(authenticationService, "passwordHashingService", passwordHashingService);
+    }
+
+    @TearDown
+    public void tearDown() {
+        passwordHashingService.shutdown();
+    }
+
+    @Benchmark
+    public boolean authenticateValid() {
+        return authenticationService.authenticate(EMAIL, PASSWORD);
+    }
+
+    @Benchmark
+    public boolean authenticateWrongPassword() {
+        return authenticationService.authenticate(EMAIL, "wrong-password");
+    }
+}
@@ -0,0 +1,63 @@
+package com.rest.server.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import com.rest.server.models.Post;
+import com.rest.server.models.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"json", "xml"})
+    public String format;
+
+    private ObjectMapper mapper;
+    private Post post;
+    private User user;
+
+    @Setup
+    public void setup() {
+        mapper = "xml".equals(format) ? new XmlMapper() : new ObjectMapper();
+
+        post = new Post("65f1c2a9e4b0a1b2c3d4e5f8",
+                "Sunset over the harbour, best evening of the whole trip so far",
+                "https://img.example.com/posts/sunset.jpg",
+                42,
+                "https://example.com/trip",
+                List.of("65f1c2a9e4b0a1b2c3d4e001", "65f1c2a9e4b0a1b2c3d4e002", "65f1c2a9e4b0a1b2c3d4e003"),
+                "2024-03-14T18:22:05Z",
+                "65f1c2a9e4b0a1b2c3d4e5f6");
+
+        user = new User();
+        user.setId("65f1c2a9e4b0a1b2c3d4e5f6");
+        user.setUserTitle("mr");
+        user.setUserFirstName("Jean");
+        user.setUserLastName("Dupont");
+        user.setUserGender("male");
+        user.setUserEmail("jean.dupont@example.com");
+        user.setUserDateOfBirth("1990-04-12T00:00");
+        user.setUserRegisterDate("2024-01-03T10:15:30Z");
+        user.setUserPhone("+33 6 12 34 56 78");
+        user.setUserPicture("https://randomuser.me/api/portraits/men/1.jpg");
+        user.setUserLocationId("65f1c2a9e4b0a1b2c3d4e5f7");
+    }
+
+    @Benchmark
+    public byte[] serializePost() throws Exception {
+        return mapper.writeValueAsBytes(post);
+    }
+
+    @Benchmark
+    public byte[] serializeUser() throws Exception {
+        return mapper.writeValueAsBytes(user);
+    }
+}
@@ -0,0 +1,83 @@
+package com.rest.server.benchmarks;
+
+import com.rest.server.graphql.UserController;
+import com.rest.server.models.User;
+import com.rest.server.models.UserDto;
+import com.rest.server.services.UserService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// UserController's entity/DTO conversions through its query and mutation, over a UserService that does no I/O
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserConversionBenchmark {
+
+    private UserController controller;
+    private User user;
+    private UserController.UserCreateInput input;
+
+    @Setup
+    public void setup() {
+        user = new User();
+        user.setId("65f1c2a9e4b0a1b2c3d4e5f6");
+        user.setUserTitle("mr");
+        user.setUserFirstName("Jean");
+        user.setUserLastName("Dupont");
+        user.setUserGender("male");
+        user.setUserEmail("jean.dupont@example.com");
+        user.setUserPassword("$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z5Qa6cPr7VgCxHjLNQ4N4d2K");
+        user.setUserDateOfBirth("1990-04-12T00:00");
+        user.setUserRegisterDate("2024-01-03T10:15:30Z");
+        user.setUserPhone("+33 6 12 34 56 78");
+        user.setUserPicture("https://randomuser.me/api/portraits/men/1.jpg");
+        user.setUserLocationId("65f1c2a9e4b0a1b2c3d4e5f7");
+
+        input = new UserController.UserCreateInput();
+        input.setTitle("ms");
+        input.setFirstName("Claire");
+        input.setLastName("Martin");
+        input.setEmail("claire.martin@example.com");
+        input.setPassword("s3cret-password");
+        input.setGender("female");
+        input.setDateOfBirth("1992-09-30T00:00:00");
+        input.setPhone("+33 6 98 76 54 32");
+        input.setPicture("https://randomuser.me/api/portraits/women/2.jpg");
+
+        controller = new UserController(new FixedUserService(user));
+    }
+
+    @Benchmark
+    public UserDto user() {
+        return controller.user(user.getId());
+    }
+
+    @Benchmark
+    public UserDto createUser() {
+        return controller.createUser(input);
+    }
+
+    // Finds the one user and creates without hashing or storing anything
+    private static class FixedUserService extends UserService {
+        private final User user;
+
+        FixedUserService(User user) {
+            this.user = user;
+        }
+
+        @Override
+        public Optional<User> singleUser(String id) {
+            return Optional.of(user);
+        }
+
+        @Override
+        public User createUser(User user) {
+            return user;
+        }
+    }
+}
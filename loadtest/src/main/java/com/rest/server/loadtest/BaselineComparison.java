@@ -0,0 +1,64 @@
+package com.rest.server.loadtest;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// Diffs a report against a saved baseline: a latency percentile that grew, or throughput that shrank,
+// by more than the tolerance counts as a regression
+public class BaselineComparison {
+
+    private final List<String> regressions = new ArrayList<>();
+
+    public BaselineComparison(LoadReport baseline, LoadReport current, double tolerance, PrintStream out) {
+        // Achieved throughput only means something when both runs offered the same load
+        boolean sameRate = baseline.targetRate() == current.targetRate();
+        out.println();
+        if (!sameRate) {
+            out.printf("Baseline was run at %d req/s, this run at %d req/s: throughput is not compared%n",
+                    baseline.targetRate(), current.targetRate());
+        }
+        out.printf("%-16s %-10s %12s %12s %9s%n", "operation", "metric", "baseline", "current", "change");
+        for (LoadReport.OperationStats now : current.operations()) {
+            LoadReport.OperationStats before = baseline.operation(now.operation());
+            if (before == null) {
+                out.printf("%-16s (not in baseline)%n", now.operation());
+                continue;
+            }
+            latency(out, now.operation(), "p50", before.p50Ms(), now.p50Ms(), tolerance);
+            latency(out, now.operation(), "p99", before.p99Ms(), now.p99Ms(), tolerance);
+            latency(out, now.operation(), "p999", before.p999Ms(), now.p999Ms(), tolerance);
+            if (!sameRate) {
+                continue;
+            }
+            double change = relativeChange(before.throughput(), now.throughput());
+            boolean regressed = change < -tolerance;
+            print(out, now.operation(), "ops/s", before.throughput(), now.throughput(), change, regressed);
+            if (regressed) {
+                regressions.add(now.operation() + " throughput");
+            }
+        }
+    }
+
+    private void latency(PrintStream out, String operation, String metric, double before, double now, double tolerance) {
+        double change = relativeChange(before, now);
+        boolean regressed = change > tolerance;
+        print(out, operation, metric + " ms", before, now, change, regressed);
+        if (regressed) {
+            regressions.add(operation + " " + metric);
+        }
+    }
+
+    private static void print(PrintStream out, String operation, String metric, double before, double now, double change, boolean regressed) {
+        out.printf(Locale.ROOT, "%-16s %-10s %12.3f %12.3f %+8.1f%%%s%n", operation, metric, before, now, change * 100, regressed ? "  REGRESSION" : "");
+    }
+
+    private static double relativeChange(double before, double now) {
+        return before == 0 ? 0 : (now - before) / before;
+    }
+
+    public List<String> regressions() {
+        return regressions;
+    }
+}
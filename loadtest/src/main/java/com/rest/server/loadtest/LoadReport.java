@@ -0,0 +1,30 @@
+package com.rest.server.loadtest;
+
+import java.util.List;
+
+// Serialized as the JSON report; a saved report doubles as the baseline for later runs
+public record LoadReport(
+        String startedAt,
+        int targetRate,
+        long durationSeconds,
+        double achievedThroughput,
+        long dropped,
+        List<OperationStats> operations) {
+
+    public record OperationStats(
+            String operation,
+            long count,
+            long errors,
+            double throughput,
+            double meanMs,
+            double p50Ms,
+            double p90Ms,
+            double p99Ms,
+            double p999Ms,
+            double maxMs) {
+    }
+
+    public OperationStats operation(String name) {
+        return operations.stream().filter(stats -> stats.operation().equals(name)).findFirst().orElse(null);
+    }
+}
@@ -0,0 +1,94 @@
+package com.rest.server.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// --key=value command line options
+public class LoadTestOptions {
+
+    private static final String DEFAULT_MIX = "posts:40,postsByTag:20,commentsByPost:25,createComment:10,login:5";
+
+    private final Map<String, String> values = new HashMap<>();
+
+    public LoadTestOptions(String[] args) {
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+            }
+            int separator = arg.indexOf('=');
+            if (separator < 0) {
+                values.put(arg.substring(2), "true");
+            } else {
+                values.put(arg.substring(2, separator), arg.substring(separator + 1));
+            }
+        }
+    }
+
+    // Base URL of an already running server; empty means start one in-process
+    public String target() {
+        return values.getOrDefault("target", "");
+    }
+
+    // comments.write-mode of the in-process server
+    public String commentWriteMode() {
+        return values.getOrDefault("comment-write-mode", "sync");
+    }
+
+    public int rate() {
+        return Integer.parseInt(values.getOrDefault("rate", "200"));
+    }
+
+    public Duration duration() {
+        return Duration.ofSeconds(Long.parseLong(values.getOrDefault("duration", "30")));
+    }
+
+    public Duration warmup() {
+        return Duration.ofSeconds(Long.parseLong(values.getOrDefault("warmup", "5")));
+    }
+
+    public int maxInFlight() {
+        return Integer.parseInt(values.getOrDefault("max-in-flight", "2000"));
+    }
+
+    public int users() {
+        return Integer.parseInt(values.getOrDefault("users", "20"));
+    }
+
+    public int postsPerUser() {
+        return Integer.parseInt(values.getOrDefault("posts-per-user", "10"));
+    }
+
+    public int commentsPerPost() {
+        return Integer.parseInt(values.getOrDefault("comments-per-post", "5"));
+    }
+
+    public Map<Operation, Integer> mix() {
+        Map<Operation, Integer> mix = new LinkedHashMap<>();
+        for (String entry : values.getOrDefault("mix", DEFAULT_MIX).split(",")) {
+            String[] parts = entry.split(":");
+            mix.put(Operation.valueOf(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+        }
+        return mix;
+    }
+
+    public Path reportDir() {
+        return Path.of(values.getOrDefault("report-dir", "target/loadtest"));
+    }
+
+    public Path baseline() {
+        String baseline = values.get("baseline");
+        return baseline != null ? Path.of(baseline) : null;
+    }
+
+    public boolean saveBaseline() {
+        return Boolean.parseBoolean(values.getOrDefault("save-baseline", "false"));
+    }
+
+    // Relative change in a latency percentile or in throughput that counts as a regression
+    public double tolerance() {
+        return Double.parseDouble(values.getOrDefault("tolerance", "0.10"));
+    }
+}
@@ -0,0 +1,244 @@
+package com.rest.server.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.rest.server.ServerApplication;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Open-loop load generator: requests are issued on a fixed schedule regardless of how fast responses come back,
+// and latency is measured from the intended send time so a stalled server cannot hide its queueing delay.
+//
+//   java -jar target/loadtest.jar --rate=200 --duration=60 --warmup=5
+//       [--mix=posts:40,postsByTag:20,commentsByPost:25,createComment:10,login:5]
+//       [--target=http://host:8080 | --comment-write-mode=sync|batched] [--baseline=baseline.json [--save-baseline]] [--tolerance=0.10]
+//
+// Without --target the server is started in-process with the inmemory profile, so no Mongo is needed.
+// The report (report.json plus one .hgrm percentile file per operation) goes to --report-dir, target/loadtest by default.
+public class LoadTestRunner {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final LoadTestOptions options;
+    private final String baseUrl;
+    private final ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private final Map<Operation, Histogram> histograms = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+    private final LongAdder dropped = new LongAdder();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public LoadTestRunner(LoadTestOptions options, String baseUrl) {
+        this.options = options;
+        this.baseUrl = baseUrl;
+        for (Operation operation : Operation.values()) {
+            histograms.put(operation, new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3));
+            errors.put(operation, new LongAdder());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = new LoadTestOptions(args);
+        ConfigurableApplicationContext server = null;
+        String baseUrl = options.target();
+        if (baseUrl.isEmpty()) {
+            server = startServer(options);
+            baseUrl = "http://localhost:" + ((WebServerApplicationContext) server).getWebServer().getPort();
+        }
+        int exitCode;
+        try {
+            exitCode = new LoadTestRunner(options, baseUrl).run();
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+        }
+        System.exit(exitCode);
+    }
+
+    // The server under test, backed by the in-memory repositories
+    private static ConfigurableApplicationContext startServer(LoadTestOptions options) {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        return new SpringApplicationBuilder(ServerApplication.class)
+                .profiles("inmemory")
+                .properties("server.port=0", "logging.file.name=", "comments.write-mode=" + options.commentWriteMode(),
+                        // every simulated client shares 127.0.0.1, so lift the login throttle and measure the hashing pool instead
+                        "auth.throttle.ip.capacity=1000000", "auth.throttle.ip.refill-per-minute=1000000",
+                        "auth.throttle.email.capacity=1000000", "auth.throttle.email.refill-per-minute=1000000")
+                .run();
+    }
+
+    public int run() throws Exception {
+        ExecutorService executor = Executors.newCachedThreadPool();
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(executor)
+                .build();
+        PrintStream out = System.out;
+
+        SeedData seed = new SeedData(client, baseUrl);
+        out.println("Seeding " + baseUrl + " ...");
+        seed.seed(options);
+        out.println("Seeded " + seed.postCount() + " posts");
+
+        Instant startedAt = Instant.now();
+        generate(client, seed);
+        awaitInFlight();
+        executor.shutdownNow();
+
+        LoadReport report = report(startedAt);
+        print(out, report);
+        Files.createDirectories(options.reportDir());
+        mapper.writeValue(options.reportDir().resolve("report.json").toFile(), report);
+        for (Operation operation : Operation.values()) {
+            try (PrintStream hgrm = new PrintStream(options.reportDir().resolve(operation.name() + ".hgrm").toFile())) {
+                histograms.get(operation).outputPercentileDistribution(hgrm, 1000.0);
+            }
+        }
+        out.println("Report written to " + options.reportDir().toAbsolutePath());
+
+        int exitCode = 0;
+        Path baselinePath = options.baseline();
+        if (baselinePath != null && Files.exists(baselinePath)) {
+            LoadReport baseline = mapper.readValue(baselinePath.toFile(), LoadReport.class);
+            BaselineComparison comparison = new BaselineComparison(baseline, report, options.tolerance(), out);
+            if (!comparison.regressions().isEmpty()) {
+                out.println("Regressions against " + baselinePath + ": " + comparison.regressions());
+                exitCode = 1;
+            }
+        }
+        if (baselinePath != null && options.saveBaseline()) {
+            mapper.writeValue(baselinePath.toFile(), report);
+            out.println("Baseline saved to " + baselinePath);
+        }
+        return exitCode;
+    }
+
+    private void generate(HttpClient client, SeedData seed) {
+        Operation[] choices = weightedChoices(options.mix());
+        Random random = new Random();
+        long interval = TimeUnit.SECONDS.toNanos(1) / options.rate();
+        long start = System.nanoTime();
+        long measureFrom = start + options.warmup().toNanos();
+        long end = measureFrom + options.duration().toNanos();
+
+        for (long i = 0; ; i++) {
+            long intended = start + i * interval;
+            if (intended >= end) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Operation operation = choices[random.nextInt(choices.length)];
+            boolean measured = intended >= measureFrom;
+            if (inFlight.get() >= options.maxInFlight()) {
+                if (measured) {
+                    dropped.increment();
+                }
+                continue;
+            }
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + operation.path()))
+                    .header("Content-Type", "application/json")
+                    .timeout(Duration.ofSeconds(30))
+                    .POST(HttpRequest.BodyPublishers.ofString(operation.body(seed, random)))
+                    .build();
+            inFlight.incrementAndGet();
+            client.sendAsync(request, HttpResponse.BodyHandlers.ofString()).whenComplete((response, failure) -> {
+                inFlight.decrementAndGet();
+                if (!measured) {
+                    return;
+                }
+                long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intended);
+                histograms.get(operation).recordValue(Math.min(micros, HIGHEST_TRACKABLE_MICROS));
+                if (failure != null || response.statusCode() >= 400 || response.body().contains("\"errors\"")) {
+                    errors.get(operation).increment();
+                }
+            });
+        }
+    }
+
+    private void awaitInFlight() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+    }
+
+    private static Operation[] weightedChoices(Map<Operation, Integer> mix) {
+        List<Operation> choices = new ArrayList<>();
+        mix.forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                choices.add(operation);
+            }
+        });
+        if (choices.isEmpty()) {
+            throw new IllegalArgumentException("The operation mix is empty");
+        }
+        return choices.toArray(new Operation[0]);
+    }
+
+    private LoadReport report(Instant startedAt) {
+        double seconds = options.duration().toMillis() / 1000.0;
+        List<LoadReport.OperationStats> operations = new ArrayList<>();
+        long total = 0;
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = histograms.get(operation);
+            long count = histogram.getTotalCount();
+            if (count == 0) {
+                continue;
+            }
+            total += count;
+            operations.add(new LoadReport.OperationStats(
+                    operation.name(),
+                    count,
+                    errors.get(operation).sum(),
+                    count / seconds,
+                    histogram.getMean() / 1000.0,
+                    histogram.getValueAtPercentile(50) / 1000.0,
+                    histogram.getValueAtPercentile(90) / 1000.0,
+                    histogram.getValueAtPercentile(99) / 1000.0,
+                    histogram.getValueAtPercentile(99.9) / 1000.0,
+                    histogram.getMaxValue() / 1000.0));
+        }
+        return new LoadReport(startedAt.toString(), options.rate(), options.duration().toSeconds(), total / seconds, dropped.sum(), operations);
+    }
+
+    private static void print(PrintStream out, LoadReport report) {
+        out.println();
+        out.printf(Locale.ROOT, "Target %d req/s for %d s, achieved %.1f req/s, dropped %d%n",
+                report.targetRate(), report.durationSeconds(), report.achievedThroughput(), report.dropped());
+        out.printf("%-16s %8s %7s %9s %9s %9s %9s %9s %9s%n", "operation", "count", "errors", "ops/s", "p50 ms", "p90 ms", "p99 ms", "p999 ms", "max ms");
+        for (LoadReport.OperationStats stats : report.operations()) {
+            out.printf(Locale.ROOT, "%-16s %8d %7d %9.1f %9.3f %9.3f %9.3f %9.3f %9.3f%n",
+                    stats.operation(), stats.count(), stats.errors(), stats.throughput(),
+                    stats.p50Ms(), stats.p90Ms(), stats.p99Ms(), stats.p999Ms(), stats.maxMs());
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.rest.server.loadtest;
+
+import java.util.Random;
+
+// The operations replayed by the load generator, each turned into an HTTP request body against the seeded data
+public enum Operation {
+    posts("/graphql") {
+        @Override
+        String body(SeedData seed, Random random) {
+            return graphql("query Posts($page: Int) { posts(page: $page, limit: 10) { data { postId postText postTags postPublishDate ownerId { id firstName lastName } } total } }",
+                    "{\"page\":" + (1 + random.nextInt(5)) + "}");
+        }
+    },
+    postsByTag("/graphql") {
+        @Override
+        String body(SeedData seed, Random random) {
+            return graphql("query PostsByTag($tag: String!) { postsByTag(tag: $tag, page: 1, limit: 10) { data { postId postText postPublishDate } total } }",
+                    "{\"tag\":\"" + seed.randomTagName(random) + "\"}");
+        }
+    },
+    commentsByPost("/graphql") {
+        @Override
+        String body(SeedData seed, Random random) {
+            return graphql("query CommentsByPost($postId: ID!) { commentsByPost(postId: $postId, page: 1, limit: 10) { data { commentId commentMessage commentOwner commentPublishDate } total } }",
+                    "{\"postId\":\"" + seed.randomPostId(random) + "\"}");
+        }
+    },
+    createComment("/graphql") {
+        @Override
+        String body(SeedData seed, Random random) {
+            return graphql("mutation CreateComment($input: CommentCreateInput!) { createComment(input: $input) { commentId commentPublishDate } }",
+                    "{\"input\":{\"commentMessage\":\"load test comment " + random.nextInt(1_000_000) + "\",\"commentOwner\":\""
+                            + seed.randomUserId(random) + "\",\"commentPost\":\"" + seed.randomPostId(random) + "\"}}");
+        }
+    },
+    login("/api/v1/login") {
+        @Override
+        String body(SeedData seed, Random random) {
+            return "{\"userEmail\":\"" + seed.randomEmail(random) + "\",\"userPassword\":\"" + SeedData.PASSWORD + "\"}";
+        }
+    };
+
+    private final String path;
+
+    Operation(String path) {
+        this.path = path;
+    }
+
+    public String path() {
+        return path;
+    }
+
+    abstract String body(SeedData seed, Random random);
+
+    static String graphql(String query, String variables) {
+        return "{\"query\":\"" + query.replace("\"", "\\\"") + "\",\"variables\":" + variables + "}";
+    }
+}
@@ -0,0 +1,103 @@
+package com.rest.server.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Creates users, tags, posts and comments through the public API so the workload has real ids to hit
+public class SeedData {
+
+    static final String PASSWORD = "loadtest-password";
+    private static final String[] TAGS = {"travel", "food", "music", "sport", "tech", "art", "nature", "books"};
+
+    private final List<String> userIds = new ArrayList<>();
+    private final List<String> emails = new ArrayList<>();
+    private final List<String> postIds = new ArrayList<>();
+    private final List<String> tagNames = new ArrayList<>();
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    SeedData(HttpClient client, String baseUrl) {
+        this.client = client;
+        this.baseUrl = baseUrl;
+    }
+
+    void seed(LoadTestOptions options) throws Exception {
+        long runId = System.currentTimeMillis();
+        List<String> tagIds = new ArrayList<>();
+        for (String tag : TAGS) {
+            String name = tag + "-" + runId;
+            JsonNode created = mutation("mutation($input: TagInput!) { createTag(input: $input) { tagId } }",
+                    "{\"input\":{\"tagName\":\"" + name + "\"}}");
+            tagIds.add(created.get("createTag").get("tagId").asText());
+            tagNames.add(name);
+        }
+        for (int u = 0; u < options.users(); u++) {
+            String email = "loadtest-" + runId + "-" + u + "@example.com";
+            JsonNode created = mutation("mutation($input: UserCreateInput!) { createUser(input: $input) { id } }",
+                    "{\"input\":{\"firstName\":\"Load\",\"lastName\":\"Tester" + u + "\",\"email\":\"" + email
+                            + "\",\"password\":\"" + PASSWORD + "\"}}");
+            userIds.add(created.get("createUser").get("id").asText());
+            emails.add(email);
+        }
+        Random random = new Random(runId);
+        for (String userId : userIds) {
+            for (int p = 0; p < options.postsPerUser(); p++) {
+                String tags = "[\"" + tagIds.get(random.nextInt(tagIds.size())) + "\",\"" + tagIds.get(random.nextInt(tagIds.size())) + "\"]";
+                JsonNode created = mutation("mutation($input: PostCreateInput!) { createPost(input: $input) { postId } }",
+                        "{\"input\":{\"postText\":\"Seeded load test post number " + p + "\",\"postImage\":\"https://img.example.com/" + p
+                                + ".jpg\",\"postTags\":" + tags + ",\"postOwnerId\":\"" + userId + "\"}}");
+                postIds.add(created.get("createPost").get("postId").asText());
+            }
+        }
+        for (String postId : postIds) {
+            for (int c = 0; c < options.commentsPerPost(); c++) {
+                mutation("mutation($input: CommentCreateInput!) { createComment(input: $input) { commentId } }",
+                        "{\"input\":{\"commentMessage\":\"Seeded comment " + c + "\",\"commentOwner\":\""
+                                + userIds.get(random.nextInt(userIds.size())) + "\",\"commentPost\":\"" + postId + "\"}}");
+            }
+        }
+    }
+
+    private JsonNode mutation(String query, String variables) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/graphql"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(Operation.graphql(query, variables)))
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        JsonNode body = mapper.readTree(response.body());
+        if (response.statusCode() != 200 || body.hasNonNull("errors")) {
+            throw new IllegalStateException("Seeding failed: " + response.statusCode() + " " + response.body());
+        }
+        return body.get("data");
+    }
+
+    String randomUserId(Random random) {
+        return userIds.get(random.nextInt(userIds.size()));
+    }
+
+    String randomEmail(Random random) {
+        return emails.get(random.nextInt(emails.size()));
+    }
+
+    String randomPostId(Random random) {
+        return postIds.get(random.nextInt(postIds.size()));
+    }
+
+    String randomTagName(Random random) {
+        return tagNames.get(random.nextInt(tagNames.size()));
+    }
+
+    int postCount() {
+        return postIds.size();
+    }
+}
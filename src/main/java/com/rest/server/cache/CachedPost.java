@@ -0,0 +1,157 @@
+package com.rest.server.cache;
+
+import com.rest.server.models.Post;
+import org.springframework.data.annotation.Transient;
+
+import java.util.List;
+
+// A Post backed by its cached record: each field is decoded the first time its getter runs, so a
+// resolver that only reads the owner id never materializes the text or tags. Setters win over the record.
+public class CachedPost extends Post {
+
+    private static final int ID = 0;
+    private static final int TEXT = 1;
+    private static final int IMAGE = 2;
+    private static final int LIKES = 3;
+    private static final int LINK = 4;
+    private static final int TAGS = 5;
+    private static final int PUBLISH_DATE = 6;
+    private static final int OWNER_ID = 7;
+
+    // @Document is inherited, so keep the mapping context away from these
+    @Transient
+    private final FieldRecord record;
+    @Transient
+    private int decoded;
+
+    CachedPost(FieldRecord record) {
+        this.record = record;
+    }
+
+    static byte[] encode(Post post) {
+        return FieldRecord.encode(post.getPostId(), post.getPostText(), post.getPostImage(), post.getPostLikes(),
+                post.getPostLink(), post.getPostTags(), post.getPostPublishDate(), post.getPostOwnerId());
+    }
+
+    // True the first time a field is asked for
+    private boolean decode(int field) {
+        int bit = 1 << field;
+        if ((decoded & bit) != 0) {
+            return false;
+        }
+        decoded |= bit;
+        return true;
+    }
+
+    @Override
+    public String getPostId() {
+        if (decode(ID)) {
+            super.setPostId(record.string(ID));
+        }
+        return super.getPostId();
+    }
+
+    @Override
+    public void setPostId(String postId) {
+        decoded |= 1 << ID;
+        super.setPostId(postId);
+    }
+
+    @Override
+    public String getPostText() {
+        if (decode(TEXT)) {
+            super.setPostText(record.string(TEXT));
+        }
+        return super.getPostText();
+    }
+
+    @Override
+    public void setPostText(String postText) {
+        decoded |= 1 << TEXT;
+        super.setPostText(postText);
+    }
+
+    @Override
+    public String getPostImage() {
+        if (decode(IMAGE)) {
+            super.setPostImage(record.string(IMAGE));
+        }
+        return super.getPostImage();
+    }
+
+    @Override
+    public void setPostImage(String postImage) {
+        decoded |= 1 << IMAGE;
+        super.setPostImage(postImage);
+    }
+
+    @Override
+    public Integer getPostLikes() {
+        if (decode(LIKES)) {
+            super.setPostLikes(record.integer(LIKES));
+        }
+        return super.getPostLikes();
+    }
+
+    @Override
+    public void setPostLikes(Integer postLikes) {
+        decoded |= 1 << LIKES;
+        super.setPostLikes(postLikes);
+    }
+
+    @Override
+    public String getPostLink() {
+        if (decode(LINK)) {
+            super.setPostLink(record.string(LINK));
+        }
+        return super.getPostLink();
+    }
+
+    @Override
+    public void setPostLink(String postLink) {
+        decoded |= 1 << LINK;
+        super.setPostLink(postLink);
+    }
+
+    @Override
+    public List<String> getPostTags() {
+        if (decode(TAGS)) {
+            super.setPostTags(record.strings(TAGS));
+        }
+        return super.getPostTags();
+    }
+
+    @Override
+    public void setPostTags(List<String> postTags) {
+        decoded |= 1 << TAGS;
+        super.setPostTags(postTags);
+    }
+
+    @Override
+    public String getPostPublishDate() {
+        if (decode(PUBLISH_DATE)) {
+            super.setPostPublishDate(record.string(PUBLISH_DATE));
+        }
+        return super.getPostPublishDate();
+    }
+
+    @Override
+    public void setPostPublishDate(String postPublishDate) {
+        decoded |= 1 << PUBLISH_DATE;
+        super.setPostPublishDate(postPublishDate);
+    }
+
+    @Override
+    public String getPostOwnerId() {
+        if (decode(OWNER_ID)) {
+            super.setPostOwnerId(record.string(OWNER_ID));
+        }
+        return super.getPostOwnerId();
+    }
+
+    @Override
+    public void setPostOwnerId(String postOwnerId) {
+        decoded |= 1 << OWNER_ID;
+        super.setPostOwnerId(postOwnerId);
+    }
+}
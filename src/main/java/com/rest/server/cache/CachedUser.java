@@ -0,0 +1,216 @@
+package com.rest.server.cache;
+
+import com.rest.server.models.User;
+import org.springframework.data.annotation.Transient;
+
+// A User backed by its cached record, decoded one field at a time like CachedPost; Post.ownerId only
+// ever touches the id, names, email and location
+public class CachedUser extends User {
+
+    private static final int ID = 0;
+    private static final int TITLE = 1;
+    private static final int FIRST_NAME = 2;
+    private static final int LAST_NAME = 3;
+    private static final int GENDER = 4;
+    private static final int EMAIL = 5;
+    private static final int PASSWORD = 6;
+    private static final int DATE_OF_BIRTH = 7;
+    private static final int REGISTER_DATE = 8;
+    private static final int PHONE = 9;
+    private static final int PICTURE = 10;
+    private static final int LOCATION_ID = 11;
+
+    // @Document is inherited, so keep the mapping context away from these
+    @Transient
+    private final FieldRecord record;
+    @Transient
+    private int decoded;
+
+    CachedUser(FieldRecord record) {
+        this.record = record;
+    }
+
+    static byte[] encode(User user) {
+        return FieldRecord.encode(user.getId(), user.getUserTitle(), user.getUserFirstName(), user.getUserLastName(),
+                user.getUserGender(), user.getUserEmail(), user.getUserPassword(), user.getUserDateOfBirth(),
+                user.getUserRegisterDate(), user.getUserPhone(), user.getUserPicture(), user.getUserLocationId());
+    }
+
+    // True the first time a field is asked for
+    private boolean decode(int field) {
+        int bit = 1 << field;
+        if ((decoded & bit) != 0) {
+            return false;
+        }
+        decoded |= bit;
+        return true;
+    }
+
+    @Override
+    public String getId() {
+        if (decode(ID)) {
+            super.setId(record.string(ID));
+        }
+        return super.getId();
+    }
+
+    @Override
+    public void setId(String id) {
+        decoded |= 1 << ID;
+        super.setId(id);
+    }
+
+    @Override
+    public String getUserTitle() {
+        if (decode(TITLE)) {
+            super.setUserTitle(record.string(TITLE));
+        }
+        return super.getUserTitle();
+    }
+
+    @Override
+    public void setUserTitle(String userTitle) {
+        decoded |= 1 << TITLE;
+        super.setUserTitle(userTitle);
+    }
+
+    @Override
+    public String getUserFirstName() {
+        if (decode(FIRST_NAME)) {
+            super.setUserFirstName(record.string(FIRST_NAME));
+        }
+        return super.getUserFirstName();
+    }
+
+    @Override
+    public void setUserFirstName(String userFirstName) {
+        decoded |= 1 << FIRST_NAME;
+        super.setUserFirstName(userFirstName);
+    }
+
+    @Override
+    public String getUserLastName() {
+        if (decode(LAST_NAME)) {
+            super.setUserLastName(record.string(LAST_NAME));
+        }
+        return super.getUserLastName();
+    }
+
+    @Override
+    public void setUserLastName(String userLastName) {
+        decoded |= 1 << LAST_NAME;
+        super.setUserLastName(userLastName);
+    }
+
+    @Override
+    public String getUserGender() {
+        if (decode(GENDER)) {
+            super.setUserGender(record.string(GENDER));
+        }
+        return super.getUserGender();
+    }
+
+    @Override
+    public void setUserGender(String userGender) {
+        decoded |= 1 << GENDER;
+        super.setUserGender(userGender);
+    }
+
+    @Override
+    public String getUserEmail() {
+        if (decode(EMAIL)) {
+            super.setUserEmail(record.string(EMAIL));
+        }
+        return super.getUserEmail();
+    }
+
+    @Override
+    public void setUserEmail(String userEmail) {
+        decoded |= 1 << EMAIL;
+        super.setUserEmail(userEmail);
+    }
+
+    @Override
+    public String getUserPassword() {
+        if (decode(PASSWORD)) {
+            super.setUserPassword(record.string(PASSWORD));
+        }
+        return super.getUserPassword();
+    }
+
+    @Override
+    public void setUserPassword(String userPassword) {
+        decoded |= 1 << PASSWORD;
+        super.setUserPassword(userPassword);
+    }
+
+    @Override
+    public String getUserDateOfBirth() {
+        if (decode(DATE_OF_BIRTH)) {
+            super.setUserDateOfBirth(record.string(DATE_OF_BIRTH));
+        }
+        return super.getUserDateOfBirth();
+    }
+
+    @Override
+    public void setUserDateOfBirth(String userDateOfBirth) {
+        decoded |= 1 << DATE_OF_BIRTH;
+        super.setUserDateOfBirth(userDateOfBirth);
+    }
+
+    @Override
+    public String getUserRegisterDate() {
+        if (decode(REGISTER_DATE)) {
+            super.setUserRegisterDate(record.string(REGISTER_DATE));
+        }
+        return super.getUserRegisterDate();
+    }
+
+    @Override
+    public void setUserRegisterDate(String userRegisterDate) {
+        decoded |= 1 << REGISTER_DATE;
+        super.setUserRegisterDate(userRegisterDate);
+    }
+
+    @Override
+    public String getUserPhone() {
+        if (decode(PHONE)) {
+            super.setUserPhone(record.string(PHONE));
+        }
+        return super.getUserPhone();
+    }
+
+    @Override
+    public void setUserPhone(String userPhone) {
+        decoded |= 1 << PHONE;
+        super.setUserPhone(userPhone);
+    }
+
+    @Override
+    public String getUserPicture() {
+        if (decode(PICTURE)) {
+            super.setUserPicture(record.string(PICTURE));
+        }
+        return super.getUserPicture();
+    }
+
+    @Override
+    public void setUserPicture(String userPicture) {
+        decoded |= 1 << PICTURE;
+        super.setUserPicture(userPicture);
+    }
+
+    @Override
+    public String getUserLocationId() {
+        if (decode(LOCATION_ID)) {
+            super.setUserLocationId(record.string(LOCATION_ID));
+        }
+        return super.getUserLocationId();
+    }
+
+    @Override
+    public void setUserLocationId(String userLocationId) {
+        decoded |= 1 << LOCATION_ID;
+        super.setUserLocationId(userLocationId);
+    }
+}
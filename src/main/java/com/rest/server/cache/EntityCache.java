@@ -0,0 +1,145 @@
+package com.rest.server.cache;
+
+import com.rest.server.cluster.EntityChange;
+import com.rest.server.cluster.EntityChangeListener;
+import com.rest.server.models.Post;
+import com.rest.server.models.User;
+import com.rest.server.repositories.PostRepository;
+import com.rest.server.repositories.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.Set;
+
+// Read-through cache of post and user documents by id, kept off the heap in OffHeapStore slabs so it can
+// hold millions of entries without adding GC work. Hits hand out CachedPost/CachedUser views that decode
+// fields on demand. Writes evict (PostService, UserService, the cascade job, and the change stream bus for
+// other nodes); a load that raced with an eviction is not cached.
+@Component
+public class EntityCache implements EntityChangeListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(EntityCache.class);
+
+    @Autowired
+    private PostRepository postRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${cache.offheap.enabled:false}")
+    private boolean enabled;
+
+    @Value("${cache.offheap.slab-size-mb:8}")
+    private int slabSizeMb;
+
+    @Value("${cache.offheap.posts.max-mb:256}")
+    private int postsMaxMb;
+
+    @Value("${cache.offheap.users.max-mb:128}")
+    private int usersMaxMb;
+
+    private OffHeapStore posts;
+    private OffHeapStore users;
+    private Counter postHits;
+    private Counter postMisses;
+    private Counter userHits;
+    private Counter userMisses;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        int slabSize = slabSizeMb << 20;
+        posts = new OffHeapStore(slabSize, Math.max(2, postsMaxMb / slabSizeMb));
+        users = new OffHeapStore(slabSize, Math.max(2, usersMaxMb / slabSizeMb));
+        postHits = register("posts", posts, "hit");
+        postMisses = Counter.builder("cache.offheap.requests").tag("cache", "posts").tag("result", "miss").register(meterRegistry);
+        userHits = register("users", users, "hit");
+        userMisses = Counter.builder("cache.offheap.requests").tag("cache", "users").tag("result", "miss").register(meterRegistry);
+        logger.info("Off-heap entity cache: {} MB for posts, {} MB for users in {} MB slabs", postsMaxMb, usersMaxMb, slabSizeMb);
+    }
+
+    private Counter register(String cache, OffHeapStore store, String result) {
+        Gauge.builder("cache.offheap.entries", store, OffHeapStore::size).tag("cache", cache).register(meterRegistry);
+        Gauge.builder("cache.offheap.bytes", store, OffHeapStore::allocatedBytes).tag("cache", cache).register(meterRegistry);
+        Gauge.builder("cache.offheap.live.bytes", store, OffHeapStore::liveBytes).tag("cache", cache).register(meterRegistry);
+        Gauge.builder("cache.offheap.evicted", store, OffHeapStore::evicted).tag("cache", cache).register(meterRegistry);
+        return Counter.builder("cache.offheap.requests").tag("cache", cache).tag("result", result).register(meterRegistry);
+    }
+
+    public Optional<Post> findPost(String id) {
+        if (!enabled || id == null) {
+            return postRepository.findById(id);
+        }
+        byte[] record = posts.get(id);
+        if (record != null) {
+            postHits.increment();
+            return Optional.of(new CachedPost(new FieldRecord(record)));
+        }
+        postMisses.increment();
+        long generation = posts.generation(id);
+        Optional<Post> post = postRepository.findById(id);
+        post.ifPresent(found -> posts.put(id, CachedPost.encode(found), generation));
+        return post;
+    }
+
+    public Optional<User> findUser(String id) {
+        if (!enabled || id == null) {
+            return userRepository.findById(id);
+        }
+        byte[] record = users.get(id);
+        if (record != null) {
+            userHits.increment();
+            return Optional.of(new CachedUser(new FieldRecord(record)));
+        }
+        userMisses.increment();
+        long generation = users.generation(id);
+        Optional<User> user = userRepository.findById(id);
+        user.ifPresent(found -> users.put(id, CachedUser.encode(found), generation));
+        return user;
+    }
+
+    public void evictPost(String id) {
+        if (enabled && id != null) {
+            posts.remove(id);
+        }
+    }
+
+    public void evictUser(String id) {
+        if (enabled && id != null) {
+            users.remove(id);
+        }
+    }
+
+    @Override
+    public Set<String> collections() {
+        return Set.of("posts", "users");
+    }
+
+    @Override
+    public void onEntityChange(EntityChange change) {
+        if (change.collection().equals("posts")) {
+            evictPost(change.id());
+        } else {
+            evictUser(change.id());
+        }
+    }
+
+    @Override
+    public void onResync() {
+        if (enabled) {
+            posts.clear();
+            users.clear();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.rest.server.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// Flat encoding of a document's fields: [byte field count][int offset per field][values], each value a
+// type byte and its body. The offset table lets a single field be decoded without reading the others.
+final class FieldRecord {
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte INT = 2;
+    private static final byte STRINGS = 3;
+
+    private final ByteBuffer bytes;
+
+    FieldRecord(byte[] bytes) {
+        this.bytes = ByteBuffer.wrap(bytes);
+    }
+
+    String string(int field) {
+        int offset = offset(field);
+        return bytes.get(offset) == NULL ? null : readString(offset + 1);
+    }
+
+    Integer integer(int field) {
+        int offset = offset(field);
+        return bytes.get(offset) == NULL ? null : bytes.getInt(offset + 1);
+    }
+
+    List<String> strings(int field) {
+        int offset = offset(field);
+        if (bytes.get(offset) == NULL) {
+            return null;
+        }
+        int count = bytes.getInt(offset + 1);
+        List<String> values = new ArrayList<>(count);
+        int position = offset + 5;
+        for (int i = 0; i < count; i++) {
+            values.add(readString(position));
+            position += 4 + bytes.getInt(position);
+        }
+        return values;
+    }
+
+    private int offset(int field) {
+        return bytes.getInt(1 + field * 4);
+    }
+
+    private String readString(int offset) {
+        return new String(bytes.array(), offset + 4, bytes.getInt(offset), StandardCharsets.UTF_8);
+    }
+
+    // Values may be String, Integer, List<String> or null
+    static byte[] encode(Object... values) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(256);
+        int headerSize = 1 + values.length * 4;
+        ByteBuffer header = ByteBuffer.allocate(headerSize);
+        header.put((byte) values.length);
+        for (Object value : values) {
+            header.putInt(headerSize + body.size());
+            if (value == null) {
+                body.write(NULL);
+            } else if (value instanceof String string) {
+                body.write(STRING);
+                writeString(body, string);
+            } else if (value instanceof Integer number) {
+                body.write(INT);
+                body.writeBytes(ByteBuffer.allocate(4).putInt(number).array());
+            } else if (value instanceof List<?> list) {
+                body.write(STRINGS);
+                body.writeBytes(ByteBuffer.allocate(4).putInt(list.size()).array());
+                for (Object element : list) {
+                    writeString(body, String.valueOf(element));
+                }
+            } else {
+                throw new IllegalArgumentException("Unsupported field type " + value.getClass().getSimpleName());
+            }
+        }
+        byte[] encoded = new byte[headerSize + body.size()];
+        System.arraycopy(header.array(), 0, encoded, 0, headerSize);
+        System.arraycopy(body.toByteArray(), 0, encoded, headerSize, body.size());
+        return encoded;
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        out.writeBytes(ByteBuffer.allocate(4).putInt(utf8.length).array());
+        out.writeBytes(utf8);
+    }
+}
@@ -0,0 +1,293 @@
+package com.rest.server.cache;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Serialized documents keyed by id, stored outside the heap in fixed-size direct buffers (slabs) that are
+// filled front to back. A record is [int payload length][short id length][id UTF-8][payload]. The id ->
+// record index is open addressing over two primitive arrays, so the heap cost is ~17 bytes per entry
+// whatever the document size. When every slab is in use the oldest one is dropped as a whole and its
+// entries leave the index; replaced records stay behind as dead bytes until then.
+final class OffHeapStore {
+
+    private static final double MAX_LOAD = 0.7;
+    private static final int RECORD_HEADER = 6;
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final int slabSize;
+    private final ByteBuffer[] slabs;
+    private final int[] slabUsed;
+    private int current = -1;
+
+    // address = (slab + 1) << 32 | offset; 0 marks an empty slot
+    private long[] addresses = new long[1024];
+    private int[] hashes = new int[1024];
+    private int size;
+    private long liveBytes;
+    private long evicted;
+
+    // Striped by id hash and bumped by every remove of an id in the stripe, so a loader can tell that what it
+    // read may already be stale without removes of unrelated ids turning its put away
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    OffHeapStore(int slabSize, int maxSlabs) {
+        this.slabSize = slabSize;
+        this.slabs = new ByteBuffer[maxSlabs];
+        this.slabUsed = new int[maxSlabs];
+    }
+
+    // A copy of the payload, or null
+    byte[] get(String id) {
+        byte[] key = id.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(key);
+        lock.readLock().lock();
+        try {
+            int slot = find(key, hash);
+            if (slot < 0) {
+                return null;
+            }
+            ByteBuffer slab = slabs[slabOf(addresses[slot])];
+            int offset = offsetOf(addresses[slot]);
+            byte[] payload = new byte[slab.getInt(offset)];
+            slab.get(offset + RECORD_HEADER + slab.getShort(offset + 4), payload);
+            return payload;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    long generation(String id) {
+        return generations.get(stripe(hash(id.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    // Skipped (false) when the id may have been removed since expectedGeneration, or the record cannot fit a slab
+    boolean put(String id, byte[] payload, long expectedGeneration) {
+        byte[] key = id.getBytes(StandardCharsets.UTF_8);
+        int recordSize = RECORD_HEADER + key.length + payload.length;
+        if (recordSize > slabSize || key.length > Short.MAX_VALUE) {
+            return false;
+        }
+        int hash = hash(key);
+        lock.writeLock().lock();
+        try {
+            if (generations.get(stripe(hash)) != expectedGeneration) {
+                return false;
+            }
+            int offset = reserve(recordSize);
+            ByteBuffer slab = slabs[current];
+            slab.putInt(offset, payload.length);
+            slab.putShort(offset + 4, (short) key.length);
+            slab.put(offset + RECORD_HEADER, key);
+            slab.put(offset + RECORD_HEADER + key.length, payload);
+            long address = address(current, offset);
+
+            int slot = find(key, hash);
+            if (slot >= 0) {
+                liveBytes -= recordSize(addresses[slot]);
+                addresses[slot] = address;
+            } else {
+                if (size + 1 > addresses.length * MAX_LOAD) {
+                    resize(addresses.length * 2);
+                }
+                insert(hash, address);
+                size++;
+            }
+            liveBytes += recordSize;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(String id) {
+        byte[] key = id.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(key);
+        lock.writeLock().lock();
+        try {
+            generations.incrementAndGet(stripe(hash));
+            int slot = find(key, hash);
+            if (slot >= 0) {
+                liveBytes -= recordSize(addresses[slot]);
+                removeSlot(slot);
+                size--;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Keeps the slabs allocated
+    void clear() {
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < GENERATION_STRIPES; i++) {
+                generations.incrementAndGet(i);
+            }
+            addresses = new long[1024];
+            hashes = new int[1024];
+            size = 0;
+            liveBytes = 0;
+            current = -1;
+            Arrays.fill(slabUsed, 0);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    long liveBytes() {
+        return liveBytes;
+    }
+
+    long allocatedBytes() {
+        long allocated = 0;
+        for (ByteBuffer slab : slabs) {
+            if (slab != null) {
+                allocated += slab.capacity();
+            }
+        }
+        return allocated;
+    }
+
+    long evicted() {
+        return evicted;
+    }
+
+    // Moves to the next slab when the current one is full, allocating it or evicting what it held
+    private int reserve(int recordSize) {
+        if (current < 0 || slabUsed[current] + recordSize > slabSize) {
+            int next = (current + 1) % slabs.length;
+            if (slabs[next] == null) {
+                slabs[next] = ByteBuffer.allocateDirect(slabSize);
+            } else {
+                evict(next);
+            }
+            current = next;
+            slabUsed[next] = 0;
+        }
+        int offset = slabUsed[current];
+        slabUsed[current] += recordSize;
+        return offset;
+    }
+
+    private void evict(int slabIndex) {
+        ByteBuffer slab = slabs[slabIndex];
+        for (int offset = 0; offset < slabUsed[slabIndex]; ) {
+            int payloadLength = slab.getInt(offset);
+            byte[] key = new byte[slab.getShort(offset + 4)];
+            slab.get(offset + RECORD_HEADER, key);
+            int slot = find(key, hash(key));
+            // Only if the index still points here; otherwise the id was replaced or removed already
+            if (slot >= 0 && addresses[slot] == address(slabIndex, offset)) {
+                liveBytes -= RECORD_HEADER + key.length + payloadLength;
+                removeSlot(slot);
+                size--;
+                evicted++;
+            }
+            offset += RECORD_HEADER + key.length + payloadLength;
+        }
+    }
+
+    private int find(byte[] key, int hash) {
+        int mask = addresses.length - 1;
+        for (int slot = hash & mask; addresses[slot] != 0; slot = (slot + 1) & mask) {
+            if (hashes[slot] == hash && keyEquals(addresses[slot], key)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private void insert(int hash, long address) {
+        int mask = addresses.length - 1;
+        int slot = hash & mask;
+        while (addresses[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        addresses[slot] = address;
+        hashes[slot] = hash;
+    }
+
+    // Backward-shift deletion: later entries of the probe run move into the hole, so no tombstones pile up
+    private void removeSlot(int slot) {
+        int mask = addresses.length - 1;
+        int hole = slot;
+        for (int next = (slot + 1) & mask; addresses[next] != 0; next = (next + 1) & mask) {
+            int home = hashes[next] & mask;
+            boolean movable = hole <= next ? (home <= hole || home > next) : (home <= hole && home > next);
+            if (movable) {
+                addresses[hole] = addresses[next];
+                hashes[hole] = hashes[next];
+                hole = next;
+            }
+        }
+        addresses[hole] = 0;
+        hashes[hole] = 0;
+    }
+
+    private void resize(int capacity) {
+        long[] oldAddresses = addresses;
+        int[] oldHashes = hashes;
+        addresses = new long[capacity];
+        hashes = new int[capacity];
+        for (int i = 0; i < oldAddresses.length; i++) {
+            if (oldAddresses[i] != 0) {
+                insert(oldHashes[i], oldAddresses[i]);
+            }
+        }
+    }
+
+    private boolean keyEquals(long address, byte[] key) {
+        ByteBuffer slab = slabs[slabOf(address)];
+        int offset = offsetOf(address);
+        if (slab.getShort(offset + 4) != key.length) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (slab.get(offset + RECORD_HEADER + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int recordSize(long address) {
+        ByteBuffer slab = slabs[slabOf(address)];
+        int offset = offsetOf(address);
+        return RECORD_HEADER + slab.getShort(offset + 4) + slab.getInt(offset);
+    }
+
+    private static long address(int slab, int offset) {
+        return ((long) (slab + 1) << 32) | offset;
+    }
+
+    private static int slabOf(long address) {
+        return (int) (address >>> 32) - 1;
+    }
+
+    private static int offsetOf(long address) {
+        return (int) address;
+    }
+
+    private static int stripe(int hash) {
+        return hash & (GENERATION_STRIPES - 1);
+    }
+
+    private static int hash(byte[] key) {
+        int hash = 1;
+        for (byte b : key) {
+            hash = 31 * hash + b;
+        }
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        return hash;
+    }
+}
@@ -0,0 +1,377 @@
+package com.rest.server.changelog;
+
+import com.mongodb.MongoClientSettings;
+import com.rest.server.cluster.EntityChange;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.BsonBinaryWriter;
+import org.bson.Document;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+// Append-only log of the creates, updates and deletes made through the services, so in-process consumers
+// (search index, caches, analytics) can follow changes without rescanning collections or reading Mongo again.
+// Records go into memory-mapped segment files under changelog.dir; a flusher forces the active segment every
+// flush-interval-ms, so one msync covers every append since the last (group commit), and readers only see
+// records that are on disk. Offsets are byte positions across segments, each file named after its first offset.
+// Appending never fails the write it describes: that is already in Mongo, so errors are logged and counted.
+@Component
+public class ChangeLog {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChangeLog.class);
+
+    static final String SUFFIX = ".log";
+
+    private static final DocumentCodec CODEC = new DocumentCodec(MongoClientSettings.getDefaultCodecRegistry());
+    private static final byte[] NO_DOCUMENT = new byte[0];
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${changelog.enabled:false}")
+    private boolean enabled;
+
+    @Value("${changelog.dir:data/changelog}")
+    private String dir;
+
+    @Value("${changelog.segment-size-mb:64}")
+    private int segmentSizeMb;
+
+    // Oldest segments are deleted beyond this many
+    @Value("${changelog.retention-segments:16}")
+    private int retentionSegments;
+
+    @Value("${changelog.flush-interval-ms:10}")
+    private long flushIntervalMs;
+
+    private final ConcurrentSkipListMap<Long, LogSegment> segments = new ConcurrentSkipListMap<>();
+    private final Object durableMonitor = new Object();
+    private Path directory;
+    private int segmentSize;
+    // Guarded by this
+    private LogSegment active;
+    private long writtenEnd;
+    private volatile long durableEnd;
+    private volatile boolean running;
+    private Thread flusher;
+    private Counter appends;
+    private Counter failures;
+    private Timer flushTimer;
+
+    @PostConstruct
+    public void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        directory = Path.of(dir);
+        segmentSize = segmentSizeMb << 20;
+        Files.createDirectories(directory);
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(file -> file.getFileName().toString().endsWith(SUFFIX)).sorted().toList();
+        }
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            LogSegment segment = LogSegment.open(file, Long.parseLong(name.substring(0, name.length() - SUFFIX.length())));
+            segments.put(segment.baseOffset(), segment);
+        }
+        if (segments.isEmpty()) {
+            LogSegment first = LogSegment.create(directory, 0, segmentSize);
+            segments.put(first.baseOffset(), first);
+        }
+        active = segments.lastEntry().getValue();
+        writtenEnd = active.baseOffset() + active.end();
+        durableEnd = writtenEnd;
+
+        appends = Counter.builder("changelog.appends").register(meterRegistry);
+        failures = Counter.builder("changelog.append.failures").register(meterRegistry);
+        flushTimer = Timer.builder("changelog.flush").register(meterRegistry);
+        Gauge.builder("changelog.bytes", this, log -> log.endOffset() - log.startOffset()).register(meterRegistry);
+
+        running = true;
+        flusher = new Thread(this::runFlusher, "changelog-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+        logger.info("Change log in {}: {} segments, offsets {} to {}", directory.toAbsolutePath(), segments.size(), startOffset(), durableEnd);
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        flusher.interrupt();
+        flusher.join(1000);
+        flush();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void recordSaved(Object entity) {
+        if (!enabled || entity == null) {
+            return;
+        }
+        try {
+            Document document = new Document();
+            mongoTemplate.getConverter().write(entity, document);
+            append(mongoTemplate.getCollectionName(entity.getClass()), String.valueOf(document.get("_id")),
+                    EntityChange.Operation.UPSERT, encode(document));
+        } catch (RuntimeException e) {
+            failed(e);
+        }
+    }
+
+    public void recordDeleted(Class<?> type, String id) {
+        recordDeleted(type, List.of(id));
+    }
+
+    public void recordDeleted(Class<?> type, Collection<String> ids) {
+        if (!enabled || ids.isEmpty()) {
+            return;
+        }
+        try {
+            String collection = mongoTemplate.getCollectionName(type);
+            for (String id : ids) {
+                append(collection, id, EntityChange.Operation.DELETE, NO_DOCUMENT);
+            }
+        } catch (RuntimeException e) {
+            failed(e);
+        }
+    }
+
+    private void failed(RuntimeException e) {
+        failures.increment();
+        logger.error("Could not append to the change log", e);
+    }
+
+    private void append(String collection, String id, EntityChange.Operation operation, byte[] bson) {
+        byte[] body = body(System.currentTimeMillis(), operation, collection, id, bson);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        int size = LogSegment.HEADER + body.length;
+        if (size > segmentSize) {
+            throw new IllegalArgumentException("Change record of " + size + " bytes does not fit in a segment");
+        }
+        synchronized (this) {
+            if (!active.fits(size)) {
+                roll();
+            }
+            active.append(body, (int) crc.getValue());
+            writtenEnd += size;
+        }
+        appends.increment();
+    }
+
+    // Seals the active segment (forced, so it is complete on disk) and starts the next at the current end
+    private void roll() {
+        try {
+            active.force();
+            LogSegment next = LogSegment.create(directory, writtenEnd, segmentSize);
+            segments.put(next.baseOffset(), next);
+            active = next;
+            while (segments.size() > retentionSegments) {
+                Files.deleteIfExists(segments.pollFirstEntry().getValue().file());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void runFlusher() {
+        while (running) {
+            try {
+                Thread.sleep(flushIntervalMs);
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                logger.warn("Could not flush the change log: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void flush() {
+        long target;
+        LogSegment segment;
+        synchronized (this) {
+            target = writtenEnd;
+            segment = active;
+        }
+        if (target == durableEnd) {
+            return;
+        }
+        // Segments rolled since are already forced
+        flushTimer.record(segment::force);
+        synchronized (durableMonitor) {
+            durableEnd = target;
+            durableMonitor.notifyAll();
+        }
+    }
+
+    // Oldest offset still retained
+    public long startOffset() {
+        Map.Entry<Long, LogSegment> first = segments.firstEntry();
+        return first != null ? first.getKey() : 0;
+    }
+
+    // Offset the next durable record will get
+    public long endOffset() {
+        return durableEnd;
+    }
+
+    // At most max durable records from fromOffset on, which must be startOffset(), endOffset() or a record's nextOffset
+    public List<ChangeRecord> read(long fromOffset, int max) {
+        if (!enabled) {
+            throw new IllegalStateException("The change log is disabled (changelog.enabled)");
+        }
+        long end = durableEnd;
+        if (fromOffset < startOffset() || fromOffset > end) {
+            throw new IllegalArgumentException("Offset " + fromOffset + " is outside the retained log (" + startOffset() + " to " + end + ")");
+        }
+        List<ChangeRecord> records = new ArrayList<>();
+        long offset = fromOffset;
+        while (records.size() < max && offset < end) {
+            Map.Entry<Long, LogSegment> segment = segments.floorEntry(offset);
+            if (segment == null) {
+                throw new IllegalArgumentException("Offset " + offset + " is no longer retained");
+            }
+            ChangeRecord record = segment.getValue().read(offset);
+            records.add(record);
+            offset = record.nextOffset();
+        }
+        return records;
+    }
+
+    // False if nothing past offset became durable within timeoutMs
+    public boolean awaitRecords(long offset, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        synchronized (durableMonitor) {
+            while (durableEnd <= offset) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                durableMonitor.wait(remaining);
+            }
+        }
+        return true;
+    }
+
+    // Hands every record from fromOffset on to consumer, in order, on a thread of its own. A consumer that throws
+    // gets the same record again a second later, so each record is seen at least once; checkpoint Tailer.offset().
+    public Tailer tail(long fromOffset, Consumer<ChangeRecord> consumer) {
+        // Fails fast on an offset outside the log
+        read(fromOffset, 0);
+        Tailer tailer = new Tailer(fromOffset, consumer);
+        tailer.thread.start();
+        return tailer;
+    }
+
+    public final class Tailer implements AutoCloseable {
+        private final Consumer<ChangeRecord> consumer;
+        private final Thread thread;
+        private volatile long offset;
+        private volatile boolean closed;
+
+        private Tailer(long fromOffset, Consumer<ChangeRecord> consumer) {
+            this.offset = fromOffset;
+            this.consumer = consumer;
+            this.thread = new Thread(this::run, "changelog-tail");
+            thread.setDaemon(true);
+        }
+
+        // Offset of the next record to deliver
+        public long offset() {
+            return offset;
+        }
+
+        private void run() {
+            while (!closed) {
+                try {
+                    List<ChangeRecord> records = read(offset, 500);
+                    if (records.isEmpty()) {
+                        awaitRecords(offset, 1000);
+                        continue;
+                    }
+                    for (ChangeRecord record : records) {
+                        if (closed) {
+                            return;
+                        }
+                        consumer.accept(record);
+                        offset = record.nextOffset();
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                } catch (IllegalArgumentException e) {
+                    logger.error("Change log tailer stopped: {}", e.getMessage());
+                    return;
+                } catch (RuntimeException e) {
+                    logger.warn("Change log consumer failed at offset {}, retrying: {}", offset, e.getMessage());
+                    try {
+                        Thread.sleep(1000);
+                    } catch (InterruptedException interrupted) {
+                        return;
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            thread.interrupt();
+        }
+    }
+
+    // [long timestamp][byte operation][short length + collection][short length + id][BSON document, if any]
+    private static byte[] body(long timestamp, EntityChange.Operation operation, String collection, String id, byte[] bson) {
+        byte[] collectionBytes = collection.getBytes(StandardCharsets.UTF_8);
+        byte[] idBytes = id.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer body = ByteBuffer.allocate(8 + 1 + 2 + collectionBytes.length + 2 + idBytes.length + bson.length);
+        body.putLong(timestamp);
+        body.put((byte) operation.ordinal());
+        body.putShort((short) collectionBytes.length).put(collectionBytes);
+        body.putShort((short) idBytes.length).put(idBytes);
+        body.put(bson);
+        return body.array();
+    }
+
+    private static byte[] encode(Document document) {
+        BasicOutputBuffer bson = new BasicOutputBuffer();
+        CODEC.encode(new BsonBinaryWriter(bson), document, EncoderContext.builder().build());
+        return bson.toByteArray();
+    }
+}
@@ -0,0 +1,29 @@
+package com.rest.server.changelog;
+
+import com.mongodb.MongoClientSettings;
+import com.rest.server.cluster.EntityChange;
+import org.bson.BsonBinaryReader;
+import org.bson.Document;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+
+import java.nio.ByteBuffer;
+
+// One entry of the change log: the document as BSON after a create or update, nothing for a delete.
+// nextOffset is where the following record starts, i.e. the offset to resume from once this one is handled.
+public record ChangeRecord(long offset, long nextOffset, long timestamp, String collection, String id,
+                           EntityChange.Operation operation, byte[] bson) {
+
+    private static final DocumentCodec CODEC = new DocumentCodec(MongoClientSettings.getDefaultCodecRegistry());
+
+    // Null for a delete
+    public Document document() {
+        return bson.length == 0 ? null : CODEC.decode(new BsonBinaryReader(ByteBuffer.wrap(bson)), DecoderContext.builder().build());
+    }
+
+    // So an EntityChangeListener can follow the log as it follows the change stream
+    public EntityChange toEntityChange(MongoConverter converter) {
+        return new EntityChange(collection, id, operation, document(), converter);
+    }
+}
@@ -0,0 +1,120 @@
+package com.rest.server.changelog;
+
+import com.rest.server.cluster.EntityChange;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+// One memory-mapped file of the change log, preallocated to the segment size. A record is
+// [int body length][int CRC32 of body][body] and never spans two segments; a zero length marks the end.
+final class LogSegment {
+
+    static final int HEADER = 8;
+
+    private final Path file;
+    private final long baseOffset;
+    private final MappedByteBuffer buffer;
+    // Written under the log's lock, read by the flusher
+    private volatile int end;
+
+    private LogSegment(Path file, long baseOffset, MappedByteBuffer buffer, int end) {
+        this.file = file;
+        this.baseOffset = baseOffset;
+        this.buffer = buffer;
+        this.end = end;
+    }
+
+    static LogSegment create(Path directory, long baseOffset, int size) throws IOException {
+        Path file = directory.resolve(String.format("%020d%s", baseOffset, ChangeLog.SUFFIX));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return new LogSegment(file, baseOffset, channel.map(FileChannel.MapMode.READ_WRITE, 0, size), 0);
+        }
+    }
+
+    // Keeps the records up to the first torn or corrupt one (a crash mid-append) and clears what follows it
+    static LogSegment open(Path file, long baseOffset) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        }
+        int position = 0;
+        while (position + HEADER <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + HEADER + length > buffer.capacity()
+                    || buffer.getInt(position + 4) != crc(buffer, position + HEADER, length)) {
+                int torn = length > 0 ? (int) Math.min(buffer.capacity(), (long) position + HEADER + length) : position + HEADER;
+                for (int i = position; i < Math.min(torn, buffer.capacity()); i++) {
+                    buffer.put(i, (byte) 0);
+                }
+                break;
+            }
+            position += HEADER + length;
+        }
+        return new LogSegment(file, baseOffset, buffer, position);
+    }
+
+    Path file() {
+        return file;
+    }
+
+    long baseOffset() {
+        return baseOffset;
+    }
+
+    int end() {
+        return end;
+    }
+
+    boolean fits(int recordSize) {
+        return end + recordSize <= buffer.capacity();
+    }
+
+    // Caller holds the log's lock
+    void append(byte[] body, int crc) {
+        int position = end;
+        buffer.putInt(position + 4, crc);
+        buffer.put(position + HEADER, body);
+        buffer.putInt(position, body.length);
+        end = position + HEADER + body.length;
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    // offset must be the start of a record below the durable end
+    ChangeRecord read(long offset) {
+        int position = (int) (offset - baseOffset);
+        int length = position >= 0 && position + HEADER <= buffer.capacity() ? buffer.getInt(position) : 0;
+        if (length <= 0 || position + HEADER + length > buffer.capacity()
+                || buffer.getInt(position + 4) != crc(buffer, position + HEADER, length)) {
+            throw new IllegalArgumentException("No change record at offset " + offset);
+        }
+        ByteBuffer body = buffer.slice(position + HEADER, length);
+        long timestamp = body.getLong();
+        EntityChange.Operation operation = EntityChange.Operation.values()[body.get()];
+        String collection = string(body);
+        String id = string(body);
+        byte[] bson = new byte[body.remaining()];
+        body.get(bson);
+        return new ChangeRecord(offset, offset + HEADER + length, timestamp, collection, id, operation, bson);
+    }
+
+    private static String string(ByteBuffer body) {
+        byte[] bytes = new byte[body.getShort()];
+        body.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int crc(ByteBuffer buffer, int position, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(position, length));
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,255 @@
+package com.rest.server.cluster;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.FullDocumentBeforeChange;
+import com.mongodb.client.model.changestream.OperationType;
+import com.rest.server.models.ChangeStreamCheckpoint;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Cluster-wide cache invalidation without a broker: every node tails one change stream over the
+// collections its EntityChangeListeners follow and hands each change to them, whichever node made it.
+// The resume token is checkpointed per node, so a restarted node replays what it missed; if the token
+// has fallen off the oplog the listeners are told to rebuild instead. Needs a replica set, hence off by default.
+// Collections in cluster.invalidation.pre-images record pre-images (MongoDB 6.0+), so their deletes carry the
+// deleted document instead of just its id.
+@Component
+public class ChangeStreamInvalidationBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChangeStreamInvalidationBus.class);
+
+    // ChangeStreamHistoryLost, ChangeStreamFatalError
+    private static final Set<Integer> HISTORY_LOST_CODES = Set.of(286, 280);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private List<EntityChangeListener> listeners;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${cluster.invalidation.enabled:false}")
+    private boolean enabled;
+
+    @Value("${cluster.node-id:${HOSTNAME:local}}")
+    private String nodeId;
+
+    @Value("${cluster.invalidation.checkpoint-ms:1000}")
+    private long checkpointMs;
+
+    @Value("${cluster.invalidation.retry-ms:5000}")
+    private long retryMs;
+
+    @Value("${cluster.invalidation.pre-images:comments}")
+    private Set<String> preImageCollections;
+
+    private final Map<String, List<EntityChangeListener>> listenersByCollection = new HashMap<>();
+    private volatile boolean running;
+    private boolean preImages;
+    private Thread thread;
+    private Counter events;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        for (EntityChangeListener listener : listeners) {
+            for (String collection : listener.collections()) {
+                listenersByCollection.computeIfAbsent(collection, key -> new ArrayList<>()).add(listener);
+            }
+        }
+        events = Counter.builder("cluster.invalidation.events").register(meterRegistry);
+        preImages = enablePreImages();
+        running = true;
+        thread = new Thread(this::run, "change-stream-bus");
+        thread.setDaemon(true);
+        thread.start();
+        logger.info("Following changes on {} as node {}", listenersByCollection.keySet(), nodeId);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                tail();
+            } catch (MongoCommandException e) {
+                if (!HISTORY_LOST_CODES.contains(e.getErrorCode())) {
+                    logger.warn("Change stream failed, retrying in {} ms: {}", retryMs, e.getMessage());
+                    pause();
+                    continue;
+                }
+                logger.warn("Resume token for node {} is no longer usable, rebuilding caches: {}", nodeId, e.getMessage());
+                mongoTemplate.remove(Query.query(Criteria.where("_id").is(nodeId)), ChangeStreamCheckpoint.class);
+                resync(listeners);
+            } catch (RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                logger.warn("Change stream failed, retrying in {} ms: {}", retryMs, e.getMessage());
+                pause();
+            }
+        }
+    }
+
+    private void tail() {
+        ChangeStreamCheckpoint checkpoint = mongoTemplate.findById(nodeId, ChangeStreamCheckpoint.class);
+        ChangeStreamIterable<Document> stream = mongoTemplate.getDb()
+                .watch(List.of(Aggregates.match(Filters.in("ns.coll", listenersByCollection.keySet()))))
+                .fullDocument(FullDocument.UPDATE_LOOKUP)
+                .maxAwaitTime(1, TimeUnit.SECONDS);
+        if (preImages) {
+            stream = stream.fullDocumentBeforeChange(FullDocumentBeforeChange.WHEN_AVAILABLE);
+        }
+        if (checkpoint != null && checkpoint.getResumeToken() != null) {
+            stream = stream.resumeAfter(BsonDocument.parse(checkpoint.getResumeToken()));
+        }
+        try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = stream.cursor()) {
+            long lastCheckpoint = System.currentTimeMillis();
+            while (running) {
+                ChangeStreamDocument<Document> event = cursor.tryNext();
+                if (event != null) {
+                    dispatch(event);
+                }
+                long now = System.currentTimeMillis();
+                if (now - lastCheckpoint >= checkpointMs) {
+                    saveCheckpoint(cursor.getResumeToken());
+                    lastCheckpoint = now;
+                }
+            }
+            saveCheckpoint(cursor.getResumeToken());
+        }
+    }
+
+    private void dispatch(ChangeStreamDocument<Document> event) {
+        if (event.getNamespace() == null) {
+            return;
+        }
+        String collection = event.getNamespace().getCollectionName();
+        List<EntityChangeListener> targets = listenersByCollection.getOrDefault(collection, List.of());
+        OperationType type = event.getOperationType();
+        if (type == OperationType.DROP || type == OperationType.RENAME || type == OperationType.DROP_DATABASE
+                || type == OperationType.INVALIDATE) {
+            resync(targets);
+            return;
+        }
+        if (event.getDocumentKey() == null) {
+            return;
+        }
+        String id = idOf(event.getDocumentKey().get("_id"));
+        EntityChange change;
+        if (type == OperationType.INSERT || type == OperationType.UPDATE || type == OperationType.REPLACE) {
+            // The update lookup finds nothing when the document was deleted in the meantime
+            Document document = event.getFullDocument();
+            change = document != null
+                    ? new EntityChange(collection, id, EntityChange.Operation.UPSERT, document, mongoTemplate.getConverter())
+                    : new EntityChange(collection, id, EntityChange.Operation.DELETE, null, mongoTemplate.getConverter());
+        } else if (type == OperationType.DELETE) {
+            // The pre-image, where the collection records them
+            change = new EntityChange(collection, id, EntityChange.Operation.DELETE, event.getFullDocumentBeforeChange(),
+                    mongoTemplate.getConverter());
+        } else {
+            return;
+        }
+        events.increment();
+        for (EntityChangeListener listener : targets) {
+            try {
+                listener.onEntityChange(change);
+            } catch (RuntimeException e) {
+                logger.warn("{} failed to apply {} {} {}: {}", listener.getClass().getSimpleName(),
+                        change.operation(), collection, id, e.getMessage());
+            }
+        }
+    }
+
+    // Without pre-images the stream still works, deletes just carry the id alone
+    private boolean enablePreImages() {
+        List<String> collections = preImageCollections.stream().filter(listenersByCollection::containsKey).toList();
+        if (collections.isEmpty()) {
+            return false;
+        }
+        try {
+            for (String collection : collections) {
+                mongoTemplate.getDb().runCommand(new Document("collMod", collection)
+                        .append("changeStreamPreAndPostImages", new Document("enabled", true)));
+            }
+            return true;
+        } catch (RuntimeException e) {
+            logger.warn("Could not record pre-images of {}, their deletes will carry only the id: {}", collections, e.getMessage());
+            return false;
+        }
+    }
+
+    private void resync(List<EntityChangeListener> targets) {
+        for (EntityChangeListener listener : targets) {
+            try {
+                listener.onResync();
+            } catch (RuntimeException e) {
+                logger.warn("{} failed to resync: {}", listener.getClass().getSimpleName(), e.getMessage());
+            }
+        }
+    }
+
+    private void saveCheckpoint(BsonDocument resumeToken) {
+        if (resumeToken != null) {
+            mongoTemplate.save(new ChangeStreamCheckpoint(nodeId, resumeToken.toJson(), new Date()));
+        }
+    }
+
+    private void pause() {
+        try {
+            TimeUnit.MILLISECONDS.sleep(retryMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    private static String idOf(BsonValue id) {
+        if (id == null) {
+            return null;
+        }
+        if (id.isObjectId()) {
+            return id.asObjectId().getValue().toHexString();
+        }
+        if (id.isString()) {
+            return id.asString().getValue();
+        }
+        return id.toString();
+    }
+}
@@ -0,0 +1,21 @@
+package com.rest.server.cluster;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+
+import java.util.Optional;
+
+// One document change seen on the change stream, possibly made by another node
+public record EntityChange(String collection, String id, Operation operation, Document document, MongoConverter converter) {
+
+    public enum Operation {
+        // Insert, update or replace; document holds the current version
+        UPSERT,
+        // document holds the deleted version when the collection records pre-images, otherwise null
+        DELETE
+    }
+
+    public <T> Optional<T> documentAs(Class<T> type) {
+        return document != null ? Optional.of(converter.read(type, document)) : Optional.empty();
+    }
+}
@@ -0,0 +1,17 @@
+package com.rest.server.cluster;
+
+import java.util.Set;
+
+// Implemented by in-process caches and indexes that must follow writes made on any node.
+// Changes made by this node come back as well, so handling has to be idempotent.
+public interface EntityChangeListener {
+
+    // Mongo collection names this listener follows
+    Set<String> collections();
+
+    void onEntityChange(EntityChange change);
+
+    // Changes may have been missed (resume token expired, collection dropped): rebuild from Mongo
+    default void onResync() {
+    }
+}
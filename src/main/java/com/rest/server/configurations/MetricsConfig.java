@@ -0,0 +1,30 @@
+package com.rest.server.configurations;
+
+import com.rest.server.monitoring.MongoCommandMetricsListener;
+import com.rest.server.monitoring.SlowQueryProfiler;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    // Enables @Timed on service classes (method.timed metric, tagged by class and method)
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoCommandMetricsCustomizer(MeterRegistry meterRegistry) {
+        MongoCommandMetricsListener listener = new MongoCommandMetricsListener(meterRegistry);
+        return settings -> settings.addCommandListener(listener);
+    }
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer slowQueryProfilerCustomizer(SlowQueryProfiler slowQueryProfiler) {
+        return settings -> settings.addCommandListener(slowQueryProfiler);
+    }
+}
@@ -0,0 +1,127 @@
+package com.rest.server.configurations;
+
+import com.rest.server.models.ArchivedCommentChunk;
+import com.rest.server.models.ArchivedPost;
+import com.rest.server.models.CascadeJob;
+import com.rest.server.models.Comment;
+import com.rest.server.models.Follow;
+import com.rest.server.models.IdempotencyRecord;
+import com.rest.server.models.Location;
+import com.rest.server.models.Post;
+import com.rest.server.models.Rollup;
+import com.rest.server.models.TokenRevocation;
+import com.rest.server.models.User;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ConvertOperators;
+import org.springframework.data.mongodb.core.aggregation.StringOperators;
+import org.springframework.data.mongodb.core.index.GeoSpatialIndexType;
+import org.springframework.data.mongodb.core.index.GeospatialIndex;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Date;
+
+// Creates the indexes the application relies on (unique emails, TTL expiry, cascade, feed, thread, rollup
+// and archive lookups) and, once per database, gives comments written before reply threads their path.
+// Runs on a background thread once the app is up so startup never waits for Mongo.
+@Component
+public class MongoIndexInitializer {
+
+    private static final Logger logger = LoggerFactory.getLogger(MongoIndexInitializer.class);
+
+    // One marker document per finished data migration
+    private static final String MIGRATIONS = "migrations";
+    private static final String COMMENT_PATHS = "comment-paths";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${mongo.index-init.enabled:true}")
+    private boolean enabled;
+
+    @Value("${idempotency.ttl:24h}")
+    private Duration idempotencyTtl;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        if (!enabled) {
+            return;
+        }
+        Thread thread = new Thread(this::createIndexes, "mongo-index-init");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void createIndexes() {
+        ensure(User.class, new Index().on("userEmail", Sort.Direction.ASC).unique().named("userEmail_unique"));
+        ensure(User.class, new Index().on("userLocationId", Sort.Direction.ASC));
+        ensure(Location.class, new GeospatialIndex("locationPoint").typed(GeoSpatialIndexType.GEO_2DSPHERE));
+        ensure(Comment.class, new Index().on("commentPostId", Sort.Direction.ASC));
+        ensure(Comment.class, new Index().on("commentOwnerId", Sort.Direction.ASC));
+        ensure(Comment.class, new Index().on("commentOwnerId", Sort.Direction.ASC).on("commentPublishDate", Sort.Direction.DESC));
+        ensure(Comment.class, new Index().on("commentPostId", Sort.Direction.ASC).on("commentPath", Sort.Direction.ASC)
+                .on("commentDepth", Sort.Direction.ASC));
+        ensure(Post.class, new Index().on("postOwnerId", Sort.Direction.ASC));
+        ensure(Post.class, new Index().on("postOwnerId", Sort.Direction.ASC).on("postPublishDate", Sort.Direction.DESC));
+        ensure(Post.class, new Index().on("postTags", Sort.Direction.ASC).on("postPublishDate", Sort.Direction.DESC));
+        ensure(Post.class, new Index().on("postPublishDate", Sort.Direction.ASC));
+        ensure(ArchivedPost.class, new Index().on("postOwnerId", Sort.Direction.ASC));
+        ensure(ArchivedCommentChunk.class, new Index().on("postId", Sort.Direction.ASC).on("chunk", Sort.Direction.ASC));
+        ensure(Follow.class, new Index().on("followerId", Sort.Direction.ASC).on("targetType", Sort.Direction.ASC)
+                .on("targetId", Sort.Direction.ASC).unique().named("follow_unique"));
+        ensure(Follow.class, new Index().on("targetType", Sort.Direction.ASC).on("targetId", Sort.Direction.ASC)
+                .on("createdAt", Sort.Direction.ASC));
+        ensure(CascadeJob.class, new Index().on("status", Sort.Direction.ASC).on("createdAt", Sort.Direction.ASC));
+        ensure(Rollup.class, new Index().on("metric", Sort.Direction.ASC).on("granularity", Sort.Direction.ASC)
+                .on("bucket", Sort.Direction.ASC).on("key", Sort.Direction.ASC));
+        ensure(Rollup.class, new Index().on("metric", Sort.Direction.ASC).on("granularity", Sort.Direction.ASC)
+                .on("key", Sort.Direction.ASC).on("bucket", Sort.Direction.ASC));
+        ensure(Rollup.class, new Index().on("expiresAt", Sort.Direction.ASC).expire(Duration.ZERO).named("expiresAt_ttl"));
+        ensure(IdempotencyRecord.class, new Index().on("createdAt", Sort.Direction.ASC).expire(idempotencyTtl).named("createdAt_ttl"));
+        ensure(TokenRevocation.class, new Index().on("expiresAt", Sort.Direction.ASC).expire(Duration.ZERO).named("expiresAt_ttl"));
+        ensure(TokenRevocation.class, new Index().on("createdAt", Sort.Direction.ASC));
+        backfillCommentPaths();
+    }
+
+    // Comments without a path predate replies, so they are top-level: path "<id>/", depth 0. Every comment
+    // written since gets its path on insert, so the scan only has to run once; nodes racing on it is harmless
+    private void backfillCommentPaths() {
+        try {
+            if (mongoTemplate.exists(Query.query(Criteria.where("_id").is(COMMENT_PATHS)), MIGRATIONS)) {
+                return;
+            }
+            long updated = mongoTemplate.updateMulti(Query.query(Criteria.where("commentPath").exists(false)),
+                    AggregationUpdate.update()
+                            .set("commentPath").toValue(StringOperators.Concat.valueOf(ConvertOperators.valueOf("_id").convertToString()).concat("/"))
+                            .set("commentDepth").toValue(0),
+                    Comment.class).getModifiedCount();
+            if (updated > 0) {
+                logger.info("Backfilled the thread path of {} comments", updated);
+            }
+            mongoTemplate.save(new Document("_id", COMMENT_PATHS).append("completedAt", new Date()), MIGRATIONS);
+        } catch (RuntimeException e) {
+            logger.warn("Could not backfill comment paths: {}", e.getMessage());
+        }
+    }
+
+    private void ensure(Class<?> entity, IndexDefinition index) {
+        try {
+            mongoTemplate.indexOps(entity).ensureIndex(index);
+        } catch (RuntimeException e) {
+            logger.warn("Could not create index {} on {}: {}", index.getIndexKeys().toJson(), entity.getSimpleName(), e.getMessage());
+        }
+    }
+}
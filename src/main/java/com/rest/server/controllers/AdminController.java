@@ -0,0 +1,51 @@
+package com.rest.server.controllers;
+
+import com.rest.server.exception.ResourceNotFoundException;
+import com.rest.server.models.CascadeJob;
+import com.rest.server.monitoring.SlowQueryFinding;
+import com.rest.server.monitoring.SlowQueryProfiler;
+import com.rest.server.services.CascadeDeleteService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/admin")
+public class AdminController {
+
+    @Autowired
+    private SlowQueryProfiler slowQueryProfiler;
+    @Autowired
+    private CascadeDeleteService cascadeDeleteService;
+
+    @GetMapping("/slow-queries")
+    public List<SlowQueryFinding> slowQueries(@RequestParam(defaultValue = "false") boolean flaggedOnly) {
+        List<SlowQueryFinding> findings = slowQueryProfiler.findings();
+        if (flaggedOnly) {
+            return findings.stream().filter(finding -> !finding.flags().isEmpty()).toList();
+        }
+        return findings;
+    }
+
+    @DeleteMapping("/slow-queries")
+    public ResponseEntity<Void> clearSlowQueries() {
+        slowQueryProfiler.clear();
+        return ResponseEntity.noContent().build();
+    }
+
+    // Progress of the background cascades started by post/user deletes
+    @GetMapping("/jobs")
+    public Page<CascadeJob> jobs(@RequestParam(defaultValue = "0") int page,
+                                 @RequestParam(defaultValue = "20") int size) {
+        return cascadeDeleteService.recentJobs(page, size);
+    }
+
+    @GetMapping("/jobs/{id}")
+    public CascadeJob job(@PathVariable String id) {
+        return cascadeDeleteService.findJob(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Job not found with ID: " + id));
+    }
+}
@@ -1,13 +1,18 @@
 package com.rest.server.controllers;
 
+import com.rest.server.exception.TooManyRequestsException;
 import com.rest.server.models.LoginDto;
+import com.rest.server.models.RefreshTokenDto;
 import com.rest.server.models.User;
-import com.rest.server.repositories.UserRepository;
+import com.rest.server.security.LoginThrottle;
+import com.rest.server.security.TokenPair;
+import com.rest.server.security.TokenService;
 import com.rest.server.services.AuthenticationService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
@@ -22,16 +27,20 @@ public class AuthController {
     @Autowired
     private AuthenticationService authenticationService;
     @Autowired
-    private UserRepository userRepository;
+    private LoginThrottle loginThrottle;
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private TokenService tokenService;
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody LoginDto loginDto) {
+    public ResponseEntity<?> login(@RequestBody LoginDto loginDto, HttpServletRequest request) {
 
-        Optional<User> userOptional = userRepository.findByUserEmail(loginDto.getUserEmail());
+        if (!loginThrottle.tryAcquire(loginDto.getUserEmail(), request.getRemoteAddr())) {
+            throw new TooManyRequestsException("Too many login attempts, try again later");
+        }
+
+        Optional<User> userOptional = authenticationService.authenticateUser(loginDto.getUserEmail(), loginDto.getUserPassword());
 
-        if (userOptional.isPresent() && passwordEncoder.matches(loginDto.getUserPassword(), userOptional.get().getUserPassword())) {
-            Map<String, String> response = new HashMap<>();
+        if (userOptional.isPresent()) {
+            Map<String, Object> response = tokenResponse(tokenService.issue(userOptional.get().getId()));
             response.put("userId", userOptional.get().getId());
             response.put("message", "User authenticated successfully");
 
@@ -41,4 +50,36 @@ public class AuthController {
         }
     }
 
-}
\ No newline at end of file
+    // Exchanges a refresh token for a new token pair without re-checking the password
+    @PostMapping("/token/refresh")
+    public ResponseEntity<?> refresh(@RequestBody RefreshTokenDto refreshTokenDto) {
+        if (refreshTokenDto.getRefreshToken() == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid or expired refresh token");
+        }
+        return tokenService.refresh(refreshTokenDto.getRefreshToken())
+                .<ResponseEntity<?>>map(pair -> ResponseEntity.ok().body(tokenResponse(pair)))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid or expired refresh token"));
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                                    @RequestBody(required = false) RefreshTokenDto refreshTokenDto) {
+        if (authorization != null && authorization.startsWith("Bearer ")) {
+            tokenService.revoke(authorization.substring("Bearer ".length()).trim());
+        }
+        if (refreshTokenDto != null && refreshTokenDto.getRefreshToken() != null) {
+            tokenService.revoke(refreshTokenDto.getRefreshToken());
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    private Map<String, Object> tokenResponse(TokenPair pair) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("accessToken", pair.accessToken());
+        response.put("refreshToken", pair.refreshToken());
+        response.put("tokenType", "Bearer");
+        response.put("expiresIn", pair.expiresIn());
+        return response;
+    }
+
+}
@@ -48,6 +48,15 @@ public class GlobalExceptionHandler {
     }
 
 
+    // Handle overload / throttling
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<String> handleTooManyRequests(TooManyRequestsException ex) {
+        return ResponseEntity
+                .status(HttpStatus.TOO_MANY_REQUESTS)
+                .header("Retry-After", "1")
+                .body(ex.getMessage());
+    }
+
     // Handle invalid path
     @ExceptionHandler(NoHandlerFoundException.class)
     public ResponseEntity<String> handlePathNotFound(NoHandlerFoundException ex) {
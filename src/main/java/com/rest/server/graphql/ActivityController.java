@@ -0,0 +1,42 @@
+package com.rest.server.graphql;
+
+import com.rest.server.services.ActivityService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.graphql.data.method.annotation.Argument;
+import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.stereotype.Controller;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Controller
+public class ActivityController {
+
+    private final ActivityService activityService;
+
+    @Autowired
+    public ActivityController(ActivityService activityService) {
+        this.activityService = activityService;
+    }
+
+    // Nodes are Post or Comment instances; the ActivityNode union is resolved from the class name
+    @QueryMapping
+    public Map<String, Object> activity(@Argument String userId, @Argument Integer first, @Argument String after) {
+        ActivityService.ActivityPage page = activityService.activity(userId, first != null ? first : 20, after);
+
+        List<Map<String, Object>> edges = new ArrayList<>();
+        for (int i = 0; i < page.items().size(); i++) {
+            edges.add(Map.of("cursor", page.cursors().get(i), "node", page.items().get(i)));
+        }
+        Map<String, Object> pageInfo = new HashMap<>();
+        pageInfo.put("hasNextPage", page.hasNextPage());
+        pageInfo.put("endCursor", page.cursors().isEmpty() ? null : page.cursors().get(page.cursors().size() - 1));
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("edges", edges);
+        response.put("pageInfo", pageInfo);
+        return response;
+    }
+}
@@ -0,0 +1,26 @@
+package com.rest.server.graphql;
+
+import com.rest.server.security.TokenAuthenticationFilter;
+import org.springframework.graphql.server.WebGraphQlInterceptor;
+import org.springframework.graphql.server.WebGraphQlRequest;
+import org.springframework.graphql.server.WebGraphQlResponse;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+// Exposes the user id from a validated access token as the "userId" GraphQL context value,
+// e.g. @ContextValue(name = "userId", required = false) String userId
+@Component
+public class AuthenticatedUserInterceptor implements WebGraphQlInterceptor {
+
+    public static final String USER_ID = "userId";
+
+    @Override
+    public Mono<WebGraphQlResponse> intercept(WebGraphQlRequest request, Chain chain) {
+        Object userId = request.getAttributes().get(TokenAuthenticationFilter.USER_ID_ATTRIBUTE);
+        if (userId != null) {
+            request.configureExecutionInput((input, builder) ->
+                    builder.graphQLContext(context -> context.put(USER_ID, userId)).build());
+        }
+        return chain.next(request);
+    }
+}
@@ -18,8 +18,11 @@ import org.springframework.stereotype.Controller;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Controller
 public class CommentController {
@@ -94,18 +97,44 @@ public class CommentController {
         return result;
     }
 
+    @QueryMapping
+    public Map<String, Object> replies(@Argument String commentId, @Argument Integer first, @Argument String after) {
+        return connection(commentService.replies(commentId, first != null ? first : 20, after));
+    }
+
+    @QueryMapping
+    public Map<String, Object> commentThread(@Argument String postId, @Argument Integer depth, @Argument Integer first, @Argument String after) {
+        return connection(commentService.commentThread(postId, depth != null ? depth : 1, first != null ? first : 20, after));
+    }
+
+    private static Map<String, Object> connection(CommentService.ThreadPage page) {
+        List<Map<String, Object>> edges = new ArrayList<>();
+        for (int i = 0; i < page.comments().size(); i++) {
+            edges.add(Map.of("cursor", page.cursors().get(i), "node", page.comments().get(i)));
+        }
+        Map<String, Object> pageInfo = new HashMap<>();
+        pageInfo.put("hasNextPage", page.hasNextPage());
+        pageInfo.put("endCursor", page.cursors().isEmpty() ? null : page.cursors().get(page.cursors().size() - 1));
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("edges", edges);
+        response.put("pageInfo", pageInfo);
+        return response;
+    }
+
     @MutationMapping
-    public Comment createComment(@Argument CommentCreateInput input) {
+    public CompletableFuture<Comment> createComment(@Argument CommentCreateInput input) {
         Comment comment = new Comment();
         comment.setCommentMessage(input.getCommentMessage());
 
         comment.setCommentOwnerId(input.getCommentOwner());
         comment.setCommentPostId(input.getCommentPost());
+        comment.setParentCommentId(input.getParentComment());
 
         comment.setCommentPublishDate(OffsetDateTime.now(ZoneOffset.UTC)
                 .format(DateTimeFormatter.ISO_OFFSET_DATE_TIME));
 
-        return commentService.createComment(comment);
+        return commentService.createCommentAsync(comment);
     }
 
     @MutationMapping
@@ -147,6 +176,17 @@ public class CommentController {
         return comment.getCommentPostId();
     }
 
+    @SchemaMapping(typeName = "Comment", field = "parentComment")
+    public String getParentComment(Comment comment) {
+        return comment.getParentCommentId();
+    }
+
+    // Comments written before threading are top-level
+    @SchemaMapping(typeName = "Comment", field = "depth")
+    public int getDepth(Comment comment) {
+        return comment.getCommentDepth() != null ? comment.getCommentDepth() : 0;
+    }
+
     @SchemaMapping(typeName = "Comment", field = "id")
     public String getId(Comment comment) {
         return comment.getCommentId();
@@ -163,6 +203,9 @@ public class CommentController {
         @JsonProperty("commentPost")
         private String commentPost;
 
+        @JsonProperty("parentComment")
+        private String parentComment;
+
         public String getCommentMessage() { return commentMessage; }
         public void setCommentMessage(String commentMessage) { this.commentMessage = commentMessage; }
 
@@ -171,6 +214,9 @@ public class CommentController {
 
         public String getCommentPost() { return commentPost; }
         public void setCommentPost(String commentPost) { this.commentPost = commentPost; }
+
+        public String getParentComment() { return parentComment; }
+        public void setParentComment(String parentComment) { this.parentComment = parentComment; }
     }
 
     public static class CommentUpdateInput {
@@ -0,0 +1,90 @@
+package com.rest.server.graphql;
+
+import com.rest.server.models.Post;
+import com.rest.server.services.FeedService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.graphql.data.method.annotation.Argument;
+import org.springframework.graphql.data.method.annotation.ContextValue;
+import org.springframework.graphql.data.method.annotation.MutationMapping;
+import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Controller;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Controller
+public class FeedController {
+
+    private final FeedService feedService;
+
+    @Autowired
+    public FeedController(FeedService feedService) {
+        this.feedService = feedService;
+    }
+
+    @QueryMapping
+    public Map<String, Object> feed(@Argument Integer first, @Argument String after,
+                                    @ContextValue(name = AuthenticatedUserInterceptor.USER_ID, required = false) String currentUserId) {
+        FeedService.FeedPage page = feedService.feed(requireUser(currentUserId), first != null ? first : 20, after);
+
+        List<Map<String, Object>> edges = new ArrayList<>();
+        for (int i = 0; i < page.posts().size(); i++) {
+            Post post = page.posts().get(i);
+            edges.add(Map.of("cursor", page.cursors().get(i), "node", post));
+        }
+        Map<String, Object> pageInfo = new HashMap<>();
+        pageInfo.put("hasNextPage", page.hasNextPage());
+        pageInfo.put("endCursor", page.cursors().isEmpty() ? null : page.cursors().get(page.cursors().size() - 1));
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("edges", edges);
+        response.put("pageInfo", pageInfo);
+        return response;
+    }
+
+    @QueryMapping
+    public List<Map<String, Object>> following(@Argument String userId,
+                                               @ContextValue(name = AuthenticatedUserInterceptor.USER_ID, required = false) String currentUserId) {
+        return feedService.following(resolveUser(currentUserId, userId)).stream()
+                .map(follow -> {
+                    Map<String, Object> entry = new HashMap<>();
+                    entry.put("targetType", follow.getTargetType());
+                    entry.put("targetId", follow.getTargetId());
+                    entry.put("createdAt", follow.getCreatedAt() != null ? follow.getCreatedAt().toInstant().toString() : null);
+                    return entry;
+                })
+                .toList();
+    }
+
+    @MutationMapping
+    public boolean follow(@Argument String targetType, @Argument String targetId,
+                          @ContextValue(name = AuthenticatedUserInterceptor.USER_ID, required = false) String currentUserId) {
+        return feedService.follow(requireUser(currentUserId), targetType, targetId);
+    }
+
+    @MutationMapping
+    public boolean unfollow(@Argument String targetType, @Argument String targetId,
+                            @ContextValue(name = AuthenticatedUserInterceptor.USER_ID, required = false) String currentUserId) {
+        return feedService.unfollow(requireUser(currentUserId), targetType, targetId);
+    }
+
+    // Follow lists are public; the feed and follow changes belong to the caller
+    private static String requireUser(String currentUserId) {
+        if (currentUserId == null) {
+            throw new AccessDeniedException("An access token is required");
+        }
+        return currentUserId;
+    }
+
+    // The authenticated user wins over the argument
+    private static String resolveUser(String currentUserId, String userId) {
+        String resolved = currentUserId != null ? currentUserId : userId;
+        if (resolved == null) {
+            throw new IllegalArgumentException("userId is required when not authenticated");
+        }
+        return resolved;
+    }
+}
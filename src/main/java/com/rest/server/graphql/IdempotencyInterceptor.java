@@ -0,0 +1,157 @@
+package com.rest.server.graphql;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rest.server.models.IdempotencyRecord;
+import com.rest.server.security.TokenAuthenticationFilter;
+import com.rest.server.services.IdempotencyService;
+import graphql.ExecutionResultImpl;
+import graphql.GraphqlErrorBuilder;
+import graphql.language.Document;
+import graphql.language.OperationDefinition;
+import graphql.parser.Parser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.graphql.execution.ErrorType;
+import org.springframework.graphql.server.WebGraphQlInterceptor;
+import org.springframework.graphql.server.WebGraphQlRequest;
+import org.springframework.graphql.server.WebGraphQlResponse;
+import org.springframework.graphql.support.DefaultExecutionGraphQlResponse;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+
+// Mutations sent with an Idempotency-Key header (or an "idempotencyKey" request extension) run at most once
+// per user and key; retries within idempotency.ttl get the stored response back without re-executing.
+// Anonymous requests (createUser among them) are scoped by client address instead, as "anon:<address>|<key>",
+// so a caller elsewhere reusing the key can neither replay the response nor block the key.
+@Component
+public class IdempotencyInterceptor implements WebGraphQlInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyInterceptor.class);
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String EXTENSION = "idempotencyKey";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final String ANONYMOUS = "anon";
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Override
+    public Mono<WebGraphQlResponse> intercept(WebGraphQlRequest request, Chain chain) {
+        String key = idempotencyKey(request);
+        if (key == null || !isMutation(request)) {
+            return chain.next(request);
+        }
+        Object userId = request.getAttributes().get(TokenAuthenticationFilter.USER_ID_ATTRIBUTE);
+        Object clientAddress = request.getAttributes().get(TokenAuthenticationFilter.CLIENT_ADDRESS_ATTRIBUTE);
+        if (userId == null && clientAddress == null) {
+            // Without a client to scope it by, an anonymous key would be shared by every caller
+            return Mono.just(error(request, HEADER + " requires an authenticated request"));
+        }
+        // An address holds no "|", so the key that follows cannot shift into it
+        String id = userId != null ? userId + ":" + key : ANONYMOUS + ":" + clientAddress + "|" + key;
+        String fingerprint = fingerprint(request);
+
+        return Mono.fromCallable(() -> Optional.ofNullable(idempotencyService.claim(id, fingerprint)))
+                .flatMap(existing -> {
+                    if (existing.isEmpty()) {
+                        return execute(request, chain, id);
+                    }
+                    IdempotencyRecord record = existing.get();
+                    if (!record.getFingerprint().equals(fingerprint)) {
+                        return Mono.just(error(request, HEADER + " was already used for a different request"));
+                    }
+                    if (record.isPending()) {
+                        return Mono.just(error(request, "A request with this " + HEADER + " is still being processed"));
+                    }
+                    return Mono.just(replay(request, record));
+                });
+    }
+
+    private Mono<WebGraphQlResponse> execute(WebGraphQlRequest request, Chain chain, String id) {
+        return chain.next(request)
+                .doOnNext(response -> {
+                    if (response.isValid() && response.getErrors().isEmpty()) {
+                        try {
+                            idempotencyService.complete(id, objectMapper.writeValueAsString(response.getExecutionResult().getData()));
+                            return;
+                        } catch (JsonProcessingException e) {
+                            logger.warn("Could not store idempotent response for {}", id, e);
+                        }
+                    }
+                    idempotencyService.release(id);
+                })
+                .doOnError(ex -> idempotencyService.release(id));
+    }
+
+    private WebGraphQlResponse replay(WebGraphQlRequest request, IdempotencyRecord record) {
+        Map<String, Object> data;
+        try {
+            data = objectMapper.readValue(record.getResponse(), new TypeReference<Map<String, Object>>() {});
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Corrupt idempotent response for " + record.getId(), e);
+        }
+        WebGraphQlResponse response = new WebGraphQlResponse(new DefaultExecutionGraphQlResponse(
+                request.toExecutionInput(), ExecutionResultImpl.newExecutionResult().data(data).build()));
+        response.getResponseHeaders().set(REPLAYED_HEADER, "true");
+        return response;
+    }
+
+    private WebGraphQlResponse error(WebGraphQlRequest request, String message) {
+        return new WebGraphQlResponse(new DefaultExecutionGraphQlResponse(request.toExecutionInput(),
+                ExecutionResultImpl.newExecutionResult()
+                        .addError(GraphqlErrorBuilder.newError().message(message).errorType(ErrorType.BAD_REQUEST).build())
+                        .build()));
+    }
+
+    private String idempotencyKey(WebGraphQlRequest request) {
+        String key = request.getHeaders().getFirst(HEADER);
+        if (key == null && request.getExtensions().get(EXTENSION) instanceof String extension) {
+            key = extension;
+        }
+        return key == null || key.isBlank() ? null : key.trim();
+    }
+
+    // Only the selected operation counts; queries sent with a key are executed normally
+    private boolean isMutation(WebGraphQlRequest request) {
+        try {
+            Document document = Parser.parse(request.getDocument());
+            return document.getDefinitionsOfType(OperationDefinition.class).stream()
+                    .filter(operation -> request.getOperationName() == null || request.getOperationName().equals(operation.getName()))
+                    .findFirst()
+                    .map(operation -> operation.getOperation() == OperationDefinition.Operation.MUTATION)
+                    .orElse(false);
+        } catch (RuntimeException e) {
+            // Invalid documents are reported by the normal execution path
+            return false;
+        }
+    }
+
+    // Same key with a different document or variables is a client bug, not a retry
+    private String fingerprint(WebGraphQlRequest request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(request.getDocument().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(String.valueOf(request.getOperationName()).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(objectMapper.writeValueAsBytes(request.getVariables()));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
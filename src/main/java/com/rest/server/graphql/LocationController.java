@@ -2,18 +2,30 @@ package com.rest.server.graphql;
 
 import com.rest.server.models.Location;
 import com.rest.server.models.LocationInput;
+import com.rest.server.models.UserDTO;
+import com.rest.server.models.UserDto;
 import com.rest.server.services.LocationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
 import org.springframework.graphql.data.method.annotation.Argument;
+import org.springframework.graphql.data.method.annotation.BatchMapping;
 import org.springframework.graphql.data.method.annotation.MutationMapping;
 import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.graphql.data.method.annotation.SchemaMapping;
 import org.springframework.stereotype.Controller;
 
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Controller
 public class LocationController {
+    private static final Logger logger = LoggerFactory.getLogger(LocationController.class);
 
     private final LocationService locationService;
 
@@ -28,11 +40,51 @@ public class LocationController {
 //    }
     @QueryMapping
     public List<Location> locations() {
-        System.out.println("Locations query called");
         List<Location> result = locationService.getAllLocations();
-        System.out.println("Result from service: " + (result == null ? "NULL" : "List with " + result.size() + " items"));
+        logger.debug("Locations query returned {} items", result == null ? 0 : result.size());
         return result != null ? result : Collections.emptyList();
     }
+    @SchemaMapping(typeName = "Location", field = "latitude")
+    public Double latitude(Location location) {
+        return location.getLocationPoint() != null ? location.getLocationPoint().getY() : null;
+    }
+
+    @SchemaMapping(typeName = "Location", field = "longitude")
+    public Double longitude(Location location) {
+        return location.getLocationPoint() != null ? location.getLocationPoint().getX() : null;
+    }
+
+    // One call per page of users, whichever query they came from (UserDto from user queries, UserDTO from Post.ownerId)
+    @BatchMapping(typeName = "User", field = "location")
+    public Map<Object, Location> location(List<Object> users) {
+        Set<String> ids = new HashSet<>();
+        users.forEach(user -> {
+            String id = locationIdOf(user);
+            if (id != null) {
+                ids.add(id);
+            }
+        });
+        Map<String, Location> locations = ids.isEmpty() ? Map.of() : locationService.locationsByIds(ids);
+        Map<Object, Location> result = new HashMap<>();
+        for (Object user : users) {
+            Location location = locations.get(locationIdOf(user));
+            if (location != null) {
+                result.put(user, location);
+            }
+        }
+        return result;
+    }
+
+    private static String locationIdOf(Object user) {
+        if (user instanceof UserDto dto) {
+            return dto.getUserLocationId();
+        }
+        if (user instanceof UserDTO dto) {
+            return dto.getUserLocationId();
+        }
+        return null;
+    }
+
     @MutationMapping
     public Location createLocation(@Argument("input") LocationInput input) {
         return locationService.createLocation(convertInputToLocation(input));
@@ -56,6 +108,15 @@ public class LocationController {
         location.setLocationState(input.getState());
         location.setLocationCountry(input.getCountry());
         location.setLocationTimezone(input.getTimezone());
+        if (input.getLatitude() != null || input.getLongitude() != null) {
+            if (input.getLatitude() == null || input.getLongitude() == null) {
+                throw new IllegalArgumentException("latitude and longitude must be given together");
+            }
+            if (Math.abs(input.getLatitude()) > 90 || Math.abs(input.getLongitude()) > 180) {
+                throw new IllegalArgumentException("Coordinates out of range");
+            }
+            location.setLocationPoint(new GeoJsonPoint(input.getLongitude(), input.getLatitude()));
+        }
         return location;
     }
 }
\ No newline at end of file
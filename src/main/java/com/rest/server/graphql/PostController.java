@@ -3,6 +3,7 @@ package com.rest.server.graphql;
 import com.rest.server.models.Post;
 import com.rest.server.models.User;
 import com.rest.server.models.UserDTO;
+import com.rest.server.services.GeoService;
 import com.rest.server.services.PostService;
 import com.rest.server.services.UserService;
 import org.slf4j.Logger;
@@ -23,6 +24,7 @@ import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -34,6 +36,8 @@ public class PostController {
 
     @Autowired
     private UserService userService;
+    @Autowired
+    private GeoService geoService;
 
     @SchemaMapping(typeName = "Post", field = "ownerId")
     public UserDTO owner(Post post) {
@@ -69,6 +73,11 @@ public class PostController {
         return response;
     }
 
+    @QueryMapping
+    public List<Post> postsNear(@Argument double lat, @Argument double lon, @Argument double radiusKm, @Argument Integer first) {
+        return geoService.postsNear(lat, lon, radiusKm, first != null ? first : 20);
+    }
+
     @QueryMapping
     public Post post(@Argument String id) {
         Optional<Post> postOptional = postService.singlePost(id);
@@ -81,7 +90,6 @@ public class PostController {
             @Argument Integer page,
             @Argument Integer limit,
             @Argument String sortBy) {
-        System.out.println("**********************************************************************************************");
         int pageNum = page != null ? page : 1;
         int pageSize = limit != null ? limit : 10;
 
@@ -117,6 +125,32 @@ public class PostController {
         return response;
     }
 
+    @QueryMapping
+    public Map<String, Object> postsByTags(
+            @Argument List<String> all,
+            @Argument List<String> any,
+            @Argument List<String> none,
+            @Argument Integer page,
+            @Argument Integer limit) {
+
+        int pageNum = page != null ? page : 1;
+        int pageSize = limit != null ? limit : 10;
+
+        Page<Post> postsPage = postService.findPostsByTags(
+                all != null ? all : List.of(),
+                any != null ? any : List.of(),
+                none != null ? none : List.of(),
+                pageNum - 1, pageSize);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("data", postsPage.getContent());
+        response.put("total", postsPage.getTotalElements());
+        response.put("page", pageNum);
+        response.put("limit", pageSize);
+
+        return response;
+    }
+
     @MutationMapping
     public Post createPost(@Argument("input") PostCreateInput input) {
         Post post = new Post();
@@ -0,0 +1,33 @@
+package com.rest.server.graphql;
+
+import com.rest.server.services.StatsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.graphql.data.method.annotation.Argument;
+import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.stereotype.Controller;
+
+import java.util.List;
+import java.util.Map;
+
+@Controller
+public class StatsController {
+
+    private final StatsService statsService;
+
+    @Autowired
+    public StatsController(StatsService statsService) {
+        this.statsService = statsService;
+    }
+
+    @QueryMapping
+    public List<Map<String, Object>> stats(@Argument String metric, @Argument String granularity, @Argument String from,
+                                           @Argument String to, @Argument String key, @Argument Integer limit) {
+        return statsService.series(metric, granularity != null ? granularity : "DAY", from, to, key, limit != null ? limit : 100);
+    }
+
+    @QueryMapping
+    public List<Map<String, Object>> statsTop(@Argument String metric, @Argument String granularity, @Argument String from,
+                                              @Argument String to, @Argument Integer limit) {
+        return statsService.top(metric, granularity != null ? granularity : "DAY", from, to, limit != null ? limit : 10);
+    }
+}
@@ -12,6 +12,7 @@ import org.springframework.graphql.data.method.annotation.QueryMapping;
 import org.springframework.stereotype.Controller;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Controller
@@ -35,6 +36,16 @@ public class TagController {
         return tagsPage.getContent();
     }
 
+    @QueryMapping
+    public List<Tag> tagSuggest(@Argument String prefix, @Argument Integer limit) {
+        return tagService.suggestTags(prefix, limit != null ? limit : 10);
+    }
+
+    @QueryMapping
+    public List<Map<String, Object>> trendingTags(@Argument String window, @Argument Integer limit) {
+        return tagService.trendingTags(window != null ? window : "1h", limit != null ? limit : 10);
+    }
+
     @QueryMapping
     public Tag tag(@Argument String id) {
         Optional<Tag> tag = tagService.singleTag(id);
@@ -3,6 +3,7 @@ package com.rest.server.graphql;
 
 import com.rest.server.models.User;
 import com.rest.server.models.UserDto;
+import com.rest.server.services.GeoService;
 import com.rest.server.services.UserService;
 import lombok.Getter;
 import lombok.Setter;
@@ -25,6 +26,9 @@ public class UserController {
 
     private final UserService userService;
 
+    @Autowired
+    private GeoService geoService;
+
     @Autowired
     public UserController(UserService userService) {
         this.userService = userService;
@@ -60,6 +64,13 @@ public class UserController {
                 .orElse(null);
     }
 
+    @QueryMapping
+    public List<UserDto> usersNear(@Argument double lat, @Argument double lon, @Argument double radiusKm, @Argument Integer first) {
+        return geoService.usersNear(lat, lon, radiusKm, first != null ? first : 20).stream()
+                .map(this::convertToDto)
+                .toList();
+    }
+
     @MutationMapping
     public UserDto createUser(@Argument com.rest.server.graphql.UserController.UserCreateInput input) {
         validateInput(input);
@@ -91,6 +102,7 @@ public class UserController {
         dto.setRegisterDate(user.getUserRegisterDate());
         dto.setPhone(user.getUserPhone());
         dto.setPicture(user.getUserPicture());
+        dto.setUserLocationId(user.getUserLocationId());
         return dto;
     }
 
@@ -113,6 +125,7 @@ public class UserController {
 
         user.setUserPhone(input.getPhone());
         user.setUserPicture(input.getPicture());
+        user.setUserLocationId(input.getLocationId());
 
         user.setUserRegisterDate(
                 OffsetDateTime.now(ZoneOffset.UTC)
@@ -140,6 +153,7 @@ public class UserController {
 
         user.setUserPhone(input.getPhone());
         user.setUserPicture(input.getPicture());
+        user.setUserLocationId(input.getLocationId());
         return user;
     }
 
@@ -186,6 +200,7 @@ public class UserController {
         private String dateOfBirth;
         private String phone;
         private String picture;
+        private String locationId;
 
     }
 
@@ -199,6 +214,7 @@ public class UserController {
         private String dateOfBirth;
         private String phone;
         private String picture;
+        private String locationId;
 
     }
 }
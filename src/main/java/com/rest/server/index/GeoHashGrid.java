@@ -0,0 +1,157 @@
+package com.rest.server.index;
+
+import com.rest.server.models.Location;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Locations bucketed by geohash cell. A radius query samples every cell that intersects the circle's
+// bounding box, then filters the candidates by great-circle distance, so nearby lookups are answered
+// from memory. The box grows with the radius and, in longitude, towards the poles, so callers check
+// cellsToScan first. Immutable; GeoService builds a new grid whenever the location snapshot changes.
+public final class GeoHashGrid {
+
+    public record Hit(Location location, double distanceKm) {
+    }
+
+    private record Box(double minLat, double maxLat, double minLon, double maxLon) {
+    }
+
+    public static final double EARTH_RADIUS_KM = 6371.0088;
+
+    private static final String BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz";
+
+    private final int precision;
+    private final double cellLatDegrees;
+    private final double cellLonDegrees;
+    private final Map<String, List<Location>> cells = new HashMap<>();
+
+    public GeoHashGrid(Collection<Location> locations, int precision) {
+        this.precision = precision;
+        int bits = precision * 5;
+        // Geohash interleaves longitude first, so longitude gets the extra bit when the total is odd
+        this.cellLonDegrees = 360.0 / (1L << ((bits + 1) / 2));
+        this.cellLatDegrees = 180.0 / (1L << (bits / 2));
+        for (Location location : locations) {
+            if (location.getLocationPoint() == null) {
+                continue;
+            }
+            String cell = encode(location.getLocationPoint().getY(), location.getLocationPoint().getX(), precision);
+            cells.computeIfAbsent(cell, key -> new ArrayList<>()).add(location);
+        }
+    }
+
+    // Cells near would sample for this circle, without sampling them
+    public long cellsToScan(double latitude, double longitude, double radiusKm) {
+        Box box = box(latitude, longitude, radiusKm);
+        return (long) sampleCount(box.minLat(), box.maxLat(), cellLatDegrees)
+                * sampleCount(box.minLon(), box.maxLon(), cellLonDegrees);
+    }
+
+    // Closest first, at most limit hits within radiusKm
+    public List<Hit> near(double latitude, double longitude, double radiusKm, int limit) {
+        Box box = box(latitude, longitude, radiusKm);
+        Set<String> visited = new HashSet<>();
+        List<Hit> hits = new ArrayList<>();
+        for (double lat : samples(box.minLat(), box.maxLat(), cellLatDegrees)) {
+            for (double lon : samples(box.minLon(), box.maxLon(), cellLonDegrees)) {
+                String cell = encode(lat, normalizeLongitude(lon), precision);
+                if (!visited.add(cell)) {
+                    continue;
+                }
+                for (Location location : cells.getOrDefault(cell, List.of())) {
+                    double distance = distanceKm(latitude, longitude,
+                            location.getLocationPoint().getY(), location.getLocationPoint().getX());
+                    if (distance <= radiusKm) {
+                        hits.add(new Hit(location, distance));
+                    }
+                }
+            }
+        }
+        hits.sort(Comparator.comparingDouble(Hit::distanceKm));
+        return hits.size() > limit ? hits.subList(0, limit) : hits;
+    }
+
+    public int cellCount() {
+        return cells.size();
+    }
+
+    // Haversine
+    public static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    static String encode(double latitude, double longitude, int precision) {
+        double minLat = -90, maxLat = 90, minLon = -180, maxLon = 180;
+        StringBuilder hash = new StringBuilder(precision);
+        boolean evenBit = true;
+        int bit = 0;
+        int ch = 0;
+        while (hash.length() < precision) {
+            if (evenBit) {
+                double mid = (minLon + maxLon) / 2;
+                if (longitude >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLon = mid;
+                } else {
+                    ch = ch << 1;
+                    maxLon = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (latitude >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLat = mid;
+                } else {
+                    ch = ch << 1;
+                    maxLat = mid;
+                }
+            }
+            evenBit = !evenBit;
+            if (++bit == 5) {
+                hash.append(BASE32.charAt(ch));
+                bit = 0;
+                ch = 0;
+            }
+        }
+        return hash.toString();
+    }
+
+    private static Box box(double latitude, double longitude, double radiusKm) {
+        double deltaLat = Math.toDegrees(radiusKm / EARTH_RADIUS_KM);
+        double minLat = Math.max(-90, latitude - deltaLat);
+        double maxLat = Math.min(90, latitude + deltaLat);
+        double widestLat = Math.max(Math.abs(minLat), Math.abs(maxLat));
+        double deltaLon = widestLat >= 89.999 ? 180
+                : Math.min(180, Math.toDegrees(radiusKm / (EARTH_RADIUS_KM * Math.cos(Math.toRadians(widestLat)))));
+        return new Box(minLat, maxLat, longitude - deltaLon, longitude + deltaLon);
+    }
+
+    // Points no more than one cell apart from min to max inclusive, so every cell the range touches is hit
+    private static List<Double> samples(double min, double max, double step) {
+        List<Double> samples = new ArrayList<>();
+        int steps = sampleCount(min, max, step) - 1;
+        for (int i = 0; i <= steps; i++) {
+            samples.add(Math.min(min + i * step, max));
+        }
+        return samples;
+    }
+
+    private static int sampleCount(double min, double max, double step) {
+        return (int) Math.ceil((max - min) / step) + 1;
+    }
+
+    private static double normalizeLongitude(double longitude) {
+        return ((longitude + 180) % 360 + 360) % 360 - 180;
+    }
+}
@@ -0,0 +1,340 @@
+package com.rest.server.index;
+
+import com.rest.server.cluster.EntityChange;
+import com.rest.server.cluster.EntityChangeListener;
+import com.rest.server.models.Comment;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+// The newest comments.latest.size comments and the comment count of the most-read posts (LRU, at most
+// comments.latest.max-posts), so page 1 of commentsByPost needs no query and no count. CommentService,
+// the cascade job and the archive job keep it exact for local writes; writes from other nodes arrive
+// through the change stream bus. A delete from another node carries the deleted comment (pre-images), so
+// only its post is touched; without pre-images it carries just the id, and unless the comment is held here
+// every post whose older comments are not all held has to be dropped and reloaded.
+@Component
+public class LatestComments implements EntityChangeListener {
+
+    // Mongo orders missing dates (null) before any string
+    private static final Comparator<String> DATE_ORDER = Comparator.nullsFirst(Comparator.naturalOrder());
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${comments.latest.enabled:true}")
+    private boolean enabled;
+
+    @Value("${comments.latest.size:20}")
+    private int capacity;
+
+    @Value("${comments.latest.max-posts:10000}")
+    private int maxPosts;
+
+    // Newest first; total counts every comment of the post, held or not
+    private static final class Ring {
+        final Comment[] items;
+        int head;
+        int size;
+        long total;
+
+        Ring(int capacity) {
+            items = new Comment[capacity];
+        }
+
+        Comment get(int i) {
+            return items[(head + i) % items.length];
+        }
+
+        void set(int i, Comment comment) {
+            items[(head + i) % items.length] = comment;
+        }
+
+        // Every comment of the post is held, so one that is not held belongs to another post
+        boolean complete() {
+            return total <= size;
+        }
+
+        int indexOf(String commentId) {
+            for (int i = 0; i < size; i++) {
+                if (get(i).getCommentId().equals(commentId)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        // Keeps date order; returns the comment pushed out when full, if any
+        Comment insert(Comment comment) {
+            Comment dropped = size == items.length ? get(size - 1) : null;
+            if (dropped == null) {
+                size++;
+            }
+            head = (head - 1 + items.length) % items.length;
+            int i = 0;
+            while (i + 1 < size && DATE_ORDER.compare(get(i + 1).getCommentPublishDate(), comment.getCommentPublishDate()) > 0) {
+                set(i, get(i + 1));
+                i++;
+            }
+            set(i, comment);
+            return dropped;
+        }
+
+        void removeAt(int index) {
+            for (int i = index; i < size - 1; i++) {
+                set(i, get(i + 1));
+            }
+            set(size - 1, null);
+            size--;
+        }
+    }
+
+    private final Map<String, String> postIdsByCommentId = new HashMap<>();
+    private final Map<String, Ring> rings = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Ring> eldest) {
+            if (size() <= maxPosts) {
+                return false;
+            }
+            forget(eldest.getValue());
+            return true;
+        }
+    };
+
+    // Deletes applied here, so their echo from the change stream is recognized
+    private final Map<String, Boolean> recentDeletes = new LinkedHashMap<>(256, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > 10_000;
+        }
+    };
+
+    // Bumped per post hash on every write, so a fill that raced with a write is dropped
+    private final AtomicLongArray generations = new AtomicLongArray(64);
+
+    private Counter hits;
+    private Counter misses;
+
+    @PostConstruct
+    public void init() {
+        hits = Counter.builder("comments.latest.requests").tag("result", "hit").register(meterRegistry);
+        misses = Counter.builder("comments.latest.requests").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("comments.latest.posts", this, LatestComments::size).register(meterRegistry);
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    // Empty when the page is not the first or is larger than what is held; newest loads the first
+    // capacity() comments on a miss
+    public Optional<Page<Comment>> firstPage(String postId, Pageable pageable, Supplier<Page<Comment>> newest) {
+        if (!enabled || pageable.getPageNumber() != 0 || pageable.getPageSize() > capacity) {
+            return Optional.empty();
+        }
+        synchronized (this) {
+            Ring ring = rings.get(postId);
+            if (ring != null && (ring.complete() || ring.size >= pageable.getPageSize())) {
+                hits.increment();
+                return Optional.of(page(ring, pageable));
+            }
+        }
+        misses.increment();
+        long generation = generations.get(stripe(postId));
+        Page<Comment> loaded = newest.get();
+        List<Comment> content = loaded.getContent();
+        synchronized (this) {
+            if (generations.get(stripe(postId)) == generation && content.size() <= capacity) {
+                Ring previous = rings.remove(postId);
+                if (previous != null) {
+                    forget(previous);
+                }
+                Ring ring = new Ring(capacity);
+                for (Comment comment : content) {
+                    ring.items[ring.size++] = copy(comment);
+                    postIdsByCommentId.put(comment.getCommentId(), postId);
+                }
+                ring.total = loaded.getTotalElements();
+                rings.put(postId, ring);
+            }
+        }
+        List<Comment> first = content.subList(0, Math.min(pageable.getPageSize(), content.size()));
+        return Optional.of(new PageImpl<>(first, pageable, loaded.getTotalElements()));
+    }
+
+    public void onCommentSaved(Comment comment) {
+        String postId = comment.getCommentPostId();
+        if (!enabled || postId == null || comment.getCommentId() == null) {
+            return;
+        }
+        generations.incrementAndGet(stripe(postId));
+        synchronized (this) {
+            Ring ring = rings.get(postId);
+            if (ring == null) {
+                return;
+            }
+            int index = ring.indexOf(comment.getCommentId());
+            if (index >= 0) {
+                ring.set(index, copy(comment));
+                return;
+            }
+            // Not held and older than everything held: an edit of an older comment (comments are dated on creation)
+            if (!ring.complete() && ring.size > 0
+                    && DATE_ORDER.compare(comment.getCommentPublishDate(), ring.get(ring.size - 1).getCommentPublishDate()) < 0) {
+                return;
+            }
+            ring.total++;
+            postIdsByCommentId.put(comment.getCommentId(), postId);
+            Comment dropped = ring.insert(copy(comment));
+            if (dropped != null) {
+                postIdsByCommentId.remove(dropped.getCommentId());
+            }
+        }
+    }
+
+    public void onCommentDeleted(Comment comment) {
+        String postId = comment.getCommentPostId();
+        if (!enabled || postId == null) {
+            return;
+        }
+        generations.incrementAndGet(stripe(postId));
+        synchronized (this) {
+            recentDeletes.put(comment.getCommentId(), Boolean.TRUE);
+            Ring ring = rings.get(postId);
+            if (ring == null) {
+                return;
+            }
+            int index = ring.indexOf(comment.getCommentId());
+            if (index >= 0) {
+                ring.removeAt(index);
+                postIdsByCommentId.remove(comment.getCommentId());
+                ring.total--;
+            } else if (!ring.complete()) {
+                ring.total--;
+            }
+        }
+    }
+
+    public void onCommentsDeleted(Collection<Comment> comments) {
+        comments.forEach(this::onCommentDeleted);
+    }
+
+    public void evict(String postId) {
+        if (!enabled) {
+            return;
+        }
+        generations.incrementAndGet(stripe(postId));
+        synchronized (this) {
+            Ring ring = rings.remove(postId);
+            if (ring != null) {
+                forget(ring);
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return rings.size();
+    }
+
+    @Override
+    public Set<String> collections() {
+        return Set.of("comments");
+    }
+
+    @Override
+    public void onEntityChange(EntityChange change) {
+        if (change.operation() == EntityChange.Operation.UPSERT) {
+            change.documentAs(Comment.class).ifPresent(this::onCommentSaved);
+            return;
+        }
+        String postId;
+        synchronized (this) {
+            if (recentDeletes.remove(change.id()) != null) {
+                return;
+            }
+            postId = postIdsByCommentId.get(change.id());
+        }
+        if (postId == null) {
+            postId = change.documentAs(Comment.class).map(Comment::getCommentPostId).orElse(null);
+        }
+        if (postId != null) {
+            Comment comment = new Comment();
+            comment.setCommentId(change.id());
+            comment.setCommentPostId(postId);
+            onCommentDeleted(comment);
+        } else {
+            evictIncomplete();
+        }
+    }
+
+    @Override
+    public void onResync() {
+        for (int i = 0; i < generations.length(); i++) {
+            generations.incrementAndGet(i);
+        }
+        synchronized (this) {
+            rings.clear();
+            postIdsByCommentId.clear();
+        }
+    }
+
+    // The unknown comment may be an older one of any post not held in full
+    private void evictIncomplete() {
+        for (int i = 0; i < generations.length(); i++) {
+            generations.incrementAndGet(i);
+        }
+        synchronized (this) {
+            rings.values().removeIf(ring -> {
+                if (ring.complete()) {
+                    return false;
+                }
+                forget(ring);
+                return true;
+            });
+        }
+    }
+
+    private void forget(Ring ring) {
+        for (int i = 0; i < ring.size; i++) {
+            postIdsByCommentId.remove(ring.get(i).getCommentId());
+        }
+    }
+
+    private static Page<Comment> page(Ring ring, Pageable pageable) {
+        int count = Math.min(pageable.getPageSize(), ring.size);
+        List<Comment> content = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            content.add(copy(ring.get(i)));
+        }
+        return new PageImpl<>(content, pageable, ring.total);
+    }
+
+    private int stripe(String postId) {
+        return (postId.hashCode() & 0x7fffffff) % generations.length();
+    }
+
+    private static Comment copy(Comment comment) {
+        return new Comment(comment.getCommentId(), comment.getCommentMessage(), comment.getCommentOwnerId(),
+                comment.getCommentPostId(), comment.getCommentPublishDate(), comment.getParentCommentId(),
+                comment.getCommentPath(), comment.getCommentDepth());
+    }
+}
@@ -0,0 +1,337 @@
+package com.rest.server.index;
+
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Dense int ordinals for posts, shared by TagIndex and PostReadModel: per ordinal the post id, its publish
+// instant and its tag codes, with a RoaringBitmap per tag and one of all live posts. While posts arrive in
+// publish order the ordinals follow it and a page is read straight off a bitmap. A post that arrives out of
+// order (or changes its date) is marked displaced: the other ordinals are still in order, so a page merges
+// them with the displaced matches, picked by a bounded heap, until the owner calls reorder() once enough
+// have piled up. Not thread-safe, the owner guards it with its lock.
+final class PostOrdinals {
+
+    private final Map<String, Integer> ordinalsById = new HashMap<>();
+    private final Map<String, Integer> tagCodesById = new HashMap<>();
+    private final List<String> tagIdsByCode = new ArrayList<>();
+    private final List<RoaringBitmap> postsByTag = new ArrayList<>();
+    private final RoaringBitmap live = new RoaringBitmap();
+    private final RoaringBitmap displaced = new RoaringBitmap();
+    private String[] ids;
+    private long[] epochs;
+    private int[][] tagCodes;
+    private int nextOrdinal;
+    // Latest publish instant among the ordinals that are not displaced
+    private long inOrderEpoch = Long.MIN_VALUE;
+
+    PostOrdinals(int capacity) {
+        ids = new String[Math.max(16, capacity)];
+        epochs = new long[ids.length];
+        tagCodes = new int[ids.length][];
+    }
+
+    Integer ordinalOf(String postId) {
+        return ordinalsById.get(postId);
+    }
+
+    String id(int ordinal) {
+        return ids[ordinal];
+    }
+
+    int[] tagCodes(int ordinal) {
+        return tagCodes[ordinal];
+    }
+
+    String tagId(int code) {
+        return tagIdsByCode.get(code);
+    }
+
+    // Null when no post has carried the tag
+    RoaringBitmap postsWithTag(String tagId) {
+        Integer code = tagCodesById.get(tagId);
+        return code != null ? postsByTag.get(code) : null;
+    }
+
+    RoaringBitmap live() {
+        return live;
+    }
+
+    int size() {
+        return live.getCardinality();
+    }
+
+    // Length of the per-ordinal columns; the owner keeps its own columns at least this long
+    int capacity() {
+        return ids.length;
+    }
+
+    boolean inDateOrder() {
+        return displaced.isEmpty();
+    }
+
+    int displacedCount() {
+        return displaced.getCardinality();
+    }
+
+    // Adds the post or moves an existing one to the given date and tags; returns its ordinal
+    int put(String postId, String publishDate, List<String> tagIds) {
+        long epoch = epochOf(publishDate);
+        Integer existing = ordinalsById.get(postId);
+        int ordinal;
+        if (existing == null) {
+            ordinal = nextOrdinal++;
+            ensureCapacity(ordinal + 1);
+            if (epoch < inOrderEpoch) {
+                displaced.add(ordinal);
+            } else {
+                inOrderEpoch = epoch;
+            }
+            ordinalsById.put(postId, ordinal);
+            ids[ordinal] = postId;
+            live.add(ordinal);
+        } else {
+            ordinal = existing;
+            unlinkTags(ordinal);
+            if (epochs[ordinal] != epoch) {
+                displaced.add(ordinal);
+            }
+        }
+        epochs[ordinal] = epoch;
+
+        int[] codes = new int[tagIds != null ? tagIds.size() : 0];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = codeFor(tagIds.get(i));
+            postsByTag.get(codes[i]).add(ordinal);
+        }
+        tagCodes[ordinal] = codes;
+        return ordinal;
+    }
+
+    // The removed post's ordinal, or -1 if it was not there. The slot is reclaimed by the next reorder
+    int remove(String postId) {
+        Integer ordinal = ordinalsById.remove(postId);
+        if (ordinal == null) {
+            return -1;
+        }
+        unlinkTags(ordinal);
+        live.remove(ordinal);
+        displaced.remove(ordinal);
+        ids[ordinal] = null;
+        return ordinal;
+    }
+
+    private void unlinkTags(int ordinal) {
+        int[] codes = tagCodes[ordinal];
+        if (codes != null) {
+            for (int code : codes) {
+                postsByTag.get(code).remove(ordinal);
+            }
+            tagCodes[ordinal] = null;
+        }
+    }
+
+    private int codeFor(String tagId) {
+        return tagCodesById.computeIfAbsent(tagId, id -> {
+            tagIdsByCode.add(id);
+            postsByTag.add(new RoaringBitmap());
+            return postsByTag.size() - 1;
+        });
+    }
+
+    void optimize() {
+        live.runOptimize();
+        for (RoaringBitmap bitmap : postsByTag) {
+            bitmap.runOptimize();
+        }
+    }
+
+    // Ordinals of one page of the matches by publish date; equal dates keep arrival order
+    int[] page(RoaringBitmap matches, boolean descending, long offset, int limit) {
+        long cardinality = matches.getLongCardinality();
+        if (offset >= cardinality || limit <= 0) {
+            return new int[0];
+        }
+        int size = (int) Math.min(limit, cardinality - offset);
+        RoaringBitmap late = displaced.isEmpty() ? null : RoaringBitmap.and(matches, displaced);
+        if (late == null || late.isEmpty()) {
+            int[] page = new int[size];
+            IntIterator iterator = descending ? matches.getReverseIntIterator() : matches.getIntIterator();
+            for (long skipped = 0; skipped < offset; skipped++) {
+                iterator.next();
+            }
+            for (int i = 0; i < size; i++) {
+                page[i] = iterator.next();
+            }
+            return page;
+        }
+        // The other matches are in order: merge them with the first displaced ones
+        int[] lateFirst = selectFirst(late, descending, (int) Math.min(offset + size, late.getLongCardinality()));
+        IntIterator inOrder = descending ? RoaringBitmap.andNot(matches, late).getReverseIntIterator()
+                : RoaringBitmap.andNot(matches, late).getIntIterator();
+        int[] page = new int[size];
+        int next = inOrder.hasNext() ? inOrder.next() : -1;
+        int lateTaken = 0;
+        for (long position = 0; position < offset + size; position++) {
+            int ordinal;
+            if (lateTaken < lateFirst.length && (next < 0 || before(lateFirst[lateTaken], next, descending))) {
+                ordinal = lateFirst[lateTaken++];
+            } else {
+                ordinal = next;
+                next = inOrder.hasNext() ? inOrder.next() : -1;
+            }
+            if (position >= offset) {
+                page[(int) (position - offset)] = ordinal;
+            }
+        }
+        return page;
+    }
+
+    // The first `keep` matches in order, from one pass over the bitmap with a heap whose root is the last
+    // one kept so far, instead of sorting every match
+    private int[] selectFirst(RoaringBitmap matches, boolean descending, int keep) {
+        int[] heap = new int[keep];
+        int size = 0;
+        IntIterator iterator = matches.getIntIterator();
+        while (iterator.hasNext()) {
+            int ordinal = iterator.next();
+            if (size < keep) {
+                heap[size] = ordinal;
+                siftUp(heap, size++, descending);
+            } else if (before(ordinal, heap[0], descending)) {
+                heap[0] = ordinal;
+                siftDown(heap, size, descending);
+            }
+        }
+        // Moving the root to the end of the shrinking heap leaves the array in order
+        for (int end = size - 1; end > 0; end--) {
+            int last = heap[0];
+            heap[0] = heap[end];
+            heap[end] = last;
+            siftDown(heap, end, descending);
+        }
+        return heap;
+    }
+
+    private void siftUp(int[] heap, int index, boolean descending) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (!before(heap[parent], heap[index], descending)) {
+                return;
+            }
+            swap(heap, parent, index);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int[] heap, int size, boolean descending) {
+        int index = 0;
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                return;
+            }
+            if (child + 1 < size && before(heap[child], heap[child + 1], descending)) {
+                child++;
+            }
+            if (!before(heap[index], heap[child], descending)) {
+                return;
+            }
+            swap(heap, index, child);
+            index = child;
+        }
+    }
+
+    private static void swap(int[] heap, int i, int j) {
+        int value = heap[i];
+        heap[i] = heap[j];
+        heap[j] = value;
+    }
+
+    private boolean before(int a, int b, boolean descending) {
+        int order = Long.compare(epochs[a], epochs[b]);
+        if (order == 0) {
+            order = Integer.compare(a, b);
+        }
+        return descending ? order > 0 : order < 0;
+    }
+
+    // Renumbers the live posts in publish order and drops the slots of deleted ones. Returns the previous
+    // ordinal of every new one so the owner can move its own columns along. The ordinals are mostly in
+    // order already, which keeps the sort close to linear.
+    int[] reorder() {
+        int[] previous = Arrays.stream(live.toArray()).boxed()
+                .sorted(Comparator.comparingLong((Integer ordinal) -> epochs[ordinal]).thenComparing(Comparator.naturalOrder()))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        String[] reorderedIds = new String[Math.max(16, previous.length)];
+        long[] reorderedEpochs = new long[reorderedIds.length];
+        int[][] reorderedTagCodes = new int[reorderedIds.length][];
+        for (RoaringBitmap bitmap : postsByTag) {
+            bitmap.clear();
+        }
+        live.clear();
+        for (int ordinal = 0; ordinal < previous.length; ordinal++) {
+            int old = previous[ordinal];
+            reorderedIds[ordinal] = ids[old];
+            reorderedEpochs[ordinal] = epochs[old];
+            reorderedTagCodes[ordinal] = tagCodes[old];
+            ordinalsById.put(ids[old], ordinal);
+            for (int code : tagCodes[old]) {
+                postsByTag.get(code).add(ordinal);
+            }
+        }
+        live.add(0L, previous.length);
+        ids = reorderedIds;
+        epochs = reorderedEpochs;
+        tagCodes = reorderedTagCodes;
+        nextOrdinal = previous.length;
+        displaced.clear();
+        inOrderEpoch = previous.length > 0 ? epochs[previous.length - 1] : Long.MIN_VALUE;
+        optimize();
+        return previous;
+    }
+
+    private void ensureCapacity(int size) {
+        if (size > ids.length) {
+            int capacity = Math.max(size, ids.length * 2);
+            ids = Arrays.copyOf(ids, capacity);
+            epochs = Arrays.copyOf(epochs, capacity);
+            tagCodes = Arrays.copyOf(tagCodes, capacity);
+        }
+    }
+
+    // Milliseconds since the epoch, dates without an offset taken as UTC; missing or unparseable dates sort
+    // first, as null does in Mongo
+    static long epochOf(String publishDate) {
+        if (publishDate == null) {
+            return Long.MIN_VALUE;
+        }
+        try {
+            return OffsetDateTime.parse(publishDate).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            // not an offset date-time
+        }
+        try {
+            return LocalDateTime.parse(publishDate).toInstant(ZoneOffset.UTC).toEpochMilli();
+        } catch (DateTimeParseException e) {
+            // not a local date-time
+        }
+        try {
+            return LocalDate.parse(publishDate).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+}
@@ -0,0 +1,455 @@
+package com.rest.server.index;
+
+import com.rest.server.cluster.EntityChange;
+import com.rest.server.cluster.EntityChangeListener;
+import com.rest.server.models.Post;
+import com.rest.server.repositories.PostRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+// Read side for the post list queries when readmodel.posts.enabled=true. Every post is one ordinal in a
+// set of parallel columns (owner code, likes, references into a TextStore) next to the id, publish instant,
+// tag codes and per-tag bitmaps it shares with TagIndex through PostOrdinals, plus a RoaringBitmap per owner,
+// so posts/postsByUser/postsByTag are answered from memory and Mongo only serves writes. Ordinals follow
+// publish order, so a page is read straight off a bitmap (forwards or backwards); posts arriving out of order
+// are merged into pages until enough pile up for a periodic reorder to put them back in order. Built by one scan after startup, kept current by PostService
+// for local writes and by the change stream bus for writes on other nodes.
+@Component
+public class PostReadModel implements EntityChangeListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostReadModel.class);
+
+    // Stands for a null postLikes, which updatePost can leave behind
+    private static final int NO_LIKES = Integer.MIN_VALUE;
+
+    @Autowired
+    private PostRepository postRepository;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${readmodel.posts.enabled:false}")
+    private boolean enabled;
+
+    @Value("${readmodel.posts.retry-ms:30000}")
+    private long retryMs;
+
+    // Rebuild the text arena once this share of it belongs to updated or deleted posts
+    @Value("${readmodel.posts.compact-ratio:0.5}")
+    private double compactRatio;
+
+    // Out-of-order posts that make a reorder worth its pass over every column under the write lock
+    @Value("${readmodel.posts.reorder-threshold:1000}")
+    private int reorderThreshold;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private PostOrdinals ordinals = new PostOrdinals(0);
+    private int[] owners = new int[0];
+    private int[] likes = new int[0];
+    private int[] textRefs = new int[0];
+    private int[] imageRefs = new int[0];
+    private int[] linkRefs = new int[0];
+    private int[] dateRefs = new int[0];
+    private TextStore text = new TextStore();
+
+    private final Map<String, Integer> ownerCodes = new HashMap<>();
+    private final List<String> ownerIdsByCode = new ArrayList<>();
+    private final List<RoaringBitmap> postsByOwner = new ArrayList<>();
+
+    // Writes seen while loading, replayed on top of the scan
+    private final List<Runnable> pending = new ArrayList<>();
+    private volatile boolean ready;
+    private final AtomicBoolean loading = new AtomicBoolean();
+    // Bumped by every resync; a load only publishes if no resync happened since its scan started
+    private volatile long generation;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled || !loading.compareAndSet(false, true)) {
+            return;
+        }
+        Gauge.builder("readmodel.posts.size", this, model -> model.ordinals.size()).register(meterRegistry);
+        Gauge.builder("readmodel.posts.text.bytes", this, model -> model.text.usedBytes()).register(meterRegistry);
+        Thread thread = new Thread(() -> {
+            try {
+                loadUntilReady();
+            } finally {
+                loading.set(false);
+            }
+            // A resync between the last publish and clearing the flag found this loader still running
+            if (!ready && !Thread.currentThread().isInterrupted()) {
+                start();
+            }
+        }, "post-read-model-loader");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    private void loadUntilReady() {
+        while (!ready) {
+            try {
+                load();
+            } catch (RuntimeException e) {
+                logger.warn("Post read model load failed, retrying in {} ms: {}", retryMs, e.getMessage());
+                try {
+                    TimeUnit.MILLISECONDS.sleep(retryMs);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void load() {
+        long started = System.nanoTime();
+        long scanGeneration = generation;
+        List<Post> posts = new ArrayList<>();
+        try (Stream<Post> stream = postRepository.streamAllBy()) {
+            stream.forEach(posts::add);
+        }
+        posts.sort(Comparator.comparingLong(post -> PostOrdinals.epochOf(post.getPostPublishDate())));
+
+        lock.writeLock().lock();
+        try {
+            if (generation != scanGeneration) {
+                // Resynced while scanning: the scan may predate what the resync was for, so scan again
+                return;
+            }
+            ordinals = new PostOrdinals(posts.size());
+            int capacity = ordinals.capacity();
+            owners = new int[capacity];
+            likes = new int[capacity];
+            textRefs = new int[capacity];
+            imageRefs = new int[capacity];
+            linkRefs = new int[capacity];
+            dateRefs = new int[capacity];
+            text = new TextStore();
+            ownerCodes.clear();
+            ownerIdsByCode.clear();
+            postsByOwner.clear();
+
+            posts.forEach(this::upsert);
+            pending.forEach(Runnable::run);
+            pending.clear();
+            ordinals.optimize();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Post read model loaded: {} posts, {} KB of text in {} ms", posts.size(), text.usedBytes() / 1024,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    public Optional<Page<Post>> findAll(Pageable pageable) {
+        return query(pageable, () -> ordinals.live());
+    }
+
+    public Optional<Page<Post>> findByOwner(String ownerId, Pageable pageable) {
+        return query(pageable, () -> {
+            Integer code = ownerCodes.get(ownerId);
+            return code != null ? postsByOwner.get(code) : new RoaringBitmap();
+        });
+    }
+
+    public Optional<Page<Post>> findByTag(String tagId, Pageable pageable) {
+        return query(pageable, () -> {
+            RoaringBitmap posts = ordinals.postsWithTag(tagId);
+            return posts != null ? posts : new RoaringBitmap();
+        });
+    }
+
+    // In the given order; ids of deleted posts are skipped
+    public Optional<List<Post>> findAllById(Collection<String> postIds) {
+        if (!ready) {
+            return Optional.empty();
+        }
+        lock.readLock().lock();
+        try {
+            List<Post> posts = new ArrayList<>(postIds.size());
+            for (String postId : postIds) {
+                Integer ordinal = ordinals.ordinalOf(postId);
+                if (ordinal != null) {
+                    posts.add(materialize(ordinal));
+                }
+            }
+            return Optional.of(posts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private interface BitmapSupplier {
+        RoaringBitmap get();
+    }
+
+    // Empty when not loaded or when the sort is on a column the model does not order by
+    private Optional<Page<Post>> query(Pageable pageable, BitmapSupplier bitmaps) {
+        if (!ready) {
+            return Optional.empty();
+        }
+        Boolean descending = descending(pageable.getSort());
+        if (descending == null) {
+            return Optional.empty();
+        }
+        lock.readLock().lock();
+        try {
+            RoaringBitmap matches = bitmaps.get();
+            List<Post> content = new ArrayList<>();
+            long offset = pageable.isPaged() ? pageable.getOffset() : 0;
+            int limit = pageable.isPaged() ? pageable.getPageSize() : Integer.MAX_VALUE;
+            for (int ordinal : ordinals.page(matches, descending, offset, limit)) {
+                content.add(materialize(ordinal));
+            }
+            return Optional.of(new PageImpl<>(content, pageable, matches.getCardinality()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Publish date in either direction; unsorted reads oldest first, and "publishDate" is the schema's alias
+    private static Boolean descending(Sort sort) {
+        if (sort.isUnsorted()) {
+            return false;
+        }
+        List<Sort.Order> orders = sort.toList();
+        if (orders.size() != 1) {
+            return null;
+        }
+        Sort.Order order = orders.get(0);
+        if (order.getProperty().equals("postPublishDate") || order.getProperty().equals("publishDate")) {
+            return order.isDescending();
+        }
+        return null;
+    }
+
+    private Post materialize(int ordinal) {
+        Post post = new Post();
+        post.setPostId(ordinals.id(ordinal));
+        post.setPostText(text.get(textRefs[ordinal]));
+        post.setPostImage(text.get(imageRefs[ordinal]));
+        post.setPostLikes(likes[ordinal] != NO_LIKES ? likes[ordinal] : null);
+        post.setPostLink(text.get(linkRefs[ordinal]));
+        int[] codes = ordinals.tagCodes(ordinal);
+        List<String> tags = new ArrayList<>(codes.length);
+        for (int code : codes) {
+            tags.add(ordinals.tagId(code));
+        }
+        post.setPostTags(tags);
+        post.setPostPublishDate(text.get(dateRefs[ordinal]));
+        post.setPostOwnerId(ownerIdsByCode.get(owners[ordinal]));
+        return post;
+    }
+
+    public void onPostSaved(Post post) {
+        Post copy = new Post(post.getPostId(), post.getPostText(), post.getPostImage(), post.getPostLikes(), post.getPostLink(),
+                post.getPostTags() != null ? List.copyOf(post.getPostTags()) : null, post.getPostPublishDate(), post.getPostOwnerId());
+        apply(() -> upsert(copy));
+    }
+
+    public void onPostDeleted(String postId) {
+        apply(() -> remove(postId));
+    }
+
+    @Override
+    public Set<String> collections() {
+        return Set.of("posts");
+    }
+
+    @Override
+    public void onEntityChange(EntityChange change) {
+        if (change.operation() == EntityChange.Operation.UPSERT) {
+            change.documentAs(Post.class).ifPresent(this::onPostSaved);
+        } else {
+            onPostDeleted(change.id());
+        }
+    }
+
+    @Override
+    public void onResync() {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            generation++;
+            pending.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        start();
+    }
+
+    private void apply(Runnable mutation) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (ready) {
+                mutation.run();
+                compactIfWasteful();
+            } else {
+                pending.add(mutation);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void upsert(Post post) {
+        Integer existing = ordinals.ordinalOf(post.getPostId());
+        if (existing != null) {
+            unlink(existing);
+        }
+        int ordinal = ordinals.put(post.getPostId(), post.getPostPublishDate(), post.getPostTags());
+        ensureCapacity(ordinals.capacity());
+        likes[ordinal] = post.getPostLikes() != null ? post.getPostLikes() : NO_LIKES;
+        textRefs[ordinal] = text.add(post.getPostText());
+        imageRefs[ordinal] = text.intern(post.getPostImage());
+        linkRefs[ordinal] = text.intern(post.getPostLink());
+        dateRefs[ordinal] = text.add(post.getPostPublishDate());
+
+        int owner = code(post.getPostOwnerId() != null ? post.getPostOwnerId() : "", ownerCodes, ownerIdsByCode, postsByOwner);
+        owners[ordinal] = owner;
+        postsByOwner.get(owner).add(ordinal);
+    }
+
+    private void remove(String postId) {
+        Integer ordinal = ordinals.ordinalOf(postId);
+        if (ordinal == null) {
+            return;
+        }
+        unlink(ordinal);
+        ordinals.remove(postId);
+    }
+
+    // Drops the ordinal from its owner's bitmap and releases its text; the tags are PostOrdinals' part
+    private void unlink(int ordinal) {
+        postsByOwner.get(owners[ordinal]).remove(ordinal);
+        text.release(textRefs[ordinal]);
+        text.release(dateRefs[ordinal]);
+    }
+
+    // Puts the ordinals back in publish order once reorder-threshold posts have arrived out of it, moving the
+    // model's own columns and owner bitmaps along, so pages are read straight off the bitmaps again
+    @Scheduled(initialDelayString = "${readmodel.posts.reorder-ms:10000}", fixedDelayString = "${readmodel.posts.reorder-ms:10000}")
+    public void reorder() {
+        lock.readLock().lock();
+        try {
+            if (!ready || ordinals.displacedCount() < reorderThreshold) {
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        long started = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            if (!ready || ordinals.displacedCount() < reorderThreshold) {
+                return;
+            }
+            int[] previous = ordinals.reorder();
+            int capacity = ordinals.capacity();
+            owners = permute(owners, previous, capacity);
+            likes = permute(likes, previous, capacity);
+            textRefs = permute(textRefs, previous, capacity);
+            imageRefs = permute(imageRefs, previous, capacity);
+            linkRefs = permute(linkRefs, previous, capacity);
+            dateRefs = permute(dateRefs, previous, capacity);
+            for (RoaringBitmap bitmap : postsByOwner) {
+                bitmap.clear();
+            }
+            for (int ordinal = 0; ordinal < previous.length; ordinal++) {
+                postsByOwner.get(owners[ordinal]).add(ordinal);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.debug("Post read model reordered in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    private static int[] permute(int[] column, int[] previous, int capacity) {
+        int[] permuted = new int[capacity];
+        for (int ordinal = 0; ordinal < previous.length; ordinal++) {
+            permuted[ordinal] = column[previous[ordinal]];
+        }
+        return permuted;
+    }
+
+    private static int code(String value, Map<String, Integer> codes, List<String> values, List<RoaringBitmap> bitmaps) {
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = values.size();
+            codes.put(value, code);
+            values.add(value);
+            bitmaps.add(new RoaringBitmap());
+        }
+        return code;
+    }
+
+    // Keeps the model's columns as long as PostOrdinals' own
+    private void ensureCapacity(int capacity) {
+        if (capacity <= owners.length) {
+            return;
+        }
+        owners = Arrays.copyOf(owners, capacity);
+        likes = Arrays.copyOf(likes, capacity);
+        textRefs = Arrays.copyOf(textRefs, capacity);
+        imageRefs = Arrays.copyOf(imageRefs, capacity);
+        linkRefs = Arrays.copyOf(linkRefs, capacity);
+        dateRefs = Arrays.copyOf(dateRefs, capacity);
+    }
+
+    // Copies the live strings into a fresh arena; runs under the write lock
+    private void compactIfWasteful() {
+        if (text.usedBytes() < (1 << 20) || text.garbageBytes() < text.usedBytes() * compactRatio) {
+            return;
+        }
+        TextStore previous = text;
+        TextStore compacted = new TextStore();
+        IntIterator iterator = ordinals.live().getIntIterator();
+        while (iterator.hasNext()) {
+            int ordinal = iterator.next();
+            textRefs[ordinal] = compacted.add(previous.get(textRefs[ordinal]));
+            imageRefs[ordinal] = compacted.intern(previous.get(imageRefs[ordinal]));
+            linkRefs[ordinal] = compacted.intern(previous.get(linkRefs[ordinal]));
+            dateRefs[ordinal] = compacted.add(previous.get(dateRefs[ordinal]));
+        }
+        text = compacted;
+        logger.debug("Compacted post text from {} to {} bytes", previous.usedBytes(), compacted.usedBytes());
+    }
+}
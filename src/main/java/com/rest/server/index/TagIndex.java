@@ -0,0 +1,431 @@
+package com.rest.server.index;
+
+import com.rest.server.cluster.EntityChange;
+import com.rest.server.cluster.EntityChangeListener;
+import com.rest.server.models.Post;
+import com.rest.server.models.Tag;
+import com.rest.server.repositories.PostRepository;
+import com.rest.server.repositories.TagRepository;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+// In-memory inverted index from tag to posts. Every post gets a dense int ordinal and every tag id a
+// dictionary code; each tag maps to a RoaringBitmap of post ordinals, so all/any/none filters are
+// bitmap AND/OR/ANDNOT. The ordinals (PostOrdinals) follow publish-date order, which lets a page be read
+// straight off the result bitmap backwards; posts arriving out of order are merged into pages until enough
+// pile up for the background reorder. Built from Mongo after startup and kept current by PostService/TagService
+// and, for writes on other nodes, by the change stream bus.
+// Also owns the tag-name trie behind tagSuggest, weighted by the per-tag bitmap cardinalities.
+@Component
+public class TagIndex implements EntityChangeListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(TagIndex.class);
+
+    public record Result(List<String> postIds, long total) {
+    }
+
+    @Autowired
+    private PostRepository postRepository;
+    @Autowired
+    private TagRepository tagRepository;
+
+    @Value("${index.tags.enabled:true}")
+    private boolean enabled;
+
+    @Value("${index.tags.retry-ms:30000}")
+    private long retryMs;
+
+    // Completions precomputed per trie node, i.e. the most tagSuggest can return
+    @Value("${index.tags.suggest-k:10}")
+    private int suggestK;
+
+    // Out-of-order posts that make a reorder worth its pass over every ordinal under the write lock
+    @Value("${index.tags.reorder-threshold:1000}")
+    private int reorderThreshold;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, String> tagIdsByName = new HashMap<>();
+    private final Map<String, String> tagNamesById = new HashMap<>();
+    private PostOrdinals ordinals = new PostOrdinals(0);
+    private TagTrie trie;
+
+    // Mutations seen while the initial load is running, replayed on top of it
+    private final List<Runnable> pending = new ArrayList<>();
+    private volatile boolean ready;
+    private final AtomicBoolean loading = new AtomicBoolean();
+    // Bumped by every resync; a load only publishes if no resync happened since its scan started
+    private volatile long generation;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled || !loading.compareAndSet(false, true)) {
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                loadUntilReady();
+            } finally {
+                loading.set(false);
+            }
+            // A resync between the last publish and clearing the flag found this loader still running
+            if (!ready && !Thread.currentThread().isInterrupted()) {
+                start();
+            }
+        }, "tag-index-loader");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Writes made on other nodes, from the change stream bus
+    @Override
+    public Set<String> collections() {
+        return Set.of("posts", "tags");
+    }
+
+    @Override
+    public void onEntityChange(EntityChange change) {
+        boolean upsert = change.operation() == EntityChange.Operation.UPSERT;
+        if ("posts".equals(change.collection())) {
+            if (upsert) {
+                change.documentAs(Post.class).ifPresent(this::onPostSaved);
+            } else {
+                onPostDeleted(change.id());
+            }
+        } else if (upsert) {
+            change.documentAs(Tag.class).ifPresent(this::onTagSaved);
+        } else {
+            onTagDeleted(change.id());
+        }
+    }
+
+    // Queries fall back to Mongo until the reload finishes
+    @Override
+    public void onResync() {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            generation++;
+            pending.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        start();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    private void loadUntilReady() {
+        while (!ready) {
+            try {
+                load();
+            } catch (RuntimeException e) {
+                logger.warn("Tag index load failed, retrying in {} ms: {}", retryMs, e.getMessage());
+                try {
+                    TimeUnit.MILLISECONDS.sleep(retryMs);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void load() {
+        long started = System.nanoTime();
+        long scanGeneration = generation;
+        List<Tag> tags = tagRepository.findAll();
+        List<Post> posts = new ArrayList<>();
+        try (Stream<Post> stream = postRepository.streamAllBy()) {
+            stream.forEach(post -> {
+                // Only what the index needs, not the post text
+                Post light = new Post();
+                light.setPostId(post.getPostId());
+                light.setPostPublishDate(post.getPostPublishDate());
+                light.setPostTags(post.getPostTags());
+                posts.add(light);
+            });
+        }
+        posts.sort(Comparator.comparingLong(post -> PostOrdinals.epochOf(post.getPostPublishDate())));
+
+        lock.writeLock().lock();
+        try {
+            if (generation != scanGeneration) {
+                // Resynced while scanning: the scan may predate what the resync was for, so scan again
+                return;
+            }
+            tagIdsByName.clear();
+            tagNamesById.clear();
+            ordinals = new PostOrdinals(posts.size());
+
+            // The trie is built once from the final counts rather than updated per post
+            trie = null;
+            tags.forEach(this::putTag);
+            posts.forEach(this::upsert);
+            trie = new TagTrie(suggestK);
+            tagNamesById.keySet().forEach(this::refreshSuggestion);
+            pending.forEach(Runnable::run);
+            pending.clear();
+            ordinals.optimize();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Tag index loaded: {} posts, {} tags in {} ms", posts.size(), tags.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    public Optional<String> tagName(String tagId) {
+        lock.readLock().lock();
+        try {
+            return Optional.ofNullable(tagNamesById.get(tagId));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Tag ids of an indexed post, empty if unknown or the index has not loaded yet
+    public List<String> tagsOf(String postId) {
+        if (!ready) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            return tagIdsOf(postId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Most used tags whose name starts with the prefix (case-insensitive); empty until the index has loaded
+    public Optional<List<Tag>> suggest(String prefix, int limit) {
+        if (!ready) {
+            return Optional.empty();
+        }
+        lock.readLock().lock();
+        try {
+            return Optional.of(trie.suggest(prefix, limit).stream()
+                    .map(suggestion -> new Tag(suggestion.tagId(), suggestion.tagName()))
+                    .toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean hasTag(String tagName) {
+        lock.readLock().lock();
+        try {
+            return tagIdsByName.containsKey(tagName);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Empty until the index has loaded; callers fall back to querying Mongo
+    public Optional<Result> query(Collection<String> all, Collection<String> any, Collection<String> none, long offset, int limit) {
+        if (!ready) {
+            return Optional.empty();
+        }
+        lock.readLock().lock();
+        try {
+            RoaringBitmap result = matching(all, any, none);
+            List<String> page = new ArrayList<>(limit);
+            // Newest first
+            for (int ordinal : ordinals.page(result, true, offset, limit)) {
+                page.add(ordinals.id(ordinal));
+            }
+            return Optional.of(new Result(page, result.getLongCardinality()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Every branch builds a new bitmap, so the shared per-tag bitmaps are never modified here
+    private RoaringBitmap matching(Collection<String> all, Collection<String> any, Collection<String> none) {
+        RoaringBitmap result = null;
+        if (!all.isEmpty()) {
+            List<RoaringBitmap> required = new ArrayList<>();
+            for (String name : all) {
+                RoaringBitmap bitmap = bitmapForName(name);
+                if (bitmap == null) {
+                    return new RoaringBitmap();
+                }
+                required.add(bitmap);
+            }
+            // Smallest first keeps the intermediate results small
+            required.sort(Comparator.comparingLong(RoaringBitmap::getLongCardinality));
+            result = required.get(0).clone();
+            for (int i = 1; i < required.size() && !result.isEmpty(); i++) {
+                result.and(required.get(i));
+            }
+        }
+        if (!any.isEmpty()) {
+            List<RoaringBitmap> optional = any.stream().map(this::bitmapForName).filter(bitmap -> bitmap != null).toList();
+            RoaringBitmap union = RoaringBitmap.or(optional.iterator());
+            result = result == null ? union : RoaringBitmap.and(result, union);
+        }
+        if (result == null) {
+            result = ordinals.live().clone();
+        }
+        for (String name : none) {
+            RoaringBitmap bitmap = bitmapForName(name);
+            if (bitmap != null) {
+                result.andNot(bitmap);
+            }
+        }
+        return result;
+    }
+
+    private RoaringBitmap bitmapForName(String name) {
+        String tagId = tagIdsByName.get(name);
+        return tagId != null ? ordinals.postsWithTag(tagId) : null;
+    }
+
+    // Puts the ordinals back in publish order once reorder-threshold posts have arrived out of it, so pages
+    // are read straight off the bitmaps again instead of merged
+    @Scheduled(initialDelayString = "${index.tags.reorder-ms:10000}", fixedDelayString = "${index.tags.reorder-ms:10000}")
+    public void reorder() {
+        lock.readLock().lock();
+        try {
+            if (!ready || ordinals.displacedCount() < reorderThreshold) {
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        long started = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            if (!ready || ordinals.displacedCount() < reorderThreshold) {
+                return;
+            }
+            ordinals.reorder();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.debug("Tag index reordered in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    public void onPostSaved(Post post) {
+        Post copy = new Post();
+        copy.setPostId(post.getPostId());
+        copy.setPostPublishDate(post.getPostPublishDate());
+        copy.setPostTags(post.getPostTags() != null ? List.copyOf(post.getPostTags()) : null);
+        apply(() -> upsert(copy));
+    }
+
+    public void onPostDeleted(String postId) {
+        apply(() -> remove(postId));
+    }
+
+    public void onTagSaved(Tag tag) {
+        Tag copy = new Tag(tag.getTagId(), tag.getTagName());
+        apply(() -> putTag(copy));
+    }
+
+    public void onTagDeleted(String tagId) {
+        apply(() -> {
+            String name = tagNamesById.remove(tagId);
+            if (name != null) {
+                tagIdsByName.remove(name, tagId);
+                if (trie != null) {
+                    trie.remove(tagId, name);
+                }
+            }
+        });
+    }
+
+    private void apply(Runnable mutation) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (ready) {
+                mutation.run();
+            } else {
+                pending.add(mutation);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void putTag(Tag tag) {
+        String previousName = tagNamesById.put(tag.getTagId(), tag.getTagName());
+        if (previousName != null) {
+            tagIdsByName.remove(previousName, tag.getTagId());
+            if (trie != null) {
+                trie.remove(tag.getTagId(), previousName);
+            }
+        }
+        if (tag.getTagName() != null) {
+            tagIdsByName.put(tag.getTagName(), tag.getTagId());
+        }
+        refreshSuggestion(tag.getTagId());
+    }
+
+    // Suggestions are weighted by the tag's current post count
+    private void refreshSuggestion(String tagId) {
+        String name = tagNamesById.get(tagId);
+        if (trie != null && name != null) {
+            RoaringBitmap posts = ordinals.postsWithTag(tagId);
+            trie.put(tagId, name, posts != null ? posts.getLongCardinality() : 0);
+        }
+    }
+
+    // Tags the post was linked to before the change are re-weighted along with its new ones
+    private void upsert(Post post) {
+        List<String> previousTags = tagIdsOf(post.getPostId());
+        ordinals.put(post.getPostId(), post.getPostPublishDate(), post.getPostTags());
+        previousTags.forEach(this::refreshSuggestion);
+        if (post.getPostTags() != null) {
+            post.getPostTags().forEach(this::refreshSuggestion);
+        }
+    }
+
+    private void remove(String postId) {
+        List<String> previousTags = tagIdsOf(postId);
+        if (ordinals.remove(postId) >= 0) {
+            previousTags.forEach(this::refreshSuggestion);
+        }
+    }
+
+    private List<String> tagIdsOf(String postId) {
+        Integer ordinal = ordinals.ordinalOf(postId);
+        int[] codes = ordinal != null ? ordinals.tagCodes(ordinal) : null;
+        if (codes == null || codes.length == 0) {
+            return List.of();
+        }
+        List<String> tagIds = new ArrayList<>(codes.length);
+        for (int code : codes) {
+            tagIds.add(ordinals.tagId(code));
+        }
+        return tagIds;
+    }
+}
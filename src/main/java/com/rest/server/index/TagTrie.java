@@ -0,0 +1,158 @@
+package com.rest.server.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+// Case-insensitive prefix trie over tag names. Children are kept in sorted char arrays rather than maps,
+// and every node stores its k best completions (by weight, then name), recomputed bottom-up along the
+// changed path only, so a lookup is a walk down the prefix plus a copy of at most k entries.
+// Not thread-safe; TagIndex guards it with its read/write lock.
+final class TagTrie {
+
+    record Suggestion(String tagId, String tagName, long weight) {
+    }
+
+    private static final Comparator<Suggestion> RANKING = Comparator.comparingLong(Suggestion::weight).reversed()
+            .thenComparing(Suggestion::tagName)
+            .thenComparing(Suggestion::tagId);
+
+    private static final Suggestion[] NONE = new Suggestion[0];
+
+    private static final class Node {
+        char[] keys = new char[0];
+        Node[] children = new Node[0];
+        // Tags whose whole name ends here (usually one)
+        Suggestion[] terminals = NONE;
+        Suggestion[] top = NONE;
+
+        Node child(char key) {
+            int index = Arrays.binarySearch(keys, key);
+            return index >= 0 ? children[index] : null;
+        }
+
+        Node addChild(char key) {
+            int index = Arrays.binarySearch(keys, key);
+            if (index >= 0) {
+                return children[index];
+            }
+            int insertAt = -index - 1;
+            Node child = new Node();
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, insertAt);
+            System.arraycopy(children, 0, newChildren, 0, insertAt);
+            newKeys[insertAt] = key;
+            newChildren[insertAt] = child;
+            System.arraycopy(keys, insertAt, newKeys, insertAt + 1, keys.length - insertAt);
+            System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+            keys = newKeys;
+            children = newChildren;
+            return child;
+        }
+
+        void removeChild(char key) {
+            int index = Arrays.binarySearch(keys, key);
+            if (index < 0) {
+                return;
+            }
+            char[] newKeys = new char[keys.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(keys, 0, newKeys, 0, index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            System.arraycopy(keys, index + 1, newKeys, index, keys.length - index - 1);
+            System.arraycopy(children, index + 1, newChildren, index, children.length - index - 1);
+            keys = newKeys;
+            children = newChildren;
+        }
+
+        boolean isEmpty() {
+            return keys.length == 0 && terminals.length == 0;
+        }
+    }
+
+    private final int k;
+    private final Node root = new Node();
+
+    TagTrie(int k) {
+        this.k = k;
+    }
+
+    // Inserts the tag or updates its weight
+    void put(String tagId, String tagName, long weight) {
+        if (tagName == null) {
+            return;
+        }
+        String key = normalize(tagName);
+        Node[] path = new Node[key.length() + 1];
+        path[0] = root;
+        for (int i = 0; i < key.length(); i++) {
+            path[i + 1] = path[i].addChild(key.charAt(i));
+        }
+        Node node = path[key.length()];
+        node.terminals = with(without(node.terminals, tagId), new Suggestion(tagId, tagName, weight));
+        recompute(path);
+    }
+
+    void remove(String tagId, String tagName) {
+        if (tagName == null) {
+            return;
+        }
+        String key = normalize(tagName);
+        Node[] path = new Node[key.length() + 1];
+        path[0] = root;
+        for (int i = 0; i < key.length(); i++) {
+            path[i + 1] = path[i].child(key.charAt(i));
+            if (path[i + 1] == null) {
+                return;
+            }
+        }
+        Node node = path[key.length()];
+        node.terminals = without(node.terminals, tagId);
+        for (int i = key.length(); i > 0 && path[i].isEmpty(); i--) {
+            path[i - 1].removeChild(key.charAt(i - 1));
+        }
+        recompute(path);
+    }
+
+    List<Suggestion> suggest(String prefix, int limit) {
+        Node node = root;
+        String key = normalize(prefix);
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i));
+        }
+        if (node == null) {
+            return List.of();
+        }
+        return List.of(node.top).subList(0, Math.min(limit, node.top.length));
+    }
+
+    // Bottom-up: a node's top k is the best of its own terminals and its children's top k
+    private void recompute(Node[] path) {
+        for (int i = path.length - 1; i >= 0; i--) {
+            Node node = path[i];
+            List<Suggestion> candidates = new ArrayList<>(Arrays.asList(node.terminals));
+            for (Node child : node.children) {
+                candidates.addAll(Arrays.asList(child.top));
+            }
+            candidates.sort(RANKING);
+            node.top = candidates.subList(0, Math.min(k, candidates.size())).toArray(NONE);
+        }
+    }
+
+    private static Suggestion[] without(Suggestion[] suggestions, String tagId) {
+        return Arrays.stream(suggestions).filter(s -> !s.tagId().equals(tagId)).toArray(Suggestion[]::new);
+    }
+
+    private static Suggestion[] with(Suggestion[] suggestions, Suggestion suggestion) {
+        Suggestion[] result = Arrays.copyOf(suggestions, suggestions.length + 1);
+        result[suggestions.length] = suggestion;
+        return result;
+    }
+
+    private static String normalize(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+}
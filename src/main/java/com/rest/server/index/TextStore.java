@@ -0,0 +1,73 @@
+package com.rest.server.index;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Append-only UTF-8 arena for the read model's string columns: a value is an int reference to an
+// (offset, length) pair in one growing byte array, so millions of posts cost a few arrays instead of
+// millions of String objects. Repeated values (images, links) can be interned to a single copy.
+// Released values stay in the arena as garbage until the owner rebuilds the store. Not thread-safe.
+final class TextStore {
+
+    private byte[] bytes = new byte[1 << 16];
+    private int used;
+    private int[] offsets = new int[1024];
+    private int[] lengths = new int[1024];
+    private int count;
+    private long garbage;
+    private final Map<String, Integer> interned = new HashMap<>();
+
+    // -1 stands for null
+    int add(String value) {
+        if (value == null) {
+            return -1;
+        }
+        byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+        if (used + encoded.length > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, used + encoded.length));
+        }
+        if (count == offsets.length) {
+            offsets = Arrays.copyOf(offsets, count * 2);
+            lengths = Arrays.copyOf(lengths, count * 2);
+        }
+        System.arraycopy(encoded, 0, bytes, used, encoded.length);
+        offsets[count] = used;
+        lengths[count] = encoded.length;
+        used += encoded.length;
+        return count++;
+    }
+
+    int intern(String value) {
+        if (value == null) {
+            return -1;
+        }
+        Integer existing = interned.get(value);
+        if (existing != null) {
+            return existing;
+        }
+        int ref = add(value);
+        interned.put(value, ref);
+        return ref;
+    }
+
+    String get(int ref) {
+        return ref < 0 ? null : new String(bytes, offsets[ref], lengths[ref], StandardCharsets.UTF_8);
+    }
+
+    // For values from add(); interned values are shared and never released
+    void release(int ref) {
+        if (ref >= 0) {
+            garbage += lengths[ref];
+        }
+    }
+
+    long usedBytes() {
+        return used;
+    }
+
+    long garbageBytes() {
+        return garbage;
+    }
+}
@@ -0,0 +1,190 @@
+package com.rest.server.index;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+// Streaming top-K of tag usage over a sliding window. Counts go into a ring of per-time-bucket
+// count-min sketches (depth x width ints each), so memory is fixed however many distinct tags exist;
+// a window estimate is the sum of the bucket estimates it covers, and expired buckets are zeroed
+// as the ring wraps. A bounded min-heap keeps the tags most likely to be in the top K.
+@Component
+public class TrendingTags {
+
+    public record Entry(String tagId, long score) {
+    }
+
+    private static final class Candidate {
+        final String tagId;
+        long score;
+
+        Candidate(String tagId, long score) {
+            this.tagId = tagId;
+            this.score = score;
+        }
+    }
+
+    private final int depth;
+    private final int width;
+    private final long bucketMillis;
+    private final int bucketCount;
+    private final int candidateCapacity;
+
+    // [bucket][row][column]
+    private final int[][][] sketches;
+    private final long[] bucketIds;
+    private final PriorityQueue<Candidate> candidates = new PriorityQueue<>(Comparator.comparingLong((Candidate c) -> c.score));
+    private final Map<String, Candidate> candidatesByTag = new HashMap<>();
+    private long lastRescoredBucket = -1;
+
+    public TrendingTags(@Value("${trending.depth:4}") int depth,
+                        @Value("${trending.width:2048}") int width,
+                        @Value("${trending.bucket:1m}") Duration bucket,
+                        @Value("${trending.buckets:60}") int bucketCount,
+                        @Value("${trending.candidates:200}") int candidateCapacity) {
+        this.depth = depth;
+        this.width = width;
+        this.bucketMillis = bucket.toMillis();
+        this.bucketCount = bucketCount;
+        this.candidateCapacity = candidateCapacity;
+        this.sketches = new int[bucketCount][depth][width];
+        this.bucketIds = new long[bucketCount];
+        Arrays.fill(bucketIds, -1);
+    }
+
+    public Duration maxWindow() {
+        return Duration.ofMillis(bucketMillis * bucketCount);
+    }
+
+    public void record(Collection<String> tagIds) {
+        if (tagIds == null || tagIds.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            long bucketId = now / bucketMillis;
+            int[][] sketch = bucket(bucketId);
+            for (String tagId : tagIds) {
+                if (tagId == null) {
+                    continue;
+                }
+                int[] columns = columns(tagId);
+                for (int row = 0; row < depth; row++) {
+                    sketch[row][columns[row]]++;
+                }
+                offer(tagId, estimate(tagId, bucketId, bucketCount));
+            }
+        }
+    }
+
+    // Highest estimated counts over the last window (rounded up to whole buckets, capped at maxWindow)
+    public synchronized List<Entry> top(Duration window, int limit) {
+        long bucketId = System.currentTimeMillis() / bucketMillis;
+        rescoreIfRotated(bucketId);
+        int buckets = (int) Math.max(1, Math.min(bucketCount, (window.toMillis() + bucketMillis - 1) / bucketMillis));
+        List<Entry> entries = new ArrayList<>(candidates.size());
+        for (Candidate candidate : candidates) {
+            long score = estimate(candidate.tagId, bucketId, buckets);
+            if (score > 0) {
+                entries.add(new Entry(candidate.tagId, score));
+            }
+        }
+        entries.sort(Comparator.comparingLong(Entry::score).reversed().thenComparing(Entry::tagId));
+        return entries.size() > limit ? entries.subList(0, limit) : entries;
+    }
+
+    private void offer(String tagId, long score) {
+        Candidate existing = candidatesByTag.get(tagId);
+        if (existing != null) {
+            candidates.remove(existing);
+            existing.score = score;
+            candidates.add(existing);
+            return;
+        }
+        if (candidates.size() >= candidateCapacity) {
+            if (candidates.peek().score >= score) {
+                return;
+            }
+            candidatesByTag.remove(candidates.poll().tagId);
+        }
+        Candidate candidate = new Candidate(tagId, score);
+        candidates.add(candidate);
+        candidatesByTag.put(tagId, candidate);
+    }
+
+    // Heap scores are full-window estimates; once a bucket expires they are recomputed and dead tags dropped
+    private void rescoreIfRotated(long bucketId) {
+        if (bucketId == lastRescoredBucket) {
+            return;
+        }
+        lastRescoredBucket = bucketId;
+        List<Candidate> all = new ArrayList<>(candidates);
+        candidates.clear();
+        for (Candidate candidate : all) {
+            candidate.score = estimate(candidate.tagId, bucketId, bucketCount);
+            if (candidate.score > 0) {
+                candidates.add(candidate);
+            } else {
+                candidatesByTag.remove(candidate.tagId);
+            }
+        }
+    }
+
+    private int[][] bucket(long bucketId) {
+        rescoreIfRotated(bucketId);
+        int slot = (int) (bucketId % bucketCount);
+        if (bucketIds[slot] != bucketId) {
+            for (int[] row : sketches[slot]) {
+                Arrays.fill(row, 0);
+            }
+            bucketIds[slot] = bucketId;
+        }
+        return sketches[slot];
+    }
+
+    private long estimate(String tagId, long currentBucketId, int buckets) {
+        int[] columns = columns(tagId);
+        long total = 0;
+        for (long bucketId = currentBucketId; bucketId > currentBucketId - buckets && bucketId >= 0; bucketId--) {
+            int slot = (int) (bucketId % bucketCount);
+            if (bucketIds[slot] != bucketId) {
+                continue;
+            }
+            int min = Integer.MAX_VALUE;
+            for (int row = 0; row < depth; row++) {
+                min = Math.min(min, sketches[slot][row][columns[row]]);
+            }
+            total += min;
+        }
+        return total;
+    }
+
+    // Double hashing: row i uses h1 + i * h2
+    private int[] columns(String tagId) {
+        int h1 = mix(tagId.hashCode());
+        int h2 = mix(h1) | 1;
+        int[] columns = new int[depth];
+        for (int row = 0; row < depth; row++) {
+            columns[row] = Math.floorMod(h1 + row * h2, width);
+        }
+        return columns;
+    }
+
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
@@ -0,0 +1,23 @@
+package com.rest.server.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+// Up to jobs.archive.chunk-size comments of an archived post, oldest first across chunks
+@Document(collection = "comments_archive")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ArchivedCommentChunk {
+    // postId:chunk
+    @Id
+    private String id;
+    private String postId;
+    private int chunk;
+    private int count;
+    // Deflate-compressed BSON of {comments: [...]}
+    private byte[] data;
+}
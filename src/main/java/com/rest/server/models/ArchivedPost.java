@@ -0,0 +1,26 @@
+package com.rest.server.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+// A post moved out of "posts" by the archive job; its comments are in ArchivedCommentChunk documents
+@Document(collection = "posts_archive")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ArchivedPost {
+    @Id
+    private String postId;
+    private String postOwnerId;
+    private String postPublishDate;
+    private int commentCount;
+    private int commentChunks;
+    private Date archivedAt;
+    // Deflate-compressed BSON of the post document
+    private byte[] data;
+}
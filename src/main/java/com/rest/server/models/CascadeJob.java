@@ -0,0 +1,41 @@
+package com.rest.server.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+@Document(collection = "cascade_jobs")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CascadeJob {
+    public static final String TYPE_POST = "POST";
+    public static final String TYPE_USER = "USER";
+
+    public static final String PENDING = "PENDING";
+    public static final String RUNNING = "RUNNING";
+    public static final String DONE = "DONE";
+    public static final String FAILED = "FAILED";
+
+    @Id
+    private String id;
+    private String type;
+    // Id of the deleted post or user
+    private String rootId;
+    private String status;
+    private long deletedComments;
+    private long deletedPosts;
+    // Dependents still in the database as of the last batch
+    private long remaining;
+    private int attempts;
+    private String lastError;
+    // Process running the job; others leave it alone until leaseExpiresAt
+    private String owner;
+    private Date leaseExpiresAt;
+    private Date createdAt;
+    private Date updatedAt;
+}
@@ -0,0 +1,23 @@
+package com.rest.server.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+// Last change stream position processed by one node, so a restart resumes instead of missing changes
+@Document(collection = "change_stream_checkpoints")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ChangeStreamCheckpoint {
+    // cluster.node-id
+    @Id
+    private String id;
+    // Resume token as extended JSON
+    private String resumeToken;
+    private Date updatedAt;
+}
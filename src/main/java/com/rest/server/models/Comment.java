@@ -22,4 +22,14 @@ public class Comment {
     private String commentPostId;
 
     private String commentPublishDate;
+
+    // Null for a top-level comment
+    private String parentCommentId;
+
+    // Ancestor ids then this comment's id, each followed by "/"; ObjectId hex sorts by creation time, so
+    // ordering by path lists a thread depth-first, oldest first, and a subtree is one prefix range
+    private String commentPath;
+
+    // 0 for a top-level comment
+    private Integer commentDepth;
 }
@@ -0,0 +1,13 @@
+package com.rest.server.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class FeedItem {
+    private String postId;
+    private String publishDate;
+}
@@ -0,0 +1,30 @@
+package com.rest.server.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+@Document(collection = "follows")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class Follow {
+    public static final String TARGET_USER = "USER";
+    public static final String TARGET_TAG = "TAG";
+
+    @Id
+    private String id;
+    private String followerId;
+    // USER or TAG
+    private String targetType;
+    private String targetId;
+    private Date createdAt;
+
+    public static String targetKey(String targetType, String targetId) {
+        return targetType + ":" + targetId;
+    }
+}
@@ -0,0 +1,19 @@
+package com.rest.server.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+// Follower count per followed user or tag, used to pick fan-out-on-write vs fan-out-on-read
+@Document(collection = "follow_targets")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class FollowTarget {
+    // Follow.targetKey(type, id)
+    @Id
+    private String id;
+    private long followerCount;
+}
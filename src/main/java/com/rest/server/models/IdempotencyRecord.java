@@ -0,0 +1,32 @@
+package com.rest.server.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+@Document(collection = "idempotency_keys")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class IdempotencyRecord {
+    public static final String PENDING = "PENDING";
+    public static final String COMPLETED = "COMPLETED";
+
+    // "<client>:<Idempotency-Key>"
+    @Id
+    private String id;
+    private String fingerprint;
+    private String status;
+    // JSON of the "data" part of the first successful response
+    private String response;
+    // TTL-indexed, see MongoIndexInitializer
+    private Date createdAt;
+
+    public boolean isPending() {
+        return PENDING.equals(status);
+    }
+}
@@ -0,0 +1,21 @@
+package com.rest.server.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+// Which process runs a cluster-wide scheduled job (the id is the job name); others skip it until leaseExpiresAt
+@Document(collection = "job_leases")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class JobLease {
+    @Id
+    private String id;
+    private String owner;
+    private Date leaseExpiresAt;
+}
@@ -1,15 +1,27 @@
 package com.rest.server.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
 
 @Setter
 public class Location {
+    @Id
+    private String locationId;
     private String locationStreet;
     private String locationCity;
     private String locationState;
     private String locationCountry;
     private String locationTimezone;
+    // GeoJSON point (x = longitude, y = latitude) behind the 2dsphere index; null when no coordinates were given
+    private GeoJsonPoint locationPoint;
+
+    @JsonProperty("id")
+    public String getLocationId() {
+        return locationId;
+    }
 
     @JsonProperty("street")
     public String getLocationStreet() {
@@ -36,4 +48,8 @@ public class Location {
         return locationTimezone;
     }
 
-}
\ No newline at end of file
+    @JsonIgnore
+    public GeoJsonPoint getLocationPoint() {
+        return locationPoint;
+    }
+}
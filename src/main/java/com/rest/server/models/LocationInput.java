@@ -6,6 +6,8 @@ public class LocationInput {
     private String state;
     private String country;
     private String timezone;
+    private Double latitude;
+    private Double longitude;
 
     // Getters and setters
     public String getStreet() { return street; }
@@ -18,4 +20,8 @@ public class LocationInput {
     public void setCountry(String country) { this.country = country; }
     public String getTimezone() { return timezone; }
     public void setTimezone(String timezone) { this.timezone = timezone; }
+    public Double getLatitude() { return latitude; }
+    public void setLatitude(Double latitude) { this.latitude = latitude; }
+    public Double getLongitude() { return longitude; }
+    public void setLongitude(Double longitude) { this.longitude = longitude; }
 }
\ No newline at end of file
@@ -0,0 +1,36 @@
+package com.rest.server.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+// One counter of the analytics rollups: how many metric events for key fell into the bucket
+@Document(collection = "rollups")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class Rollup {
+    public static final String POSTS_BY_TAG = "POSTS_BY_TAG";
+    public static final String COMMENTS_BY_POST = "COMMENTS_BY_POST";
+    public static final String SIGNUPS_BY_COUNTRY = "SIGNUPS_BY_COUNTRY";
+
+    public static final String HOUR = "HOUR";
+    public static final String DAY = "DAY";
+
+    // "<metric>|<granularity>|<bucket>|<key>"
+    @Id
+    private String id;
+    private String metric;
+    private String granularity;
+    // UTC start of the bucket: "2024-05-01T13" for an hour, "2024-05-01" for a day
+    private String bucket;
+    // Tag id, post id or country
+    private String key;
+    private long count;
+    // Hourly counters only; TTL-indexed, see MongoIndexInitializer
+    private Date expiresAt;
+}
@@ -0,0 +1,22 @@
+package com.rest.server.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Materialized home feed: newest first, capped at feed.timeline-size items
+@Document(collection = "timelines")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class Timeline {
+    // The owning user's id
+    @Id
+    private String id;
+    private List<FeedItem> items = new ArrayList<>();
+}
@@ -0,0 +1,30 @@
+package com.rest.server.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+// A revoked token ("token:<jti>") or a per-user cut-off ("user:<userId>", tokens issued up to issuedBefore),
+// shared by all nodes; removed by the TTL index once every token it covers has expired
+@Document(collection = "token_revocations")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TokenRevocation {
+    public static final String TOKEN_PREFIX = "token:";
+    public static final String USER_PREFIX = "user:";
+
+    @Id
+    private String id;
+    // Set for a user cut-off only
+    private String userId;
+    // Epoch seconds
+    private long issuedBefore;
+    // TTL-indexed, see MongoIndexInitializer
+    private Date expiresAt;
+    private Date createdAt;
+}
@@ -14,5 +14,6 @@ public class UserDTO {
     private String firstName;
     private String lastName;
     private String email;
+    private String userLocationId;
     // ... getters/setters
 }
\ No newline at end of file
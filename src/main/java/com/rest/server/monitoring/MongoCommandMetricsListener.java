@@ -0,0 +1,102 @@
+package com.rest.server.monitoring;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Records a timer and a document-count summary per collection and command name.
+// The collection only appears on the started event, so it is remembered by request id until completion.
+public class MongoCommandMetricsListener implements CommandListener {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Integer, String> collections = new ConcurrentHashMap<>();
+
+    public MongoCommandMetricsListener(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        collections.put(event.getRequestId(), collectionName(event.getCommandName(), event.getCommand()));
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        String collection = collections.remove(event.getRequestId());
+        if (collection == null) {
+            collection = "unknown";
+        }
+        timer(event.getCommandName(), collection, "SUCCESS").record(event.getElapsedTime(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+        long documents = documentCount(event.getCommandName(), event.getResponse());
+        if (documents >= 0) {
+            DistributionSummary.builder("mongodb.command.documents")
+                    .description("Documents returned or affected per MongoDB command")
+                    .tag("command", event.getCommandName())
+                    .tag("collection", collection)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(documents);
+        }
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        String collection = collections.remove(event.getRequestId());
+        timer(event.getCommandName(), collection != null ? collection : "unknown", "FAILED")
+                .record(event.getElapsedTime(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+    }
+
+    private Timer timer(String command, String collection, String status) {
+        return Timer.builder("mongodb.command")
+                .description("Latency of MongoDB commands")
+                .tag("command", command)
+                .tag("collection", collection)
+                .tag("status", status)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    static String collectionName(String commandName, BsonDocument command) {
+        if ("getMore".equals(commandName)) {
+            BsonValue collection = command.get("collection");
+            return collection != null && collection.isString() ? collection.asString().getValue() : "unknown";
+        }
+        BsonValue value = command.get(commandName);
+        if (value != null && value.isString()) {
+            return value.asString().getValue();
+        }
+        return "none";
+    }
+
+    static long documentCount(String commandName, BsonDocument response) {
+        if (response == null) {
+            return -1;
+        }
+        BsonValue cursor = response.get("cursor");
+        if (cursor != null && cursor.isDocument()) {
+            BsonDocument cursorDocument = cursor.asDocument();
+            String batch = cursorDocument.containsKey("firstBatch") ? "firstBatch" : "nextBatch";
+            BsonValue documents = cursorDocument.get(batch);
+            return documents != null && documents.isArray() ? documents.asArray().size() : 0;
+        }
+        if ("findAndModify".equals(commandName)) {
+            BsonValue value = response.get("value");
+            return value != null && value.isDocument() ? 1 : 0;
+        }
+        BsonValue n = response.get("n");
+        if (n != null && n.isNumber()) {
+            return n.asNumber().longValue();
+        }
+        return -1;
+    }
+}
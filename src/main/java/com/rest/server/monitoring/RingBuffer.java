@@ -0,0 +1,44 @@
+package com.rest.server.monitoring;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Fixed-capacity buffer that overwrites the oldest entry once full
+public class RingBuffer<T> {
+
+    private final Object[] items;
+    private long written;
+
+    public RingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.items = new Object[capacity];
+    }
+
+    public synchronized void add(T item) {
+        items[(int) (written % items.length)] = item;
+        written++;
+    }
+
+    // Newest first
+    @SuppressWarnings("unchecked")
+    public synchronized List<T> snapshot() {
+        int size = (int) Math.min(written, items.length);
+        List<T> result = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) {
+            result.add((T) items[(int) ((written - i) % items.length)]);
+        }
+        return result;
+    }
+
+    public synchronized void clear() {
+        Arrays.fill(items, null);
+        written = 0;
+    }
+
+    public int capacity() {
+        return items.length;
+    }
+}
@@ -0,0 +1,20 @@
+package com.rest.server.monitoring;
+
+import java.time.Instant;
+import java.util.List;
+
+public record SlowQueryFinding(
+        Instant timestamp,
+        String database,
+        String collection,
+        String command,
+        long durationMs,
+        String queryShape,
+        String winningPlan,
+        boolean collectionScan,
+        long docsExamined,
+        long keysExamined,
+        long nReturned,
+        double examinedToReturnedRatio,
+        List<String> flags) {
+}
@@ -0,0 +1,295 @@
+package com.rest.server.monitoring;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Samples Mongo commands slower than the threshold and explains them off the request path.
+// Findings (COLLSCAN, high docs-examined/returned ratio) are kept in a ring buffer for the admin endpoint.
+// A command's duration is only known once it completes, after its document is gone, so each sampled command
+// keeps a copy from the start (a flat copy of its bytes, nothing is decoded) and a slow one is explained straight
+// away. It also arms capture for its collection and command for capture-window-ms: those are then copied
+// whatever the sample rate, so a regression is not missed between samples.
+@Component
+public class SlowQueryProfiler implements CommandListener {
+    private static final Logger logger = LoggerFactory.getLogger(SlowQueryProfiler.class);
+
+    private static final Set<String> EXPLAINABLE = Set.of("find", "aggregate", "count", "distinct", "update", "delete", "findAndModify");
+    private static final Set<String> SESSION_FIELDS = Set.of("$db", "lsid", "$clusterTime", "$readPreference", "txnNumber",
+            "autocommit", "startTransaction", "readConcern", "writeConcern", "apiVersion", "apiStrict", "apiDeprecationErrors");
+    private static final Set<String> VERBATIM_FIELDS = Set.of("sort", "projection", "hint");
+    private static final int MAX_IN_FLIGHT = 10_000;
+    private static final int MAX_ARMED = 1_000;
+
+    private final ObjectProvider<MongoClient> mongoClient;
+    private final Map<Integer, SampledCommand> inFlight = new ConcurrentHashMap<>();
+    // "database.collection.command" -> System.nanoTime() capture ends
+    private final Map<String, Long> armed = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor explainExecutor;
+    private final RingBuffer<SlowQueryFinding> findings;
+
+    @Value("${profiler.slow-query.enabled:true}")
+    private boolean enabled;
+
+    @Value("${profiler.slow-query.threshold-ms:100}")
+    private long thresholdMs;
+
+    @Value("${profiler.slow-query.sample-rate:1.0}")
+    private double sampleRate;
+
+    @Value("${profiler.slow-query.scan-ratio:100}")
+    private double scanRatio;
+
+    @Value("${profiler.slow-query.capture-window-ms:300000}")
+    private long captureWindowMs;
+
+    public SlowQueryProfiler(ObjectProvider<MongoClient> mongoClient,
+                             @Value("${profiler.slow-query.capacity:100}") int capacity) {
+        this.mongoClient = mongoClient;
+        this.findings = new RingBuffer<>(capacity);
+        // One background thread; explains are dropped rather than queued without bound
+        this.explainExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(32), runnable -> {
+            Thread thread = new Thread(runnable, "slow-query-explain");
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        if (!enabled || !EXPLAINABLE.contains(event.getCommandName()) || inFlight.size() >= MAX_IN_FLIGHT) {
+            return;
+        }
+        BsonDocument command = event.getCommand();
+        BsonValue target = command.get(event.getCommandName());
+        String collection = target != null && target.isString() ? target.asString().getValue() : "unknown";
+        String key = event.getDatabaseName() + "." + collection + "." + event.getCommandName();
+        if (sampleRate < 1.0 && !isArmed(key) && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return;
+        }
+        // The event's command is only valid during the callback, so keep a copy
+        inFlight.put(event.getRequestId(), new SampledCommand(event.getDatabaseName(), event.getCommandName(), collection,
+                key, command.clone()));
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        SampledCommand sampled = inFlight.remove(event.getRequestId());
+        if (sampled == null) {
+            return;
+        }
+        long durationMs = event.getElapsedTime(TimeUnit.MILLISECONDS);
+        if (durationMs < thresholdMs) {
+            return;
+        }
+        explainExecutor.execute(() -> explain(sampled, durationMs));
+        if (armed.size() < MAX_ARMED || armed.containsKey(sampled.key())) {
+            armed.put(sampled.key(), System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(captureWindowMs));
+        }
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        inFlight.remove(event.getRequestId());
+    }
+
+    public List<SlowQueryFinding> findings() {
+        return findings.snapshot();
+    }
+
+    public void clear() {
+        findings.clear();
+        armed.clear();
+    }
+
+    private boolean isArmed(String key) {
+        Long until = armed.get(key);
+        if (until == null) {
+            return false;
+        }
+        if (until - System.nanoTime() < 0) {
+            armed.remove(key, until);
+            return false;
+        }
+        return true;
+    }
+
+    private void explain(SampledCommand sampled, long durationMs) {
+        try {
+            // The copy is an immutable RawBsonDocument, so build the explained command from its fields
+            BsonDocument command = new BsonDocument();
+            sampled.command().forEach((key, value) -> {
+                if (!SESSION_FIELDS.contains(key)) {
+                    command.put(key, value);
+                }
+            });
+            BsonDocument explainCommand = new BsonDocument("explain", command)
+                    .append("verbosity", new BsonString("executionStats"));
+            BsonDocument plan = mongoClient.getObject()
+                    .getDatabase(sampled.database())
+                    .runCommand(explainCommand, BsonDocument.class);
+            record(sampled, durationMs, plan);
+        } catch (Exception e) {
+            logger.debug("Could not explain slow {} command: {}", sampled.commandName(), e.getMessage());
+        }
+    }
+
+    private void record(SampledCommand sampled, long durationMs, BsonDocument plan) {
+        BsonDocument stats = findDocument(plan, "executionStats");
+        long docsExamined = stats != null ? longValue(stats, "totalDocsExamined") : 0;
+        long keysExamined = stats != null ? longValue(stats, "totalKeysExamined") : 0;
+        long nReturned = stats != null ? longValue(stats, "nReturned") : 0;
+        double ratio = (double) docsExamined / Math.max(nReturned, 1);
+        BsonDocument winningPlan = findDocument(plan, "winningPlan");
+        boolean collectionScan = winningPlan != null && containsStage(winningPlan, "COLLSCAN");
+
+        List<String> flags = new ArrayList<>();
+        if (collectionScan) {
+            flags.add("COLLSCAN");
+        }
+        if (docsExamined > 0 && ratio >= scanRatio) {
+            flags.add("HIGH_EXAMINED_TO_RETURNED_RATIO");
+        }
+
+        SlowQueryFinding finding = new SlowQueryFinding(
+                Instant.now(),
+                sampled.database(),
+                sampled.collection(),
+                sampled.commandName(),
+                durationMs,
+                queryShape(sampled.command()),
+                winningPlan != null ? describePlan(winningPlan) : "unknown",
+                collectionScan,
+                docsExamined,
+                keysExamined,
+                nReturned,
+                ratio,
+                flags);
+        findings.add(finding);
+        if (!flags.isEmpty()) {
+            logger.warn("Slow {} on {} took {} ms: {} (plan {})", finding.command(), finding.collection(), durationMs, flags, finding.winningPlan());
+        }
+    }
+
+    // Depth-first search for the first embedded document under the given key
+    private static BsonDocument findDocument(BsonValue value, String key) {
+        if (value.isDocument()) {
+            BsonDocument document = value.asDocument();
+            BsonValue direct = document.get(key);
+            if (direct != null && direct.isDocument()) {
+                return direct.asDocument();
+            }
+            for (BsonValue child : document.values()) {
+                BsonDocument found = findDocument(child, key);
+                if (found != null) {
+                    return found;
+                }
+            }
+        } else if (value.isArray()) {
+            for (BsonValue child : value.asArray()) {
+                BsonDocument found = findDocument(child, key);
+                if (found != null) {
+                    return found;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean containsStage(BsonValue value, String stage) {
+        if (value.isDocument()) {
+            BsonValue current = value.asDocument().get("stage");
+            if (current != null && current.isString() && stage.equals(current.asString().getValue())) {
+                return true;
+            }
+            return value.asDocument().values().stream().anyMatch(child -> containsStage(child, stage));
+        }
+        return value.isArray() && value.asArray().stream().anyMatch(child -> containsStage(child, stage));
+    }
+
+    // e.g. "FETCH <- IXSCAN(commentPostId_1)"
+    private static String describePlan(BsonDocument plan) {
+        StringBuilder description = new StringBuilder();
+        BsonDocument current = plan;
+        while (current != null) {
+            if (description.length() > 0) {
+                description.append(" <- ");
+            }
+            description.append(current.getString("stage", new BsonString("?")).getValue());
+            if (current.containsKey("indexName")) {
+                description.append('(').append(current.getString("indexName").getValue()).append(')');
+            }
+            BsonValue input = current.get("inputStage");
+            if (input == null && current.get("inputStages") instanceof BsonArray stages && !stages.isEmpty()) {
+                input = stages.get(0);
+            }
+            current = input != null && input.isDocument() ? input.asDocument() : null;
+        }
+        return description.toString();
+    }
+
+    // The command with literal filter values replaced by "?" so user data never reaches the admin endpoint
+    private static String queryShape(BsonDocument command) {
+        BsonDocument shape = new BsonDocument();
+        for (Map.Entry<String, BsonValue> entry : command.entrySet()) {
+            String key = entry.getKey();
+            if (SESSION_FIELDS.contains(key)) {
+                continue;
+            }
+            BsonValue value = entry.getValue();
+            boolean literal = VERBATIM_FIELDS.contains(key) || !(value.isDocument() || value.isArray());
+            shape.put(key, literal ? value : redact(value));
+        }
+        return shape.toJson();
+    }
+
+    private static BsonValue redact(BsonValue value) {
+        if (value.isDocument()) {
+            BsonDocument redacted = new BsonDocument();
+            value.asDocument().forEach((key, child) -> redacted.put(key, redact(child)));
+            return redacted;
+        }
+        if (value.isArray()) {
+            BsonArray redacted = new BsonArray();
+            value.asArray().forEach(child -> redacted.add(redact(child)));
+            return redacted;
+        }
+        return new BsonString("?");
+    }
+
+    private static long longValue(BsonDocument document, String key) {
+        BsonValue value = document.get(key);
+        return value != null && value.isNumber() ? value.asNumber().longValue() : 0;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        explainExecutor.shutdownNow();
+    }
+
+    private record SampledCommand(String database, String commandName, String collection, String key, BsonDocument command) {
+    }
+}
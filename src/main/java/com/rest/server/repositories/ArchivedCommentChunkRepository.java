@@ -0,0 +1,13 @@
+package com.rest.server.repositories;
+
+import com.rest.server.models.ArchivedCommentChunk;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ArchivedCommentChunkRepository extends MongoRepository<ArchivedCommentChunk, String> {
+    List<ArchivedCommentChunk> findByPostIdOrderByChunkAsc(String postId);
+    void deleteByPostId(String postId);
+}
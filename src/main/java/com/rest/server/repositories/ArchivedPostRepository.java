@@ -0,0 +1,12 @@
+package com.rest.server.repositories;
+
+import com.rest.server.models.ArchivedPost;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ArchivedPostRepository extends MongoRepository<ArchivedPost, String> {
+    List<ArchivedPost> findByPostOwnerId(String ownerId);
+}
@@ -0,0 +1,16 @@
+package com.rest.server.repositories;
+
+import com.rest.server.models.CascadeJob;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface CascadeJobRepository extends MongoRepository<CascadeJob, String>, CascadeJobRepositoryCustom {
+    Page<CascadeJob> findAll(Pageable pageable);
+    List<CascadeJob> findByStatusInOrderByCreatedAtAsc(Collection<String> statuses);
+}
@@ -0,0 +1,17 @@
+package com.rest.server.repositories;
+
+import com.rest.server.models.CascadeJob;
+
+import java.util.Date;
+
+public interface CascadeJobRepositoryCustom {
+    // Takes an unfinished job for owner until leaseUntil unless another owner's lease is still current;
+    // returns the claimed job, or null when it is held elsewhere or finished
+    CascadeJob claim(String id, String owner, Date now, Date leaseUntil);
+
+    // Adds the deleted counts and sets remaining and status, only while owner holds the job; false if it does not
+    boolean recordProgress(String id, String owner, long deletedComments, long deletedPosts, long remaining, String status, Date now);
+
+    // Same for a failed step: counts what it deleted before failing and adds an attempt
+    boolean recordFailure(String id, String owner, long deletedComments, long deletedPosts, String error, String status, Date now);
+}
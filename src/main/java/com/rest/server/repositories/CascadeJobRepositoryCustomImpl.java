@@ -0,0 +1,57 @@
+package com.rest.server.repositories;
+
+import com.rest.server.models.CascadeJob;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Date;
+import java.util.List;
+
+public class CascadeJobRepositoryCustomImpl implements CascadeJobRepositoryCustom {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public CascadeJob claim(String id, String owner, Date now, Date leaseUntil) {
+        Query claimable = Query.query(Criteria.where("_id").is(id)
+                .and("status").in(List.of(CascadeJob.PENDING, CascadeJob.RUNNING))
+                .orOperator(Criteria.where("owner").is(null), Criteria.where("owner").is(owner), Criteria.where("leaseExpiresAt").lt(now)));
+        return mongoTemplate.findAndModify(claimable,
+                new Update().set("owner", owner).set("leaseExpiresAt", leaseUntil).set("status", CascadeJob.RUNNING),
+                FindAndModifyOptions.options().returnNew(true),
+                CascadeJob.class);
+    }
+
+    // $inc, so counts from a step never overwrite another step's
+    @Override
+    public boolean recordProgress(String id, String owner, long deletedComments, long deletedPosts, long remaining, String status, Date now) {
+        Update update = new Update()
+                .inc("deletedComments", deletedComments)
+                .inc("deletedPosts", deletedPosts)
+                .set("remaining", remaining)
+                .set("status", status)
+                .set("updatedAt", now);
+        return mongoTemplate.updateFirst(owned(id, owner), update, CascadeJob.class).getMatchedCount() > 0;
+    }
+
+    @Override
+    public boolean recordFailure(String id, String owner, long deletedComments, long deletedPosts, String error, String status, Date now) {
+        Update update = new Update()
+                .inc("deletedComments", deletedComments)
+                .inc("deletedPosts", deletedPosts)
+                .inc("attempts", 1)
+                .set("lastError", error)
+                .set("status", status)
+                .set("updatedAt", now);
+        return mongoTemplate.updateFirst(owned(id, owner), update, CascadeJob.class).getMatchedCount() > 0;
+    }
+
+    private static Query owned(String id, String owner) {
+        return Query.query(Criteria.where("_id").is(id).and("owner").is(owner));
+    }
+}
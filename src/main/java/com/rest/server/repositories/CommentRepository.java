@@ -6,9 +6,16 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.stream.Stream;
+
 @Repository
-public interface CommentRepository extends MongoRepository<Comment, String> {
+public interface CommentRepository extends MongoRepository<Comment, String>, CommentRepositoryCustom {
     Page<Comment> findAll(Pageable pageable);
     Page<Comment> findByCommentPostId(String postId, Pageable pageable);
     Page<Comment> findByCommentOwnerId(String ownerId, Pageable pageable);
+    // Exclusive bounds on both ends; with a path prefix as from and prefix + "~" as to, the replies under it
+    List<Comment> findByCommentPostIdAndCommentPathBetween(String postId, String from, String to, Pageable pageable);
+    List<Comment> findByCommentPostIdAndCommentPathGreaterThanAndCommentDepthLessThanEqual(String postId, String after, int depth, Pageable pageable);
+    Stream<Comment> streamByCommentOwnerIdAndCommentPublishDateLessThanEqual(String ownerId, String publishDate, Pageable pageable);
 }
@@ -0,0 +1,11 @@
+package com.rest.server.repositories;
+
+import com.rest.server.models.Comment;
+
+import java.util.List;
+import java.util.Map;
+
+public interface CommentRepositoryCustom {
+    // Inserts all comments in one unordered bulk write; returns the error message per failed list index
+    Map<Integer, String> insertUnordered(List<Comment> comments);
+}
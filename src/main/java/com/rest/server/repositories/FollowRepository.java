@@ -0,0 +1,19 @@
+package com.rest.server.repositories;
+
+import com.rest.server.models.Follow;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface FollowRepository extends MongoRepository<Follow, String> {
+    List<Follow> findByFollowerId(String followerId);
+    Slice<Follow> findByTargetTypeAndTargetId(String targetType, String targetId, Pageable pageable);
+    // Returns the deleted follows
+    List<Follow> deleteByFollowerIdAndTargetTypeAndTargetId(String followerId, String targetType, String targetId);
+    List<Follow> deleteByFollowerId(String followerId);
+    List<Follow> deleteByTargetTypeAndTargetId(String targetType, String targetId);
+}
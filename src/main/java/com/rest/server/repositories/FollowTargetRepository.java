@@ -0,0 +1,9 @@
+package com.rest.server.repositories;
+
+import com.rest.server.models.FollowTarget;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface FollowTargetRepository extends MongoRepository<FollowTarget, String>, FollowTargetRepositoryCustom {
+}
@@ -0,0 +1,6 @@
+package com.rest.server.repositories;
+
+public interface FollowTargetRepositoryCustom {
+    // Atomically adds delta to the follower count (creating the counter) and returns the new count
+    long incrementFollowerCount(String targetKey, long delta);
+}
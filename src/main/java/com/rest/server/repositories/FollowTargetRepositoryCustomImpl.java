@@ -0,0 +1,25 @@
+package com.rest.server.repositories;
+
+import com.rest.server.models.FollowTarget;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+public class FollowTargetRepositoryCustomImpl implements FollowTargetRepositoryCustom {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public long incrementFollowerCount(String targetKey, long delta) {
+        FollowTarget target = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(targetKey)),
+                new Update().inc("followerCount", delta),
+                FindAndModifyOptions.options().upsert(true).returnNew(true),
+                FollowTarget.class);
+        return target != null ? target.getFollowerCount() : 0;
+    }
+}
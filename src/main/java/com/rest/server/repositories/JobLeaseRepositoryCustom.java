@@ -0,0 +1,9 @@
+package com.rest.server.repositories;
+
+import java.util.Date;
+
+public interface JobLeaseRepositoryCustom {
+    // Takes or renews the job for owner until leaseUntil unless another owner's lease is still current;
+    // false when it is held elsewhere
+    boolean claim(String job, String owner, Date now, Date leaseUntil);
+}
@@ -0,0 +1,33 @@
+package com.rest.server.repositories;
+
+import com.rest.server.models.JobLease;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Date;
+
+public class JobLeaseRepositoryCustomImpl implements JobLeaseRepositoryCustom {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    // Upsert: the first claim creates the lease; while another owner holds it the query misses and the insert hits the _id
+    @Override
+    public boolean claim(String job, String owner, Date now, Date leaseUntil) {
+        Query claimable = Query.query(Criteria.where("_id").is(job)
+                .orOperator(Criteria.where("owner").is(owner), Criteria.where("leaseExpiresAt").lt(now)));
+        try {
+            return mongoTemplate.findAndModify(claimable,
+                    new Update().set("owner", owner).set("leaseExpiresAt", leaseUntil),
+                    FindAndModifyOptions.options().upsert(true).returnNew(true),
+                    JobLease.class) != null;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+}
@@ -7,6 +7,6 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface LocationRepository extends MongoRepository<Location, String> {
+public interface LocationRepository extends MongoRepository<Location, String>, LocationRepositoryCustom {
     Page<Location> findAll(Pageable pageable);
 }
@@ -0,0 +1,10 @@
+package com.rest.server.repositories;
+
+import com.rest.server.models.Location;
+
+import java.util.List;
+
+public interface LocationRepositoryCustom {
+    // Locations with coordinates within radiusKm, closest first
+    List<Location> findNear(double latitude, double longitude, double radiusKm, int limit);
+}
@@ -0,0 +1,30 @@
+package com.rest.server.repositories;
+
+import com.rest.server.models.Location;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.GeoResult;
+import org.springframework.data.geo.Metrics;
+import org.springframework.data.geo.Point;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.NearQuery;
+
+import java.util.List;
+
+public class LocationRepositoryCustomImpl implements LocationRepositoryCustom {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    // $geoNear on the locationPoint 2dsphere index
+    @Override
+    public List<Location> findNear(double latitude, double longitude, double radiusKm, int limit) {
+        NearQuery query = NearQuery.near(new Point(longitude, latitude), Metrics.KILOMETERS)
+                .spherical(true)
+                .maxDistance(new Distance(radiusKm, Metrics.KILOMETERS))
+                .limit(limit);
+        return mongoTemplate.geoNear(query, Location.class).getContent().stream()
+                .map(GeoResult::getContent)
+                .toList();
+    }
+}
@@ -6,9 +6,21 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
 @Repository
-public interface PostRepository extends MongoRepository<Post, String> {
+public interface PostRepository extends MongoRepository<Post, String>, PostRepositoryCustom {
     Page<Post> findAll(Pageable pageable);
     Page<Post> findByPostTextContainingIgnoreCase(String query, Pageable pageable);
+    Page<Post> findByPostOwnerId(String ownerId, Pageable pageable);
+    List<Post> findByPostOwnerIdIn(Collection<String> ownerIds, Pageable pageable);
+    Page<Post> findByPostTags(String tagId, Pageable pageable);
+    Page<Post> findByPostOwnerIdAndPostPublishDateLessThanEqual(String ownerId, String publishDate, Pageable pageable);
+    Page<Post> findByPostTagsAndPostPublishDateLessThanEqual(String tagId, String publishDate, Pageable pageable);
+    List<Post> findByPostPublishDateLessThan(String publishDate, Pageable pageable);
+    Stream<Post> streamAllBy();
+    Stream<Post> streamByPostOwnerIdAndPostPublishDateLessThanEqual(String ownerId, String publishDate, Pageable pageable);
 
 }
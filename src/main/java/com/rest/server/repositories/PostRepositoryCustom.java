@@ -0,0 +1,12 @@
+package com.rest.server.repositories;
+
+import com.rest.server.models.Post;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Collection;
+
+public interface PostRepositoryCustom {
+    // Posts tagged with every id in allTagIds, at least one of anyTagIds (if given) and none of noneTagIds
+    Page<Post> findByTags(Collection<String> allTagIds, Collection<String> anyTagIds, Collection<String> noneTagIds, Pageable pageable);
+}
@@ -0,0 +1,37 @@
+package com.rest.server.repositories;
+
+import com.rest.server.models.Post;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+public class PostRepositoryCustomImpl implements PostRepositoryCustom {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public Page<Post> findByTags(Collection<String> allTagIds, Collection<String> anyTagIds, Collection<String> noneTagIds, Pageable pageable) {
+        List<Criteria> criteria = new ArrayList<>();
+        if (!allTagIds.isEmpty()) {
+            criteria.add(Criteria.where("postTags").all(allTagIds));
+        }
+        if (!anyTagIds.isEmpty()) {
+            criteria.add(Criteria.where("postTags").in(anyTagIds));
+        }
+        if (!noneTagIds.isEmpty()) {
+            criteria.add(Criteria.where("postTags").nin(noneTagIds));
+        }
+        Query query = criteria.isEmpty() ? new Query() : new Query(new Criteria().andOperator(criteria));
+        List<Post> posts = mongoTemplate.find(Query.of(query).with(pageable), Post.class);
+        return PageableExecutionUtils.getPage(posts, pageable, () -> mongoTemplate.count(Query.of(query).limit(-1).skip(-1), Post.class));
+    }
+}
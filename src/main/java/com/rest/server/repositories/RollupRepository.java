@@ -0,0 +1,15 @@
+package com.rest.server.repositories;
+
+import com.rest.server.models.Rollup;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Range;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface RollupRepository extends MongoRepository<Rollup, String>, RollupRepositoryCustom {
+    List<Rollup> findByMetricAndGranularityAndBucketBetween(String metric, String granularity, Range<String> buckets, Pageable pageable);
+    List<Rollup> findByMetricAndGranularityAndKeyAndBucketBetween(String metric, String granularity, String key, Range<String> buckets, Pageable pageable);
+}
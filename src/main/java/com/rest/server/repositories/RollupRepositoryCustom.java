@@ -0,0 +1,16 @@
+package com.rest.server.repositories;
+
+import com.rest.server.models.Rollup;
+import org.springframework.data.domain.Range;
+
+import java.util.List;
+import java.util.Map;
+
+public interface RollupRepositoryCustom {
+    // Adds each rollup's count to the stored counter with the same id, creating it if needed;
+    // returns the error message per failed list index
+    Map<Integer, String> incrementAll(List<Rollup> deltas);
+
+    // Key and count summed over the buckets in range, highest count first
+    List<Rollup> totals(String metric, String granularity, Range<String> buckets, int limit);
+}
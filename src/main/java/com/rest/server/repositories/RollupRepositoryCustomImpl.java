@@ -0,0 +1,75 @@
+package com.rest.server.repositories;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.rest.server.models.Rollup;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Range;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class RollupRepositoryCustomImpl implements RollupRepositoryCustom {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    // One unordered bulk of $inc upserts, so concurrent flushes from several nodes add up
+    @Override
+    public Map<Integer, String> incrementAll(List<Rollup> deltas) {
+        Map<Integer, String> failures = new HashMap<>();
+        if (deltas.isEmpty()) {
+            return failures;
+        }
+        BulkOperations operations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Rollup.class);
+        for (Rollup delta : deltas) {
+            Update update = new Update()
+                    .inc("count", delta.getCount())
+                    .setOnInsert("metric", delta.getMetric())
+                    .setOnInsert("granularity", delta.getGranularity())
+                    .setOnInsert("bucket", delta.getBucket())
+                    .setOnInsert("key", delta.getKey());
+            if (delta.getExpiresAt() != null) {
+                update.setOnInsert("expiresAt", delta.getExpiresAt());
+            }
+            operations.upsert(Query.query(Criteria.where("_id").is(delta.getId())), update);
+        }
+        try {
+            operations.execute();
+        } catch (BulkOperationException e) {
+            // Unordered: everything not listed here was written
+            for (BulkWriteError error : e.getErrors()) {
+                failures.put(error.getIndex(), error.getMessage());
+            }
+        }
+        return failures;
+    }
+
+    @Override
+    public List<Rollup> totals(String metric, String granularity, Range<String> buckets, int limit) {
+        Criteria bucket = Criteria.where("bucket");
+        buckets.getLowerBound().getValue().ifPresent(bucket::gte);
+        buckets.getUpperBound().getValue().ifPresent(bucket::lte);
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("metric").is(metric).and("granularity").is(granularity).andOperator(bucket)),
+                Aggregation.group("key").sum("count").as("count"),
+                Aggregation.sort(Sort.by(Sort.Order.desc("count"), Sort.Order.asc("_id"))),
+                Aggregation.limit(limit));
+        List<Rollup> totals = new ArrayList<>();
+        for (Document document : mongoTemplate.aggregate(aggregation, Rollup.class, Document.class)) {
+            totals.add(new Rollup(null, metric, granularity, null, document.getString("_id"),
+                    ((Number) document.get("count")).longValue(), null));
+        }
+        return totals;
+    }
+}
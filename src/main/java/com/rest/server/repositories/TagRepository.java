@@ -7,10 +7,12 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface TagRepository extends MongoRepository<Tag, String> {
     Page<Tag> findAll(Pageable pageable);
     Optional<Tag> findByTagName(String tagName);
+    List<Tag> findByTagNameStartingWithIgnoreCase(String prefix, Pageable pageable);
 }
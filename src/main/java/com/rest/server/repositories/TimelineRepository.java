@@ -0,0 +1,9 @@
+package com.rest.server.repositories;
+
+import com.rest.server.models.Timeline;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface TimelineRepository extends MongoRepository<Timeline, String>, TimelineRepositoryCustom {
+}
@@ -0,0 +1,17 @@
+package com.rest.server.repositories;
+
+import com.rest.server.models.FeedItem;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface TimelineRepositoryCustom {
+    // Adds the items to each user's timeline (creating it if needed), keeping the newest maxSize items
+    void pushAll(Collection<String> userIds, List<FeedItem> items, int maxSize);
+
+    // Like pushAll for one user, but items whose post is already in the timeline replace it instead of repeating it
+    void merge(String userId, List<FeedItem> items, int maxSize);
+
+    // Removes the post from the user's timeline, if it is there
+    void pull(String userId, String postId);
+}
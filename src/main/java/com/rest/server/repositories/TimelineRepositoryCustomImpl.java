@@ -0,0 +1,66 @@
+package com.rest.server.repositories;
+
+import com.rest.server.models.FeedItem;
+import com.rest.server.models.Timeline;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Collection;
+import java.util.List;
+
+public class TimelineRepositoryCustomImpl implements TimelineRepositoryCustom {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    // One unordered bulk of upserts: $push with $each/$sort/$slice keeps each timeline sorted and capped
+    @Override
+    public void pushAll(Collection<String> userIds, List<FeedItem> items, int maxSize) {
+        if (userIds.isEmpty() || items.isEmpty()) {
+            return;
+        }
+        BulkOperations operations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Timeline.class);
+        for (String userId : userIds) {
+            Update update = new Update();
+            update.push("items")
+                    .sort(Sort.by(Sort.Direction.DESC, "publishDate"))
+                    .slice(maxSize)
+                    .each(items.toArray());
+            operations.upsert(Query.query(Criteria.where("_id").is(userId)), update);
+        }
+        operations.execute();
+    }
+
+    // A backfill can overlap posts already delivered (a fan-out racing the follow, or an unfollow and refollow).
+    // $push cannot skip those and $addToSet cannot sort or slice, so they are pulled first in the same ordered bulk.
+    // A fan-out landing between the two updates can still add one back; feed() reads one entry per post.
+    @Override
+    public void merge(String userId, List<FeedItem> items, int maxSize) {
+        if (items.isEmpty()) {
+            return;
+        }
+        List<String> postIds = items.stream().map(FeedItem::getPostId).distinct().toList();
+        BulkOperations operations = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, Timeline.class);
+        operations.updateOne(Query.query(Criteria.where("_id").is(userId).and("items.postId").in(postIds)),
+                new Update().pull("items", new Document("postId", new Document("$in", postIds))));
+        Update update = new Update();
+        update.push("items")
+                .sort(Sort.by(Sort.Direction.DESC, "publishDate"))
+                .slice(maxSize)
+                .each(items.toArray());
+        operations.upsert(Query.query(Criteria.where("_id").is(userId)), update);
+        operations.execute();
+    }
+
+    @Override
+    public void pull(String userId, String postId) {
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(userId)),
+                new Update().pull("items", new Document("postId", postId)), Timeline.class);
+    }
+}
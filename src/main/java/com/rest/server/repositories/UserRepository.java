@@ -7,6 +7,8 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -14,5 +16,6 @@ public interface UserRepository extends MongoRepository<User, String> {
     // This method will handle sorting and pagination
     Page<User> findAll(Pageable pageable);
     Optional<User> findByUserEmail(String userEmail);
+    List<User> findByUserLocationIdIn(Collection<String> locationIds, Pageable pageable);
     Page<User> findByUserFirstNameContainingIgnoreCaseOrUserLastNameContainingIgnoreCaseOrUserEmailContainingIgnoreCase(String userFirstName, String userLastName, String userEmail, Pageable pageable);
 }
@@ -0,0 +1,85 @@
+package com.rest.server.repositories.inmemory;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.data.support.ExampleMatcherAccessor;
+
+import java.beans.PropertyDescriptor;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+// Query by example for the in-memory repositories, matched like Mongo's example mapper: every non-null probe
+// property (nested beans by dotted path) is a criterion, strings follow the matcher's string matching and case
+// rules, and null properties only count with NullHandler.INCLUDE
+final class ExamplePredicate {
+
+    private ExamplePredicate() {
+    }
+
+    static <T> Predicate<T> of(Example<?> example) {
+        ExampleMatcherAccessor matcher = new ExampleMatcherAccessor(example.getMatcher());
+        List<Predicate<Object>> criteria = new ArrayList<>();
+        collect(example.getProbe(), "", matcher, criteria);
+        Class<?> probeType = example.getProbeType();
+        boolean all = example.getMatcher().isAllMatching();
+        return candidate -> probeType.isInstance(candidate) && (criteria.isEmpty()
+                || (all ? criteria.stream().allMatch(criterion -> criterion.test(candidate))
+                        : criteria.stream().anyMatch(criterion -> criterion.test(candidate))));
+    }
+
+    private static void collect(Object bean, String prefix, ExampleMatcherAccessor matcher, List<Predicate<Object>> criteria) {
+        BeanWrapperImpl probe = new BeanWrapperImpl(bean);
+        for (PropertyDescriptor descriptor : probe.getPropertyDescriptors()) {
+            String name = descriptor.getName();
+            String path = prefix + name;
+            if (descriptor.getReadMethod() == null || "class".equals(name) || matcher.isIgnoredPath(path)) {
+                continue;
+            }
+            Object value = matcher.getValueTransformerForPath(path)
+                    .apply(Optional.ofNullable(probe.getPropertyValue(name)))
+                    .orElse(null);
+            if (value == null) {
+                if (matcher.getNullHandler() == ExampleMatcher.NullHandler.INCLUDE) {
+                    criteria.add(candidate -> InMemoryRepository.property(candidate, path) == null);
+                }
+            } else if (value instanceof String expected) {
+                criteria.add(stringCriterion(path, expected, matcher.getStringMatcherForPath(path), matcher.isIgnoreCaseForPath(path)));
+            } else if (BeanUtils.isSimpleValueType(value.getClass()) || value instanceof Collection<?>
+                    || value instanceof Map<?, ?> || value.getClass().isArray()) {
+                criteria.add(candidate -> Objects.deepEquals(InMemoryRepository.property(candidate, path), value));
+            } else {
+                collect(value, path + ".", matcher, criteria);
+            }
+        }
+    }
+
+    private static Predicate<Object> stringCriterion(String path, String expected, ExampleMatcher.StringMatcher stringMatcher,
+                                                     boolean ignoreCase) {
+        if (stringMatcher == ExampleMatcher.StringMatcher.REGEX) {
+            Pattern pattern = Pattern.compile(expected, ignoreCase ? Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE : 0);
+            return candidate -> InMemoryRepository.property(candidate, path) instanceof String actual && pattern.matcher(actual).find();
+        }
+        String wanted = ignoreCase ? expected.toLowerCase(Locale.ROOT) : expected;
+        return candidate -> {
+            if (!(InMemoryRepository.property(candidate, path) instanceof String actual)) {
+                return false;
+            }
+            String value = ignoreCase ? actual.toLowerCase(Locale.ROOT) : actual;
+            return switch (stringMatcher) {
+                case STARTING -> value.startsWith(wanted);
+                case ENDING -> value.endsWith(wanted);
+                case CONTAINING -> value.contains(wanted);
+                default -> value.equals(wanted);
+            };
+        };
+    }
+}
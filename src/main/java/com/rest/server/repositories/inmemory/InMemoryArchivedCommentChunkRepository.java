@@ -0,0 +1,27 @@
+package com.rest.server.repositories.inmemory;
+
+import com.rest.server.models.ArchivedCommentChunk;
+import com.rest.server.repositories.ArchivedCommentChunkRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.Collections;
+import java.util.List;
+
+public class InMemoryArchivedCommentChunkRepository extends InMemoryRepository<ArchivedCommentChunk> implements ArchivedCommentChunkRepository {
+
+    public InMemoryArchivedCommentChunkRepository() {
+        super(ArchivedCommentChunk.class, ArchivedCommentChunk::getId, ArchivedCommentChunk::setId);
+        index("postId", chunk -> Collections.singletonList(chunk.getPostId()), "chunk", ArchivedCommentChunk::getChunk);
+    }
+
+    @Override
+    public List<ArchivedCommentChunk> findByPostIdOrderByChunkAsc(String postId) {
+        return page("postId", postId, PageRequest.of(0, Integer.MAX_VALUE, Sort.by("chunk"))).getContent();
+    }
+
+    @Override
+    public void deleteByPostId(String postId) {
+        deleteAll(findByPostIdOrderByChunkAsc(postId));
+    }
+}
@@ -0,0 +1,20 @@
+package com.rest.server.repositories.inmemory;
+
+import com.rest.server.models.ArchivedPost;
+import com.rest.server.repositories.ArchivedPostRepository;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.Objects;
+
+public class InMemoryArchivedPostRepository extends InMemoryRepository<ArchivedPost> implements ArchivedPostRepository {
+
+    public InMemoryArchivedPostRepository() {
+        super(ArchivedPost.class, ArchivedPost::getPostId, ArchivedPost::setPostId);
+    }
+
+    @Override
+    public List<ArchivedPost> findByPostOwnerId(String ownerId) {
+        return scan(post -> Objects.equals(post.getPostOwnerId(), ownerId), Pageable.unpaged()).getContent();
+    }
+}
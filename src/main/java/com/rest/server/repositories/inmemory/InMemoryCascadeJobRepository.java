@@ -0,0 +1,70 @@
+package com.rest.server.repositories.inmemory;
+
+import com.rest.server.models.CascadeJob;
+import com.rest.server.repositories.CascadeJobRepository;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+public class InMemoryCascadeJobRepository extends InMemoryRepository<CascadeJob> implements CascadeJobRepository {
+
+    public InMemoryCascadeJobRepository() {
+        super(CascadeJob.class, CascadeJob::getId, CascadeJob::setId);
+        index(null, null, "createdAt", CascadeJob::getCreatedAt);
+    }
+
+    @Override
+    public List<CascadeJob> findByStatusInOrderByCreatedAtAsc(Collection<String> statuses) {
+        // The first index is ordered by createdAt, which is the order scan() visits documents in
+        return scan(job -> statuses.contains(job.getStatus()), Pageable.unpaged()).getContent();
+    }
+
+    @Override
+    public synchronized CascadeJob claim(String id, String owner, Date now, Date leaseUntil) {
+        CascadeJob job = findById(id).orElse(null);
+        if (job == null || !(CascadeJob.PENDING.equals(job.getStatus()) || CascadeJob.RUNNING.equals(job.getStatus()))
+                || (job.getOwner() != null && !job.getOwner().equals(owner) && !job.getLeaseExpiresAt().before(now))) {
+            return null;
+        }
+        job.setOwner(owner);
+        job.setLeaseExpiresAt(leaseUntil);
+        job.setStatus(CascadeJob.RUNNING);
+        return save(job);
+    }
+
+    @Override
+    public synchronized boolean recordProgress(String id, String owner, long deletedComments, long deletedPosts, long remaining, String status, Date now) {
+        return update(id, owner, job -> {
+            job.setDeletedComments(job.getDeletedComments() + deletedComments);
+            job.setDeletedPosts(job.getDeletedPosts() + deletedPosts);
+            job.setRemaining(remaining);
+            job.setStatus(status);
+            job.setUpdatedAt(now);
+        });
+    }
+
+    @Override
+    public synchronized boolean recordFailure(String id, String owner, long deletedComments, long deletedPosts, String error, String status, Date now) {
+        return update(id, owner, job -> {
+            job.setDeletedComments(job.getDeletedComments() + deletedComments);
+            job.setDeletedPosts(job.getDeletedPosts() + deletedPosts);
+            job.setAttempts(job.getAttempts() + 1);
+            job.setLastError(error);
+            job.setStatus(status);
+            job.setUpdatedAt(now);
+        });
+    }
+
+    private boolean update(String id, String owner, Consumer<CascadeJob> change) {
+        Optional<CascadeJob> job = findById(id).filter(found -> owner.equals(found.getOwner()));
+        job.ifPresent(found -> {
+            change.accept(found);
+            save(found);
+        });
+        return job.isPresent();
+    }
+}
@@ -0,0 +1,71 @@
+package com.rest.server.repositories.inmemory;
+
+import com.rest.server.models.Comment;
+import com.rest.server.repositories.CommentRepository;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+public class InMemoryCommentRepository extends InMemoryRepository<Comment> implements CommentRepository {
+
+    public InMemoryCommentRepository() {
+        super(Comment.class, Comment::getCommentId, Comment::setCommentId);
+        index(null, null, "commentPublishDate", Comment::getCommentPublishDate);
+        index("commentPostId", comment -> Collections.singletonList(comment.getCommentPostId()), "commentPublishDate", Comment::getCommentPublishDate);
+        index("commentOwnerId", comment -> Collections.singletonList(comment.getCommentOwnerId()), "commentPublishDate", Comment::getCommentPublishDate);
+    }
+
+    @Override
+    public Map<Integer, String> insertUnordered(List<Comment> comments) {
+        Map<Integer, String> failures = new HashMap<>();
+        for (int i = 0; i < comments.size(); i++) {
+            try {
+                insert(comments.get(i));
+            } catch (DataAccessException e) {
+                failures.put(i, e.getMessage());
+            }
+        }
+        return failures;
+    }
+
+    @Override
+    public Page<Comment> findByCommentPostId(String postId, Pageable pageable) {
+        return page("commentPostId", postId, pageable);
+    }
+
+    @Override
+    public Page<Comment> findByCommentOwnerId(String ownerId, Pageable pageable) {
+        return page("commentOwnerId", ownerId, pageable);
+    }
+
+    @Override
+    public List<Comment> findByCommentPostIdAndCommentPathBetween(String postId, String from, String to, Pageable pageable) {
+        return scan(comment -> Objects.equals(comment.getCommentPostId(), postId)
+                && comment.getCommentPath() != null
+                && comment.getCommentPath().compareTo(from) > 0
+                && comment.getCommentPath().compareTo(to) < 0, pageable).getContent();
+    }
+
+    @Override
+    public List<Comment> findByCommentPostIdAndCommentPathGreaterThanAndCommentDepthLessThanEqual(String postId, String after, int depth, Pageable pageable) {
+        return scan(comment -> Objects.equals(comment.getCommentPostId(), postId)
+                && comment.getCommentPath() != null
+                && comment.getCommentPath().compareTo(after) > 0
+                && comment.getCommentDepth() != null
+                && comment.getCommentDepth() <= depth, pageable).getContent();
+    }
+
+    @Override
+    public Stream<Comment> streamByCommentOwnerIdAndCommentPublishDateLessThanEqual(String ownerId, String publishDate, Pageable pageable) {
+        return scan(comment -> Objects.equals(comment.getCommentOwnerId(), ownerId)
+                && comment.getCommentPublishDate() != null
+                && comment.getCommentPublishDate().compareTo(publishDate) <= 0, pageable).stream();
+    }
+}
@@ -0,0 +1,66 @@
+package com.rest.server.repositories.inmemory;
+
+import com.rest.server.models.Follow;
+import com.rest.server.repositories.FollowRepository;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+public class InMemoryFollowRepository extends InMemoryRepository<Follow> implements FollowRepository {
+
+    public InMemoryFollowRepository() {
+        super(Follow.class, Follow::getId, Follow::setId);
+        index(null, null, "createdAt", Follow::getCreatedAt);
+        index("followerId", follow -> Collections.singletonList(follow.getFollowerId()), "createdAt", Follow::getCreatedAt);
+        index("targetKey", follow -> List.of(Follow.targetKey(follow.getTargetType(), follow.getTargetId())), "createdAt", Follow::getCreatedAt);
+    }
+
+    // Mirrors the unique (followerId, targetType, targetId) index created by MongoIndexInitializer
+    @Override
+    public synchronized <S extends Follow> S insert(S entity) {
+        boolean exists = findByFollowerId(entity.getFollowerId()).stream()
+                .anyMatch(follow -> Objects.equals(follow.getTargetType(), entity.getTargetType())
+                        && Objects.equals(follow.getTargetId(), entity.getTargetId()));
+        if (exists) {
+            throw new DuplicateKeyException("Duplicate follow " + entity.getFollowerId() + " -> " + entity.getTargetId());
+        }
+        return super.insert(entity);
+    }
+
+    @Override
+    public List<Follow> findByFollowerId(String followerId) {
+        return page("followerId", followerId, Pageable.unpaged()).getContent();
+    }
+
+    @Override
+    public Slice<Follow> findByTargetTypeAndTargetId(String targetType, String targetId, Pageable pageable) {
+        return page("targetKey", Follow.targetKey(targetType, targetId), pageable);
+    }
+
+    @Override
+    public synchronized List<Follow> deleteByFollowerIdAndTargetTypeAndTargetId(String followerId, String targetType, String targetId) {
+        List<Follow> matches = findByFollowerId(followerId).stream()
+                .filter(follow -> Objects.equals(follow.getTargetType(), targetType) && Objects.equals(follow.getTargetId(), targetId))
+                .toList();
+        matches.forEach(this::delete);
+        return matches;
+    }
+
+    @Override
+    public synchronized List<Follow> deleteByFollowerId(String followerId) {
+        List<Follow> matches = findByFollowerId(followerId);
+        matches.forEach(this::delete);
+        return matches;
+    }
+
+    @Override
+    public synchronized List<Follow> deleteByTargetTypeAndTargetId(String targetType, String targetId) {
+        List<Follow> matches = page("targetKey", Follow.targetKey(targetType, targetId), Pageable.unpaged()).getContent();
+        matches.forEach(this::delete);
+        return matches;
+    }
+}
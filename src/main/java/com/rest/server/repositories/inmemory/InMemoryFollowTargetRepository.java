@@ -0,0 +1,19 @@
+package com.rest.server.repositories.inmemory;
+
+import com.rest.server.models.FollowTarget;
+import com.rest.server.repositories.FollowTargetRepository;
+
+public class InMemoryFollowTargetRepository extends InMemoryRepository<FollowTarget> implements FollowTargetRepository {
+
+    public InMemoryFollowTargetRepository() {
+        super(FollowTarget.class, FollowTarget::getId, FollowTarget::setId);
+    }
+
+    @Override
+    public synchronized long incrementFollowerCount(String targetKey, long delta) {
+        FollowTarget target = findById(targetKey).orElseGet(() -> new FollowTarget(targetKey, 0));
+        target.setFollowerCount(target.getFollowerCount() + delta);
+        save(target);
+        return target.getFollowerCount();
+    }
+}
@@ -0,0 +1,23 @@
+package com.rest.server.repositories.inmemory;
+
+import com.rest.server.models.JobLease;
+import com.rest.server.repositories.JobLeaseRepository;
+
+import java.util.Date;
+
+public class InMemoryJobLeaseRepository extends InMemoryRepository<JobLease> implements JobLeaseRepository {
+
+    public InMemoryJobLeaseRepository() {
+        super(JobLease.class, JobLease::getId, JobLease::setId);
+    }
+
+    @Override
+    public synchronized boolean claim(String job, String owner, Date now, Date leaseUntil) {
+        JobLease lease = findById(job).orElse(null);
+        if (lease != null && !owner.equals(lease.getOwner()) && !lease.getLeaseExpiresAt().before(now)) {
+            return false;
+        }
+        save(new JobLease(job, owner, leaseUntil));
+        return true;
+    }
+}
@@ -0,0 +1,29 @@
+package com.rest.server.repositories.inmemory;
+
+import com.rest.server.models.Location;
+import com.rest.server.index.GeoHashGrid;
+import com.rest.server.repositories.LocationRepository;
+
+import java.util.Comparator;
+import java.util.List;
+
+public class InMemoryLocationRepository extends InMemoryRepository<Location> implements LocationRepository {
+
+    public InMemoryLocationRepository() {
+        super(Location.class, Location::getLocationId, Location::setLocationId);
+    }
+
+    @Override
+    public List<Location> findNear(double latitude, double longitude, double radiusKm, int limit) {
+        Comparator<Location> byDistance = Comparator.comparingDouble(location -> distanceKm(location, latitude, longitude));
+        return findAll().stream()
+                .filter(location -> location.getLocationPoint() != null && distanceKm(location, latitude, longitude) <= radiusKm)
+                .sorted(byDistance)
+                .limit(limit)
+                .toList();
+    }
+
+    private static double distanceKm(Location location, double latitude, double longitude) {
+        return GeoHashGrid.distanceKm(latitude, longitude, location.getLocationPoint().getY(), location.getLocationPoint().getX());
+    }
+}
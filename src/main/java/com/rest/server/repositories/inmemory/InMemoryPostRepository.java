@@ -0,0 +1,83 @@
+package com.rest.server.repositories.inmemory;
+
+import com.rest.server.models.Post;
+import com.rest.server.repositories.PostRepository;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+public class InMemoryPostRepository extends InMemoryRepository<Post> implements PostRepository {
+
+    public InMemoryPostRepository() {
+        super(Post.class, Post::getPostId, Post::setPostId);
+        index(null, null, "postPublishDate", Post::getPostPublishDate);
+        index("postOwnerId", post -> Collections.singletonList(post.getPostOwnerId()), "postPublishDate", Post::getPostPublishDate);
+        index("postTags", Post::getPostTags, "postPublishDate", Post::getPostPublishDate);
+    }
+
+    @Override
+    public Page<Post> findByPostTextContainingIgnoreCase(String query, Pageable pageable) {
+        String needle = query.toLowerCase(Locale.ROOT);
+        return scan(post -> post.getPostText() != null && post.getPostText().toLowerCase(Locale.ROOT).contains(needle), pageable);
+    }
+
+    @Override
+    public Page<Post> findByPostOwnerId(String ownerId, Pageable pageable) {
+        return page("postOwnerId", ownerId, pageable);
+    }
+
+    @Override
+    public List<Post> findByPostOwnerIdIn(Collection<String> ownerIds, Pageable pageable) {
+        return scan(post -> ownerIds.contains(post.getPostOwnerId()), pageable).getContent();
+    }
+
+    @Override
+    public Page<Post> findByPostTags(String tagId, Pageable pageable) {
+        return page("postTags", tagId, pageable);
+    }
+
+    @Override
+    public Page<Post> findByPostOwnerIdAndPostPublishDateLessThanEqual(String ownerId, String publishDate, Pageable pageable) {
+        return scan(post -> Objects.equals(post.getPostOwnerId(), ownerId) && publishedAtOrBefore(post, publishDate), pageable);
+    }
+
+    @Override
+    public Page<Post> findByPostTagsAndPostPublishDateLessThanEqual(String tagId, String publishDate, Pageable pageable) {
+        return scan(post -> post.getPostTags() != null && post.getPostTags().contains(tagId) && publishedAtOrBefore(post, publishDate), pageable);
+    }
+
+    @Override
+    public List<Post> findByPostPublishDateLessThan(String publishDate, Pageable pageable) {
+        return scan(post -> post.getPostPublishDate() != null && post.getPostPublishDate().compareTo(publishDate) < 0, pageable).getContent();
+    }
+
+    @Override
+    public Stream<Post> streamAllBy() {
+        return findAll().stream();
+    }
+
+    @Override
+    public Stream<Post> streamByPostOwnerIdAndPostPublishDateLessThanEqual(String ownerId, String publishDate, Pageable pageable) {
+        return findByPostOwnerIdAndPostPublishDateLessThanEqual(ownerId, publishDate, pageable).stream();
+    }
+
+    @Override
+    public Page<Post> findByTags(Collection<String> allTagIds, Collection<String> anyTagIds, Collection<String> noneTagIds, Pageable pageable) {
+        return scan(post -> {
+            List<String> tags = post.getPostTags() != null ? post.getPostTags() : List.of();
+            return tags.containsAll(allTagIds)
+                    && (anyTagIds.isEmpty() || anyTagIds.stream().anyMatch(tags::contains))
+                    && noneTagIds.stream().noneMatch(tags::contains);
+        }, pageable);
+    }
+
+    private static boolean publishedAtOrBefore(Post post, String publishDate) {
+        return post.getPostPublishDate() != null && post.getPostPublishDate().compareTo(publishDate) <= 0;
+    }
+}
@@ -0,0 +1,532 @@
+package com.rest.server.repositories.inmemory;
+
+import org.bson.types.ObjectId;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.data.repository.query.FluentQuery;
+
+import java.beans.PropertyDescriptor;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+// Storage engine behind the "inmemory" profile. Documents are copied on the way in and out so callers
+// cannot mutate stored state, and secondary SortedIndexes keep paged, sorted reads from scanning the collection.
+public abstract class InMemoryRepository<T> implements MongoRepository<T, String> {
+
+    private static final ProjectionFactory PROJECTIONS = new SpelAwareProxyProjectionFactory();
+    private static final String MODELS_PACKAGE = "com.rest.server.models";
+    private static final Map<Class<?>, List<PropertyDescriptor>> MUTABLE_PROPERTIES = new ConcurrentHashMap<>();
+
+    private final Class<T> type;
+    private final Function<T, String> idGetter;
+    private final BiConsumer<T, String> idSetter;
+    private final Map<String, Stored<T>> documents = new ConcurrentHashMap<>();
+    private final List<SortedIndex<T>> indexes = new ArrayList<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    protected InMemoryRepository(Class<T> type, Function<T, String> idGetter, BiConsumer<T, String> idSetter) {
+        this.type = type;
+        this.idGetter = idGetter;
+        this.idSetter = idSetter;
+        // Natural (insertion) order, used for unsorted or unindexed-sort reads
+        indexes.add(new SortedIndex<>(null, null, document -> null, Stored::sequence));
+    }
+
+    // Registers the in-memory equivalent of a {equalityProperty: 1, sortProperty: 1} index
+    protected void index(String equalityProperty, Function<T, Collection<?>> equalityValues,
+                         String sortProperty, Function<T, Object> sortValue) {
+        indexes.add(new SortedIndex<>(equalityProperty, sortProperty, equalityValues, stored -> sortValue.apply(stored.document())));
+        if (equalityProperty != null) {
+            // Same equality key in natural order, for unsorted lookups
+            indexes.add(new SortedIndex<>(equalityProperty, null, equalityValues, Stored::sequence));
+        }
+    }
+
+    // Equivalent of a derived "findBy<equalityProperty>(value, pageable)" query
+    protected Page<T> page(String equalityProperty, Object equalityValue, Pageable pageable) {
+        Sort sort = pageable.getSort();
+        long orders = sort.stream().count();
+        // An index holds one sort key, so multi-field sorts always go through the comparator below
+        if (orders <= 1) {
+            Sort.Order order = orders == 1 ? sort.iterator().next() : null;
+            String sortProperty = order != null ? order.getProperty() : null;
+            for (SortedIndex<T> index : indexes) {
+                if (index.matches(equalityProperty, sortProperty)) {
+                    boolean descending = order != null && order.isDescending();
+                    List<T> content = collect(index.ids(equalityValue, descending), pageable);
+                    return new PageImpl<>(content, pageable, index.count(equalityValue));
+                }
+            }
+        }
+
+        // No matching index: take the candidates in natural order and sort them, like an in-memory SORT stage
+        SortedIndex<T> candidates = indexes.stream()
+                .filter(index -> index.matches(equalityProperty, null))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("No index on " + equalityProperty));
+        List<T> all = new ArrayList<>();
+        candidates.ids(equalityValue, false).forEachRemaining(id -> {
+            Stored<T> stored = documents.get(id);
+            if (stored != null) {
+                all.add(stored.document());
+            }
+        });
+        return pageOf(all, pageable);
+    }
+
+    // Full scan with a predicate, e.g. for ContainingIgnoreCase searches that Mongo also cannot index
+    protected Page<T> scan(Predicate<T> predicate, Pageable pageable) {
+        List<T> matches = new ArrayList<>();
+        indexes.get(0).ids(null, false).forEachRemaining(id -> {
+            Stored<T> stored = documents.get(id);
+            if (stored != null && predicate.test(stored.document())) {
+                matches.add(stored.document());
+            }
+        });
+        return pageOf(matches, pageable);
+    }
+
+    protected Optional<T> findFirst(String equalityProperty, Object equalityValue) {
+        for (SortedIndex<T> index : indexes) {
+            if (index.matches(equalityProperty, null)) {
+                Iterator<String> ids = index.ids(equalityValue, false);
+                while (ids.hasNext()) {
+                    Stored<T> stored = documents.get(ids.next());
+                    if (stored != null) {
+                        return Optional.of(copy(stored.document()));
+                    }
+                }
+                return Optional.empty();
+            }
+        }
+        throw new IllegalStateException("No index on " + equalityProperty);
+    }
+
+    private List<T> collect(Iterator<String> ids, Pageable pageable) {
+        List<T> content = new ArrayList<>();
+        long skip = pageable.isPaged() ? pageable.getOffset() : 0;
+        int limit = pageable.isPaged() ? pageable.getPageSize() : Integer.MAX_VALUE;
+        while (ids.hasNext() && content.size() < limit) {
+            Stored<T> stored = documents.get(ids.next());
+            if (stored == null) {
+                continue;
+            }
+            if (skip > 0) {
+                skip--;
+                continue;
+            }
+            content.add(copy(stored.document()));
+        }
+        return content;
+    }
+
+    private Page<T> pageOf(List<T> matches, Pageable pageable) {
+        List<T> sorted = sort(matches, pageable.getSort());
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(sorted.stream().map(this::copy).toList(), pageable, sorted.size());
+        }
+        List<T> content = sorted.stream()
+                .skip(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .map(this::copy)
+                .toList();
+        return new PageImpl<>(content, pageable, sorted.size());
+    }
+
+    private List<T> sort(List<T> matches, Sort sort) {
+        if (sort.isUnsorted()) {
+            return matches;
+        }
+        Comparator<T> comparator = null;
+        for (Sort.Order order : sort) {
+            Comparator<T> byProperty = Comparator.comparing(document -> property(document, order.getProperty()), ValueComparator.INSTANCE);
+            if (order.isDescending()) {
+                byProperty = byProperty.reversed();
+            }
+            comparator = comparator == null ? byProperty : comparator.thenComparing(byProperty);
+        }
+        List<T> sorted = new ArrayList<>(matches);
+        sorted.sort(comparator);
+        return sorted;
+    }
+
+    // Unknown properties sort as missing fields do in Mongo
+    static Object property(Object document, String property) {
+        BeanWrapperImpl wrapper = new BeanWrapperImpl(document);
+        return wrapper.isReadableProperty(property) ? wrapper.getPropertyValue(property) : null;
+    }
+
+    private T copy(T document) {
+        T copy = BeanUtils.instantiateClass(type);
+        BeanUtils.copyProperties(document, copy);
+        return copyMutableProperties(copy);
+    }
+
+    // Collections, maps, dates and nested model objects (timeline items, archived comments) get copies of their
+    // own, so a copy shares nothing mutable with its source; everything else the models hold is immutable
+    private static <D> D copyMutableProperties(D copy) {
+        try {
+            for (PropertyDescriptor property : MUTABLE_PROPERTIES.computeIfAbsent(copy.getClass(), InMemoryRepository::mutableProperties)) {
+                Object value = property.getReadMethod().invoke(copy);
+                if (value != null) {
+                    property.getWriteMethod().invoke(copy, copyValue(value));
+                }
+            }
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot copy " + copy.getClass().getSimpleName(), e);
+        }
+        return copy;
+    }
+
+    private static Object copyValue(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof List<?> list) {
+            List<Object> copy = new ArrayList<>(list.size());
+            list.forEach(element -> copy.add(copyValue(element)));
+            return copy;
+        }
+        if (value instanceof Set<?> set) {
+            Set<Object> copy = new LinkedHashSet<>(set.size());
+            set.forEach(element -> copy.add(copyValue(element)));
+            return copy;
+        }
+        if (value instanceof Map<?, ?> map) {
+            Map<Object, Object> copy = new LinkedHashMap<>(map.size());
+            map.forEach((key, element) -> copy.put(key, copyValue(element)));
+            return copy;
+        }
+        if (value instanceof Date date) {
+            return new Date(date.getTime());
+        }
+        if (isModel(value.getClass())) {
+            Object copy = BeanUtils.instantiateClass(value.getClass());
+            BeanUtils.copyProperties(value, copy);
+            return copyMutableProperties(copy);
+        }
+        return value;
+    }
+
+    private static List<PropertyDescriptor> mutableProperties(Class<?> beanType) {
+        List<PropertyDescriptor> properties = new ArrayList<>();
+        for (PropertyDescriptor property : BeanUtils.getPropertyDescriptors(beanType)) {
+            Class<?> propertyType = property.getPropertyType();
+            if (property.getReadMethod() != null && property.getWriteMethod() != null && propertyType != null
+                    && (Collection.class.isAssignableFrom(propertyType) || Map.class.isAssignableFrom(propertyType)
+                    || Date.class.isAssignableFrom(propertyType) || isModel(propertyType))) {
+                properties.add(property);
+            }
+        }
+        return properties;
+    }
+
+    private static boolean isModel(Class<?> type) {
+        return type.getPackageName().equals(MODELS_PACKAGE) && !type.isEnum() && !type.isRecord();
+    }
+
+    @Override
+    public <S extends T> S save(S entity) {
+        return store(entity, false);
+    }
+
+    // The duplicate check runs inside compute, so two concurrent inserts of one id cannot both succeed
+    private <S extends T> S store(S entity, boolean insert) {
+        String id = idGetter.apply(entity);
+        if (id == null) {
+            id = new ObjectId().toHexString();
+            idSetter.accept(entity, id);
+        }
+        Stored<T> stored = new Stored<>(copy(entity), sequence.incrementAndGet());
+        String key = id;
+        documents.compute(key, (k, previous) -> {
+            if (insert && previous != null) {
+                throw new DuplicateKeyException("Duplicate id " + k);
+            }
+            Stored<T> next = previous != null ? new Stored<>(stored.document(), previous.sequence()) : stored;
+            for (SortedIndex<T> index : indexes) {
+                if (previous != null) {
+                    index.remove(k, previous);
+                }
+                index.add(k, next);
+            }
+            return next;
+        });
+        return entity;
+    }
+
+    @Override
+    public <S extends T> List<S> saveAll(Iterable<S> entities) {
+        List<S> saved = new ArrayList<>();
+        entities.forEach(entity -> saved.add(save(entity)));
+        return saved;
+    }
+
+    @Override
+    public <S extends T> S insert(S entity) {
+        return store(entity, true);
+    }
+
+    @Override
+    public <S extends T> List<S> insert(Iterable<S> entities) {
+        List<S> inserted = new ArrayList<>();
+        entities.forEach(entity -> inserted.add(insert(entity)));
+        return inserted;
+    }
+
+    @Override
+    public Optional<T> findById(String id) {
+        Stored<T> stored = documents.get(id);
+        return stored != null ? Optional.of(copy(stored.document())) : Optional.empty();
+    }
+
+    @Override
+    public boolean existsById(String id) {
+        return documents.containsKey(id);
+    }
+
+    @Override
+    public List<T> findAll() {
+        return collect(indexes.get(0).ids(null, false), Pageable.unpaged());
+    }
+
+    @Override
+    public List<T> findAll(Sort sort) {
+        return sort(findAll(), sort);
+    }
+
+    @Override
+    public Page<T> findAll(Pageable pageable) {
+        return page(null, null, pageable);
+    }
+
+    @Override
+    public List<T> findAllById(Iterable<String> ids) {
+        List<T> found = new ArrayList<>();
+        ids.forEach(id -> findById(id).ifPresent(found::add));
+        return found;
+    }
+
+    @Override
+    public long count() {
+        return documents.size();
+    }
+
+    @Override
+    public void deleteById(String id) {
+        documents.computeIfPresent(id, (k, previous) -> {
+            indexes.forEach(index -> index.remove(k, previous));
+            return null;
+        });
+    }
+
+    @Override
+    public void delete(T entity) {
+        String id = idGetter.apply(entity);
+        if (id != null) {
+            deleteById(id);
+        }
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends String> ids) {
+        ids.forEach(this::deleteById);
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends T> entities) {
+        entities.forEach(this::delete);
+    }
+
+    @Override
+    public void deleteAll() {
+        documents.keySet().forEach(this::deleteById);
+    }
+
+    // Query by example: a scan, as Mongo would do without an index on the probe's properties
+    @Override
+    public <S extends T> Optional<S> findOne(Example<S> example) {
+        List<S> matches = findAll(example);
+        if (matches.size() > 1) {
+            throw new IncorrectResultSizeDataAccessException(1, matches.size());
+        }
+        return matches.stream().findFirst();
+    }
+
+    @Override
+    public <S extends T> List<S> findAll(Example<S> example) {
+        return findAll(example, Sort.unsorted());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <S extends T> List<S> findAll(Example<S> example, Sort sort) {
+        return (List<S>) matching(ExamplePredicate.of(example), sort, Integer.MAX_VALUE);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <S extends T> Page<S> findAll(Example<S> example, Pageable pageable) {
+        return (Page<S>) scan(ExamplePredicate.of(example), pageable);
+    }
+
+    @Override
+    public <S extends T> long count(Example<S> example) {
+        Predicate<T> predicate = ExamplePredicate.of(example);
+        return documents.values().stream().filter(stored -> predicate.test(stored.document())).count();
+    }
+
+    @Override
+    public <S extends T> boolean exists(Example<S> example) {
+        Predicate<T> predicate = ExamplePredicate.of(example);
+        return documents.values().stream().anyMatch(stored -> predicate.test(stored.document()));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <S extends T, R> R findBy(Example<S> example, Function<FluentQuery.FetchableFluentQuery<S>, R> queryFunction) {
+        return queryFunction.apply(new ExampleQuery<>(ExamplePredicate.of(example), Sort.unsorted(), Integer.MAX_VALUE,
+                (Class<S>) example.getProbeType()));
+    }
+
+    // Copies of the matches in natural order, then sorted, at most limit of them
+    private List<T> matching(Predicate<T> predicate, Sort sort, int limit) {
+        List<T> matches = new ArrayList<>();
+        indexes.get(0).ids(null, false).forEachRemaining(id -> {
+            Stored<T> stored = documents.get(id);
+            if (stored != null && predicate.test(stored.document())) {
+                matches.add(stored.document());
+            }
+        });
+        return sort(matches, sort).stream().limit(limit).map(this::copy).toList();
+    }
+
+    // project() only narrows what Mongo would fetch, so whole documents are returned; as() maps them to a
+    // projection interface or copies the matching properties into a class
+    private final class ExampleQuery<R> implements FluentQuery.FetchableFluentQuery<R> {
+        private final Predicate<T> predicate;
+        private final Sort sort;
+        private final int limit;
+        private final Class<R> resultType;
+
+        ExampleQuery(Predicate<T> predicate, Sort sort, int limit, Class<R> resultType) {
+            this.predicate = predicate;
+            this.sort = sort;
+            this.limit = limit;
+            this.resultType = resultType;
+        }
+
+        @Override
+        public FluentQuery.FetchableFluentQuery<R> sortBy(Sort sort) {
+            return new ExampleQuery<>(predicate, this.sort.and(sort), limit, resultType);
+        }
+
+        @Override
+        public FluentQuery.FetchableFluentQuery<R> limit(int limit) {
+            if (limit < 0) {
+                throw new IllegalArgumentException("Limit must not be negative");
+            }
+            return new ExampleQuery<>(predicate, sort, limit, resultType);
+        }
+
+        @Override
+        public <P> FluentQuery.FetchableFluentQuery<P> as(Class<P> resultType) {
+            return new ExampleQuery<>(predicate, sort, limit, resultType);
+        }
+
+        @Override
+        public FluentQuery.FetchableFluentQuery<R> project(Collection<String> properties) {
+            return this;
+        }
+
+        @Override
+        public R oneValue() {
+            List<R> matches = results(2);
+            if (matches.size() > 1) {
+                throw new IncorrectResultSizeDataAccessException(1, matches.size());
+            }
+            return matches.isEmpty() ? null : matches.get(0);
+        }
+
+        @Override
+        public R firstValue() {
+            List<R> matches = results(1);
+            return matches.isEmpty() ? null : matches.get(0);
+        }
+
+        @Override
+        public List<R> all() {
+            return results(limit);
+        }
+
+        @Override
+        public Page<R> page(Pageable pageable) {
+            List<T> matches = matching(predicate, pageable.getSort().isSorted() ? pageable.getSort() : sort, limit);
+            if (pageable.isUnpaged()) {
+                return new PageImpl<>(matches.stream().map(this::convert).toList(), pageable, matches.size());
+            }
+            List<R> content = matches.stream()
+                    .skip(pageable.getOffset())
+                    .limit(pageable.getPageSize())
+                    .map(this::convert)
+                    .toList();
+            return new PageImpl<>(content, pageable, matches.size());
+        }
+
+        @Override
+        public Stream<R> stream() {
+            return all().stream();
+        }
+
+        @Override
+        public long count() {
+            return matching(predicate, Sort.unsorted(), limit).size();
+        }
+
+        @Override
+        public boolean exists() {
+            return !results(1).isEmpty();
+        }
+
+        private List<R> results(int max) {
+            return matching(predicate, sort, Math.min(max, limit)).stream().map(this::convert).toList();
+        }
+
+        private R convert(T document) {
+            if (resultType.isInstance(document)) {
+                return resultType.cast(document);
+            }
+            if (resultType.isInterface()) {
+                return PROJECTIONS.createProjection(resultType, document);
+            }
+            R result = BeanUtils.instantiateClass(resultType);
+            BeanUtils.copyProperties(document, result);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.rest.server.repositories.inmemory;
+
+import com.rest.server.repositories.ArchivedCommentChunkRepository;
+import com.rest.server.repositories.ArchivedPostRepository;
+import com.rest.server.repositories.CascadeJobRepository;
+import com.rest.server.repositories.CommentRepository;
+import com.rest.server.repositories.FollowRepository;
+import com.rest.server.repositories.FollowTargetRepository;
+import com.rest.server.repositories.JobLeaseRepository;
+import com.rest.server.repositories.LocationRepository;
+import com.rest.server.repositories.PostRepository;
+import com.rest.server.repositories.RollupRepository;
+import com.rest.server.repositories.TagRepository;
+import com.rest.server.repositories.TimelineRepository;
+import com.rest.server.repositories.UserRepository;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+// Activated with --spring.profiles.active=inmemory; application-inmemory.properties turns off the Mongo repositories
+@Configuration
+@Profile("inmemory")
+public class InMemoryRepositoryConfig {
+
+    @Bean
+    public PostRepository postRepository() {
+        return new InMemoryPostRepository();
+    }
+
+    @Bean
+    public CommentRepository commentRepository() {
+        return new InMemoryCommentRepository();
+    }
+
+    @Bean
+    public UserRepository userRepository() {
+        return new InMemoryUserRepository();
+    }
+
+    @Bean
+    public TagRepository tagRepository() {
+        return new InMemoryTagRepository();
+    }
+
+    @Bean
+    public LocationRepository locationRepository() {
+        return new InMemoryLocationRepository();
+    }
+
+    @Bean
+    public CascadeJobRepository cascadeJobRepository() {
+        return new InMemoryCascadeJobRepository();
+    }
+
+    @Bean
+    public JobLeaseRepository jobLeaseRepository() {
+        return new InMemoryJobLeaseRepository();
+    }
+
+    @Bean
+    public FollowRepository followRepository() {
+        return new InMemoryFollowRepository();
+    }
+
+    @Bean
+    public FollowTargetRepository followTargetRepository() {
+        return new InMemoryFollowTargetRepository();
+    }
+
+    @Bean
+    public TimelineRepository timelineRepository() {
+        return new InMemoryTimelineRepository();
+    }
+
+    @Bean
+    public ArchivedPostRepository archivedPostRepository() {
+        return new InMemoryArchivedPostRepository();
+    }
+
+    @Bean
+    public ArchivedCommentChunkRepository archivedCommentChunkRepository() {
+        return new InMemoryArchivedCommentChunkRepository();
+    }
+
+    @Bean
+    public RollupRepository rollupRepository() {
+        return new InMemoryRollupRepository();
+    }
+}
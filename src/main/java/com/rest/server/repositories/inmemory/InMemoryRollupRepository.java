@@ -0,0 +1,55 @@
+package com.rest.server.repositories.inmemory;
+
+import com.rest.server.models.Rollup;
+import com.rest.server.repositories.RollupRepository;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Range;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class InMemoryRollupRepository extends InMemoryRepository<Rollup> implements RollupRepository {
+
+    public InMemoryRollupRepository() {
+        super(Rollup.class, Rollup::getId, Rollup::setId);
+    }
+
+    @Override
+    public List<Rollup> findByMetricAndGranularityAndBucketBetween(String metric, String granularity, Range<String> buckets, Pageable pageable) {
+        return scan(rollup -> rollup.getMetric().equals(metric) && rollup.getGranularity().equals(granularity)
+                && buckets.contains(rollup.getBucket(), Comparator.naturalOrder()), pageable).getContent();
+    }
+
+    @Override
+    public List<Rollup> findByMetricAndGranularityAndKeyAndBucketBetween(String metric, String granularity, String key, Range<String> buckets, Pageable pageable) {
+        return scan(rollup -> rollup.getMetric().equals(metric) && rollup.getGranularity().equals(granularity)
+                && rollup.getKey().equals(key) && buckets.contains(rollup.getBucket(), Comparator.naturalOrder()), pageable).getContent();
+    }
+
+    // Same result as the Mongo $inc upserts
+    @Override
+    public synchronized Map<Integer, String> incrementAll(List<Rollup> deltas) {
+        for (Rollup delta : deltas) {
+            Rollup rollup = findById(delta.getId()).orElseGet(() -> new Rollup(delta.getId(), delta.getMetric(),
+                    delta.getGranularity(), delta.getBucket(), delta.getKey(), 0, delta.getExpiresAt()));
+            rollup.setCount(rollup.getCount() + delta.getCount());
+            save(rollup);
+        }
+        return Map.of();
+    }
+
+    @Override
+    public List<Rollup> totals(String metric, String granularity, Range<String> buckets, int limit) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Rollup rollup : findByMetricAndGranularityAndBucketBetween(metric, granularity, buckets, Pageable.unpaged())) {
+            counts.merge(rollup.getKey(), rollup.getCount(), Long::sum);
+        }
+        List<Rollup> totals = new ArrayList<>();
+        counts.forEach((key, count) -> totals.add(new Rollup(null, metric, granularity, null, key, count, null)));
+        totals.sort(Comparator.comparingLong(Rollup::getCount).reversed().thenComparing(Rollup::getKey));
+        return totals.subList(0, Math.min(limit, totals.size()));
+    }
+}
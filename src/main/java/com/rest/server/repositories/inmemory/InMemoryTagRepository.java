@@ -0,0 +1,29 @@
+package com.rest.server.repositories.inmemory;
+
+import com.rest.server.models.Tag;
+import com.rest.server.repositories.TagRepository;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+public class InMemoryTagRepository extends InMemoryRepository<Tag> implements TagRepository {
+
+    public InMemoryTagRepository() {
+        super(Tag.class, Tag::getTagId, Tag::setTagId);
+        index("tagName", tag -> Collections.singletonList(tag.getTagName()), "tagName", Tag::getTagName);
+    }
+
+    @Override
+    public Optional<Tag> findByTagName(String tagName) {
+        return findFirst("tagName", tagName);
+    }
+
+    @Override
+    public List<Tag> findByTagNameStartingWithIgnoreCase(String prefix, Pageable pageable) {
+        String needle = prefix.toLowerCase(Locale.ROOT);
+        return scan(tag -> tag.getTagName() != null && tag.getTagName().toLowerCase(Locale.ROOT).startsWith(needle), pageable).getContent();
+    }
+}
@@ -0,0 +1,60 @@
+package com.rest.server.repositories.inmemory;
+
+import com.rest.server.models.FeedItem;
+import com.rest.server.models.Timeline;
+import com.rest.server.repositories.TimelineRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class InMemoryTimelineRepository extends InMemoryRepository<Timeline> implements TimelineRepository {
+
+    private static final Comparator<FeedItem> NEWEST_FIRST =
+            Comparator.comparing(FeedItem::getPublishDate, Comparator.nullsFirst(Comparator.naturalOrder())).reversed();
+
+    public InMemoryTimelineRepository() {
+        super(Timeline.class, Timeline::getId, Timeline::setId);
+    }
+
+    // Same result as the Mongo $push/$each/$sort/$slice upsert
+    @Override
+    public synchronized void pushAll(Collection<String> userIds, List<FeedItem> items, int maxSize) {
+        for (String userId : userIds) {
+            Timeline timeline = findById(userId).orElseGet(() -> new Timeline(userId, new ArrayList<>()));
+            List<FeedItem> merged = new ArrayList<>(timeline.getItems());
+            merged.addAll(items);
+            merged.sort(NEWEST_FIRST);
+            timeline.setItems(new ArrayList<>(merged.subList(0, Math.min(maxSize, merged.size()))));
+            save(timeline);
+        }
+    }
+
+    // Same result as the Mongo $pull then $push/$each/$sort/$slice
+    @Override
+    public synchronized void merge(String userId, List<FeedItem> items, int maxSize) {
+        Set<String> postIds = new HashSet<>();
+        items.forEach(item -> postIds.add(item.getPostId()));
+        Timeline timeline = findById(userId).orElseGet(() -> new Timeline(userId, new ArrayList<>()));
+        List<FeedItem> merged = new ArrayList<>(timeline.getItems());
+        merged.removeIf(item -> postIds.contains(item.getPostId()));
+        merged.addAll(items);
+        merged.sort(NEWEST_FIRST);
+        timeline.setItems(new ArrayList<>(merged.subList(0, Math.min(maxSize, merged.size()))));
+        save(timeline);
+    }
+
+    @Override
+    public synchronized void pull(String userId, String postId) {
+        findById(userId).ifPresent(timeline -> {
+            List<FeedItem> items = new ArrayList<>(timeline.getItems());
+            if (items.removeIf(item -> postId.equals(item.getPostId()))) {
+                timeline.setItems(items);
+                save(timeline);
+            }
+        });
+    }
+}
@@ -0,0 +1,53 @@
+package com.rest.server.repositories.inmemory;
+
+import com.rest.server.models.User;
+import com.rest.server.repositories.UserRepository;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+public class InMemoryUserRepository extends InMemoryRepository<User> implements UserRepository {
+
+    public InMemoryUserRepository() {
+        super(User.class, User::getId, User::setId);
+        index(null, null, "userRegisterDate", User::getUserRegisterDate);
+        index("userEmail", user -> Collections.singletonList(user.getUserEmail()), "userRegisterDate", User::getUserRegisterDate);
+    }
+
+    // Mirrors the unique userEmail index created by MongoIndexInitializer
+    @Override
+    public synchronized <S extends User> S insert(S entity) {
+        if (entity.getUserEmail() != null && findByUserEmail(entity.getUserEmail()).isPresent()) {
+            throw new DuplicateKeyException("Duplicate userEmail " + entity.getUserEmail());
+        }
+        return super.insert(entity);
+    }
+
+    @Override
+    public Optional<User> findByUserEmail(String userEmail) {
+        return findFirst("userEmail", userEmail);
+    }
+
+    @Override
+    public List<User> findByUserLocationIdIn(Collection<String> locationIds, Pageable pageable) {
+        return scan(user -> user.getUserLocationId() != null && locationIds.contains(user.getUserLocationId()), pageable).getContent();
+    }
+
+    @Override
+    public Page<User> findByUserFirstNameContainingIgnoreCaseOrUserLastNameContainingIgnoreCaseOrUserEmailContainingIgnoreCase(
+            String userFirstName, String userLastName, String userEmail, Pageable pageable) {
+        return scan(user -> containsIgnoreCase(user.getUserFirstName(), userFirstName)
+                || containsIgnoreCase(user.getUserLastName(), userLastName)
+                || containsIgnoreCase(user.getUserEmail(), userEmail), pageable);
+    }
+
+    private static boolean containsIgnoreCase(String value, String needle) {
+        return value != null && needle != null && value.toLowerCase(Locale.ROOT).contains(needle.toLowerCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,112 @@
+package com.rest.server.repositories.inmemory;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+// Concurrent (equality value, sort value, id) index, the in-memory equivalent of a compound
+// {equalityField: 1, sortField: 1} Mongo index. A null equality property indexes the whole collection.
+final class SortedIndex<T> {
+
+    private static final Object ALL = "";
+    // ConcurrentHashMap has no null keys; stands in for documents indexed under a missing field
+    private static final Object MISSING = new Object();
+
+    private final String equalityProperty;
+    private final String sortProperty;
+    private final Function<T, Collection<?>> equalityValues;
+    private final Function<Stored<T>, Object> sortValue;
+    private final ConcurrentSkipListSet<Entry> entries = new ConcurrentSkipListSet<>();
+    private final Map<Object, LongAdder> counts = new ConcurrentHashMap<>();
+
+    SortedIndex(String equalityProperty, String sortProperty,
+                Function<T, Collection<?>> equalityValues, Function<Stored<T>, Object> sortValue) {
+        this.equalityProperty = equalityProperty;
+        this.sortProperty = sortProperty;
+        this.equalityValues = equalityValues;
+        this.sortValue = sortValue;
+    }
+
+    boolean matches(String equalityProperty, String sortProperty) {
+        return Objects.equals(this.equalityProperty, equalityProperty) && Objects.equals(this.sortProperty, sortProperty);
+    }
+
+    String equalityProperty() {
+        return equalityProperty;
+    }
+
+    void add(String id, Stored<T> stored) {
+        Object sort = sortValue.apply(stored);
+        for (Object key : keys(stored.document())) {
+            if (entries.add(new Entry(key, sort, id))) {
+                counts.computeIfAbsent(countKey(key), k -> new LongAdder()).increment();
+            }
+        }
+    }
+
+    void remove(String id, Stored<T> stored) {
+        Object sort = sortValue.apply(stored);
+        for (Object key : keys(stored.document())) {
+            if (entries.remove(new Entry(key, sort, id))) {
+                counts.computeIfAbsent(countKey(key), k -> new LongAdder()).decrement();
+            }
+        }
+    }
+
+    Iterator<String> ids(Object equalityValue, boolean descending) {
+        Object key = equalityProperty == null ? ALL : equalityValue;
+        NavigableSet<Entry> range = entries.subSet(
+                new Entry(key, ValueComparator.LOWEST, ""), true,
+                new Entry(key, ValueComparator.HIGHEST, ""), true);
+        Iterator<Entry> iterator = descending ? range.descendingIterator() : range.iterator();
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public String next() {
+                return iterator.next().id();
+            }
+        };
+    }
+
+    long count(Object equalityValue) {
+        LongAdder count = counts.get(countKey(equalityProperty == null ? ALL : equalityValue));
+        return count != null ? count.sum() : 0;
+    }
+
+    private static Object countKey(Object key) {
+        return key != null ? key : MISSING;
+    }
+
+    private Collection<?> keys(T document) {
+        if (equalityProperty == null) {
+            return List.of(ALL);
+        }
+        Collection<?> values = equalityValues.apply(document);
+        // Mongo indexes a missing field as null
+        return values == null || values.isEmpty() ? Collections.singletonList(null) : values;
+    }
+
+    private record Entry(Object key, Object sort, String id) implements Comparable<Entry> {
+        @Override
+        public int compareTo(Entry other) {
+            int byKey = ValueComparator.INSTANCE.compare(key, other.key);
+            if (byKey != 0) {
+                return byKey;
+            }
+            int bySort = ValueComparator.INSTANCE.compare(sort, other.sort);
+            return bySort != 0 ? bySort : id.compareTo(other.id);
+        }
+    }
+}
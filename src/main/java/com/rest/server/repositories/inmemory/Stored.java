@@ -0,0 +1,5 @@
+package com.rest.server.repositories.inmemory;
+
+// A stored document plus its insertion sequence, which stands in for Mongo's natural order
+record Stored<T>(T document, long sequence) {
+}
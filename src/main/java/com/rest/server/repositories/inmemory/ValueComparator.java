@@ -0,0 +1,44 @@
+package com.rest.server.repositories.inmemory;
+
+import java.util.Comparator;
+
+// Orders index values roughly the way Mongo sorts BSON: missing/null first, then by natural order
+final class ValueComparator implements Comparator<Object> {
+
+    static final ValueComparator INSTANCE = new ValueComparator();
+
+    // Sentinels used to build open range bounds inside an index
+    static final Object LOWEST = new Object();
+    static final Object HIGHEST = new Object();
+
+    private ValueComparator() {
+    }
+
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public int compare(Object left, Object right) {
+        if (left == right) {
+            return 0;
+        }
+        if (left == LOWEST || right == HIGHEST) {
+            return -1;
+        }
+        if (left == HIGHEST || right == LOWEST) {
+            return 1;
+        }
+        if (left == null) {
+            return -1;
+        }
+        if (right == null) {
+            return 1;
+        }
+        if (left instanceof Number a && right instanceof Number b) {
+            return Double.compare(a.doubleValue(), b.doubleValue());
+        }
+        if (left.getClass() == right.getClass() && left instanceof Comparable comparable) {
+            return comparable.compareTo(right);
+        }
+        int byType = left.getClass().getName().compareTo(right.getClass().getName());
+        return byType != 0 ? byType : left.toString().compareTo(right.toString());
+    }
+}
@@ -0,0 +1,115 @@
+package com.rest.server.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Token buckets checked before any password is hashed: per source IP, per account email from that IP, and a
+// looser one per account email across all IPs. Guessing from one address cannot lock the owner out of their
+// account; that takes enough attempts from many addresses to drain the account-wide bucket.
+// Each kind of bucket is an LRU of at most max-keys entries, so spraying random emails or addresses cannot
+// grow them between purges; an evicted bucket starts full again.
+@Component
+public class LoginThrottle {
+
+    private final Map<String, TokenBucket> emailBuckets = lru();
+    private final Map<String, TokenBucket> accountBuckets = lru();
+    private final Map<String, TokenBucket> ipBuckets = lru();
+
+    @Value("${auth.throttle.max-keys:100000}")
+    private int maxKeys;
+
+    @Value("${auth.throttle.email.capacity:5}")
+    private int emailCapacity;
+
+    @Value("${auth.throttle.email.refill-per-minute:5}")
+    private double emailRefillPerMinute;
+
+    @Value("${auth.throttle.account.capacity:100}")
+    private int accountCapacity;
+
+    @Value("${auth.throttle.account.refill-per-minute:30}")
+    private double accountRefillPerMinute;
+
+    @Value("${auth.throttle.ip.capacity:30}")
+    private int ipCapacity;
+
+    @Value("${auth.throttle.ip.refill-per-minute:60}")
+    private double ipRefillPerMinute;
+
+    public boolean tryAcquire(String email, String ip) {
+        if (!bucket(ipBuckets, ip, ipCapacity, ipRefillPerMinute).tryConsume()) {
+            return false;
+        }
+        String account = email == null ? "" : email.trim().toLowerCase(Locale.ROOT);
+        // An IP holds no spaces, so the key cannot collide
+        if (!bucket(emailBuckets, ip + " " + account, emailCapacity, emailRefillPerMinute).tryConsume()) {
+            return false;
+        }
+        return bucket(accountBuckets, account, accountCapacity, accountRefillPerMinute).tryConsume();
+    }
+
+    // A bucket that has refilled completely carries no state worth keeping
+    @Scheduled(fixedDelayString = "${auth.throttle.purge-ms:60000}")
+    public void purgeIdle() {
+        for (Map<String, TokenBucket> buckets : List.of(emailBuckets, accountBuckets, ipBuckets)) {
+            synchronized (buckets) {
+                buckets.values().removeIf(TokenBucket::isFull);
+            }
+        }
+    }
+
+    private static TokenBucket bucket(Map<String, TokenBucket> buckets, String key, int capacity, double refillPerMinute) {
+        synchronized (buckets) {
+            return buckets.computeIfAbsent(key, k -> new TokenBucket(capacity, refillPerMinute));
+        }
+    }
+
+    private Map<String, TokenBucket> lru() {
+        return new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, TokenBucket> eldest) {
+                return size() > maxKeys;
+            }
+        };
+    }
+
+    static final class TokenBucket {
+        private final double capacity;
+        private final double refillPerNano;
+        private double tokens;
+        private long lastRefill;
+
+        TokenBucket(int capacity, double refillPerMinute) {
+            this.capacity = capacity;
+            this.refillPerNano = refillPerMinute / 60_000_000_000.0;
+            this.tokens = capacity;
+            this.lastRefill = System.nanoTime();
+        }
+
+        synchronized boolean tryConsume() {
+            refill();
+            if (tokens >= 1) {
+                tokens -= 1;
+                return true;
+            }
+            return false;
+        }
+
+        synchronized boolean isFull() {
+            refill();
+            return tokens >= capacity;
+        }
+
+        private void refill() {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * refillPerNano);
+            lastRefill = now;
+        }
+    }
+}
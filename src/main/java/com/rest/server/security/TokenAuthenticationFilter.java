@@ -0,0 +1,67 @@
+package com.rest.server.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+// Validates "Authorization: Bearer <access token>" with TokenService. Requests without a token pass through
+// anonymously; a present but invalid or expired token is rejected so the client knows to refresh. Login, refresh
+// and logout are not filtered, since a client may still send its expired access token to them. Every filtered
+// request also carries the client address, which identifies anonymous callers downstream.
+public class TokenAuthenticationFilter extends OncePerRequestFilter {
+
+    public static final String USER_ID_ATTRIBUTE = "authenticatedUserId";
+    // Resolved from X-Forwarded-For by the RemoteIpValve behind the load balancer
+    public static final String CLIENT_ADDRESS_ATTRIBUTE = "clientAddress";
+    private static final String BEARER = "Bearer ";
+    private static final Set<String> UNFILTERED = Set.of("/api/v1/login", "/api/v1/token/refresh", "/api/v1/logout");
+
+    private final TokenService tokenService;
+    private final Set<String> adminUserIds;
+
+    public TokenAuthenticationFilter(TokenService tokenService, Set<String> adminUserIds) {
+        this.tokenService = tokenService;
+        this.adminUserIds = adminUserIds;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return UNFILTERED.contains(request.getRequestURI().substring(request.getContextPath().length()));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        request.setAttribute(CLIENT_ADDRESS_ATTRIBUTE, request.getRemoteAddr());
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.startsWith(BEARER)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        Optional<TokenClaims> claims = tokenService.verify(header.substring(BEARER.length()).trim(), TokenClaims.TokenType.ACCESS);
+        if (claims.isEmpty()) {
+            response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer error=\"invalid_token\"");
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Invalid or expired access token");
+            return;
+        }
+        String userId = claims.get().userId();
+        List<SimpleGrantedAuthority> authorities = adminUserIds.contains(userId)
+                ? List.of(new SimpleGrantedAuthority("ROLE_USER"), new SimpleGrantedAuthority("ROLE_ADMIN"))
+                : List.of(new SimpleGrantedAuthority("ROLE_USER"));
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(userId, null, authorities);
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        request.setAttribute(USER_ID_ATTRIBUTE, userId);
+        chain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,8 @@
+package com.rest.server.security;
+
+public record TokenClaims(TokenType type, String userId, long issuedAt, long expiresAt, String tokenId) {
+
+    public enum TokenType {
+        ACCESS, REFRESH
+    }
+}
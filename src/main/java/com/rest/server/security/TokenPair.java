@@ -0,0 +1,4 @@
+package com.rest.server.security;
+
+public record TokenPair(String accessToken, String refreshToken, long expiresIn) {
+}
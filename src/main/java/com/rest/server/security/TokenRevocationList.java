@@ -0,0 +1,142 @@
+package com.rest.server.security;
+
+import com.rest.server.cluster.EntityChange;
+import com.rest.server.cluster.EntityChangeListener;
+import com.rest.server.models.TokenRevocation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Revocations: individual token ids (logout, refresh rotation) and per-user cut-offs (tokens issued before the
+// cut-off are rejected). token_revocations in Mongo is shared by all nodes; verification only reads the local
+// copy, which follows the collection through the change-stream bus when it is on and a poll every sync-ms
+// either way. Refresh rotation claims the token id in Mongo itself, so a refresh token is single use cluster-wide.
+@Component
+public class TokenRevocationList implements EntityChangeListener {
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationList.class);
+
+    // Re-read revocations this much older than the last poll, so a node whose clock runs behind is not missed
+    private static final long SYNC_OVERLAP_MS = 60_000;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${auth.token.revocation.persistent:true}")
+    private boolean persistent;
+
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+    private final Map<String, Long[]> userCutoffs = new ConcurrentHashMap<>();
+    // Start of the last poll; 0 loads every unexpired revocation on the first one
+    private volatile long lastSync;
+
+    public void revoke(TokenClaims claims) {
+        revokedTokens.put(claims.tokenId(), claims.expiresAt());
+        if (persistent) {
+            mongoTemplate.save(tokenRevocation(claims));
+        }
+    }
+
+    // Revokes the token and returns true, unless it was already revoked (by a concurrent caller, on any node)
+    public boolean consume(TokenClaims claims) {
+        if (!persistent) {
+            return revokedTokens.putIfAbsent(claims.tokenId(), claims.expiresAt()) == null;
+        }
+        // The insert decides; the local entry may already be there from the bus echoing it back
+        boolean claimed;
+        try {
+            mongoTemplate.insert(tokenRevocation(claims));
+            claimed = true;
+        } catch (DuplicateKeyException e) {
+            claimed = false;
+        }
+        revokedTokens.put(claims.tokenId(), claims.expiresAt());
+        return claimed;
+    }
+
+    // Invalidates every token issued to the user up to now; kept until the longest-lived of them expires
+    public void revokeUser(String userId, long keepUntil) {
+        long now = Instant.now().getEpochSecond();
+        userCutoffs.put(userId, new Long[]{now, keepUntil});
+        if (persistent) {
+            mongoTemplate.save(new TokenRevocation(TokenRevocation.USER_PREFIX + userId, userId, now,
+                    Date.from(Instant.ofEpochSecond(keepUntil)), new Date()));
+        }
+    }
+
+    public boolean isRevoked(TokenClaims claims) {
+        if (revokedTokens.containsKey(claims.tokenId())) {
+            return true;
+        }
+        Long[] cutoff = userCutoffs.get(claims.userId());
+        return cutoff != null && claims.issuedAt() <= cutoff[0];
+    }
+
+    @Override
+    public Set<String> collections() {
+        return Set.of("token_revocations");
+    }
+
+    @Override
+    public void onEntityChange(EntityChange change) {
+        if (change.operation() == EntityChange.Operation.UPSERT) {
+            change.documentAs(TokenRevocation.class).ifPresent(this::apply);
+        }
+    }
+
+    @Override
+    public void onResync() {
+        lastSync = 0;
+        sync();
+    }
+
+    @Scheduled(fixedDelayString = "${auth.token.revocation.sync-ms:5000}")
+    public void sync() {
+        if (!persistent) {
+            return;
+        }
+        long started = System.currentTimeMillis();
+        try {
+            Query query = Query.query(Criteria.where("createdAt").gte(new Date(Math.max(0, lastSync - SYNC_OVERLAP_MS))));
+            mongoTemplate.find(query, TokenRevocation.class).forEach(this::apply);
+            lastSync = started;
+        } catch (RuntimeException e) {
+            logger.warn("Could not read token revocations: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${auth.token.revocation-purge-ms:60000}")
+    public void purgeExpired() {
+        long now = Instant.now().getEpochSecond();
+        revokedTokens.values().removeIf(expiresAt -> expiresAt < now);
+        userCutoffs.values().removeIf(cutoff -> cutoff[1] < now);
+    }
+
+    private void apply(TokenRevocation revocation) {
+        long keepUntil = revocation.getExpiresAt().toInstant().getEpochSecond();
+        if (revocation.getUserId() != null) {
+            // The later cut-off wins
+            userCutoffs.merge(revocation.getUserId(), new Long[]{revocation.getIssuedBefore(), keepUntil},
+                    (local, remote) -> remote[0] > local[0] ? remote : local);
+        } else {
+            revokedTokens.put(revocation.getId().substring(TokenRevocation.TOKEN_PREFIX.length()), keepUntil);
+        }
+    }
+
+    private static TokenRevocation tokenRevocation(TokenClaims claims) {
+        return new TokenRevocation(TokenRevocation.TOKEN_PREFIX + claims.tokenId(), null, 0,
+                Date.from(Instant.ofEpochSecond(claims.expiresAt())), new Date());
+    }
+}
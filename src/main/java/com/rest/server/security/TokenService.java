@@ -0,0 +1,133 @@
+package com.rest.server.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.UUID;
+
+// Stateless HMAC-SHA256 tokens: base64url(payload).base64url(signature), payload = "v1|type|userId|iat|exp|jti".
+// Verifying one costs a single HMAC, so authenticated requests never touch BCrypt or the users collection.
+@Service
+public class TokenService {
+    private static final Logger logger = LoggerFactory.getLogger(TokenService.class);
+    private static final String VERSION = "v1";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    // Profiles that run behind a load balancer, where a per-process key would break tokens across nodes
+    private static final String[] SHARED_SECRET_PROFILES = {"prod"};
+
+    private final SecretKeySpec key;
+    private final ThreadLocal<Mac> macs;
+    private final Duration accessTtl;
+    private final Duration refreshTtl;
+    private final TokenRevocationList revocationList;
+
+    public TokenService(@Value("${auth.token.secret:}") String secret,
+                        @Value("${auth.token.access-ttl:15m}") Duration accessTtl,
+                        @Value("${auth.token.refresh-ttl:7d}") Duration refreshTtl,
+                        TokenRevocationList revocationList,
+                        Environment environment) {
+        byte[] secretBytes;
+        if (secret.isBlank()) {
+            // A per-process key makes every node reject the others' tokens
+            if (environment.acceptsProfiles(Profiles.of(SHARED_SECRET_PROFILES))) {
+                throw new IllegalStateException("auth.token.secret must be set (base64, the same on every node) when the "
+                        + String.join("/", SHARED_SECRET_PROFILES) + " profile is active");
+            }
+            logger.warn("auth.token.secret is not set, using a random key: tokens will not survive a restart or work across nodes");
+            secretBytes = new byte[32];
+            new SecureRandom().nextBytes(secretBytes);
+        } else {
+            secretBytes = Base64.getDecoder().decode(secret);
+        }
+        this.key = new SecretKeySpec(secretBytes, "HmacSHA256");
+        this.macs = ThreadLocal.withInitial(this::newMac);
+        this.accessTtl = accessTtl;
+        this.refreshTtl = refreshTtl;
+        this.revocationList = revocationList;
+    }
+
+    public TokenPair issue(String userId) {
+        long now = Instant.now().getEpochSecond();
+        String accessToken = sign(TokenClaims.TokenType.ACCESS, userId, now, now + accessTtl.toSeconds());
+        String refreshToken = sign(TokenClaims.TokenType.REFRESH, userId, now, now + refreshTtl.toSeconds());
+        return new TokenPair(accessToken, refreshToken, accessTtl.toSeconds());
+    }
+
+    public Optional<TokenClaims> verify(String token, TokenClaims.TokenType expectedType) {
+        int dot = token.indexOf('.');
+        if (dot <= 0 || dot == token.length() - 1) {
+            return Optional.empty();
+        }
+        try {
+            byte[] payload = DECODER.decode(token.substring(0, dot));
+            byte[] signature = DECODER.decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(signature, macs.get().doFinal(payload))) {
+                return Optional.empty();
+            }
+            String[] parts = new String(payload, StandardCharsets.UTF_8).split("\\|");
+            if (parts.length != 6 || !VERSION.equals(parts[0])) {
+                return Optional.empty();
+            }
+            TokenClaims claims = new TokenClaims(TokenClaims.TokenType.valueOf(parts[1]), parts[2],
+                    Long.parseLong(parts[3]), Long.parseLong(parts[4]), parts[5]);
+            if (claims.type() != expectedType
+                    || claims.expiresAt() < Instant.now().getEpochSecond()
+                    || revocationList.isRevoked(claims)) {
+                return Optional.empty();
+            }
+            return Optional.of(claims);
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    // Refresh tokens are single use: the presented one is revoked and a new pair issued. Only the caller that
+    // revokes it gets the pair, so concurrent refreshes with one token cannot both succeed.
+    public Optional<TokenPair> refresh(String refreshToken) {
+        return verify(refreshToken, TokenClaims.TokenType.REFRESH)
+                .filter(revocationList::consume)
+                .map(claims -> issue(claims.userId()));
+    }
+
+    public void revoke(String token) {
+        for (TokenClaims.TokenType type : TokenClaims.TokenType.values()) {
+            verify(token, type).ifPresent(revocationList::revoke);
+        }
+    }
+
+    public void revokeAllFor(String userId) {
+        revocationList.revokeUser(userId, Instant.now().getEpochSecond() + Math.max(accessTtl.toSeconds(), refreshTtl.toSeconds()));
+    }
+
+    private String sign(TokenClaims.TokenType type, String userId, long issuedAt, long expiresAt) {
+        String payload = String.join("|", VERSION, type.name(), userId, Long.toString(issuedAt), Long.toString(expiresAt),
+                UUID.randomUUID().toString());
+        byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+        return ENCODER.encodeToString(payloadBytes) + "." + ENCODER.encodeToString(macs.get().doFinal(payloadBytes));
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+}
@@ -1,22 +1,35 @@
 package com.rest.server.security;
 
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+
+import java.util.Set;
+
+import static org.springframework.security.web.util.matcher.AntPathRequestMatcher.antMatcher;
 
 @Configuration
 @EnableWebSecurity
 public class WebSecurityConfig {
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, TokenService tokenService,
+                                           @Value("${auth.admin-user-ids:}") Set<String> adminUserIds) throws Exception {
         http
-                .csrf().disable() // Disable CSRF protection
-                .authorizeRequests()
-                .anyRequest().permitAll(); // Allow all requests
+                .csrf(csrf -> csrf.disable()) // Disable CSRF protection
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS)) // Tokens, no HTTP session
+                .addFilterBefore(new TokenAuthenticationFilter(tokenService, adminUserIds), UsernamePasswordAuthenticationFilter.class)
+                .authorizeHttpRequests(requests -> requests
+                        .requestMatchers(antMatcher("/api/v1/admin/**")).hasRole("ADMIN") // Profiler findings and cascade jobs
+                        .requestMatchers(antMatcher("/actuator/health/**")).permitAll() // Load balancer probes
+                        .requestMatchers(antMatcher("/actuator/**")).hasRole("ADMIN") // Metrics and prometheus expose internals
+                        .anyRequest().permitAll()); // Allow all requests
 
 
         return http.build();
@@ -0,0 +1,151 @@
+package com.rest.server.services;
+
+import com.rest.server.models.Comment;
+import com.rest.server.models.Post;
+import com.rest.server.repositories.CommentRepository;
+import com.rest.server.repositories.PostRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+// A user's posts and comments as one newest-first stream. Each collection is read through its own sorted,
+// bounded cursor that resumes after the position stored in the page cursor, and the two heads are merged
+// lazily, so a page never reads more than first + 1 documents from either collection.
+@Service
+public class ActivityService {
+
+    public record ActivityPage(List<Object> items, List<String> cursors, boolean hasNextPage) {
+    }
+
+    // Last item taken from one source; null when that source has not been read yet
+    private record Position(String date, String id) {
+    }
+
+    // Newest first, id breaking ties
+    private static final Comparator<Position> ORDER = Comparator
+            .comparing(Position::date)
+            .thenComparing(Position::id)
+            .reversed();
+
+    private static final String NO_CURSOR_DATE = "\uffff";
+
+    @Autowired
+    private PostRepository postRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+
+    public ActivityPage activity(String userId, int first, String after) {
+        if (first <= 0) {
+            throw new IllegalArgumentException("first must be positive");
+        }
+        Position[] start = after != null ? decodeCursor(after) : new Position[2];
+        PageRequest postPage = PageRequest.of(0, first + 1,
+                Sort.by(Sort.Order.desc("postPublishDate"), Sort.Order.desc("postId")));
+        PageRequest commentPage = PageRequest.of(0, first + 1,
+                Sort.by(Sort.Order.desc("commentPublishDate"), Sort.Order.desc("commentId")));
+
+        try (Stream<Post> posts = postRepository.streamByPostOwnerIdAndPostPublishDateLessThanEqual(
+                userId, maxDate(start[0]), postPage);
+             Stream<Comment> comments = commentRepository.streamByCommentOwnerIdAndCommentPublishDateLessThanEqual(
+                     userId, maxDate(start[1]), commentPage)) {
+            List<Source<?>> sources = List.of(
+                    new Source<>(posts.iterator(), post -> position(post.getPostPublishDate(), post.getPostId()), start[0]),
+                    new Source<>(comments.iterator(), comment -> position(comment.getCommentPublishDate(), comment.getCommentId()), start[1]));
+
+            List<Object> items = new ArrayList<>();
+            List<String> cursors = new ArrayList<>();
+            while (items.size() < first) {
+                Source<?> next = null;
+                for (Source<?> source : sources) {
+                    if (source.peek() != null && (next == null || ORDER.compare(source.headPosition(), next.headPosition()) < 0)) {
+                        next = source;
+                    }
+                }
+                if (next == null) {
+                    break;
+                }
+                items.add(next.take());
+                cursors.add(encodeCursor(sources.get(0).last, sources.get(1).last));
+            }
+            boolean hasNextPage = sources.stream().anyMatch(source -> source.peek() != null);
+            return new ActivityPage(items, cursors, hasNextPage);
+        }
+    }
+
+    private static final class Source<T> {
+        private final Iterator<T> iterator;
+        private final Function<T, Position> positionOf;
+        private Position last;
+        private T head;
+
+        Source(Iterator<T> iterator, Function<T, Position> positionOf, Position last) {
+            this.iterator = iterator;
+            this.positionOf = positionOf;
+            this.last = last;
+        }
+
+        // Skips documents at or before the resume position (same publish date, id not lower)
+        T peek() {
+            while (head == null && iterator.hasNext()) {
+                T candidate = iterator.next();
+                if (last == null || ORDER.compare(positionOf.apply(candidate), last) > 0) {
+                    head = candidate;
+                }
+            }
+            return head;
+        }
+
+        Position headPosition() {
+            return positionOf.apply(head);
+        }
+
+        T take() {
+            T taken = head;
+            last = positionOf.apply(taken);
+            head = null;
+            return taken;
+        }
+    }
+
+    private static Position position(String date, String id) {
+        return new Position(date != null ? date : "", id);
+    }
+
+    private static String maxDate(Position position) {
+        return position != null ? position.date() : NO_CURSOR_DATE;
+    }
+
+    // Both positions, so the next page resumes each collection where this one stopped
+    private static String encodeCursor(Position posts, Position comments) {
+        String raw = String.join("\n",
+                posts != null ? posts.date() : "", posts != null ? posts.id() : "",
+                comments != null ? comments.date() : "", comments != null ? comments.id() : "");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Position[] decodeCursor(String cursor) {
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\n", -1);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid activity cursor");
+        }
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("Invalid activity cursor");
+        }
+        return new Position[]{
+                parts[1].isEmpty() ? null : new Position(parts[0], parts[1]),
+                parts[3].isEmpty() ? null : new Position(parts[2], parts[3])
+        };
+    }
+}
@@ -0,0 +1,273 @@
+package com.rest.server.services;
+
+import com.mongodb.MongoClientSettings;
+import com.rest.server.cache.EntityCache;
+import com.rest.server.changelog.ChangeLog;
+import com.rest.server.index.LatestComments;
+import com.rest.server.index.PostReadModel;
+import com.rest.server.index.TagIndex;
+import com.rest.server.models.ArchivedCommentChunk;
+import com.rest.server.models.ArchivedPost;
+import com.rest.server.models.Comment;
+import com.rest.server.models.Post;
+import com.rest.server.repositories.ArchivedCommentChunkRepository;
+import com.rest.server.repositories.ArchivedPostRepository;
+import com.rest.server.repositories.CommentRepository;
+import com.rest.server.repositories.JobLeaseRepository;
+import com.rest.server.repositories.PostRepository;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.Document;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// Moves posts older than jobs.archive.min-age-days, with their comments, out of the hot collections into
+// posts_archive/comments_archive as deflated BSON, so the working set of "posts" and "comments" stays small.
+// singlePost reads through to the archive when "posts" misses; a post's comments list the hot ones, then the archived.
+// Each post is written to the archive before it is deleted, so a crash mid-way only repeats work.
+// Only the node holding the "archive" job lease runs a tick; it renews the lease before each post and again
+// before deleting anything, so a node whose lease lapsed never removes hot comments another node is archiving.
+@Service
+public class ArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArchiveService.class);
+
+    private static final DocumentCodec CODEC = new DocumentCodec(MongoClientSettings.getDefaultCodecRegistry());
+    private static final String LEASE = "archive";
+
+    @Autowired
+    private PostRepository postRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+    @Autowired
+    private ArchivedPostRepository archivedPostRepository;
+    @Autowired
+    private ArchivedCommentChunkRepository archivedCommentChunkRepository;
+    @Autowired
+    private JobLeaseRepository jobLeaseRepository;
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private TagIndex tagIndex;
+    @Autowired
+    private PostReadModel postReadModel;
+    @Autowired
+    private EntityCache entityCache;
+    @Autowired
+    private LatestComments latestComments;
+    @Autowired
+    private ChangeLog changeLog;
+
+    @Value("${jobs.archive.enabled:false}")
+    private boolean enabled;
+
+    @Value("${jobs.archive.min-age-days:365}")
+    private int minAgeDays;
+
+    // Posts archived per tick
+    @Value("${jobs.archive.batch-size:100}")
+    private int batchSize;
+
+    // Comments per archived chunk document
+    @Value("${jobs.archive.chunk-size:500}")
+    private int chunkSize;
+
+    // Longer than archiving one post takes; renewed before every post
+    @Value("${jobs.archive.lease-ms:300000}")
+    private long leaseMs;
+
+    // Unique per process, so two instances on one host never share the lease
+    private final String owner;
+
+    public ArchiveService(@Value("${cluster.node-id:${HOSTNAME:local}}") String nodeId) {
+        this.owner = nodeId + "/" + new ObjectId().toHexString();
+    }
+
+    @Scheduled(initialDelayString = "${jobs.archive.initial-delay-ms:60000}", fixedDelayString = "${jobs.archive.interval-ms:60000}")
+    public void archiveColdPosts() {
+        if (!enabled || !renewLease()) {
+            return;
+        }
+        String cutoff = OffsetDateTime.now(ZoneOffset.UTC).minusDays(minAgeDays).format(DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+        List<Post> posts = postRepository.findByPostPublishDateLessThan(cutoff, PageRequest.of(0, batchSize, Sort.by("postPublishDate")));
+        int archived = 0;
+        long comments = 0;
+        for (Post post : posts) {
+            if (!renewLease()) {
+                logger.warn("Lost the archive lease after {} posts", archived);
+                break;
+            }
+            try {
+                comments += archive(post);
+                archived++;
+            } catch (RuntimeException e) {
+                logger.warn("Could not archive post {}", post.getPostId(), e);
+            }
+        }
+        if (archived > 0) {
+            logger.info("Archived {} posts published before {} with {} comments", archived, cutoff, comments);
+        }
+    }
+
+    private boolean renewLease() {
+        Date now = new Date();
+        return jobLeaseRepository.claim(LEASE, owner, now, new Date(now.getTime() + leaseMs));
+    }
+
+    // Returns the number of comments archived; throws if the lease was lost before the hot copies were deleted
+    private int archive(Post post) {
+        String postId = post.getPostId();
+        // Leftovers of an interrupted run; the caller holds the lease, so no other node is writing these chunks
+        archivedCommentChunkRepository.deleteByPostId(postId);
+
+        // Oldest first, so comments added meanwhile land after the pages already read
+        List<String> commentIds = new ArrayList<>();
+        int chunks = 0;
+        Page<Comment> page;
+        do {
+            page = commentRepository.findByCommentPostId(postId, PageRequest.of(chunks, chunkSize, Sort.by("commentPublishDate")));
+            if (page.hasContent()) {
+                List<Document> documents = new ArrayList<>();
+                for (Comment comment : page) {
+                    documents.add(toDocument(comment));
+                    commentIds.add(comment.getCommentId());
+                }
+                archivedCommentChunkRepository.save(new ArchivedCommentChunk(postId + ":" + chunks, postId, chunks,
+                        documents.size(), compress(new Document("comments", documents))));
+                chunks++;
+            }
+        } while (page.hasNext());
+
+        archivedPostRepository.save(new ArchivedPost(postId, post.getPostOwnerId(), post.getPostPublishDate(),
+                commentIds.size(), chunks, new Date(), compress(toDocument(post))));
+
+        // The next lease holder rebuilds the archived copy from the hot comments, so they must still be there
+        if (!renewLease()) {
+            throw new IllegalStateException("Archive lease lost before deleting post " + postId);
+        }
+        commentRepository.deleteAllById(commentIds);
+        postRepository.deleteById(postId);
+        // Gone from the hot collections, as far as consumers are concerned
+        changeLog.recordDeleted(Comment.class, commentIds);
+        changeLog.recordDeleted(Post.class, postId);
+        tagIndex.onPostDeleted(postId);
+        postReadModel.onPostDeleted(postId);
+        entityCache.evictPost(postId);
+        latestComments.evict(postId);
+        return commentIds.size();
+    }
+
+    public Optional<Post> findPost(String postId) {
+        return archivedPostRepository.findById(postId)
+                .map(archived -> mongoTemplate.getConverter().read(Post.class, decompress(archived.getData())));
+    }
+
+    // Comments archived with the post; 0 when it is not archived
+    public long countComments(String postId) {
+        return archivedPostRepository.findById(postId).map(ArchivedPost::getCommentCount).orElse(0);
+    }
+
+    // Newest first, like CommentService: skips offset archived comments and returns up to limit
+    public List<Comment> findComments(String postId, long offset, int limit) {
+        List<ArchivedCommentChunk> chunks = archivedCommentChunkRepository.findByPostIdOrderByChunkAsc(postId);
+        long total = chunks.stream().mapToLong(ArchivedCommentChunk::getCount).sum();
+        // Positions in oldest-first order covered by the requested range
+        long end = total - offset;
+        long start = Math.max(0, end - limit);
+        List<Comment> content = new ArrayList<>();
+        long chunkStart = 0;
+        for (ArchivedCommentChunk chunk : chunks) {
+            long chunkEnd = chunkStart + chunk.getCount();
+            if (chunkEnd > start && chunkStart < end) {
+                List<Document> comments = decompress(chunk.getData()).getList("comments", Document.class);
+                for (long i = Math.max(start, chunkStart); i < Math.min(end, chunkEnd); i++) {
+                    content.add(mongoTemplate.getConverter().read(Comment.class, comments.get((int) (i - chunkStart))));
+                }
+            }
+            chunkStart = chunkEnd;
+        }
+        Collections.reverse(content);
+        return content;
+    }
+
+    public void deletePost(String postId) {
+        archivedCommentChunkRepository.deleteByPostId(postId);
+        archivedPostRepository.deleteById(postId);
+    }
+
+    public void deletePostsOf(String ownerId) {
+        archivedPostRepository.findByPostOwnerId(ownerId).forEach(post -> deletePost(post.getPostId()));
+    }
+
+    private Document toDocument(Object entity) {
+        Document document = new Document();
+        mongoTemplate.getConverter().write(entity, document);
+        return document;
+    }
+
+    private static byte[] compress(Document document) {
+        BasicOutputBuffer bson = new BasicOutputBuffer();
+        CODEC.encode(new BsonBinaryWriter(bson), document, EncoderContext.builder().build());
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(bson.toByteArray());
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(bson.getSize() / 2);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static Document decompress(byte[] data) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 4);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int read = inflater.inflate(buffer);
+                if (read == 0 && inflater.needsInput()) {
+                    throw new RuntimeException("Truncated archive record");
+                }
+                out.write(buffer, 0, read);
+            }
+            return CODEC.decode(new BsonBinaryReader(ByteBuffer.wrap(out.toByteArray())), DecoderContext.builder().build());
+        } catch (DataFormatException e) {
+            throw new RuntimeException("Corrupt archive record", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
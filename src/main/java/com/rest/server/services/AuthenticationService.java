@@ -3,7 +3,6 @@ package com.rest.server.services;
 import com.rest.server.models.User;
 import com.rest.server.repositories.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.util.Optional;
@@ -12,15 +11,22 @@ public class AuthenticationService {
     @Autowired
     private UserRepository userRepository;
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashingService;
     public boolean authenticate(String email, String password) {
+        return authenticateUser(email, password).isPresent();
+    }
+
+    // BCrypt verification runs on the bounded hashing pool, never on the request thread
+    public Optional<User> authenticateUser(String email, String password) {
         Optional<User> userOptional = userRepository.findByUserEmail(email);
 
-        if (userOptional.isPresent()) {
+        if (userOptional.isPresent() && password != null) {
             User user = userOptional.get();
-            return passwordEncoder.matches(password, user.getUserPassword());
+            if (passwordHashingService.matches(password, user.getUserPassword())) {
+                return userOptional;
+            }
         }
 
-        return false;
+        return Optional.empty();
     }
 }
@@ -0,0 +1,209 @@
+package com.rest.server.services;
+
+import com.rest.server.cache.EntityCache;
+import com.rest.server.changelog.ChangeLog;
+import com.rest.server.index.LatestComments;
+import com.rest.server.index.PostReadModel;
+import com.rest.server.index.TagIndex;
+import com.rest.server.models.CascadeJob;
+import com.rest.server.models.Comment;
+import com.rest.server.models.Post;
+import com.rest.server.repositories.CascadeJobRepository;
+import com.rest.server.repositories.CommentRepository;
+import com.rest.server.repositories.PostRepository;
+import com.rest.server.repositories.UserRepository;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+// Deleting a post or user removes the root document first and only then records a cascade job; the job
+// removes dependent comments/posts at most batch-size documents per tick and never runs while the root exists.
+// Jobs live in Mongo, so unfinished ones are picked up again after a restart. Every batch is idempotent. A node
+// claims a job with a lease before each step, so only one node works on it until the lease runs out.
+@Service
+public class CascadeDeleteService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CascadeDeleteService.class);
+
+    @Autowired
+    private CascadeJobRepository cascadeJobRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+    @Autowired
+    private PostRepository postRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private TagIndex tagIndex;
+    @Autowired
+    private PostReadModel postReadModel;
+    @Autowired
+    private EntityCache entityCache;
+    @Autowired
+    private ArchiveService archiveService;
+    @Autowired
+    private LatestComments latestComments;
+    @Autowired
+    private FeedService feedService;
+    @Autowired
+    private ChangeLog changeLog;
+
+    @Value("${jobs.cascade.enabled:true}")
+    private boolean enabled;
+
+    // Upper bound on documents deleted per tick, shared by all running jobs
+    @Value("${jobs.cascade.batch-size:200}")
+    private int batchSize;
+
+    @Value("${jobs.cascade.max-attempts:5}")
+    private int maxAttempts;
+
+    // How long a claimed job stays with this process without being renewed; renewed on every tick
+    @Value("${jobs.cascade.lease-ms:30000}")
+    private long leaseMs;
+
+    // Unique per process, so two instances on one host never share a lease
+    private final String owner;
+
+    public CascadeDeleteService(@Value("${cluster.node-id:${HOSTNAME:local}}") String nodeId) {
+        this.owner = nodeId + "/" + new ObjectId().toHexString();
+    }
+
+    public CascadeJob enqueue(String type, String rootId) {
+        Date now = new Date();
+        CascadeJob job = new CascadeJob();
+        job.setType(type);
+        job.setRootId(rootId);
+        job.setStatus(CascadeJob.PENDING);
+        job.setCreatedAt(now);
+        job.setUpdatedAt(now);
+        return cascadeJobRepository.save(job);
+    }
+
+    public Optional<CascadeJob> findJob(String id) {
+        return cascadeJobRepository.findById(id);
+    }
+
+    public Page<CascadeJob> recentJobs(int page, int size) {
+        return cascadeJobRepository.findAll(PageRequest.of(page, size, Sort.by("createdAt").descending()));
+    }
+
+    @Scheduled(initialDelayString = "${jobs.cascade.initial-delay-ms:10000}", fixedDelayString = "${jobs.cascade.interval-ms:1000}")
+    public void runPendingJobs() {
+        if (!enabled) {
+            return;
+        }
+        int budget = batchSize;
+        for (CascadeJob candidate : cascadeJobRepository.findByStatusInOrderByCreatedAtAsc(List.of(CascadeJob.PENDING, CascadeJob.RUNNING))) {
+            if (budget <= 0) {
+                break;
+            }
+            Date now = new Date();
+            CascadeJob job = cascadeJobRepository.claim(candidate.getId(), owner, now, new Date(now.getTime() + leaseMs));
+            if (job == null) {
+                // Another node holds the lease
+                continue;
+            }
+            Progress progress = new Progress();
+            try {
+                step(job, budget, progress);
+                budget -= progress.used;
+                if (!cascadeJobRepository.recordProgress(job.getId(), owner, progress.deletedComments, progress.deletedPosts,
+                        progress.remaining, progress.finished ? CascadeJob.DONE : CascadeJob.RUNNING, new Date())) {
+                    logger.warn("Lost the lease on cascade job {} during a step", job.getId());
+                }
+            } catch (RuntimeException e) {
+                budget -= progress.used;
+                int attempts = job.getAttempts() + 1;
+                cascadeJobRepository.recordFailure(job.getId(), owner, progress.deletedComments, progress.deletedPosts,
+                        e.getMessage(), attempts >= maxAttempts ? CascadeJob.FAILED : CascadeJob.RUNNING, new Date());
+                logger.warn("Cascade job {} ({} {}) failed, attempt {}", job.getId(), job.getType(), job.getRootId(), attempts, e);
+            }
+        }
+    }
+
+    // What one step did; written back with $inc so concurrent writers never overwrite each other's counts
+    private static final class Progress {
+        int used;
+        long deletedComments;
+        long deletedPosts;
+        long remaining;
+        boolean finished;
+    }
+
+    // Runs one batch of the job within the budget
+    private void step(CascadeJob job, int budget, Progress progress) {
+        boolean user = CascadeJob.TYPE_USER.equals(job.getType());
+        if (user ? userRepository.existsById(job.getRootId()) : postRepository.existsById(job.getRootId())) {
+            throw new IllegalStateException("The " + job.getType() + " " + job.getRootId() + " still exists");
+        }
+        if (user) {
+            Page<Comment> ownComments = commentRepository.findByCommentOwnerId(job.getRootId(), PageRequest.of(0, budget));
+            deleteComments(ownComments.getContent(), progress);
+            long remaining = ownComments.getTotalElements() - ownComments.getNumberOfElements();
+            boolean finished = remaining == 0;
+
+            if (progress.used < budget) {
+                // A post goes only once all of its comments are gone, so an interrupted job never strands them
+                Page<Post> posts = postRepository.findByPostOwnerId(job.getRootId(), PageRequest.of(0, budget - progress.used));
+                List<String> emptied = new ArrayList<>();
+                for (Post post : posts) {
+                    if (progress.used >= budget) {
+                        break;
+                    }
+                    Page<Comment> comments = commentRepository.findByCommentPostId(post.getPostId(), PageRequest.of(0, budget - progress.used));
+                    deleteComments(comments.getContent(), progress);
+                    if (comments.getTotalElements() == comments.getNumberOfElements()) {
+                        emptied.add(post.getPostId());
+                    }
+                }
+                postRepository.deleteAllById(emptied);
+                changeLog.recordDeleted(Post.class, emptied);
+                emptied.forEach(tagIndex::onPostDeleted);
+                emptied.forEach(postReadModel::onPostDeleted);
+                emptied.forEach(entityCache::evictPost);
+                progress.deletedPosts += emptied.size();
+                progress.used += emptied.size();
+                remaining += posts.getTotalElements() - emptied.size();
+                finished = finished && posts.getTotalElements() == emptied.size();
+            } else {
+                finished = false;
+            }
+            progress.remaining = remaining;
+            progress.finished = finished;
+            if (finished) {
+                archiveService.deletePostsOf(job.getRootId());
+                feedService.onUserDeleted(job.getRootId());
+            }
+        } else {
+            Page<Comment> comments = commentRepository.findByCommentPostId(job.getRootId(), PageRequest.of(0, budget));
+            deleteComments(comments.getContent(), progress);
+            progress.remaining = comments.getTotalElements() - comments.getNumberOfElements();
+            progress.finished = progress.remaining == 0;
+        }
+    }
+
+    private void deleteComments(List<Comment> comments, Progress progress) {
+        if (comments.isEmpty()) {
+            return;
+        }
+        List<String> ids = comments.stream().map(Comment::getCommentId).toList();
+        commentRepository.deleteAllById(ids);
+        changeLog.recordDeleted(Comment.class, ids);
+        latestComments.onCommentsDeleted(comments);
+        progress.deletedComments += comments.size();
+        progress.used += comments.size();
+    }
+}
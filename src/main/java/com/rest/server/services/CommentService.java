@@ -1,32 +1,93 @@
 package com.rest.server.services;
 
+import com.rest.server.changelog.ChangeLog;
 import com.rest.server.exception.ResourceNotFoundException;
+import com.rest.server.index.LatestComments;
+import com.rest.server.index.TagIndex;
+import com.rest.server.index.TrendingTags;
 import com.rest.server.models.Comment;
+import com.rest.server.models.Rollup;
 import com.rest.server.repositories.CommentRepository;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
-import org.springframework.data.mongodb.core.MongoTemplate;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class CommentService {
+
+    public record ThreadPage(List<Comment> comments, List<String> cursors, boolean hasNextPage) {
+    }
+
+    // Sorts after every path character (hex digits and "/")
+    private static final String PATH_END = "~";
+
     @Autowired
     private CommentRepository commentRepository;
     @Autowired
-    private MongoTemplate mongoTemplate;
+    private CommentWriteBuffer commentWriteBuffer;
+    @Autowired
+    private TrendingTags trendingTags;
+    @Autowired
+    private TagIndex tagIndex;
+    @Autowired
+    private ArchiveService archiveService;
+    @Autowired
+    private LatestComments latestComments;
+    @Autowired
+    private StatsService statsService;
+    @Autowired
+    private ChangeLog changeLog;
+
+    @Value("${trending.count-comments:true}")
+    private boolean trendingCountsComments;
+
+    @Value("${comments.replies.max-depth:32}")
+    private int maxReplyDepth;
 
     public Page<Comment> allComments(Pageable pageable) {
         return commentRepository.findAll(pageable);
     }
     public Page<Comment> findCommentsByPostId(String postId, int page, int size) {
         Pageable pageable = PageRequest.of(page, size, Sort.by("commentPublishDate").descending());
-        return commentRepository.findByCommentPostId(postId, pageable);
+        if (page == 0) {
+            Optional<Page<Comment>> latest = latestComments.firstPage(postId, pageable, () -> findCommentsByPostId(postId,
+                    PageRequest.of(0, latestComments.capacity(), Sort.by("commentPublishDate").descending())));
+            if (latest.isPresent()) {
+                return latest.get();
+            }
+        }
+        return findCommentsByPostId(postId, pageable);
+    }
+
+    // An archived post can still get comments (and one can land while it is archived): those are newer than
+    // everything archived, so the hot comments come first and the archived ones continue after them
+    private Page<Comment> findCommentsByPostId(String postId, Pageable pageable) {
+        Page<Comment> hot = commentRepository.findByCommentPostId(postId, pageable);
+        long archived = archiveService.countComments(postId);
+        if (archived == 0) {
+            return hot;
+        }
+        long hotTotal = hot.getTotalElements();
+        long end = pageable.getOffset() + pageable.getPageSize();
+        List<Comment> content = new ArrayList<>(hot.getContent());
+        if (end > hotTotal) {
+            long from = Math.max(pageable.getOffset(), hotTotal);
+            content.addAll(archiveService.findComments(postId, from - hotTotal, (int) (end - from)));
+        }
+        return new PageImpl<>(content, pageable, hotTotal + archived);
     }
 
     public Page<Comment> findCommentsByUserId(String userId, int page, int size) {
@@ -34,15 +95,111 @@ public class CommentService {
         return commentRepository.findByCommentOwnerId(userId, pageable);
     }
 
+    // Every reply under commentId, at any depth, in thread order
+    public ThreadPage replies(String commentId, int first, String after) {
+        Comment parent = commentRepository.findById(commentId)
+                .orElseThrow(() -> new ResourceNotFoundException("Comment not found with ID: " + commentId));
+        String prefix = pathOf(parent);
+        String from = after != null ? decodeCursor(after) : prefix;
+        if (!from.startsWith(prefix)) {
+            throw new IllegalArgumentException("Invalid replies cursor");
+        }
+        return threadPage(commentRepository.findByCommentPostIdAndCommentPathBetween(
+                parent.getCommentPostId(), from, prefix + PATH_END, byPath(first)), first);
+    }
+
+    // The post's comments down to depth (0: top-level only) in thread order
+    public ThreadPage commentThread(String postId, int depth, int first, String after) {
+        if (depth < 0) {
+            throw new IllegalArgumentException("depth must not be negative");
+        }
+        String from = after != null ? decodeCursor(after) : "";
+        return threadPage(commentRepository.findByCommentPostIdAndCommentPathGreaterThanAndCommentDepthLessThanEqual(
+                postId, from, depth, byPath(first)), first);
+    }
+
+    // One extra comment tells whether there is a next page
+    private static Pageable byPath(int first) {
+        if (first <= 0) {
+            throw new IllegalArgumentException("first must be positive");
+        }
+        return PageRequest.of(0, first + 1, Sort.by("commentPath"));
+    }
+
+    private static ThreadPage threadPage(List<Comment> comments, int first) {
+        List<Comment> page = comments.subList(0, Math.min(first, comments.size()));
+        List<String> cursors = new ArrayList<>(page.size());
+        for (Comment comment : page) {
+            cursors.add(Base64.getUrlEncoder().withoutPadding().encodeToString(comment.getCommentPath().getBytes(StandardCharsets.UTF_8)));
+        }
+        return new ThreadPage(page, cursors, comments.size() > first);
+    }
+
+    private static String decodeCursor(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid comment cursor");
+        }
+    }
+
+    // Comments written before threading have no path until MongoIndexInitializer backfills it; they are top-level
+    private static String pathOf(Comment comment) {
+        return comment.getCommentPath() != null ? comment.getCommentPath() : comment.getCommentId() + "/";
+    }
+
     public Optional<Comment> singleComment(String id){
         return Optional.ofNullable(commentRepository.findById(id).orElseThrow(() -> new ResourceNotFoundException("Comment not found with ID: " + id)));
     }
 
-    public Comment createComment(Comment comment) {
-
+    // With comments.write-mode=batched the insert is group-committed and the future completes when it is durable
+    public CompletableFuture<Comment> createCommentAsync(Comment comment) {
         validateCommentFields(comment);
+        placeInThread(comment);
 
-        return commentRepository.save(comment);
+        if (!commentWriteBuffer.isEnabled()) {
+            return CompletableFuture.completedFuture(created(commentRepository.save(comment)));
+        }
+        return commentWriteBuffer.submit(comment).thenApply(this::created);
+    }
+
+    // The id is assigned here rather than by Mongo because the path ends with it
+    private void placeInThread(Comment comment) {
+        comment.setCommentId(new ObjectId().toHexString());
+        String parentId = comment.getParentCommentId();
+        if (parentId == null) {
+            comment.setCommentPath(comment.getCommentId() + "/");
+            comment.setCommentDepth(0);
+            return;
+        }
+        // The buffer first: a parent leaves it only once Mongo has it
+        Comment parent = commentWriteBuffer.findUnflushed(parentId)
+                .or(() -> commentRepository.findById(parentId))
+                .orElseThrow(() -> new ResourceNotFoundException("Comment not found with ID: " + parentId));
+        if (!parent.getCommentPostId().equals(comment.getCommentPostId())) {
+            throw new RuntimeException("A reply must be on the same post as its parent");
+        }
+        int depth = (parent.getCommentDepth() != null ? parent.getCommentDepth() : 0) + 1;
+        if (depth > maxReplyDepth) {
+            throw new RuntimeException("Replies cannot be nested more than " + maxReplyDepth + " levels deep");
+        }
+        comment.setCommentPath(pathOf(parent) + comment.getCommentId() + "/");
+        comment.setCommentDepth(depth);
+    }
+
+    private Comment created(Comment comment) {
+        changeLog.recordSaved(comment);
+        latestComments.onCommentSaved(comment);
+        statsService.record(Rollup.COMMENTS_BY_POST, comment.getCommentPostId());
+        return countTowardsTrending(comment);
+    }
+
+    // A comment counts once for each tag of its post
+    private Comment countTowardsTrending(Comment comment) {
+        if (trendingCountsComments) {
+            trendingTags.record(tagIndex.tagsOf(comment.getCommentPostId()));
+        }
+        return comment;
     }
     private void validateCommentFields(Comment comment) {
         if (comment.getCommentMessage() == null || comment.getCommentMessage().trim().isEmpty()) {
@@ -60,11 +217,29 @@ public class CommentService {
         return commentRepository.findById(id)
                 .map(comment -> {
                     comment.setCommentMessage(updatedComment.getCommentMessage());
-                    return commentRepository.save(comment);
+                    Comment saved = commentRepository.save(comment);
+                    changeLog.recordSaved(saved);
+                    latestComments.onCommentSaved(saved);
+                    return saved;
                 }).orElseThrow(() -> new RuntimeException("Comment not found"));
     }
 
+    // Read first so the latest-comments ring of its post can be updated; replies go with the comment
     public void deleteComment(String id) {
+        Optional<Comment> comment = commentRepository.findById(id);
         commentRepository.deleteById(id);
+        comment.ifPresent(found -> {
+            changeLog.recordDeleted(Comment.class, id);
+            latestComments.onCommentDeleted(found);
+            String prefix = pathOf(found);
+            List<Comment> replies = commentRepository.findByCommentPostIdAndCommentPathBetween(
+                    found.getCommentPostId(), prefix, prefix + PATH_END, Pageable.unpaged());
+            if (!replies.isEmpty()) {
+                List<String> replyIds = replies.stream().map(Comment::getCommentId).toList();
+                commentRepository.deleteAllById(replyIds);
+                changeLog.recordDeleted(Comment.class, replyIds);
+                latestComments.onCommentsDeleted(replies);
+            }
+        });
     }
 }
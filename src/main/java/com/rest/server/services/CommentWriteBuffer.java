@@ -0,0 +1,238 @@
+package com.rest.server.services;
+
+import com.rest.server.exception.ResourceNotFoundException;
+import com.rest.server.exception.TooManyRequestsException;
+import com.rest.server.models.Comment;
+import com.rest.server.repositories.CommentRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Group commit for comments when comments.write-mode=batched: callers enqueue and get a future,
+// a single flusher writes up to batch-size comments per unordered insertMany, at least every flush-interval.
+// Comments stay findable by id here until their batch is acknowledged, so a reply can be placed under one;
+// such a reply is written after its parent, or fails with it.
+@Component
+public class CommentWriteBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(CommentWriteBuffer.class);
+
+    private record PendingWrite(Comment comment, CompletableFuture<Comment> result) {
+    }
+
+    @Autowired
+    private CommentRepository commentRepository;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${comments.write-mode:sync}")
+    private String writeMode;
+
+    @Value("${comments.batch.size:500}")
+    private int batchSize;
+
+    @Value("${comments.batch.flush-interval-ms:20}")
+    private long flushIntervalMs;
+
+    @Value("${comments.batch.queue-capacity:10000}")
+    private int queueCapacity;
+
+    // How long a caller may block on a full queue before getting a 429
+    @Value("${comments.batch.offer-timeout-ms:200}")
+    private long offerTimeoutMs;
+
+    private BlockingQueue<PendingWrite> queue;
+    private final Map<String, Comment> unflushed = new ConcurrentHashMap<>();
+    private Thread flusher;
+    private volatile boolean running;
+    private Timer flushTimer;
+    private DistributionSummary batchSizes;
+
+    @PostConstruct
+    public void start() {
+        if (!isEnabled()) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        flushTimer = Timer.builder("comments.batch.flush").register(meterRegistry);
+        batchSizes = DistributionSummary.builder("comments.batch.size").register(meterRegistry);
+        Gauge.builder("comments.batch.queue", queue, BlockingQueue::size).register(meterRegistry);
+        running = true;
+        flusher = new Thread(this::run, "comment-write-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    public boolean isEnabled() {
+        return "batched".equalsIgnoreCase(writeMode);
+    }
+
+    // A queued or in-flight comment
+    public Optional<Comment> findUnflushed(String id) {
+        return isEnabled() ? Optional.ofNullable(unflushed.get(id)) : Optional.empty();
+    }
+
+    // Completes once the batch holding this comment has been acknowledged by the database
+    public CompletableFuture<Comment> submit(Comment comment) {
+        CompletableFuture<Comment> result = new CompletableFuture<>();
+        unflushed.put(comment.getCommentId(), comment);
+        boolean accepted;
+        try {
+            accepted = running && queue.offer(new PendingWrite(comment, result), offerTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            accepted = false;
+        }
+        if (!accepted) {
+            unflushed.remove(comment.getCommentId());
+            throw new TooManyRequestsException("Comment write queue is full, try again later");
+        }
+        return result;
+    }
+
+    private void run() {
+        List<PendingWrite> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingWrite first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    PendingWrite next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                if (!running) {
+                    queue.drainTo(batch);
+                    flush(batch);
+                    return;
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // A reply is only written once its parent is: one whose parent is in the same batch waits for the parent's
+    // insert, and one whose parent failed (here or in an earlier batch) fails too instead of becoming an orphan
+    private void flush(List<PendingWrite> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        batchSizes.record(batch.size());
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            Map<String, PendingWrite> pending = new LinkedHashMap<>();
+            for (PendingWrite write : batch) {
+                pending.put(write.comment().getCommentId(), write);
+            }
+            Set<String> saved = savedParents(pending);
+            while (!pending.isEmpty()) {
+                List<PendingWrite> ready = new ArrayList<>();
+                List<PendingWrite> orphans = new ArrayList<>();
+                for (PendingWrite write : pending.values()) {
+                    String parentId = write.comment().getParentCommentId();
+                    if (parentId == null || saved.contains(parentId)) {
+                        ready.add(write);
+                    } else if (!pending.containsKey(parentId)) {
+                        orphans.add(write);
+                    }
+                }
+                for (PendingWrite orphan : orphans) {
+                    pending.remove(orphan.comment().getCommentId());
+                    orphan.result().completeExceptionally(new ResourceNotFoundException(
+                            "Comment not found with ID: " + orphan.comment().getParentCommentId()));
+                }
+                ready.forEach(write -> pending.remove(write.comment().getCommentId()));
+                insert(ready, saved);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Comment batch of {} failed", batch.size(), e);
+            for (PendingWrite write : batch) {
+                write.result().completeExceptionally(e);
+            }
+        } finally {
+            sample.stop(flushTimer);
+            batch.forEach(write -> unflushed.remove(write.comment().getCommentId()));
+        }
+    }
+
+    // Parents outside the batch were found when the reply was placed, but may have been in a batch that failed since
+    private Set<String> savedParents(Map<String, PendingWrite> pending) {
+        Set<String> parentIds = new HashSet<>();
+        for (PendingWrite write : pending.values()) {
+            String parentId = write.comment().getParentCommentId();
+            if (parentId != null && !pending.containsKey(parentId)) {
+                parentIds.add(parentId);
+            }
+        }
+        Set<String> saved = new HashSet<>();
+        if (!parentIds.isEmpty()) {
+            commentRepository.findAllById(parentIds).forEach(parent -> saved.add(parent.getCommentId()));
+        }
+        return saved;
+    }
+
+    private void insert(List<PendingWrite> writes, Set<String> saved) {
+        if (writes.isEmpty()) {
+            return;
+        }
+        List<Comment> comments = new ArrayList<>(writes.size());
+        for (PendingWrite write : writes) {
+            comments.add(write.comment());
+        }
+        Map<Integer, String> failures = commentRepository.insertUnordered(comments);
+        for (int i = 0; i < writes.size(); i++) {
+            String failure = failures.get(i);
+            if (failure == null) {
+                saved.add(writes.get(i).comment().getCommentId());
+                writes.get(i).result().complete(writes.get(i).comment());
+            } else {
+                writes.get(i).result().completeExceptionally(new RuntimeException("Comment could not be saved: " + failure));
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (flusher == null) {
+            return;
+        }
+        // The flusher drains what is queued and exits within one poll interval
+        running = false;
+        flusher.join(TimeUnit.SECONDS.toMillis(10));
+    }
+}
@@ -0,0 +1,343 @@
+package com.rest.server.services;
+
+import com.rest.server.changelog.ChangeLog;
+import com.rest.server.exception.ResourceNotFoundException;
+import com.rest.server.models.FeedItem;
+import com.rest.server.models.Follow;
+import com.rest.server.models.FollowTarget;
+import com.rest.server.models.Post;
+import com.rest.server.models.Timeline;
+import com.rest.server.repositories.FollowRepository;
+import com.rest.server.repositories.FollowTargetRepository;
+import com.rest.server.repositories.PostRepository;
+import com.rest.server.repositories.TagRepository;
+import com.rest.server.repositories.TimelineRepository;
+import com.rest.server.repositories.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Home feed. Each user has a materialized timeline (newest post ids, capped at feed.timeline-size) that
+// createPost pushes into for every follower of the author and of the post's tags. Targets with more than
+// feed.fanout-threshold followers are skipped on write and pulled at read time instead, so one popular
+// account never turns a single post into a huge write burst.
+@Service
+public class FeedService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FeedService.class);
+
+    // Feed order: newest first, post id breaking ties so cursors are stable
+    private static final Comparator<FeedItem> FEED_ORDER = Comparator
+            .comparing((FeedItem item) -> item.getPublishDate() != null ? item.getPublishDate() : "")
+            .thenComparing(FeedItem::getPostId)
+            .reversed();
+
+    // Sorts after every ISO date, used as the upper bound when there is no cursor
+    private static final String NO_CURSOR_DATE = "\uffff";
+
+    public record FeedPage(List<Post> posts, List<String> cursors, boolean hasNextPage) {
+    }
+
+    @Autowired
+    private FollowRepository followRepository;
+    @Autowired
+    private FollowTargetRepository followTargetRepository;
+    @Autowired
+    private TimelineRepository timelineRepository;
+    @Autowired
+    private PostRepository postRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private TagRepository tagRepository;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private ChangeLog changeLog;
+
+    @Value("${feed.timeline-size:800}")
+    private int timelineSize;
+
+    // Targets with more followers than this are fanned out on read
+    @Value("${feed.fanout-threshold:5000}")
+    private long fanoutThreshold;
+
+    // Followers loaded and timelines written per bulk
+    @Value("${feed.fanout-batch:1000}")
+    private int fanoutBatch;
+
+    // Recent posts of a newly followed target copied into the follower's timeline
+    @Value("${feed.backfill:20}")
+    private int backfill;
+
+    @Value("${feed.fanout-threads:2}")
+    private int fanoutThreads;
+
+    @Value("${feed.fanout-queue-capacity:10000}")
+    private int fanoutQueueCapacity;
+
+    private ThreadPoolExecutor fanoutExecutor;
+    private Timer fanoutTimer;
+
+    @PostConstruct
+    public void start() {
+        // A full queue runs the fan-out on the posting thread, which slows writers down instead of dropping posts
+        AtomicInteger counter = new AtomicInteger();
+        fanoutExecutor = new ThreadPoolExecutor(fanoutThreads, fanoutThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(fanoutQueueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "feed-fanout-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setContextClassLoader(FeedService.class.getClassLoader());
+            return thread;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+        fanoutTimer = Timer.builder("feed.fanout").register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fanoutExecutor.shutdown();
+    }
+
+    public boolean follow(String followerId, String targetType, String targetId) {
+        if (!userRepository.existsById(followerId)) {
+            throw new ResourceNotFoundException("User not found with ID: " + followerId);
+        }
+        validateTarget(followerId, targetType, targetId);
+        try {
+            changeLog.recordSaved(followRepository.insert(new Follow(null, followerId, targetType, targetId, new Date())));
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+        long followers = followTargetRepository.incrementFollowerCount(Follow.targetKey(targetType, targetId), 1);
+        if (followers <= fanoutThreshold && backfill > 0) {
+            List<FeedItem> recent = recentPosts(targetType, targetId, NO_CURSOR_DATE, backfill).stream()
+                    .map(FeedService::itemOf)
+                    .toList();
+            timelineRepository.merge(followerId, recent, timelineSize);
+        }
+        return true;
+    }
+
+    // Already delivered posts stay in the timeline and age out as newer ones arrive
+    public boolean unfollow(String followerId, String targetType, String targetId) {
+        List<Follow> removed = followRepository.deleteByFollowerIdAndTargetTypeAndTargetId(followerId, targetType, targetId);
+        if (removed.isEmpty()) {
+            return false;
+        }
+        changeLog.recordDeleted(Follow.class, removed.stream().map(Follow::getId).toList());
+        followTargetRepository.incrementFollowerCount(Follow.targetKey(targetType, targetId), -removed.size());
+        return true;
+    }
+
+    // Part of the user delete cascade: their follows (and the counts they added), their followers and their timeline
+    public void onUserDeleted(String userId) {
+        List<Follow> follows = followRepository.deleteByFollowerId(userId);
+        for (Follow follow : follows) {
+            followTargetRepository.incrementFollowerCount(Follow.targetKey(follow.getTargetType(), follow.getTargetId()), -1);
+        }
+        List<Follow> followers = followRepository.deleteByTargetTypeAndTargetId(Follow.TARGET_USER, userId);
+        followTargetRepository.deleteById(Follow.targetKey(Follow.TARGET_USER, userId));
+        changeLog.recordDeleted(Follow.class, follows.stream().map(Follow::getId).toList());
+        changeLog.recordDeleted(Follow.class, followers.stream().map(Follow::getId).toList());
+        timelineRepository.deleteById(userId);
+    }
+
+    public List<Follow> following(String userId) {
+        return followRepository.findByFollowerId(userId);
+    }
+
+    public void onPostCreated(Post post) {
+        fanoutExecutor.execute(() -> {
+            try {
+                fanoutTimer.record(() -> fanOut(post));
+            } catch (RuntimeException e) {
+                logger.warn("Fan-out of post {} failed: {}", post.getPostId(), e.getMessage());
+            }
+        });
+    }
+
+    // Followers' timelines keep the id until it ages out (feed() skips it); the author's own timeline, where a
+    // deleted post would otherwise hold a slot the longest, drops it off the request thread
+    public void onPostDeleted(String postId, String ownerId) {
+        if (ownerId == null) {
+            return;
+        }
+        fanoutExecutor.execute(() -> {
+            try {
+                timelineRepository.pull(ownerId, postId);
+            } catch (RuntimeException e) {
+                logger.warn("Could not remove post {} from its author's timeline: {}", postId, e.getMessage());
+            }
+        });
+    }
+
+    private void fanOut(Post post) {
+        Set<String> targetKeys = new LinkedHashSet<>();
+        targetKeys.add(Follow.targetKey(Follow.TARGET_USER, post.getPostOwnerId()));
+        if (post.getPostTags() != null) {
+            post.getPostTags().forEach(tagId -> targetKeys.add(Follow.targetKey(Follow.TARGET_TAG, tagId)));
+        }
+        Map<String, Long> followerCounts = followerCounts(targetKeys);
+
+        // The author sees their own posts; a follower reached through several targets gets one push
+        Set<String> recipients = new LinkedHashSet<>();
+        recipients.add(post.getPostOwnerId());
+        for (String targetKey : targetKeys) {
+            long followers = followerCounts.getOrDefault(targetKey, 0L);
+            if (followers == 0 || followers > fanoutThreshold) {
+                continue;
+            }
+            String[] parts = targetKey.split(":", 2);
+            Pageable pageable = PageRequest.of(0, fanoutBatch, Sort.by("createdAt"));
+            Slice<Follow> page;
+            do {
+                page = followRepository.findByTargetTypeAndTargetId(parts[0], parts[1], pageable);
+                page.forEach(follow -> recipients.add(follow.getFollowerId()));
+                pageable = page.nextPageable();
+            } while (page.hasNext());
+        }
+
+        List<FeedItem> items = List.of(itemOf(post));
+        List<String> batch = new ArrayList<>(fanoutBatch);
+        for (String recipient : recipients) {
+            batch.add(recipient);
+            if (batch.size() >= fanoutBatch) {
+                timelineRepository.pushAll(batch, items, timelineSize);
+                batch.clear();
+            }
+        }
+        timelineRepository.pushAll(batch, items, timelineSize);
+    }
+
+    // One timeline read, plus one query per followed fan-out-on-read target, then a single batched hydrate
+    public FeedPage feed(String userId, int first, String after) {
+        if (first <= 0) {
+            throw new IllegalArgumentException("first must be positive");
+        }
+        FeedItem cursor = after != null ? decodeCursor(after) : null;
+        String maxDate = cursor != null ? cursor.getPublishDate() : NO_CURSOR_DATE;
+
+        Map<String, FeedItem> candidates = new HashMap<>();
+        Map<String, Post> hydrated = new HashMap<>();
+        timelineRepository.findById(userId).map(Timeline::getItems).orElse(List.of())
+                .forEach(item -> candidates.putIfAbsent(item.getPostId(), item));
+
+        List<Follow> follows = followRepository.findByFollowerId(userId);
+        Map<String, Long> followerCounts = followerCounts(follows.stream()
+                .map(follow -> Follow.targetKey(follow.getTargetType(), follow.getTargetId()))
+                .toList());
+        for (Follow follow : follows) {
+            long followers = followerCounts.getOrDefault(Follow.targetKey(follow.getTargetType(), follow.getTargetId()), 0L);
+            if (followers > fanoutThreshold) {
+                for (Post post : recentPosts(follow.getTargetType(), follow.getTargetId(), maxDate, first + 1)) {
+                    candidates.putIfAbsent(post.getPostId(), itemOf(post));
+                    hydrated.put(post.getPostId(), post);
+                }
+            }
+        }
+
+        List<FeedItem> page = candidates.values().stream()
+                .filter(item -> cursor == null || FEED_ORDER.compare(item, cursor) > 0)
+                .sorted(FEED_ORDER)
+                .limit(first + 1L)
+                .toList();
+
+        List<String> missing = page.stream().map(FeedItem::getPostId).filter(id -> !hydrated.containsKey(id)).toList();
+        if (!missing.isEmpty()) {
+            postRepository.findAllById(missing).forEach(post -> hydrated.put(post.getPostId(), post));
+        }
+
+        // Deleted posts are skipped here rather than removed from every timeline
+        Map<String, Post> ordered = new LinkedHashMap<>();
+        for (FeedItem item : page.subList(0, Math.min(first, page.size()))) {
+            Post post = hydrated.get(item.getPostId());
+            if (post != null) {
+                ordered.put(encodeCursor(item), post);
+            }
+        }
+        return new FeedPage(new ArrayList<>(ordered.values()), new ArrayList<>(ordered.keySet()), page.size() > first);
+    }
+
+    private Map<String, Long> followerCounts(Iterable<String> targetKeys) {
+        Map<String, Long> counts = new HashMap<>();
+        for (FollowTarget target : followTargetRepository.findAllById(targetKeys)) {
+            counts.put(target.getId(), target.getFollowerCount());
+        }
+        return counts;
+    }
+
+    private List<Post> recentPosts(String targetType, String targetId, String maxDate, int limit) {
+        Pageable pageable = PageRequest.of(0, limit, Sort.by("postPublishDate").descending());
+        if (Follow.TARGET_USER.equals(targetType)) {
+            return postRepository.findByPostOwnerIdAndPostPublishDateLessThanEqual(targetId, maxDate, pageable).getContent();
+        }
+        return postRepository.findByPostTagsAndPostPublishDateLessThanEqual(targetId, maxDate, pageable).getContent();
+    }
+
+    private void validateTarget(String followerId, String targetType, String targetId) {
+        if (Follow.TARGET_USER.equals(targetType)) {
+            if (followerId.equals(targetId)) {
+                throw new IllegalArgumentException("Users cannot follow themselves");
+            }
+            if (!userRepository.existsById(targetId)) {
+                throw new ResourceNotFoundException("User not found with ID: " + targetId);
+            }
+        } else if (Follow.TARGET_TAG.equals(targetType)) {
+            if (!tagRepository.existsById(targetId)) {
+                throw new ResourceNotFoundException("Tag not found with ID: " + targetId);
+            }
+        } else {
+            throw new IllegalArgumentException("Unknown follow target type: " + targetType);
+        }
+    }
+
+    private static FeedItem itemOf(Post post) {
+        return new FeedItem(post.getPostId(), post.getPostPublishDate());
+    }
+
+    private static String encodeCursor(FeedItem item) {
+        String raw = (item.getPublishDate() != null ? item.getPublishDate() : "") + "|" + item.getPostId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static FeedItem decodeCursor(String cursor) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid feed cursor");
+        }
+        int separator = raw.lastIndexOf('|');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Invalid feed cursor");
+        }
+        return new FeedItem(raw.substring(separator + 1), raw.substring(0, separator));
+    }
+}
@@ -0,0 +1,154 @@
+package com.rest.server.services;
+
+import com.rest.server.index.GeoHashGrid;
+import com.rest.server.models.Location;
+import com.rest.server.models.Post;
+import com.rest.server.models.User;
+import com.rest.server.repositories.LocationRepository;
+import com.rest.server.repositories.PostRepository;
+import com.rest.server.repositories.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Radius queries over Location coordinates. Nearby locations come from a geohash grid built over the
+// location snapshot (no Mongo round trip) while the snapshot is small enough to hold and the circle
+// covers few enough cells; otherwise from $geoNear on the 2dsphere index. Users and posts are then fetched for those locations nearest first,
+// in bounded $in queries.
+@Service
+public class GeoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(GeoService.class);
+
+    private record Grid(long version, GeoHashGrid grid) {
+    }
+
+    @Autowired
+    private LocationService locationService;
+    @Autowired
+    private LocationRepository locationRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PostRepository postRepository;
+
+    @Value("${geo.grid.enabled:true}")
+    private boolean gridEnabled;
+
+    // Geohash length of a grid cell; 5 is about 4.9 x 4.9 km at the equator
+    @Value("${geo.grid.precision:5}")
+    private int gridPrecision;
+
+    // Above this many locations the grid is not built and $geoNear is used instead
+    @Value("${geo.grid.max-locations:200000}")
+    private int gridMaxLocations;
+
+    // Above this many cells to sample a query goes to $geoNear instead; 8192 covers geo.max-radius-km near
+    // the equator at precision 5, the box widens in longitude towards the poles
+    @Value("${geo.grid.max-cells:8192}")
+    private long gridMaxCells;
+
+    @Value("${geo.max-radius-km:200}")
+    private double maxRadiusKm;
+
+    @Value("${geo.max-results:100}")
+    private int maxResults;
+
+    // Nearest locations considered per query
+    @Value("${geo.max-locations:1000}")
+    private int maxLocations;
+
+    // Location ids per users $in query
+    @Value("${geo.batch-size:100}")
+    private int batchSize;
+
+    private volatile Grid grid;
+
+    public List<User> usersNear(double latitude, double longitude, double radiusKm, int first) {
+        validate(latitude, longitude, radiusKm, first);
+        return usersNearLocations(nearbyLocations(latitude, longitude, radiusKm), first);
+    }
+
+    // Newest posts by users located within the radius
+    public List<Post> postsNear(double latitude, double longitude, double radiusKm, int first) {
+        validate(latitude, longitude, radiusKm, first);
+        List<String> ownerIds = usersNearLocations(nearbyLocations(latitude, longitude, radiusKm), maxLocations).stream()
+                .map(User::getId)
+                .toList();
+        if (ownerIds.isEmpty()) {
+            return List.of();
+        }
+        return postRepository.findByPostOwnerIdIn(ownerIds, PageRequest.of(0, first, Sort.by("postPublishDate").descending()));
+    }
+
+    private List<Location> nearbyLocations(double latitude, double longitude, double radiusKm) {
+        GeoHashGrid current = currentGrid();
+        if (current != null && current.cellsToScan(latitude, longitude, radiusKm) <= gridMaxCells) {
+            return current.near(latitude, longitude, radiusKm, maxLocations).stream()
+                    .map(GeoHashGrid.Hit::location)
+                    .toList();
+        }
+        return locationRepository.findNear(latitude, longitude, radiusKm, maxLocations);
+    }
+
+    // Walks the locations nearest first, one $in query per batch, until enough users are found
+    private List<User> usersNearLocations(List<Location> locations, int limit) {
+        List<User> users = new ArrayList<>();
+        for (int start = 0; start < locations.size() && users.size() < limit; start += batchSize) {
+            List<Location> batch = locations.subList(start, Math.min(start + batchSize, locations.size()));
+            Map<String, Integer> rank = new HashMap<>();
+            for (int i = 0; i < batch.size(); i++) {
+                rank.put(batch.get(i).getLocationId(), i);
+            }
+            List<User> found = new ArrayList<>(userRepository.findByUserLocationIdIn(rank.keySet(), PageRequest.of(0, limit - users.size())));
+            found.sort(Comparator.comparingInt(user -> rank.getOrDefault(user.getUserLocationId(), Integer.MAX_VALUE)));
+            users.addAll(found);
+        }
+        return users;
+    }
+
+    // Rebuilt when the location snapshot version changes
+    private GeoHashGrid currentGrid() {
+        if (!gridEnabled) {
+            return null;
+        }
+        LocationService.LocationSnapshot snapshot = locationService.snapshot();
+        if (snapshot.locations().size() > gridMaxLocations) {
+            return null;
+        }
+        Grid current = grid;
+        if (current == null || current.version() != snapshot.version()) {
+            synchronized (this) {
+                current = grid;
+                if (current == null || current.version() != snapshot.version()) {
+                    current = new Grid(snapshot.version(), new GeoHashGrid(snapshot.locations(), gridPrecision));
+                    grid = current;
+                    logger.debug("Built geohash grid for location snapshot {} ({} cells)", snapshot.version(), current.grid().cellCount());
+                }
+            }
+        }
+        return current.grid();
+    }
+
+    private void validate(double latitude, double longitude, double radiusKm, int first) {
+        if (latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180) {
+            throw new IllegalArgumentException("Coordinates out of range");
+        }
+        if (radiusKm <= 0 || radiusKm > maxRadiusKm) {
+            throw new IllegalArgumentException("radiusKm must be between 0 and " + maxRadiusKm);
+        }
+        if (first <= 0 || first > maxResults) {
+            throw new IllegalArgumentException("first must be between 1 and " + maxResults);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.rest.server.services;
+
+import com.rest.server.cluster.EntityChange;
+import com.rest.server.cluster.EntityChangeListener;
+import com.rest.server.models.IdempotencyRecord;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+// First-writer-wins store for idempotent mutations. The Mongo collection is the source of truth across
+// nodes; completed responses are also kept in a small local LRU so same-node retries skip the round trip.
+@Service
+public class IdempotencyService implements EntityChangeListener {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${idempotency.persistent:true}")
+    private boolean persistent;
+
+    @Value("${idempotency.ttl:24h}")
+    private Duration ttl;
+
+    // A pending claim older than this is assumed to belong to a crashed request and can be taken over
+    @Value("${idempotency.pending-timeout:30s}")
+    private Duration pendingTimeout;
+
+    @Value("${idempotency.near-cache-size:10000}")
+    private int nearCacheSize;
+
+    private final Map<String, IdempotencyRecord> nearCache = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, IdempotencyRecord> eldest) {
+            return size() > nearCacheSize;
+        }
+    };
+
+    // A pending key may have been taken over or released through another node, and deleted keys are gone
+    @Override
+    public Set<String> collections() {
+        return Set.of("idempotency_keys");
+    }
+
+    @Override
+    public void onEntityChange(EntityChange change) {
+        synchronized (nearCache) {
+            IdempotencyRecord local = nearCache.get(change.id());
+            if (local != null && (local.isPending() || change.operation() == EntityChange.Operation.DELETE)) {
+                nearCache.remove(change.id());
+            }
+        }
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    // Returns null when the caller now owns the key and must execute the mutation,
+    // otherwise the record of the earlier request (pending or completed)
+    public IdempotencyRecord claim(String id, String fingerprint) {
+        Date now = new Date();
+        IdempotencyRecord claim = new IdempotencyRecord(id, fingerprint, IdempotencyRecord.PENDING, null, now);
+        synchronized (nearCache) {
+            IdempotencyRecord local = nearCache.get(id);
+            if (local != null && !isExpired(local, now)) {
+                return local;
+            }
+            nearCache.put(id, claim);
+        }
+        if (!persistent) {
+            return null;
+        }
+        try {
+            return claimInMongo(id, fingerprint, claim, now);
+        } catch (RuntimeException e) {
+            // Not claimed after all; a pending entry left here would turn retries away until pending-timeout
+            synchronized (nearCache) {
+                nearCache.remove(id, claim);
+            }
+            throw e;
+        }
+    }
+
+    private IdempotencyRecord claimInMongo(String id, String fingerprint, IdempotencyRecord claim, Date now) {
+        try {
+            mongoTemplate.insert(claim);
+            return null;
+        } catch (DuplicateKeyException e) {
+            Query stale = Query.query(Criteria.where("_id").is(id)
+                    .and("status").is(IdempotencyRecord.PENDING)
+                    .and("createdAt").lt(new Date(now.getTime() - pendingTimeout.toMillis())));
+            if (mongoTemplate.findAndModify(stale, new Update().set("fingerprint", fingerprint).set("createdAt", now), IdempotencyRecord.class) != null) {
+                return null;
+            }
+            IdempotencyRecord existing = mongoTemplate.findById(id, IdempotencyRecord.class);
+            synchronized (nearCache) {
+                if (existing != null && !existing.isPending()) {
+                    nearCache.put(id, existing);
+                } else {
+                    nearCache.remove(id, claim);
+                }
+            }
+            // Expired by the TTL monitor between insert and read; let the client retry
+            return existing != null ? existing : claim;
+        }
+    }
+
+    public void complete(String id, String response) {
+        IdempotencyRecord record;
+        synchronized (nearCache) {
+            record = nearCache.get(id);
+            if (record != null) {
+                record.setStatus(IdempotencyRecord.COMPLETED);
+                record.setResponse(response);
+            }
+        }
+        if (persistent) {
+            mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(id)),
+                    new Update().set("status", IdempotencyRecord.COMPLETED).set("response", response),
+                    IdempotencyRecord.class);
+        }
+    }
+
+    // Failed mutations are not remembered, so the retry executes again
+    public void release(String id) {
+        synchronized (nearCache) {
+            nearCache.remove(id);
+        }
+        if (persistent) {
+            mongoTemplate.remove(Query.query(Criteria.where("_id").is(id).and("status").is(IdempotencyRecord.PENDING)),
+                    IdempotencyRecord.class);
+        }
+    }
+
+    private boolean isExpired(IdempotencyRecord record, Date now) {
+        long age = now.getTime() - record.getCreatedAt().getTime();
+        return record.isPending() ? age > pendingTimeout.toMillis() : age > ttl.toMillis();
+    }
+}
@@ -1,65 +1,160 @@
 package com.rest.server.services;
 
+import com.rest.server.changelog.ChangeLog;
+import com.rest.server.cluster.EntityChange;
+import com.rest.server.cluster.EntityChangeListener;
 import com.rest.server.exception.ResourceNotFoundException;
 import com.rest.server.models.Location;
 import com.rest.server.repositories.LocationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
+// Locations almost never change but are read on every locations query and profile render, so reads go to
+// an immutable snapshot of the whole collection. Each local mutation swaps in a fresh snapshot with a new
+// version; changes made through other instances drop it via the change stream bus, or at the latest
+// after locations.snapshot.refresh-ms.
 @Service
-public class LocationService {
+public class LocationService implements EntityChangeListener {
+    private static final Logger logger = LoggerFactory.getLogger(LocationService.class);
+
+    public record LocationSnapshot(long version, List<Location> locations, Map<String, Location> byId) {
+    }
+
     @Autowired
     private LocationRepository locationRepository;
     @Autowired
     private MongoTemplate mongoTemplate;
+    @Autowired
+    private ChangeLog changeLog;
+
+    private final AtomicLong versions = new AtomicLong();
+    private volatile LocationSnapshot snapshot;
 
     public Page<Location> allLocations(Pageable pageable) {
         return locationRepository.findAll(pageable);
     }
-    // In LocationService.java
-    // In LocationService.java
+
     public List<Location> getAllLocations() {
         try {
-            // Even if the repository returns null, we convert to empty list
-            List<Location> locations = locationRepository.findAll();
-            return locations != null ? locations : Collections.emptyList();
+            return snapshot().locations();
         } catch (Exception e) {
-            // Log the exception
-            System.err.println("Error retrieving locations: " + e.getMessage());
-            // Return empty list instead of null
+            logger.warn("Error retrieving locations: {}", e.getMessage());
             return Collections.emptyList();
         }
     }
+
+    // Loaded on first use rather than at startup
+    public LocationSnapshot snapshot() {
+        LocationSnapshot current = snapshot;
+        return current != null ? current : refreshSnapshot();
+    }
+
+    @Scheduled(fixedDelayString = "${locations.snapshot.refresh-ms:300000}", initialDelayString = "${locations.snapshot.refresh-ms:300000}")
+    public void scheduledRefresh() {
+        if (snapshot == null) {
+            return;
+        }
+        try {
+            refreshSnapshot();
+        } catch (RuntimeException e) {
+            logger.warn("Could not refresh the location snapshot: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public Set<String> collections() {
+        return Set.of(mongoTemplate.getCollectionName(Location.class));
+    }
+
+    // Reloaded (with a new version) on the next read
+    @Override
+    public void onEntityChange(EntityChange change) {
+        snapshot = null;
+    }
+
+    @Override
+    public void onResync() {
+        snapshot = null;
+    }
+
+    public synchronized LocationSnapshot refreshSnapshot() {
+        List<Location> locations = List.copyOf(locationRepository.findAll());
+        Map<String, Location> byId = new HashMap<>();
+        locations.stream()
+                .filter(location -> location.getLocationId() != null)
+                .forEach(location -> byId.put(location.getLocationId(), location));
+        LocationSnapshot refreshed = new LocationSnapshot(versions.incrementAndGet(), locations, Map.copyOf(byId));
+        snapshot = refreshed;
+        logger.debug("Location snapshot version {} with {} locations", refreshed.version(), locations.size());
+        return refreshed;
+    }
+
+    // From the snapshot, with one $in query for ids it does not know yet (e.g. created on another instance)
+    public Map<String, Location> locationsByIds(Collection<String> ids) {
+        Map<String, Location> byId = snapshot().byId();
+        Map<String, Location> found = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String id : ids) {
+            Location location = byId.get(id);
+            if (location != null) {
+                found.put(id, location);
+            } else {
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            locationRepository.findAllById(missing).forEach(location -> found.put(location.getLocationId(), location));
+        }
+        return found;
+    }
+
     public Optional<Location> singleLocation(String id){
         return Optional.ofNullable(locationRepository.findById(id).orElseThrow(() -> new ResourceNotFoundException("Location not found with ID: " + id)));
     }
 
     public Location createLocation(Location Location) {
-        return locationRepository.save(Location);
+        Location saved = locationRepository.save(Location);
+        changeLog.recordSaved(saved);
+        refreshSnapshot();
+        return saved;
     }
 
     public Location updateLocation(String id, Location updatedLocation) {
-        return locationRepository.findById(id)
+        Location saved = locationRepository.findById(id)
                 .map(location -> {
                     location.setLocationStreet(updatedLocation.getLocationStreet());
                     location.setLocationCity(updatedLocation.getLocationCity());
                     location.setLocationCountry(updatedLocation.getLocationCountry());
                     location.setLocationState(updatedLocation.getLocationState());
                     location.setLocationTimezone(updatedLocation.getLocationTimezone());
+                    location.setLocationPoint(updatedLocation.getLocationPoint());
                     return locationRepository.save(location);
                 }).orElseThrow(() -> new RuntimeException("Location not found"));
+        changeLog.recordSaved(saved);
+        refreshSnapshot();
+        return saved;
     }
     public void deleteLocation(String id) {
         locationRepository.deleteById(id);
+        changeLog.recordDeleted(Location.class, id);
+        refreshSnapshot();
     }
 }
@@ -1,40 +1,68 @@
 package com.rest.server.services;
 
+import com.rest.server.cache.EntityCache;
+import com.rest.server.changelog.ChangeLog;
 import com.rest.server.exception.ResourceNotFoundException;
+import com.rest.server.index.PostReadModel;
+import com.rest.server.index.TagIndex;
+import com.rest.server.index.TrendingTags;
+import com.rest.server.models.CascadeJob;
 import com.rest.server.models.Post;
+import com.rest.server.models.Rollup;
 import com.rest.server.models.Tag;
 import com.rest.server.repositories.PostRepository;
 import com.rest.server.repositories.TagRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.*;
-import org.springframework.data.mongodb.core.MongoTemplate;
-import org.springframework.data.mongodb.core.query.Criteria;
-import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 @Service
+@Timed
 public class PostService {
     @Autowired
     private PostRepository postRepository;
     @Autowired
-    private MongoTemplate mongoTemplate;
-    @Autowired
     private TagRepository tagRepository;
+    @Autowired
+    private CascadeDeleteService cascadeDeleteService;
+    @Autowired
+    private TagIndex tagIndex;
+    @Autowired
+    private TrendingTags trendingTags;
+    @Autowired
+    private FeedService feedService;
+    @Autowired
+    private PostReadModel postReadModel;
+    @Autowired
+    private EntityCache entityCache;
+    @Autowired
+    private ArchiveService archiveService;
+    @Autowired
+    private StatsService statsService;
+    @Autowired
+    private ChangeLog changeLog;
     public Page<Post> allPosts(Pageable pageable) {
-        return postRepository.findAll(pageable);
+        return postReadModel.findAll(pageable).orElseGet(() -> postRepository.findAll(pageable));
     }
     public Page<Post> findPostsByUserId(String userId, int page, int size) {
         Pageable pageable = PageRequest.of(page, size, Sort.by("postPublishDate").descending());
-        Query query = new Query().addCriteria(Criteria.where("postOwnerId").is(userId)).with(pageable);
-        List<Post> posts = mongoTemplate.find(query, Post.class);
-        long total = mongoTemplate.count(Query.of(query).limit(-1).skip(-1), Post.class);
-        return new PageImpl<>(posts, pageable, total);
+        return postReadModel.findByOwner(userId, pageable).orElseGet(() -> postRepository.findByPostOwnerId(userId, pageable));
     }
 
     public Page<Post> findPostsByTag(String tagName, int page, int size) {
+        if (tagIndex.isReady()) {
+            if (!tagIndex.hasTag(tagName)) {
+                throw new RuntimeException("Tag not found");
+            }
+            return findPostsByTags(List.of(tagName), List.of(), List.of(), page, size);
+        }
         Optional<Tag> tagOptional = tagRepository.findByTagName(tagName);
         if (tagOptional.isEmpty()) {
             throw new RuntimeException("Tag not found");
@@ -42,19 +70,53 @@ public class PostService {
         String tagId = tagOptional.get().getTagId();
 
         Pageable pageable = PageRequest.of(page, size, Sort.by("postPublishDate").descending());
-        Query query = new Query().addCriteria(Criteria.where("postTags").is(tagId)).with(pageable);
-        List<Post> posts = mongoTemplate.find(query, Post.class);
-        long total = mongoTemplate.count(Query.of(query).limit(-1).skip(-1), Post.class);
-        return new PageImpl<>(posts, pageable, total);
+        return postReadModel.findByTag(tagId, pageable).orElseGet(() -> postRepository.findByPostTags(tagId, pageable));
+    }
+
+    // Tag names; answered from the bitmap index once it has loaded, otherwise by a Mongo query
+    public Page<Post> findPostsByTags(List<String> all, List<String> any, List<String> none, int page, int size) {
+        Pageable pageable = PageRequest.of(page, size, Sort.by("postPublishDate").descending());
+        Optional<TagIndex.Result> indexed = tagIndex.query(all, any, none, pageable.getOffset(), size);
+        if (indexed.isPresent()) {
+            List<String> ids = indexed.get().postIds();
+            List<Post> posts = postReadModel.findAllById(ids).orElseGet(() -> {
+                Map<String, Post> postsById = new HashMap<>();
+                postRepository.findAllById(ids).forEach(post -> postsById.put(post.getPostId(), post));
+                return ids.stream().map(postsById::get).filter(Objects::nonNull).toList();
+            });
+            return new PageImpl<>(posts, pageable, indexed.get().total());
+        }
+
+        List<String> allIds = tagIds(all);
+        if (allIds.size() < all.size()) {
+            return Page.empty(pageable);
+        }
+        return postRepository.findByTags(allIds, tagIds(any), tagIds(none), pageable);
+    }
+
+    // Unknown names are dropped
+    private List<String> tagIds(List<String> tagNames) {
+        return tagNames.stream()
+                .map(tagRepository::findByTagName)
+                .flatMap(Optional::stream)
+                .map(Tag::getTagId)
+                .toList();
     }
 
     public Optional<Post> singlePost(String id){
-        return Optional.ofNullable(postRepository.findById(id).orElseThrow(() -> new ResourceNotFoundException("Post not found with ID: " + id)));
+        return Optional.ofNullable(entityCache.findPost(id).or(() -> archiveService.findPost(id)).orElseThrow(() -> new ResourceNotFoundException("Post not found with ID: " + id)));
     }
 
     public Post createPost(Post post) {
         validatePostFields(post);
-        return postRepository.save(post);
+        Post saved = postRepository.save(post);
+        changeLog.recordSaved(saved);
+        tagIndex.onPostSaved(saved);
+        postReadModel.onPostSaved(saved);
+        trendingTags.record(saved.getPostTags());
+        statsService.record(Rollup.POSTS_BY_TAG, saved.getPostTags());
+        feedService.onPostCreated(saved);
+        return saved;
     }
     private void validatePostFields(Post post) {
         if (post.getPostText() == null || post.getPostText().trim().isEmpty()) {
@@ -78,11 +140,25 @@ public class PostService {
                     post.setPostLink(updatedPost.getPostLink());
                     post.setPostTags(updatedPost.getPostTags());
 
-                    return postRepository.save(post);
+                    Post saved = postRepository.save(post);
+                    changeLog.recordSaved(saved);
+                    tagIndex.onPostSaved(saved);
+                    postReadModel.onPostSaved(saved);
+                    entityCache.evictPost(id);
+                    return saved;
                 }).orElseThrow(() -> new RuntimeException("Post not found"));
     }
 
+    // Comments are removed afterwards by the cascade job
     public void deletePost(String id) {
+        String ownerId = entityCache.findPost(id).map(Post::getPostOwnerId).orElse(null);
         postRepository.deleteById(id);
+        cascadeDeleteService.enqueue(CascadeJob.TYPE_POST, id);
+        changeLog.recordDeleted(Post.class, id);
+        tagIndex.onPostDeleted(id);
+        postReadModel.onPostDeleted(id);
+        entityCache.evictPost(id);
+        archiveService.deletePost(id);
+        feedService.onPostDeleted(id, ownerId);
     }
 }
@@ -0,0 +1,237 @@
+package com.rest.server.services;
+
+import com.rest.server.index.TagIndex;
+import com.rest.server.models.Location;
+import com.rest.server.models.Rollup;
+import com.rest.server.models.User;
+import com.rest.server.repositories.RollupRepository;
+import com.rest.server.repositories.TagRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Range;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Incremental analytics rollups behind the stats queries. The write paths call record(), which only bumps an
+// in-memory counter per metric, UTC hour/day bucket and key; every stats.rollups.flush-ms the counters are
+// $inc-upserted into "rollups" in one bulk write, so a dashboard reads a few small documents instead of
+// aggregating posts, comments and users. Counts are of creations (deletes are not subtracted) and trail the
+// writes by up to one flush interval.
+@Service
+public class StatsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StatsService.class);
+
+    private static final DateTimeFormatter HOUR_BUCKET = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH").withZone(ZoneOffset.UTC);
+    private static final DateTimeFormatter DAY_BUCKET = DateTimeFormatter.ofPattern("yyyy-MM-dd").withZone(ZoneOffset.UTC);
+    private static final Set<String> METRICS = Set.of(Rollup.POSTS_BY_TAG, Rollup.COMMENTS_BY_POST, Rollup.SIGNUPS_BY_COUNTRY);
+    private static final String NO_COUNTRY = "unknown";
+    private static final int MAX_LIMIT = 1000;
+
+    @Autowired
+    private RollupRepository rollupRepository;
+    @Autowired
+    private TagIndex tagIndex;
+    @Autowired
+    private TagRepository tagRepository;
+    @Autowired
+    private LocationService locationService;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${stats.rollups.enabled:true}")
+    private boolean enabled;
+
+    @Value("${stats.rollups.hourly-retention:30d}")
+    private Duration hourlyRetention;
+
+    // Rollup id -> events not written yet; merge/remove are atomic per id, so no event is lost to a flush
+    private final Map<String, Long> pending = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("stats.rollups.pending", pending, Map::size).register(meterRegistry);
+    }
+
+    public void record(String metric, String key) {
+        record(metric, List.of(key));
+    }
+
+    // One event per key, e.g. one per tag of a post
+    public void record(String metric, Collection<String> keys) {
+        if (!enabled || keys == null || keys.isEmpty()) {
+            return;
+        }
+        Instant now = Instant.now();
+        String hour = HOUR_BUCKET.format(now);
+        String day = DAY_BUCKET.format(now);
+        for (String key : keys) {
+            if (key != null) {
+                pending.merge(id(metric, Rollup.HOUR, hour, key), 1L, Long::sum);
+                pending.merge(id(metric, Rollup.DAY, day, key), 1L, Long::sum);
+            }
+        }
+    }
+
+    // Counted under the country of the user's location
+    public void recordSignup(User user) {
+        String country = null;
+        String locationId = user.getUserLocationId();
+        if (enabled && locationId != null) {
+            Location location = locationService.locationsByIds(List.of(locationId)).get(locationId);
+            country = location != null ? location.getLocationCountry() : null;
+        }
+        record(Rollup.SIGNUPS_BY_COUNTRY, country != null ? country : NO_COUNTRY);
+    }
+
+    @Scheduled(initialDelayString = "${stats.rollups.flush-ms:5000}", fixedDelayString = "${stats.rollups.flush-ms:5000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Rollup> deltas = new ArrayList<>();
+        for (String id : pending.keySet()) {
+            Long count = pending.remove(id);
+            if (count != null) {
+                deltas.add(delta(id, count));
+            }
+        }
+        Map<Integer, String> failures;
+        try {
+            failures = rollupRepository.incrementAll(deltas);
+        } catch (RuntimeException e) {
+            logger.warn("Could not flush {} rollup counters, retrying on the next flush: {}", deltas.size(), e.getMessage());
+            deltas.forEach(this::putBack);
+            return;
+        }
+        if (!failures.isEmpty()) {
+            logger.warn("Could not flush {} of {} rollup counters, retrying on the next flush: {}",
+                    failures.size(), deltas.size(), failures.values().iterator().next());
+            failures.keySet().forEach(index -> putBack(deltas.get(index)));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private void putBack(Rollup delta) {
+        pending.merge(delta.getId(), delta.getCount(), Long::sum);
+    }
+
+    private Rollup delta(String id, long count) {
+        String[] parts = id.split("\\|", 4);
+        Date expiresAt = null;
+        if (parts[1].equals(Rollup.HOUR)) {
+            Instant bucketStart = OffsetDateTime.parse(parts[2] + ":00Z").toInstant();
+            expiresAt = Date.from(bucketStart.plus(hourlyRetention));
+        }
+        return new Rollup(id, parts[0], parts[1], parts[2], parts[3], count, expiresAt);
+    }
+
+    private static String id(String metric, String granularity, String bucket, String key) {
+        return metric + "|" + granularity + "|" + bucket + "|" + key;
+    }
+
+    // Counts per bucket and key, oldest bucket first; from/to are ISO dates or date-times and both inclusive
+    public List<Map<String, Object>> series(String metric, String granularity, String from, String to, String key, int limit) {
+        Range<String> buckets = buckets(metric, granularity, from, to);
+        PageRequest page = PageRequest.of(0, Math.max(1, Math.min(limit, MAX_LIMIT)), Sort.by("bucket", "key"));
+        List<Rollup> rollups = key != null
+                ? rollupRepository.findByMetricAndGranularityAndKeyAndBucketBetween(metric, granularity, key, buckets, page)
+                : rollupRepository.findByMetricAndGranularityAndBucketBetween(metric, granularity, buckets, page);
+        return response(metric, rollups, true);
+    }
+
+    // Keys with the highest count summed over the buckets in range
+    public List<Map<String, Object>> top(String metric, String granularity, String from, String to, int limit) {
+        Range<String> buckets = buckets(metric, granularity, from, to);
+        return response(metric, rollupRepository.totals(metric, granularity, buckets, Math.max(1, Math.min(limit, MAX_LIMIT))), false);
+    }
+
+    // Without from, the last day of hours or the last 30 days
+    private static Range<String> buckets(String metric, String granularity, String from, String to) {
+        if (!METRICS.contains(metric)) {
+            throw new IllegalArgumentException("Unknown metric: " + metric);
+        }
+        DateTimeFormatter format;
+        Duration defaultSpan;
+        if (Rollup.HOUR.equals(granularity)) {
+            format = HOUR_BUCKET;
+            defaultSpan = Duration.ofDays(1);
+        } else if (Rollup.DAY.equals(granularity)) {
+            format = DAY_BUCKET;
+            defaultSpan = Duration.ofDays(30);
+        } else {
+            throw new IllegalArgumentException("Unknown granularity: " + granularity);
+        }
+        Instant end = to != null ? instant(to) : Instant.now();
+        Instant start = from != null ? instant(from) : end.minus(defaultSpan);
+        return Range.closed(format.format(start), format.format(end));
+    }
+
+    private static Instant instant(String value) {
+        try {
+            return OffsetDateTime.parse(value).toInstant();
+        } catch (DateTimeParseException e) {
+            try {
+                return LocalDate.parse(value).atStartOfDay(ZoneOffset.UTC).toInstant();
+            } catch (DateTimeParseException invalid) {
+                throw new IllegalArgumentException("Invalid date: " + value);
+            }
+        }
+    }
+
+    // Tag ids get the tag name as label
+    private List<Map<String, Object>> response(String metric, List<Rollup> rollups, boolean withBucket) {
+        Map<String, String> labels = new HashMap<>();
+        if (Rollup.POSTS_BY_TAG.equals(metric)) {
+            Set<String> unknown = new LinkedHashSet<>();
+            for (Rollup rollup : rollups) {
+                tagIndex.tagName(rollup.getKey()).ifPresentOrElse(name -> labels.put(rollup.getKey(), name), () -> unknown.add(rollup.getKey()));
+            }
+            if (!unknown.isEmpty()) {
+                tagRepository.findAllById(unknown).forEach(tag -> labels.put(tag.getTagId(), tag.getTagName()));
+            }
+        }
+
+        List<Map<String, Object>> response = new ArrayList<>();
+        for (Rollup rollup : rollups) {
+            Map<String, Object> item = new HashMap<>();
+            if (withBucket) {
+                item.put("bucket", rollup.getBucket());
+            }
+            item.put("key", rollup.getKey());
+            item.put("label", labels.get(rollup.getKey()));
+            item.put("count", rollup.getCount());
+            response.add(item);
+        }
+        return response;
+    }
+}
@@ -1,9 +1,14 @@
 package com.rest.server.services;
 
+import com.rest.server.changelog.ChangeLog;
 import com.rest.server.exception.ResourceNotFoundException;
+import com.rest.server.index.TagIndex;
+import com.rest.server.index.TrendingTags;
 import com.rest.server.models.Tag;
 import com.rest.server.repositories.TagRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -12,6 +17,11 @@ import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -20,6 +30,15 @@ public class TagService {
     private TagRepository tagRepository;
     @Autowired
     private MongoTemplate mongoTemplate;
+    @Autowired
+    private TagIndex tagIndex;
+    @Autowired
+    private TrendingTags trendingTags;
+    @Autowired
+    private ChangeLog changeLog;
+
+    @Value("${index.tags.suggest-k:10}")
+    private int suggestLimit;
 
     public Page<Tag> allTags(Pageable pageable) {
         return tagRepository.findAll(pageable);
@@ -30,22 +49,65 @@ public class TagService {
     }
 
     public Tag createTag(Tag Tag) {
-        return tagRepository.save(Tag);
+        Tag saved = tagRepository.save(Tag);
+        changeLog.recordSaved(saved);
+        tagIndex.onTagSaved(saved);
+        return saved;
     }
 
     public Tag updateTag(String id, Tag updatedTag) {
         return tagRepository.findById(id)
                 .map(tag -> {
                     tag.setTagName(updatedTag.getTagName());
-                    return tagRepository.save(tag);
+                    Tag saved = tagRepository.save(tag);
+                    changeLog.recordSaved(saved);
+                    tagIndex.onTagSaved(saved);
+                    return saved;
                 }).orElseThrow(() -> new RuntimeException("Tag not found"));
     }
     public Tag findTagByName(String tagName) {
         return tagRepository.findByTagName(tagName)
                 .orElseThrow(() -> new IllegalArgumentException("Tag not found: " + tagName));
     }
+    // Window like "15m" or "1h", capped at the tracker's span; names come from the tag index when it has them
+    public List<Map<String, Object>> trendingTags(String window, int limit) {
+        Duration duration = DurationStyle.detectAndParse(window);
+        if (duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException("Window must be positive: " + window);
+        }
+        List<TrendingTags.Entry> top = trendingTags.top(duration, Math.max(1, Math.min(limit, 100)));
+
+        Map<String, String> names = new HashMap<>();
+        List<String> unknown = new ArrayList<>();
+        for (TrendingTags.Entry entry : top) {
+            tagIndex.tagName(entry.tagId()).ifPresentOrElse(name -> names.put(entry.tagId(), name), () -> unknown.add(entry.tagId()));
+        }
+        if (!unknown.isEmpty()) {
+            tagRepository.findAllById(unknown).forEach(tag -> names.put(tag.getTagId(), tag.getTagName()));
+        }
+
+        List<Map<String, Object>> response = new ArrayList<>();
+        for (TrendingTags.Entry entry : top) {
+            Map<String, Object> item = new HashMap<>();
+            item.put("tagId", entry.tagId());
+            item.put("tagName", names.get(entry.tagId()));
+            item.put("score", entry.score());
+            response.add(item);
+        }
+        return response;
+    }
+
+    // Served from the tag index trie (ranked by post count); by name from Mongo while the index loads
+    public List<Tag> suggestTags(String prefix, int limit) {
+        int size = Math.max(1, Math.min(limit, suggestLimit));
+        return tagIndex.suggest(prefix, size)
+                .orElseGet(() -> tagRepository.findByTagNameStartingWithIgnoreCase(prefix.trim(), PageRequest.of(0, size, Sort.by("tagName"))));
+    }
+
     public void deleteTag(String id) {
         tagRepository.deleteById(id);
+        changeLog.recordDeleted(Tag.class, id);
+        tagIndex.onTagDeleted(id);
     }
 
 
@@ -1,23 +1,41 @@
 package com.rest.server.services;
 
+import com.rest.server.cache.EntityCache;
+import com.rest.server.changelog.ChangeLog;
 import com.rest.server.exception.ResourceNotFoundException;
+import com.rest.server.models.CascadeJob;
 import com.rest.server.models.User;
 import com.rest.server.models.UserDTO;
 import com.rest.server.repositories.UserRepository;
+import com.rest.server.security.TokenService;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import java.util.Optional;
 import org.bson.types.ObjectId;
 import java.util.Optional;
 @Service
+@Timed
 public class UserService {
     @Autowired
     private UserRepository userRepository;
+    @Autowired
+    private TokenService tokenService;
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+    @Autowired
+    private CascadeDeleteService cascadeDeleteService;
+    @Autowired
+    private EntityCache entityCache;
+    @Autowired
+    private StatsService statsService;
+    @Autowired
+    private ChangeLog changeLog;
 
 
     public Page<User> allUsers(Pageable pageable) {
@@ -39,13 +57,14 @@ public class UserService {
 //    }
 // In UserService.java
     public UserDTO findUserById(String id) {
-        User user = userRepository.findById(id)
+        User user = entityCache.findUser(id)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         return new UserDTO(
                 user.getId(),
                 user.getUserFirstName(),
                 user.getUserLastName(),
-                user.getUserEmail()
+                user.getUserEmail(),
+                user.getUserLocationId()
         );
     }
 
@@ -58,13 +77,22 @@ public class UserService {
 
 
         // Encrypt password and save user
-        String encryptedPassword = new BCryptPasswordEncoder().encode(user.getUserPassword());
+        String encryptedPassword = passwordHashingService.encode(user.getUserPassword());
         user.setUserPassword(encryptedPassword);
-        return userRepository.save(user);
+        User inserted;
+        try {
+            inserted = userRepository.insert(user);
+        } catch (DuplicateKeyException e) {
+            // Lost the race against a concurrent signup; the unique email index decides
+            throw new RuntimeException("Email already exists");
+        }
+        changeLog.recordSaved(inserted);
+        statsService.recordSignup(inserted);
+        return inserted;
     }
     public Optional<User> singleUser(String id) {
         // No projections or custom queries
-        return userRepository.findById(id);
+        return entityCache.findUser(id);
     }
     private void validateUserFields(User user) {
         if (user.getUserFirstName() == null || user.getUserFirstName().isEmpty()) {
@@ -90,11 +118,19 @@ public class UserService {
                     user.setUserPhone(updatedUser.getUserPhone());
                     user.setUserPicture(updatedUser.getUserPicture());
                     user.setUserLocationId(updatedUser.getUserLocationId());
-                    return userRepository.save(user);
+                    User saved = userRepository.save(user);
+                    changeLog.recordSaved(saved);
+                    entityCache.evictUser(id);
+                    return saved;
                 }).orElseThrow(() -> new RuntimeException("User not found"));
     }
 
+    // Posts and comments are removed afterwards by the cascade job
     public void deleteUser(String id) {
         userRepository.deleteById(id);
+        cascadeDeleteService.enqueue(CascadeJob.TYPE_USER, id);
+        changeLog.recordDeleted(User.class, id);
+        entityCache.evictUser(id);
+        tokenService.revokeAllFor(id);
     }
 }
@@ -0,0 +1,147 @@
+package com.rest.server.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OffHeapStoreTest {
+
+    @Test
+    void removesKeepEveryOtherEntryReachable() {
+        OffHeapStore store = new OffHeapStore(1 << 20, 4);
+        Map<String, byte[]> expected = new HashMap<>();
+        Random random = new Random(42);
+        List<String> ids = new ArrayList<>();
+        // Enough ids for long probe runs at the initial 1024 slots, then growth
+        for (int i = 0; i < 700; i++) {
+            ids.add("post-" + i);
+        }
+        for (int round = 0; round < 20_000; round++) {
+            String id = ids.get(random.nextInt(ids.size()));
+            if (random.nextInt(3) == 0) {
+                store.remove(id);
+                expected.remove(id);
+            } else {
+                byte[] payload = payload(id + "@" + round);
+                assertTrue(store.put(id, payload, store.generation(id)));
+                expected.put(id, payload);
+            }
+        }
+
+        assertEquals(expected.size(), store.size());
+        for (String id : ids) {
+            byte[] payload = expected.get(id);
+            if (payload == null) {
+                assertNull(store.get(id), id);
+            } else {
+                assertArrayEquals(payload, store.get(id), id);
+            }
+        }
+    }
+
+    @Test
+    void removingEveryOtherIdOfAFullTableLeavesTheRestIntact() {
+        OffHeapStore store = new OffHeapStore(1 << 20, 4);
+        for (int i = 0; i < 700; i++) {
+            store.put("id-" + i, payload("value-" + i), store.generation("id-" + i));
+        }
+        for (int i = 0; i < 700; i += 2) {
+            store.remove("id-" + i);
+        }
+
+        assertEquals(350, store.size());
+        for (int i = 0; i < 700; i++) {
+            if (i % 2 == 0) {
+                assertNull(store.get("id-" + i));
+            } else {
+                assertArrayEquals(payload("value-" + i), store.get("id-" + i));
+            }
+        }
+    }
+
+    @Test
+    void theOldestSlabIsEvictedWhenAllAreInUse() {
+        // Records of 6 + 4 + 90 bytes: ten per slab
+        OffHeapStore store = new OffHeapStore(1000, 2);
+        for (int i = 0; i < 20; i++) {
+            store.put(id(i), new byte[90], store.generation(id(i)));
+        }
+        assertEquals(20, store.size());
+        assertEquals(0, store.evicted());
+
+        store.put(id(20), new byte[90], store.generation(id(20)));
+
+        assertEquals(10, store.evicted());
+        assertEquals(11, store.size());
+        assertEquals(2000, store.allocatedBytes());
+        for (int i = 0; i < 10; i++) {
+            assertNull(store.get(id(i)));
+        }
+        for (int i = 10; i <= 20; i++) {
+            assertEquals(90, store.get(id(i)).length);
+        }
+    }
+
+    @Test
+    void anIdRewrittenSinceSurvivesItsOldSlabsEviction() {
+        OffHeapStore store = new OffHeapStore(1000, 2);
+        // The first slab full, the second half full
+        for (int i = 0; i < 15; i++) {
+            store.put(id(i), new byte[90], store.generation(id(i)));
+        }
+        // id 0 now lives in the second slab; its first record is dead bytes
+        store.put(id(0), payload("fresh"), store.generation(id(0)));
+
+        // Four more fill the second slab, the fifth reuses the first
+        for (int i = 15; i < 20; i++) {
+            store.put(id(i), new byte[90], store.generation(id(i)));
+        }
+
+        assertArrayEquals(payload("fresh"), store.get(id(0)));
+        assertNull(store.get(id(1)));
+        assertEquals(9, store.evicted());
+    }
+
+    @Test
+    void aPutReadBeforeARemoveIsRefused() {
+        OffHeapStore store = new OffHeapStore(1 << 16, 2);
+        long generation = store.generation("post-1");
+        store.remove("post-1");
+
+        assertFalse(store.put("post-1", payload("stale"), generation));
+        assertNull(store.get("post-1"));
+        assertTrue(store.put("post-1", payload("fresh"), store.generation("post-1")));
+    }
+
+    @Test
+    void clearEmptiesTheStoreAndRefusesEarlierReads() {
+        OffHeapStore store = new OffHeapStore(1 << 16, 2);
+        store.put("post-1", payload("a"), store.generation("post-1"));
+        long generation = store.generation("post-2");
+        store.clear();
+
+        assertEquals(0, store.size());
+        assertEquals(0, store.liveBytes());
+        assertNull(store.get("post-1"));
+        assertFalse(store.put("post-2", payload("b"), generation));
+    }
+
+    private static String id(int i) {
+        return String.format("p%03d", i);
+    }
+
+    private static byte[] payload(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,168 @@
+package com.rest.server.changelog;
+
+import com.rest.server.cluster.EntityChange;
+import com.rest.server.models.Post;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ChangeLogTest {
+
+    // About 8,000 of these records fill a 1 MB segment
+    private static final String ID_PADDING = "x".repeat(100);
+
+    @TempDir
+    Path directory;
+
+    private ChangeLog log;
+
+    @AfterEach
+    void close() throws InterruptedException {
+        if (log != null) {
+            log.close();
+        }
+    }
+
+    @Test
+    void offsetsContinueAcrossSegments() throws Exception {
+        log = open(16);
+        log.recordDeleted(Post.class, ids(0, 20_000));
+        log.close();
+
+        assertEquals(3, segmentFiles().size());
+        List<ChangeRecord> records = readAll(log.startOffset());
+        assertEquals(20_000, records.size());
+        long offset = 0;
+        for (int i = 0; i < records.size(); i++) {
+            ChangeRecord record = records.get(i);
+            assertEquals(offset, record.offset());
+            assertEquals(id(i), record.id());
+            assertEquals("posts", record.collection());
+            assertEquals(EntityChange.Operation.DELETE, record.operation());
+            offset = record.nextOffset();
+        }
+        assertEquals(log.endOffset(), offset);
+        // Each rolled segment starts exactly where the previous one's last record ended
+        List<Long> recordOffsets = records.stream().map(ChangeRecord::offset).toList();
+        for (Path file : segmentFiles()) {
+            assertTrue(recordOffsets.contains(baseOffset(file)), file.toString());
+        }
+    }
+
+    @Test
+    void readingStartsMidLogAndStopsAtTheEnd() throws Exception {
+        log = open(16);
+        log.recordDeleted(Post.class, ids(0, 10_000));
+        log.close();
+
+        List<ChangeRecord> all = readAll(0);
+        ChangeRecord middle = all.get(9_000);
+        List<ChangeRecord> tail = log.read(middle.offset(), 5_000);
+
+        assertEquals(1_000, tail.size());
+        assertEquals(id(9_000), tail.get(0).id());
+        assertEquals(log.endOffset(), tail.get(tail.size() - 1).nextOffset());
+        assertTrue(log.read(log.endOffset(), 10).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> log.read(log.endOffset() + 1, 10));
+    }
+
+    @Test
+    void oldSegmentsBeyondRetentionAreDeleted() throws Exception {
+        log = open(2);
+        log.recordDeleted(Post.class, ids(0, 30_000));
+        log.close();
+
+        List<Path> files = segmentFiles();
+        assertEquals(2, files.size());
+        assertEquals(baseOffset(files.get(0)), log.startOffset());
+        assertTrue(log.startOffset() > 0);
+        assertThrows(IllegalArgumentException.class, () -> log.read(0, 1));
+
+        // What is left is the newest records, still contiguous
+        List<ChangeRecord> records = readAll(log.startOffset());
+        int first = Integer.parseInt(records.get(0).id().substring(ID_PADDING.length()));
+        assertEquals(30_000, first + records.size());
+        for (int i = 0; i < records.size(); i++) {
+            assertEquals(id(first + i), records.get(i).id());
+        }
+    }
+
+    @Test
+    void reopeningContinuesAtTheDurableEnd() throws Exception {
+        log = open(16);
+        log.recordDeleted(Post.class, ids(0, 10_000));
+        log.close();
+        long end = log.endOffset();
+
+        log = open(16);
+        assertEquals(end, log.endOffset());
+        log.recordDeleted(Post.class, id(10_000));
+        log.close();
+
+        List<ChangeRecord> records = log.read(end, 10);
+        assertEquals(1, records.size());
+        assertEquals(id(10_000), records.get(0).id());
+    }
+
+    private ChangeLog open(int retentionSegments) throws IOException {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.getCollectionName(Post.class)).thenReturn("posts");
+        ChangeLog changeLog = new ChangeLog();
+        ReflectionTestUtils.setField(changeLog, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(changeLog, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(changeLog, "enabled", true);
+        ReflectionTestUtils.setField(changeLog, "dir", directory.toString());
+        ReflectionTestUtils.setField(changeLog, "segmentSizeMb", 1);
+        ReflectionTestUtils.setField(changeLog, "retentionSegments", retentionSegments);
+        ReflectionTestUtils.setField(changeLog, "flushIntervalMs", 1L);
+        changeLog.open();
+        return changeLog;
+    }
+
+    private List<ChangeRecord> readAll(long fromOffset) {
+        List<ChangeRecord> records = new ArrayList<>();
+        long offset = fromOffset;
+        while (offset < log.endOffset()) {
+            List<ChangeRecord> batch = log.read(offset, 1_000);
+            records.addAll(batch);
+            offset = batch.get(batch.size() - 1).nextOffset();
+        }
+        return records;
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(ChangeLog.SUFFIX)).sorted().toList();
+        }
+    }
+
+    private static long baseOffset(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - ChangeLog.SUFFIX.length()));
+    }
+
+    private static List<String> ids(int from, int to) {
+        return IntStream.range(from, to).mapToObj(ChangeLogTest::id).toList();
+    }
+
+    private static String id(int i) {
+        return ID_PADDING + i;
+    }
+}
@@ -0,0 +1,103 @@
+package com.rest.server.changelog;
+
+import com.rest.server.cluster.EntityChange;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LogSegmentTest {
+
+    private static final int SIZE = 4096;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void reopenKeepsEveryCompleteRecord() throws IOException {
+        LogSegment segment = LogSegment.create(directory, 100, SIZE);
+        long second = 100 + append(segment, "a");
+        long end = 100 + append(segment, "b");
+        segment.force();
+
+        LogSegment reopened = LogSegment.open(segment.file(), 100);
+
+        assertEquals(end - 100, reopened.end());
+        assertEquals("a", reopened.read(100).id());
+        ChangeRecord last = reopened.read(second);
+        assertEquals("b", last.id());
+        assertEquals(end, last.nextOffset());
+    }
+
+    @Test
+    void reopenDropsATornTail() throws IOException {
+        LogSegment segment = LogSegment.create(directory, 0, SIZE);
+        int intact = append(segment, "a");
+        segment.force();
+        // A crash after the length was written but before the whole body was
+        try (RandomAccessFile file = new RandomAccessFile(segment.file().toFile(), "rw")) {
+            file.seek(intact);
+            file.writeInt(200);
+            file.writeInt(12345);
+            byte[] partial = new byte[50];
+            Arrays.fill(partial, (byte) 0x55);
+            file.write(partial);
+        }
+
+        LogSegment reopened = LogSegment.open(segment.file(), 0);
+
+        assertEquals(intact, reopened.end());
+        assertEquals("a", reopened.read(0).id());
+        assertThrows(IllegalArgumentException.class, () -> reopened.read(intact));
+        // The torn bytes are cleared, so the next append starts from a clean end
+        byte[] torn = Arrays.copyOfRange(Files.readAllBytes(segment.file()), intact, intact + LogSegment.HEADER + 200);
+        assertArrayEquals(new byte[torn.length], torn);
+        append(reopened, "c");
+        reopened.force();
+        assertEquals("c", LogSegment.open(segment.file(), 0).read(intact).id());
+    }
+
+    @Test
+    void reopenStopsAtACorruptRecord() throws IOException {
+        LogSegment segment = LogSegment.create(directory, 0, SIZE);
+        int first = append(segment, "a");
+        append(segment, "b");
+        append(segment, "c");
+        segment.force();
+        try (RandomAccessFile file = new RandomAccessFile(segment.file().toFile(), "rw")) {
+            file.seek(first + LogSegment.HEADER + 3);
+            file.write(0x7f);
+        }
+
+        LogSegment reopened = LogSegment.open(segment.file(), 0);
+
+        assertEquals(first, reopened.end());
+        assertThrows(IllegalArgumentException.class, () -> reopened.read(first));
+    }
+
+    // The segment's end after appending a delete of id, in the layout ChangeLog writes
+    private static int append(LogSegment segment, String id) {
+        byte[] collection = "posts".getBytes(StandardCharsets.UTF_8);
+        byte[] idBytes = id.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer body = ByteBuffer.allocate(8 + 1 + 2 + collection.length + 2 + idBytes.length);
+        body.putLong(System.currentTimeMillis());
+        body.put((byte) EntityChange.Operation.DELETE.ordinal());
+        body.putShort((short) collection.length).put(collection);
+        body.putShort((short) idBytes.length).put(idBytes);
+        CRC32 crc = new CRC32();
+        crc.update(body.array());
+        segment.append(body.array(), (int) crc.getValue());
+        return segment.end();
+    }
+}
@@ -0,0 +1,146 @@
+package com.rest.server.graphql;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rest.server.security.TokenAuthenticationFilter;
+import com.rest.server.services.IdempotencyService;
+import graphql.ExecutionResultImpl;
+import graphql.GraphqlErrorBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.graphql.server.WebGraphQlInterceptor;
+import org.springframework.graphql.server.WebGraphQlRequest;
+import org.springframework.graphql.server.WebGraphQlResponse;
+import org.springframework.graphql.support.DefaultExecutionGraphQlResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.LinkedMultiValueMap;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdempotencyInterceptorTest {
+
+    private static final String CREATE = "mutation { createUser(input: {firstName: \"A\"}) { id } }";
+
+    private IdempotencyInterceptor interceptor;
+    private AtomicInteger executions;
+    private WebGraphQlInterceptor.Chain chain;
+
+    @BeforeEach
+    void setUp() {
+        IdempotencyService idempotencyService = new IdempotencyService();
+        ReflectionTestUtils.setField(idempotencyService, "persistent", false);
+        ReflectionTestUtils.setField(idempotencyService, "ttl", Duration.ofHours(24));
+        ReflectionTestUtils.setField(idempotencyService, "pendingTimeout", Duration.ofSeconds(30));
+        ReflectionTestUtils.setField(idempotencyService, "nearCacheSize", 100);
+        interceptor = new IdempotencyInterceptor();
+        ReflectionTestUtils.setField(interceptor, "idempotencyService", idempotencyService);
+        ReflectionTestUtils.setField(interceptor, "objectMapper", new ObjectMapper());
+        executions = new AtomicInteger();
+        chain = request -> {
+            int execution = executions.incrementAndGet();
+            return Mono.just(response(request, Map.of("createUser", Map.of("id", "u" + execution))));
+        };
+    }
+
+    @Test
+    void aRetryGetsTheStoredResponseWithoutExecuting() {
+        WebGraphQlResponse first = intercept(request(CREATE, "k1", "user-1", null));
+        WebGraphQlResponse retry = intercept(request(CREATE, "k1", "user-1", null));
+
+        assertEquals(1, executions.get());
+        assertEquals(first.<Object>getData(), retry.<Object>getData());
+        assertEquals("true", retry.getResponseHeaders().getFirst(IdempotencyInterceptor.REPLAYED_HEADER));
+        assertNull(first.getResponseHeaders().getFirst(IdempotencyInterceptor.REPLAYED_HEADER));
+    }
+
+    @Test
+    void keysAreScopedPerUser() {
+        intercept(request(CREATE, "k1", "user-1", null));
+        intercept(request(CREATE, "k1", "user-2", null));
+
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void anonymousKeysAreScopedPerClientAddress() {
+        intercept(request(CREATE, "k1", null, "10.0.0.1"));
+        WebGraphQlResponse otherClient = intercept(request(CREATE, "k1", null, "10.0.0.2"));
+        WebGraphQlResponse retry = intercept(request(CREATE, "k1", null, "10.0.0.1"));
+
+        assertEquals(2, executions.get());
+        assertNull(otherClient.getResponseHeaders().getFirst(IdempotencyInterceptor.REPLAYED_HEADER));
+        assertEquals("true", retry.getResponseHeaders().getFirst(IdempotencyInterceptor.REPLAYED_HEADER));
+    }
+
+    @Test
+    void anAnonymousKeyWithoutAClientAddressIsRejected() {
+        WebGraphQlResponse response = intercept(request(CREATE, "k1", null, null));
+
+        assertEquals(0, executions.get());
+        assertEquals(1, response.getErrors().size());
+    }
+
+    @Test
+    void reusingAKeyForADifferentRequestIsAnError() {
+        intercept(request(CREATE, "k1", "user-1", null));
+        WebGraphQlResponse response = intercept(request(CREATE.replace("\"A\"", "\"B\""), "k1", "user-1", null));
+
+        assertEquals(1, executions.get());
+        assertTrue(response.getErrors().get(0).getMessage().contains("different request"));
+    }
+
+    @Test
+    void aFailedMutationIsNotRemembered() {
+        chain = request -> {
+            executions.incrementAndGet();
+            return Mono.just(new WebGraphQlResponse(new DefaultExecutionGraphQlResponse(request.toExecutionInput(),
+                    ExecutionResultImpl.newExecutionResult().addError(GraphqlErrorBuilder.newError().message("boom").build()).build())));
+        };
+
+        intercept(request(CREATE, "k1", "user-1", null));
+        intercept(request(CREATE, "k1", "user-1", null));
+
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void queriesWithAKeyAlwaysExecute() {
+        intercept(request("{ users { total } }", "k1", "user-1", null));
+        intercept(request("{ users { total } }", "k1", "user-1", null));
+
+        assertEquals(2, executions.get());
+    }
+
+    private WebGraphQlResponse intercept(WebGraphQlRequest request) {
+        return interceptor.intercept(request, chain).block();
+    }
+
+    private static WebGraphQlRequest request(String document, String key, String userId, String clientAddress) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(IdempotencyInterceptor.HEADER, key);
+        Map<String, Object> attributes = new HashMap<>();
+        if (userId != null) {
+            attributes.put(TokenAuthenticationFilter.USER_ID_ATTRIBUTE, userId);
+        }
+        if (clientAddress != null) {
+            attributes.put(TokenAuthenticationFilter.CLIENT_ADDRESS_ATTRIBUTE, clientAddress);
+        }
+        return new WebGraphQlRequest(URI.create("http://localhost/graphql"), headers, new LinkedMultiValueMap<>(), attributes,
+                Map.of("query", document), "1", Locale.ENGLISH);
+    }
+
+    private static WebGraphQlResponse response(WebGraphQlRequest request, Map<String, Object> data) {
+        return new WebGraphQlResponse(new DefaultExecutionGraphQlResponse(request.toExecutionInput(),
+                ExecutionResultImpl.newExecutionResult().data(data).build()));
+    }
+}
@@ -0,0 +1,85 @@
+package com.rest.server.index;
+
+import com.rest.server.models.Location;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeoHashGridTest {
+
+    @Test
+    void encodesStandardGeohashes() {
+        assertEquals("u4pruydqqvj", GeoHashGrid.encode(57.64911, 10.40744, 11));
+        assertEquals("ezs42", GeoHashGrid.encode(42.605, -5.603, 5));
+    }
+
+    @Test
+    void measuresGreatCircleDistances() {
+        // Paris to London
+        assertEquals(343.5, GeoHashGrid.distanceKm(48.8566, 2.3522, 51.5074, -0.1278), 1.0);
+        assertEquals(0.0, GeoHashGrid.distanceKm(10, 20, 10, 20), 1e-9);
+    }
+
+    @Test
+    void nearFindsWhatAFullScanFinds() {
+        Random random = new Random(42);
+        List<Location> locations = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            locations.add(location("l" + i, random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180));
+        }
+        GeoHashGrid grid = new GeoHashGrid(locations, 3);
+
+        // Including circles across the antimeridian and around a pole
+        double[][] queries = {{0, 0}, {45, 179.5}, {-30, -179.9}, {88, 10}, {-89.5, 0}};
+        for (double[] query : queries) {
+            List<String> expected = locations.stream()
+                    .filter(location -> distance(query, location) <= 800)
+                    .sorted((a, b) -> Double.compare(distance(query, a), distance(query, b)))
+                    .map(Location::getLocationId)
+                    .toList();
+            List<String> found = grid.near(query[0], query[1], 800, Integer.MAX_VALUE).stream()
+                    .map(hit -> hit.location().getLocationId())
+                    .toList();
+            assertEquals(expected, found);
+        }
+    }
+
+    @Test
+    void nearReturnsTheClosestUpToTheLimit() {
+        GeoHashGrid grid = new GeoHashGrid(List.of(
+                location("far", 0.5, 0.5),
+                location("close", 0.01, 0.01),
+                location("outside", 5, 5),
+                new Location()), 5);
+
+        List<GeoHashGrid.Hit> hits = grid.near(0, 0, 100, 10);
+        assertEquals(List.of("close", "far"), hits.stream().map(hit -> hit.location().getLocationId()).toList());
+        assertTrue(hits.get(0).distanceKm() < hits.get(1).distanceKm());
+        assertEquals(1, grid.near(0, 0, 100, 1).size());
+        assertEquals(3, grid.cellCount());
+    }
+
+    @Test
+    void theScanWidensTowardsThePoles() {
+        GeoHashGrid grid = new GeoHashGrid(List.of(), 5);
+
+        assertTrue(grid.cellsToScan(80, 0, 50) > 3 * grid.cellsToScan(0, 0, 50));
+    }
+
+    private static double distance(double[] query, Location location) {
+        return GeoHashGrid.distanceKm(query[0], query[1], location.getLocationPoint().getY(), location.getLocationPoint().getX());
+    }
+
+    private static Location location(String id, double latitude, double longitude) {
+        Location location = new Location();
+        location.setLocationId(id);
+        location.setLocationPoint(new GeoJsonPoint(longitude, latitude));
+        return location;
+    }
+}
@@ -0,0 +1,182 @@
+package com.rest.server.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PostOrdinalsTest {
+
+    @Test
+    void pagesFollowPublishOrderWhilePostsArriveInIt() {
+        PostOrdinals ordinals = new PostOrdinals(0);
+        for (int day = 1; day <= 9; day++) {
+            ordinals.put("p" + day, date(day), List.of());
+        }
+
+        assertTrue(ordinals.inDateOrder());
+        assertEquals(List.of("p9", "p8", "p7"), ids(ordinals, ordinals.page(ordinals.live(), true, 0, 3)));
+        assertEquals(List.of("p6", "p5", "p4"), ids(ordinals, ordinals.page(ordinals.live(), true, 3, 3)));
+        assertEquals(List.of("p8", "p9"), ids(ordinals, ordinals.page(ordinals.live(), false, 7, 5)));
+        assertEquals(0, ordinals.page(ordinals.live(), true, 9, 3).length);
+    }
+
+    @Test
+    void pagesStayInPublishOrderAfterALateArrival() {
+        PostOrdinals ordinals = new PostOrdinals(0);
+        ordinals.put("p2", date(2), List.of());
+        ordinals.put("p4", date(4), List.of());
+        ordinals.put("p3", date(3), List.of());
+        ordinals.put("p1", date(1), List.of());
+        ordinals.put("p5", date(5), List.of());
+
+        assertFalse(ordinals.inDateOrder());
+        assertEquals(List.of("p5", "p4"), ids(ordinals, ordinals.page(ordinals.live(), true, 0, 2)));
+        assertEquals(List.of("p3", "p2"), ids(ordinals, ordinals.page(ordinals.live(), true, 2, 2)));
+        assertEquals(List.of("p1"), ids(ordinals, ordinals.page(ordinals.live(), true, 4, 2)));
+        assertEquals(List.of("p1", "p2", "p3"), ids(ordinals, ordinals.page(ordinals.live(), false, 0, 3)));
+    }
+
+    @Test
+    void equalDatesKeepArrivalOrder() {
+        PostOrdinals ordinals = new PostOrdinals(0);
+        ordinals.put("late", date(2), List.of());
+        ordinals.put("first", date(1), List.of());
+        ordinals.put("second", date(1), List.of());
+
+        assertEquals(List.of("late", "second", "first"), ids(ordinals, ordinals.page(ordinals.live(), true, 0, 3)));
+    }
+
+    @Test
+    void aTagPageOnlyHoldsPostsWithTheTag() {
+        PostOrdinals ordinals = new PostOrdinals(0);
+        ordinals.put("p1", date(1), List.of("java"));
+        ordinals.put("p2", date(2), List.of("go"));
+        ordinals.put("p3", date(3), List.of("java", "go"));
+        ordinals.put("p2", date(2), List.of("java"));
+
+        assertEquals(List.of("p3", "p2", "p1"), ids(ordinals, ordinals.page(ordinals.postsWithTag("java"), true, 0, 10)));
+        assertEquals(List.of("p3"), ids(ordinals, ordinals.page(ordinals.postsWithTag("go"), true, 0, 10)));
+        assertNull(ordinals.postsWithTag("rust"));
+    }
+
+    @Test
+    void reorderRenumbersLivePostsInPublishOrder() {
+        PostOrdinals ordinals = new PostOrdinals(0);
+        ordinals.put("p3", date(3), List.of("a"));
+        ordinals.put("p1", date(1), List.of("a", "b"));
+        ordinals.put("gone", date(5), List.of("b"));
+        ordinals.put("p2", date(2), List.of("b"));
+        ordinals.remove("gone");
+        List<String> before = ids(ordinals, ordinals.page(ordinals.live(), true, 0, 10));
+        int p1 = ordinals.ordinalOf("p1");
+        int p2 = ordinals.ordinalOf("p2");
+        int p3 = ordinals.ordinalOf("p3");
+
+        int[] previous = ordinals.reorder();
+
+        assertTrue(ordinals.inDateOrder());
+        assertArrayEquals(new int[]{p1, p2, p3}, previous);
+        assertEquals(3, ordinals.size());
+        assertEquals(List.of("p1", "p2", "p3"), Arrays.stream(new int[]{0, 1, 2}).mapToObj(ordinals::id).toList());
+        assertEquals(0, ordinals.ordinalOf("p1"));
+        assertNull(ordinals.ordinalOf("gone"));
+        assertEquals(before, ids(ordinals, ordinals.page(ordinals.live(), true, 0, 10)));
+        assertEquals(List.of("p3", "p1"), ids(ordinals, ordinals.page(ordinals.postsWithTag("a"), true, 0, 10)));
+        assertEquals(List.of("p2", "p1"), ids(ordinals, ordinals.page(ordinals.postsWithTag("b"), true, 0, 10)));
+        assertEquals("b", ordinals.tagId(ordinals.tagCodes(1)[0]));
+    }
+
+    @Test
+    void postsAddedAfterAReorderGetTheNextOrdinal() {
+        PostOrdinals ordinals = new PostOrdinals(0);
+        ordinals.put("p2", date(2), List.of());
+        ordinals.put("p1", date(1), List.of());
+        ordinals.reorder();
+
+        assertEquals(2, ordinals.put("p3", date(3), List.of()));
+        assertTrue(ordinals.inDateOrder());
+        assertEquals(List.of("p3", "p2", "p1"), ids(ordinals, ordinals.page(ordinals.live(), true, 0, 10)));
+    }
+
+    @Test
+    void onlyLateOrRedatedPostsAreDisplaced() {
+        PostOrdinals ordinals = new PostOrdinals(0);
+        ordinals.put("p1", date(1), List.of());
+        ordinals.put("p3", date(3), List.of());
+        ordinals.put("p2", date(2), List.of());
+        ordinals.put("p4", date(4), List.of());
+        ordinals.put("p1", date(5), List.of());
+
+        assertEquals(2, ordinals.displacedCount());
+        ordinals.remove("p2");
+        assertEquals(1, ordinals.displacedCount());
+        ordinals.reorder();
+        assertEquals(0, ordinals.displacedCount());
+        assertTrue(ordinals.inDateOrder());
+    }
+
+    @Test
+    void mergedPagesMatchASortOfTheMatches() {
+        Random random = new Random(7);
+        PostOrdinals ordinals = new PostOrdinals(0);
+        Map<String, Integer> days = new HashMap<>();
+        Map<String, Boolean> tagged = new HashMap<>();
+        for (int i = 0; i < 400; i++) {
+            String id = "p" + random.nextInt(300);
+            if (random.nextInt(10) == 0) {
+                ordinals.remove(id);
+                days.remove(id);
+                tagged.remove(id);
+                continue;
+            }
+            // Mostly in order, some late arrivals and redated posts
+            int day = random.nextInt(5) == 0 ? 1 + random.nextInt(28) : Math.min(28, 1 + i / 15);
+            boolean tag = random.nextBoolean();
+            ordinals.put(id, date(day), tag ? List.of("t") : List.of());
+            days.put(id, day);
+            tagged.put(id, tag);
+        }
+        assertFalse(ordinals.inDateOrder());
+
+        List<String> withTag = days.keySet().stream().filter(tagged::get).toList();
+        for (boolean descending : new boolean[]{true, false}) {
+            for (int offset : new int[]{0, 7, 50, 200}) {
+                assertEquals(expectedOrder(ordinals, days, days.keySet(), descending, offset, 20),
+                        ids(ordinals, ordinals.page(ordinals.live(), descending, offset, 20)));
+                assertEquals(expectedOrder(ordinals, days, withTag, descending, offset, 20),
+                        ids(ordinals, ordinals.page(ordinals.postsWithTag("t"), descending, offset, 20)));
+            }
+        }
+    }
+
+    // By publish date, then ordinal (arrival order)
+    private static List<String> expectedOrder(PostOrdinals ordinals, Map<String, Integer> days, Collection<String> ids,
+                                              boolean descending, int offset, int limit) {
+        Comparator<String> order = Comparator.comparing((String id) -> days.get(id)).thenComparing(ordinals::ordinalOf);
+        return ids.stream()
+                .sorted(descending ? order.reversed() : order)
+                .skip(offset)
+                .limit(limit)
+                .toList();
+    }
+
+    private static List<String> ids(PostOrdinals ordinals, int[] page) {
+        return Arrays.stream(page).mapToObj(ordinals::id).toList();
+    }
+
+    private static String date(int day) {
+        return String.format("2024-01-%02dT10:00:00Z", day);
+    }
+}
@@ -0,0 +1,103 @@
+package com.rest.server.index;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TagTrieTest {
+
+    @Test
+    void suggestsTheHeaviestCompletionsFirst() {
+        TagTrie trie = new TagTrie(2);
+        trie.put("1", "Java", 5);
+        trie.put("2", "JavaScript", 9);
+        trie.put("3", "Jakarta", 5);
+        trie.put("4", "Go", 100);
+
+        assertEquals(List.of("JavaScript", "Jakarta"), names(trie.suggest("ja", 10)));
+        assertEquals(List.of("JavaScript"), names(trie.suggest("JA", 1)));
+        assertEquals(List.of("JavaScript", "Java"), names(trie.suggest("jav", 10)));
+        assertTrue(trie.suggest("x", 10).isEmpty());
+    }
+
+    @Test
+    void aWeightUpdateMovesTheTag() {
+        TagTrie trie = new TagTrie(2);
+        trie.put("1", "java", 1);
+        trie.put("2", "jakarta", 2);
+        trie.put("1", "java", 3);
+
+        assertEquals(List.of("java", "jakarta"), names(trie.suggest("ja", 10)));
+    }
+
+    @Test
+    void removingTheOnlyTagPrunesItsWholePath() {
+        TagTrie trie = new TagTrie(3);
+        trie.put("1", "java", 1);
+
+        trie.remove("1", "java");
+
+        assertEquals(0, keys(root(trie)).length);
+        assertTrue(trie.suggest("", 10).isEmpty());
+    }
+
+    @Test
+    void removingALongerTagStopsPruningAtAShorterOne() {
+        TagTrie trie = new TagTrie(3);
+        trie.put("1", "ja", 1);
+        trie.put("2", "java", 2);
+
+        trie.remove("2", "java");
+
+        Object a = child(root(trie), 'j');
+        Object ja = child(a, 'a');
+        assertEquals(0, keys(ja).length);
+        assertEquals(List.of("ja"), names(trie.suggest("j", 10)));
+        assertTrue(trie.suggest("jav", 10).isEmpty());
+    }
+
+    @Test
+    void removingAShorterTagKeepsTheLongerOnesPath() {
+        TagTrie trie = new TagTrie(3);
+        trie.put("1", "ja", 1);
+        trie.put("2", "java", 2);
+        trie.put("3", "go", 3);
+
+        trie.remove("1", "ja");
+
+        assertEquals(List.of("java"), names(trie.suggest("ja", 10)));
+        assertEquals(List.of("go", "java"), names(trie.suggest("", 10)));
+        assertEquals(2, keys(root(trie)).length);
+    }
+
+    @Test
+    void removingAnUnknownTagChangesNothing() {
+        TagTrie trie = new TagTrie(3);
+        trie.put("1", "java", 1);
+
+        trie.remove("2", "java");
+        trie.remove("1", "javascript");
+
+        assertEquals(List.of("java"), names(trie.suggest("j", 10)));
+    }
+
+    private static List<String> names(List<TagTrie.Suggestion> suggestions) {
+        return suggestions.stream().map(TagTrie.Suggestion::tagName).toList();
+    }
+
+    private static Object root(TagTrie trie) {
+        return ReflectionTestUtils.getField(trie, "root");
+    }
+
+    private static char[] keys(Object node) {
+        return (char[]) ReflectionTestUtils.getField(node, "keys");
+    }
+
+    private static Object child(Object node, char key) {
+        return ReflectionTestUtils.invokeMethod(node, "child", key);
+    }
+}
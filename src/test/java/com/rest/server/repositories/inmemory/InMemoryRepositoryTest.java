@@ -0,0 +1,142 @@
+package com.rest.server.repositories.inmemory;
+
+import com.rest.server.models.Post;
+import com.rest.server.models.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryRepositoryTest {
+
+    @Test
+    void storedDocumentsShareNothingMutableWithCallers() {
+        InMemoryPostRepository repository = new InMemoryPostRepository();
+        Post post = post("p1", "owner", "2024-01-01");
+        post.setPostTags(new ArrayList<>(List.of("java")));
+        repository.save(post);
+
+        post.getPostTags().add("changed");
+        post.setPostText("changed");
+        repository.findById("p1").orElseThrow().getPostTags().add("changed too");
+
+        Post stored = repository.findById("p1").orElseThrow();
+        assertEquals(List.of("java"), stored.getPostTags());
+        assertEquals(null, stored.getPostText());
+    }
+
+    @Test
+    void indexedQueriesPageInSortOrder() {
+        InMemoryPostRepository repository = new InMemoryPostRepository();
+        for (int day = 1; day <= 5; day++) {
+            repository.save(post("p" + day, "owner", "2024-01-0" + day));
+        }
+        repository.save(post("other", "someone-else", "2024-01-09"));
+
+        Page<Post> page = repository.findByPostOwnerId("owner", PageRequest.of(1, 2, Sort.by("postPublishDate").descending()));
+
+        assertEquals(List.of("p3", "p2"), ids(page.getContent()));
+        assertEquals(5, page.getTotalElements());
+    }
+
+    @Test
+    void anUpdateMovesTheDocumentInItsIndexes() {
+        InMemoryPostRepository repository = new InMemoryPostRepository();
+        repository.save(post("p1", "owner", "2024-01-01"));
+        repository.save(post("p2", "owner", "2024-01-02"));
+
+        repository.save(post("p1", "new-owner", "2024-01-03"));
+
+        assertEquals(List.of("p2"), ids(repository.findByPostOwnerId("owner", PageRequest.of(0, 10)).getContent()));
+        assertEquals(List.of("p1"), ids(repository.findByPostOwnerId("new-owner", PageRequest.of(0, 10)).getContent()));
+        assertEquals(List.of("p1", "p2"), ids(repository.findAll(PageRequest.of(0, 10, Sort.by("postPublishDate").descending())).getContent()));
+    }
+
+    @Test
+    void multiFieldSortsUseEveryField() {
+        InMemoryPostRepository repository = new InMemoryPostRepository();
+        repository.save(post("a", "owner", "2024-01-01"));
+        repository.save(post("b", "owner", "2024-01-02"));
+        repository.save(post("c", "owner", "2024-01-01"));
+
+        Sort sort = Sort.by(Sort.Order.asc("postPublishDate"), Sort.Order.desc("postId"));
+
+        assertEquals(List.of("c", "a", "b"), ids(repository.findAll(PageRequest.of(0, 10, sort)).getContent()));
+        assertEquals(List.of("c", "a", "b"), ids(repository.findByPostOwnerId("owner", PageRequest.of(0, 10, sort)).getContent()));
+    }
+
+    @Test
+    void sortsWithoutAnIndexFallBackToSortingInMemory() {
+        InMemoryPostRepository repository = new InMemoryPostRepository();
+        Post liked = post("liked", "owner", "2024-01-01");
+        liked.setPostLikes(10);
+        Post unliked = post("unliked", "owner", "2024-01-02");
+        repository.save(liked);
+        repository.save(unliked);
+
+        // A missing field sorts first, as in Mongo
+        assertEquals(List.of("unliked", "liked"), ids(repository.findAll(PageRequest.of(0, 10, Sort.by("postLikes"))).getContent()));
+    }
+
+    @Test
+    void documentsMissingAnIndexedFieldAreStoredAndFound() {
+        InMemoryUserRepository repository = new InMemoryUserRepository();
+        User user = new User();
+        user.setUserFirstName("No email");
+        repository.save(user);
+        InMemoryPostRepository posts = new InMemoryPostRepository();
+        posts.save(post("orphan", null, "2024-01-01"));
+
+        assertEquals(1, repository.count());
+        assertTrue(repository.findByUserEmail("nobody@example.com").isEmpty());
+        assertEquals(List.of("orphan"), ids(posts.findByPostOwnerId(null, PageRequest.of(0, 10)).getContent()));
+    }
+
+    @Test
+    void insertsAndUniqueIndexesRejectDuplicates() {
+        InMemoryUserRepository repository = new InMemoryUserRepository();
+        User first = new User();
+        first.setUserEmail("same@example.com");
+        repository.insert(first);
+        User second = new User();
+        second.setUserEmail("same@example.com");
+
+        assertThrows(DuplicateKeyException.class, () -> repository.insert(second));
+        assertThrows(DuplicateKeyException.class, () -> repository.insert(repository.findAll().get(0)));
+        assertEquals(1, repository.count());
+    }
+
+    @Test
+    void queriesByExampleMatchTheSetProperties() {
+        InMemoryPostRepository repository = new InMemoryPostRepository();
+        repository.save(post("p1", "owner", "2024-01-01"));
+        repository.save(post("p2", "owner", "2024-01-02"));
+        repository.save(post("p3", "someone-else", "2024-01-03"));
+        Post probe = new Post();
+        probe.setPostOwnerId("owner");
+
+        assertEquals(List.of("p2", "p1"), ids(repository.findAll(Example.of(probe), Sort.by("postPublishDate").descending())));
+        assertEquals(2, repository.count(Example.of(probe)));
+    }
+
+    private static Post post(String id, String ownerId, String publishDate) {
+        Post post = new Post();
+        post.setPostId(id);
+        post.setPostOwnerId(ownerId);
+        post.setPostPublishDate(publishDate);
+        return post;
+    }
+
+    private static List<String> ids(List<Post> posts) {
+        return posts.stream().map(Post::getPostId).toList();
+    }
+}
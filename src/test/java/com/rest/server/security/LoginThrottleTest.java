@@ -0,0 +1,93 @@
+package com.rest.server.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoginThrottleTest {
+
+    @Test
+    void guessingFromOneAddressDoesNotLockTheOwnerOut() {
+        LoginThrottle throttle = throttle(100);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(throttle.tryAcquire("owner@example.com", "10.0.0.66"));
+        }
+
+        assertFalse(throttle.tryAcquire("owner@example.com", "10.0.0.66"));
+        assertTrue(throttle.tryAcquire("Owner@Example.com ", "10.0.0.1"));
+    }
+
+    @Test
+    void theAccountBucketCapsGuessesFromManyAddresses() {
+        LoginThrottle throttle = throttle(100);
+        for (int i = 0; i < 4; i++) {
+            for (int attempt = 0; attempt < 5; attempt++) {
+                assertTrue(throttle.tryAcquire("owner@example.com", "10.0.1." + i));
+            }
+        }
+
+        assertFalse(throttle.tryAcquire("owner@example.com", "10.0.1.99"));
+        assertTrue(throttle.tryAcquire("someone-else@example.com", "10.0.1.99"));
+    }
+
+    @Test
+    void theAddressBucketCapsGuessesAcrossAccounts() {
+        LoginThrottle throttle = throttle(100);
+        for (int i = 0; i < 30; i++) {
+            assertTrue(throttle.tryAcquire("user" + i + "@example.com", "10.0.2.1"));
+        }
+
+        assertFalse(throttle.tryAcquire("fresh@example.com", "10.0.2.1"));
+        assertTrue(throttle.tryAcquire("fresh@example.com", "10.0.2.2"));
+    }
+
+    @Test
+    void sprayingEmailsKeepsTheMapsBounded() {
+        LoginThrottle throttle = throttle(50);
+        ReflectionTestUtils.setField(throttle, "ipCapacity", 1_000_000);
+
+        for (int i = 0; i < 1_000; i++) {
+            throttle.tryAcquire("random" + i + "@example.com", "10.0.3.1");
+        }
+
+        assertEquals(50, buckets(throttle, "emailBuckets").size());
+        assertEquals(50, buckets(throttle, "accountBuckets").size());
+        assertEquals(1, buckets(throttle, "ipBuckets").size());
+    }
+
+    @Test
+    void purgingDropsOnlyRefilledBuckets() {
+        LoginThrottle throttle = throttle(100);
+        ReflectionTestUtils.setField(throttle, "emailRefillPerMinute", 0.0);
+        ReflectionTestUtils.setField(throttle, "ipRefillPerMinute", 1e15);
+        throttle.tryAcquire("owner@example.com", "10.0.4.1");
+
+        throttle.purgeIdle();
+
+        assertEquals(1, buckets(throttle, "emailBuckets").size());
+        assertEquals(0, buckets(throttle, "ipBuckets").size());
+    }
+
+    // 5 per address and email, 20 per account, 30 per address; refills slow enough not to matter in a test
+    private static LoginThrottle throttle(int maxKeys) {
+        LoginThrottle throttle = new LoginThrottle();
+        ReflectionTestUtils.setField(throttle, "maxKeys", maxKeys);
+        ReflectionTestUtils.setField(throttle, "emailCapacity", 5);
+        ReflectionTestUtils.setField(throttle, "emailRefillPerMinute", 0.001);
+        ReflectionTestUtils.setField(throttle, "accountCapacity", 20);
+        ReflectionTestUtils.setField(throttle, "accountRefillPerMinute", 0.001);
+        ReflectionTestUtils.setField(throttle, "ipCapacity", 30);
+        ReflectionTestUtils.setField(throttle, "ipRefillPerMinute", 0.001);
+        return throttle;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, ?> buckets(LoginThrottle throttle, String field) {
+        return (Map<String, ?>) ReflectionTestUtils.getField(throttle, field);
+    }
+}
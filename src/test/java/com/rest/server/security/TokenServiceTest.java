@@ -0,0 +1,150 @@
+package com.rest.server.security;
+
+import com.rest.server.models.TokenRevocation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+class TokenServiceTest {
+
+    private static final String SECRET = Base64.getEncoder().encodeToString(new byte[32]);
+
+    private TokenRevocationList revocationList;
+    private TokenService tokenService;
+
+    @BeforeEach
+    void setUp() {
+        revocationList = revocationList(null);
+        tokenService = tokenService(SECRET, revocationList, new MockEnvironment());
+    }
+
+    @Test
+    void anIssuedTokenVerifiesOnlyAsItsOwnType() {
+        TokenPair pair = tokenService.issue("user-1");
+
+        TokenClaims claims = tokenService.verify(pair.accessToken(), TokenClaims.TokenType.ACCESS).orElseThrow();
+        assertEquals("user-1", claims.userId());
+        assertEquals(Duration.ofMinutes(15).toSeconds(), claims.expiresAt() - claims.issuedAt());
+        assertTrue(tokenService.verify(pair.accessToken(), TokenClaims.TokenType.REFRESH).isEmpty());
+        assertTrue(tokenService.verify(pair.refreshToken(), TokenClaims.TokenType.REFRESH).isPresent());
+    }
+
+    @Test
+    void tamperedOrForeignTokensAreRejected() {
+        String token = tokenService.issue("user-1").accessToken();
+        String payload = token.substring(0, token.indexOf('.'));
+        String otherPayload = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                new String(Base64.getUrlDecoder().decode(payload)).replace("user-1", "user-2").getBytes());
+
+        assertTrue(tokenService.verify(otherPayload + token.substring(token.indexOf('.')), TokenClaims.TokenType.ACCESS).isEmpty());
+        assertTrue(tokenService.verify("not-a-token", TokenClaims.TokenType.ACCESS).isEmpty());
+        // Another node's key, as with a per-process random secret
+        TokenService other = tokenService(Base64.getEncoder().encodeToString(new byte[]{1, 2, 3, 4}),
+                revocationList(null), new MockEnvironment());
+        assertTrue(other.verify(token, TokenClaims.TokenType.ACCESS).isEmpty());
+    }
+
+    @Test
+    void aRefreshTokenIsSingleUse() {
+        TokenPair pair = tokenService.issue("user-1");
+
+        Optional<TokenPair> rotated = tokenService.refresh(pair.refreshToken());
+
+        assertTrue(rotated.isPresent());
+        assertTrue(tokenService.refresh(pair.refreshToken()).isEmpty());
+        assertTrue(tokenService.refresh(rotated.get().refreshToken()).isPresent());
+    }
+
+    @Test
+    void aRefreshAlreadyClaimedOnAnotherNodeFails() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        doThrow(new DuplicateKeyException("token_revocations")).when(mongoTemplate).insert(any(TokenRevocation.class));
+        TokenService clustered = tokenService(SECRET, revocationList(mongoTemplate), new MockEnvironment());
+
+        assertTrue(clustered.refresh(clustered.issue("user-1").refreshToken()).isEmpty());
+    }
+
+    @Test
+    void logoutRevokesBothTokens() {
+        TokenPair pair = tokenService.issue("user-1");
+
+        tokenService.revoke(pair.accessToken());
+        tokenService.revoke(pair.refreshToken());
+
+        assertTrue(tokenService.verify(pair.accessToken(), TokenClaims.TokenType.ACCESS).isEmpty());
+        assertTrue(tokenService.refresh(pair.refreshToken()).isEmpty());
+    }
+
+    @Test
+    void revokingAUserRejectsTheirEarlierTokensOnly() {
+        long now = Instant.now().getEpochSecond();
+        TokenClaims earlier = new TokenClaims(TokenClaims.TokenType.ACCESS, "user-1", now - 60, now + 600, "a");
+        TokenClaims otherUser = new TokenClaims(TokenClaims.TokenType.ACCESS, "user-2", now - 60, now + 600, "b");
+        TokenClaims later = new TokenClaims(TokenClaims.TokenType.ACCESS, "user-1", now + 60, now + 600, "c");
+
+        tokenService.revokeAllFor("user-1");
+
+        assertTrue(revocationList.isRevoked(earlier));
+        assertFalse(revocationList.isRevoked(otherUser));
+        assertFalse(revocationList.isRevoked(later));
+    }
+
+    @Test
+    void revocationsFromOtherNodesArePickedUpBySync() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        TokenRevocationList clustered = revocationList(mongoTemplate);
+        TokenService service = tokenService(SECRET, clustered, new MockEnvironment());
+        TokenPair pair = service.issue("user-1");
+        TokenClaims claims = service.verify(pair.accessToken(), TokenClaims.TokenType.ACCESS).orElseThrow();
+        Date expiresAt = Date.from(Instant.ofEpochSecond(claims.expiresAt()));
+        doReturn(List.of(new TokenRevocation(TokenRevocation.TOKEN_PREFIX + claims.tokenId(), null, 0, expiresAt, new Date())))
+                .when(mongoTemplate).find(any(Query.class), eq(TokenRevocation.class));
+
+        clustered.sync();
+
+        assertTrue(service.verify(pair.accessToken(), TokenClaims.TokenType.ACCESS).isEmpty());
+    }
+
+    @Test
+    void onlyTheProdProfileRequiresASecret() {
+        MockEnvironment prod = new MockEnvironment();
+        prod.setActiveProfiles("prod");
+
+        assertThrows(IllegalStateException.class, () -> tokenService("", revocationList(null), prod));
+        TokenService local = tokenService("", revocationList(null), new MockEnvironment());
+        assertTrue(local.verify(local.issue("user-1").accessToken(), TokenClaims.TokenType.ACCESS).isPresent());
+    }
+
+    // Kept in memory only unless a MongoTemplate is given
+    private static TokenRevocationList revocationList(MongoTemplate mongoTemplate) {
+        TokenRevocationList list = new TokenRevocationList();
+        ReflectionTestUtils.setField(list, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(list, "persistent", mongoTemplate != null);
+        return list;
+    }
+
+    private static TokenService tokenService(String secret, TokenRevocationList revocationList, MockEnvironment environment) {
+        return new TokenService(secret, Duration.ofMinutes(15), Duration.ofDays(7), revocationList, environment);
+    }
+}
@@ -0,0 +1,167 @@
+package com.rest.server.services;
+
+import com.rest.server.cache.EntityCache;
+import com.rest.server.changelog.ChangeLog;
+import com.rest.server.index.LatestComments;
+import com.rest.server.index.PostReadModel;
+import com.rest.server.index.TagIndex;
+import com.rest.server.models.Comment;
+import com.rest.server.models.Post;
+import com.rest.server.repositories.inmemory.InMemoryArchivedCommentChunkRepository;
+import com.rest.server.repositories.inmemory.InMemoryArchivedPostRepository;
+import com.rest.server.repositories.inmemory.InMemoryCommentRepository;
+import com.rest.server.repositories.inmemory.InMemoryJobLeaseRepository;
+import com.rest.server.repositories.inmemory.InMemoryPostRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+class ArchiveServiceTest {
+
+    private static final String OLD = "2000-01-01T00:00:00Z";
+
+    private InMemoryPostRepository postRepository;
+    private InMemoryCommentRepository commentRepository;
+    private InMemoryArchivedPostRepository archivedPostRepository;
+    private InMemoryJobLeaseRepository jobLeaseRepository;
+    private ArchiveService archiveService;
+
+    @BeforeEach
+    void setUp() {
+        postRepository = new InMemoryPostRepository();
+        commentRepository = new InMemoryCommentRepository();
+        archivedPostRepository = new InMemoryArchivedPostRepository();
+        jobLeaseRepository = new InMemoryJobLeaseRepository();
+        // Real mapping, so the archived BSON is what Mongo would have stored
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext());
+        converter.afterPropertiesSet();
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        doReturn(converter).when(mongoTemplate).getConverter();
+
+        archiveService = new ArchiveService("a");
+        ReflectionTestUtils.setField(archiveService, "postRepository", postRepository);
+        ReflectionTestUtils.setField(archiveService, "commentRepository", commentRepository);
+        ReflectionTestUtils.setField(archiveService, "archivedPostRepository", archivedPostRepository);
+        ReflectionTestUtils.setField(archiveService, "archivedCommentChunkRepository", new InMemoryArchivedCommentChunkRepository());
+        ReflectionTestUtils.setField(archiveService, "jobLeaseRepository", jobLeaseRepository);
+        ReflectionTestUtils.setField(archiveService, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(archiveService, "tagIndex", mock(TagIndex.class));
+        ReflectionTestUtils.setField(archiveService, "postReadModel", mock(PostReadModel.class));
+        ReflectionTestUtils.setField(archiveService, "entityCache", mock(EntityCache.class));
+        ReflectionTestUtils.setField(archiveService, "latestComments", mock(LatestComments.class));
+        ReflectionTestUtils.setField(archiveService, "changeLog", mock(ChangeLog.class));
+        ReflectionTestUtils.setField(archiveService, "enabled", true);
+        ReflectionTestUtils.setField(archiveService, "minAgeDays", 365);
+        ReflectionTestUtils.setField(archiveService, "batchSize", 100);
+        ReflectionTestUtils.setField(archiveService, "chunkSize", 2);
+        ReflectionTestUtils.setField(archiveService, "leaseMs", 60_000L);
+    }
+
+    @Test
+    void coldPostsAndTheirCommentsRoundTripThroughTheArchive() {
+        Post cold = post("cold", OLD);
+        cold.setPostText("text");
+        cold.setPostLikes(7);
+        cold.setPostTags(List.of("java", "mongo"));
+        postRepository.save(cold);
+        for (int i = 1; i <= 5; i++) {
+            comment("c" + i, "cold", "2000-01-0" + i);
+        }
+
+        archiveService.archiveColdPosts();
+
+        assertTrue(postRepository.findById("cold").isEmpty());
+        assertEquals(0, commentRepository.count());
+        assertEquals(cold, archiveService.findPost("cold").orElseThrow());
+        assertEquals(5, archiveService.countComments("cold"));
+        assertEquals(3, archivedPostRepository.findById("cold").orElseThrow().getCommentChunks());
+        Comment newest = archiveService.findComments("cold", 0, 1).get(0);
+        assertEquals("c5", newest.getCommentId());
+        assertEquals("message c5", newest.getCommentMessage());
+    }
+
+    @Test
+    void archivedCommentsPageNewestFirstAcrossChunks() {
+        postRepository.save(post("cold", OLD));
+        for (int i = 1; i <= 5; i++) {
+            comment("c" + i, "cold", "2000-01-0" + i);
+        }
+        archiveService.archiveColdPosts();
+
+        assertEquals(List.of("c5", "c4"), ids(archiveService.findComments("cold", 0, 2)));
+        assertEquals(List.of("c3", "c2", "c1"), ids(archiveService.findComments("cold", 2, 10)));
+        assertEquals(List.of(), ids(archiveService.findComments("cold", 5, 10)));
+    }
+
+    @Test
+    void recentPostsStayHot() {
+        postRepository.save(post("hot", OffsetDateTime.now(ZoneOffset.UTC).toString()));
+        comment("c1", "hot", "2000-01-01");
+
+        archiveService.archiveColdPosts();
+
+        assertTrue(postRepository.findById("hot").isPresent());
+        assertEquals(1, commentRepository.count());
+        assertEquals(0, archivedPostRepository.count());
+    }
+
+    @Test
+    void nothingIsArchivedWhileAnotherNodeHoldsTheLease() {
+        postRepository.save(post("cold", OLD));
+        jobLeaseRepository.claim("archive", "b/other", new Date(), new Date(System.currentTimeMillis() + 60_000));
+
+        archiveService.archiveColdPosts();
+
+        assertTrue(postRepository.findById("cold").isPresent());
+        assertEquals(0, archivedPostRepository.count());
+    }
+
+    @Test
+    void deletingAnArchivedPostRemovesItsComments() {
+        postRepository.save(post("cold", OLD));
+        comment("c1", "cold", "2000-01-01");
+        archiveService.archiveColdPosts();
+
+        archiveService.deletePostsOf("owner");
+
+        assertTrue(archiveService.findPost("cold").isEmpty());
+        assertEquals(0, archiveService.countComments("cold"));
+        assertEquals(List.of(), archiveService.findComments("cold", 0, 10));
+    }
+
+    private static Post post(String id, String publishDate) {
+        Post post = new Post();
+        post.setPostId(id);
+        post.setPostOwnerId("owner");
+        post.setPostPublishDate(publishDate);
+        return post;
+    }
+
+    private void comment(String id, String postId, String publishDate) {
+        Comment comment = new Comment();
+        comment.setCommentId(id);
+        comment.setCommentMessage("message " + id);
+        comment.setCommentOwnerId("owner");
+        comment.setCommentPostId(postId);
+        comment.setCommentPublishDate(publishDate);
+        commentRepository.save(comment);
+    }
+
+    private static List<String> ids(List<Comment> comments) {
+        return comments.stream().map(Comment::getCommentId).toList();
+    }
+}
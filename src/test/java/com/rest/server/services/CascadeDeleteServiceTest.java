@@ -0,0 +1,190 @@
+package com.rest.server.services;
+
+import com.rest.server.cache.EntityCache;
+import com.rest.server.changelog.ChangeLog;
+import com.rest.server.index.LatestComments;
+import com.rest.server.index.PostReadModel;
+import com.rest.server.index.TagIndex;
+import com.rest.server.models.CascadeJob;
+import com.rest.server.models.Comment;
+import com.rest.server.models.Post;
+import com.rest.server.models.User;
+import com.rest.server.repositories.inmemory.InMemoryCascadeJobRepository;
+import com.rest.server.repositories.inmemory.InMemoryCommentRepository;
+import com.rest.server.repositories.inmemory.InMemoryPostRepository;
+import com.rest.server.repositories.inmemory.InMemoryUserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class CascadeDeleteServiceTest {
+
+    private InMemoryCascadeJobRepository jobRepository;
+    private InMemoryCommentRepository commentRepository;
+    private InMemoryPostRepository postRepository;
+    private InMemoryUserRepository userRepository;
+    private ArchiveService archiveService;
+    private FeedService feedService;
+
+    @BeforeEach
+    void setUp() {
+        jobRepository = new InMemoryCascadeJobRepository();
+        commentRepository = new InMemoryCommentRepository();
+        postRepository = new InMemoryPostRepository();
+        userRepository = new InMemoryUserRepository();
+        archiveService = mock(ArchiveService.class);
+        feedService = mock(FeedService.class);
+    }
+
+    @Test
+    void aPostJobDeletesItsCommentsOneBatchPerTick() {
+        CascadeDeleteService service = service("a", 2);
+        for (int i = 0; i < 5; i++) {
+            comment("c" + i, "post-1", "someone");
+        }
+        comment("kept", "post-2", "someone");
+        CascadeJob job = service.enqueue(CascadeJob.TYPE_POST, "post-1");
+
+        service.runPendingJobs();
+        CascadeJob afterOne = service.findJob(job.getId()).orElseThrow();
+        assertEquals(CascadeJob.RUNNING, afterOne.getStatus());
+        assertEquals(2, afterOne.getDeletedComments());
+        assertEquals(3, afterOne.getRemaining());
+
+        service.runPendingJobs();
+        service.runPendingJobs();
+        CascadeJob done = service.findJob(job.getId()).orElseThrow();
+        assertEquals(CascadeJob.DONE, done.getStatus());
+        assertEquals(5, done.getDeletedComments());
+        assertEquals(List.of("kept"), commentRepository.findAll().stream().map(Comment::getCommentId).toList());
+    }
+
+    @Test
+    void aUserJobRemovesTheirCommentsAndPostsBeforeFinishing() {
+        CascadeDeleteService service = service("a", 100);
+        post("own-post", "user-1");
+        post("other-post", "user-2");
+        comment("on-own-post", "own-post", "user-2");
+        comment("by-user", "other-post", "user-1");
+        comment("kept", "other-post", "user-2");
+        CascadeJob job = service.enqueue(CascadeJob.TYPE_USER, "user-1");
+
+        service.runPendingJobs();
+
+        CascadeJob done = service.findJob(job.getId()).orElseThrow();
+        assertEquals(CascadeJob.DONE, done.getStatus());
+        assertEquals(2, done.getDeletedComments());
+        assertEquals(1, done.getDeletedPosts());
+        assertEquals(List.of("other-post"), postRepository.findAll().stream().map(Post::getPostId).toList());
+        assertEquals(List.of("kept"), commentRepository.findAll().stream().map(Comment::getCommentId).toList());
+        verify(archiveService).deletePostsOf("user-1");
+        verify(feedService).onUserDeleted("user-1");
+    }
+
+    @Test
+    void aJobNeverRunsWhileItsRootExists() {
+        CascadeDeleteService service = service("a", 100);
+        ReflectionTestUtils.setField(service, "maxAttempts", 2);
+        User user = new User();
+        user.setId("user-1");
+        user.setUserEmail("user-1@example.com");
+        userRepository.save(user);
+        post("own-post", "user-1");
+        CascadeJob job = service.enqueue(CascadeJob.TYPE_USER, "user-1");
+
+        service.runPendingJobs();
+        CascadeJob failing = service.findJob(job.getId()).orElseThrow();
+        assertEquals(CascadeJob.RUNNING, failing.getStatus());
+        assertEquals(1, failing.getAttempts());
+        assertTrue(failing.getLastError().contains("still exists"));
+
+        service.runPendingJobs();
+        assertEquals(CascadeJob.FAILED, service.findJob(job.getId()).orElseThrow().getStatus());
+        assertEquals(1, postRepository.count());
+        verify(feedService, never()).onUserDeleted("user-1");
+    }
+
+    @Test
+    void anotherNodeTakesOverOnlyOnceTheLeaseRunsOut() {
+        CascadeDeleteService first = service("a", 2);
+        CascadeDeleteService second = service("b", 2);
+        for (int i = 0; i < 5; i++) {
+            comment("c" + i, "post-1", "someone");
+        }
+        CascadeJob job = first.enqueue(CascadeJob.TYPE_POST, "post-1");
+
+        first.runPendingJobs();
+        second.runPendingJobs();
+        assertEquals(2, first.findJob(job.getId()).orElseThrow().getDeletedComments());
+
+        // The first node stopped renewing
+        CascadeJob leased = jobRepository.findById(job.getId()).orElseThrow();
+        leased.setLeaseExpiresAt(new Date(System.currentTimeMillis() - 1));
+        jobRepository.save(leased);
+        second.runPendingJobs();
+        CascadeJob takenOver = second.findJob(job.getId()).orElseThrow();
+        assertEquals(4, takenOver.getDeletedComments());
+        assertTrue(takenOver.getOwner().startsWith("b/"));
+    }
+
+    @Test
+    void theBatchSizeIsSharedByAllJobsInATick() {
+        CascadeDeleteService service = service("a", 3);
+        comment("a1", "post-a", "someone");
+        comment("a2", "post-a", "someone");
+        comment("b1", "post-b", "someone");
+        comment("b2", "post-b", "someone");
+        CascadeJob older = service.enqueue(CascadeJob.TYPE_POST, "post-a");
+        CascadeJob newer = service.enqueue(CascadeJob.TYPE_POST, "post-b");
+
+        service.runPendingJobs();
+
+        assertEquals(CascadeJob.DONE, service.findJob(older.getId()).orElseThrow().getStatus());
+        assertEquals(1, service.findJob(newer.getId()).orElseThrow().getDeletedComments());
+    }
+
+    private CascadeDeleteService service(String nodeId, int batchSize) {
+        CascadeDeleteService service = new CascadeDeleteService(nodeId);
+        ReflectionTestUtils.setField(service, "cascadeJobRepository", jobRepository);
+        ReflectionTestUtils.setField(service, "commentRepository", commentRepository);
+        ReflectionTestUtils.setField(service, "postRepository", postRepository);
+        ReflectionTestUtils.setField(service, "userRepository", userRepository);
+        ReflectionTestUtils.setField(service, "tagIndex", mock(TagIndex.class));
+        ReflectionTestUtils.setField(service, "postReadModel", mock(PostReadModel.class));
+        ReflectionTestUtils.setField(service, "entityCache", mock(EntityCache.class));
+        ReflectionTestUtils.setField(service, "archiveService", archiveService);
+        ReflectionTestUtils.setField(service, "latestComments", mock(LatestComments.class));
+        ReflectionTestUtils.setField(service, "feedService", feedService);
+        ReflectionTestUtils.setField(service, "changeLog", mock(ChangeLog.class));
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "batchSize", batchSize);
+        ReflectionTestUtils.setField(service, "maxAttempts", 5);
+        ReflectionTestUtils.setField(service, "leaseMs", 60_000L);
+        return service;
+    }
+
+    private void comment(String id, String postId, String ownerId) {
+        Comment comment = new Comment();
+        comment.setCommentId(id);
+        comment.setCommentMessage("message " + id);
+        comment.setCommentPostId(postId);
+        comment.setCommentOwnerId(ownerId);
+        commentRepository.save(comment);
+    }
+
+    private void post(String id, String ownerId) {
+        Post post = new Post();
+        post.setPostId(id);
+        post.setPostOwnerId(ownerId);
+        postRepository.save(post);
+    }
+}
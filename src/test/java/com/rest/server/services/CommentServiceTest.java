@@ -0,0 +1,161 @@
+package com.rest.server.services;
+
+import com.rest.server.changelog.ChangeLog;
+import com.rest.server.exception.ResourceNotFoundException;
+import com.rest.server.index.LatestComments;
+import com.rest.server.index.TagIndex;
+import com.rest.server.index.TrendingTags;
+import com.rest.server.models.Comment;
+import com.rest.server.repositories.inmemory.InMemoryCommentRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class CommentServiceTest {
+
+    private InMemoryCommentRepository repository;
+    private CommentWriteBuffer writeBuffer;
+    private CommentService service;
+
+    @BeforeEach
+    void setUp() {
+        repository = new InMemoryCommentRepository();
+        writeBuffer = new CommentWriteBuffer();
+        ReflectionTestUtils.setField(writeBuffer, "commentRepository", repository);
+        ReflectionTestUtils.setField(writeBuffer, "writeMode", "sync");
+        service = new CommentService();
+        ReflectionTestUtils.setField(service, "commentRepository", repository);
+        ReflectionTestUtils.setField(service, "commentWriteBuffer", writeBuffer);
+        ReflectionTestUtils.setField(service, "trendingTags", mock(TrendingTags.class));
+        ReflectionTestUtils.setField(service, "tagIndex", mock(TagIndex.class));
+        ReflectionTestUtils.setField(service, "archiveService", mock(ArchiveService.class));
+        ReflectionTestUtils.setField(service, "latestComments", mock(LatestComments.class));
+        ReflectionTestUtils.setField(service, "statsService", mock(StatsService.class));
+        ReflectionTestUtils.setField(service, "changeLog", mock(ChangeLog.class));
+        ReflectionTestUtils.setField(service, "maxReplyDepth", 3);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        writeBuffer.stop();
+    }
+
+    @Test
+    void repliesExtendTheirParentsPath() throws Exception {
+        Comment top = create("top", null);
+        Comment reply = create("reply", top);
+        Comment nested = create("nested", reply);
+
+        assertEquals(top.getCommentId() + "/", top.getCommentPath());
+        assertEquals(0, top.getCommentDepth());
+        assertEquals(top.getCommentPath() + reply.getCommentId() + "/", reply.getCommentPath());
+        assertEquals(2, nested.getCommentDepth());
+        assertTrue(nested.getCommentPath().startsWith(reply.getCommentPath()));
+    }
+
+    @Test
+    void threadsListDepthFirstDownToTheRequestedDepth() throws Exception {
+        Comment first = create("first", null);
+        Comment second = create("second", null);
+        Comment firstReply = create("first reply", first);
+        create("first reply reply", firstReply);
+        create("second reply", second);
+
+        assertEquals(List.of("first", "second"), messages(service.commentThread("post", 0, 10, null)));
+        assertEquals(List.of("first", "first reply", "first reply reply", "second", "second reply"),
+                messages(service.commentThread("post", 5, 10, null)));
+    }
+
+    @Test
+    void repliesPageWithCursors() throws Exception {
+        Comment top = create("top", null);
+        for (int i = 0; i < 5; i++) {
+            create("reply " + i, top);
+        }
+        create("other", null);
+
+        CommentService.ThreadPage page = service.replies(top.getCommentId(), 3, null);
+        assertEquals(List.of("reply 0", "reply 1", "reply 2"), messages(page));
+        assertTrue(page.hasNextPage());
+
+        CommentService.ThreadPage next = service.replies(top.getCommentId(), 3, page.cursors().get(2));
+        assertEquals(List.of("reply 3", "reply 4"), messages(next));
+        assertFalse(next.hasNextPage());
+        assertThrows(IllegalArgumentException.class, () -> service.replies(top.getCommentId(), 3, next.cursors().get(0).substring(1)));
+    }
+
+    @Test
+    void repliesAreCheckedAgainstTheirParent() throws Exception {
+        Comment top = create("top", null);
+        Comment level1 = create("1", top);
+        Comment level2 = create("2", level1);
+        Comment level3 = create("3", level2);
+
+        assertThrows(RuntimeException.class, () -> create("4", level3));
+        Comment otherPost = comment("elsewhere", top.getCommentId());
+        otherPost.setCommentPostId("other-post");
+        assertThrows(RuntimeException.class, () -> service.createCommentAsync(otherPost));
+        assertThrows(ResourceNotFoundException.class, () -> service.createCommentAsync(comment("orphan", "missing")));
+    }
+
+    @Test
+    void aReplyCanBePlacedUnderAParentStillInTheWriteBuffer() throws Exception {
+        ReflectionTestUtils.setField(writeBuffer, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(writeBuffer, "writeMode", "batched");
+        ReflectionTestUtils.setField(writeBuffer, "batchSize", 100);
+        ReflectionTestUtils.setField(writeBuffer, "flushIntervalMs", 300L);
+        ReflectionTestUtils.setField(writeBuffer, "queueCapacity", 100);
+        ReflectionTestUtils.setField(writeBuffer, "offerTimeoutMs", 10L);
+        writeBuffer.start();
+
+        Comment parent = comment("parent", null);
+        CompletableFuture<Comment> parentWrite = service.createCommentAsync(parent);
+        assertTrue(repository.findById(parent.getCommentId()).isEmpty());
+
+        Comment reply = service.createCommentAsync(comment("reply", parent.getCommentId())).get(5, TimeUnit.SECONDS);
+
+        assertEquals(1, reply.getCommentDepth());
+        assertEquals(parentWrite.get().getCommentPath() + reply.getCommentId() + "/", reply.getCommentPath());
+    }
+
+    @Test
+    void deletingACommentDeletesItsReplies() throws Exception {
+        Comment top = create("top", null);
+        Comment reply = create("reply", top);
+        create("nested", reply);
+        Comment other = create("other", null);
+
+        service.deleteComment(top.getCommentId());
+
+        assertEquals(List.of(other.getCommentId()), repository.findAll().stream().map(Comment::getCommentId).toList());
+    }
+
+    private Comment create(String message, Comment parent) throws Exception {
+        return service.createCommentAsync(comment(message, parent != null ? parent.getCommentId() : null)).get();
+    }
+
+    private static Comment comment(String message, String parentId) {
+        Comment comment = new Comment();
+        comment.setCommentMessage(message);
+        comment.setCommentOwnerId("owner");
+        comment.setCommentPostId("post");
+        comment.setParentCommentId(parentId);
+        return comment;
+    }
+
+    private static List<String> messages(CommentService.ThreadPage page) {
+        return page.comments().stream().map(Comment::getCommentMessage).toList();
+    }
+}
@@ -0,0 +1,143 @@
+package com.rest.server.services;
+
+import com.rest.server.exception.ResourceNotFoundException;
+import com.rest.server.exception.TooManyRequestsException;
+import com.rest.server.models.Comment;
+import com.rest.server.repositories.inmemory.InMemoryCommentRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CommentWriteBufferTest {
+
+    private RecordingCommentRepository repository;
+    private CommentWriteBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        repository = new RecordingCommentRepository();
+        buffer = new CommentWriteBuffer();
+        ReflectionTestUtils.setField(buffer, "commentRepository", repository);
+        ReflectionTestUtils.setField(buffer, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(buffer, "writeMode", "batched");
+        ReflectionTestUtils.setField(buffer, "batchSize", 100);
+        // Long enough that everything submitted by one test lands in a single batch
+        ReflectionTestUtils.setField(buffer, "flushIntervalMs", 300L);
+        ReflectionTestUtils.setField(buffer, "queueCapacity", 100);
+        ReflectionTestUtils.setField(buffer, "offerTimeoutMs", 10L);
+        buffer.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        buffer.stop();
+    }
+
+    @Test
+    void aReplyQueuedBeforeItsParentIsWrittenAfterIt() throws Exception {
+        CompletableFuture<Comment> reply = buffer.submit(comment("reply", "parent"));
+        CompletableFuture<Comment> parent = buffer.submit(comment("parent", null));
+        CompletableFuture<Comment> other = buffer.submit(comment("other", null));
+
+        assertEquals("reply", await(reply).getCommentId());
+        await(parent);
+        await(other);
+        assertEquals(List.of(List.of("parent", "other"), List.of("reply")), repository.insertCalls);
+    }
+
+    @Test
+    void unflushedCommentsCanBeFoundUntilTheirBatchIsWritten() throws Exception {
+        CompletableFuture<Comment> parent = buffer.submit(comment("parent", null));
+
+        assertTrue(buffer.findUnflushed("parent").isPresent());
+        await(parent);
+        assertTrue(repository.findById("parent").isPresent());
+        // The batch leaves the buffer right after its futures complete
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (buffer.findUnflushed("parent").isPresent() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(buffer.findUnflushed("parent").isEmpty());
+    }
+
+    @Test
+    void aReplyToAParentWrittenEarlierIsWritten() throws Exception {
+        repository.save(comment("parent", null));
+
+        await(buffer.submit(comment("reply", "parent")));
+
+        assertTrue(repository.findById("reply").isPresent());
+    }
+
+    @Test
+    void aReplyWhoseParentIsGoneFails() {
+        CompletableFuture<Comment> reply = buffer.submit(comment("reply", "missing"));
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> await(reply));
+        assertInstanceOf(ResourceNotFoundException.class, failure.getCause());
+        assertTrue(repository.findById("reply").isEmpty());
+    }
+
+    @Test
+    void aReplyFailsWithItsParentInsteadOfBecomingAnOrphan() {
+        // An existing id makes the parent's insert fail
+        repository.save(comment("parent", null));
+        CompletableFuture<Comment> parent = buffer.submit(comment("parent", null));
+        CompletableFuture<Comment> child = buffer.submit(comment("child", "parent"));
+        CompletableFuture<Comment> grandchild = buffer.submit(comment("grandchild", "child"));
+
+        assertThrows(ExecutionException.class, () -> await(parent));
+        assertThrows(ExecutionException.class, () -> await(child));
+        assertThrows(ExecutionException.class, () -> await(grandchild));
+        assertTrue(repository.findById("child").isEmpty());
+        assertTrue(repository.findById("grandchild").isEmpty());
+    }
+
+    @Test
+    void nothingIsAcceptedOnceStopped() throws InterruptedException {
+        buffer.stop();
+
+        assertThrows(TooManyRequestsException.class, () -> buffer.submit(comment("late", null)));
+        assertTrue(buffer.findUnflushed("late").isEmpty());
+    }
+
+    private static Comment await(CompletableFuture<Comment> result) throws Exception {
+        return result.get(5, TimeUnit.SECONDS);
+    }
+
+    private static Comment comment(String id, String parentId) {
+        Comment comment = new Comment();
+        comment.setCommentId(id);
+        comment.setCommentMessage("message " + id);
+        comment.setCommentOwnerId("owner");
+        comment.setCommentPostId("post");
+        comment.setParentCommentId(parentId);
+        return comment;
+    }
+
+    // Records the ids of each insertMany
+    private static class RecordingCommentRepository extends InMemoryCommentRepository {
+        final List<List<String>> insertCalls = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public Map<Integer, String> insertUnordered(List<Comment> comments) {
+            insertCalls.add(comments.stream().map(Comment::getCommentId).toList());
+            return super.insertUnordered(comments);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.rest.server.services;
+
+import com.rest.server.changelog.ChangeLog;
+import com.rest.server.exception.ResourceNotFoundException;
+import com.rest.server.models.Follow;
+import com.rest.server.models.Post;
+import com.rest.server.models.Tag;
+import com.rest.server.models.User;
+import com.rest.server.repositories.inmemory.InMemoryFollowRepository;
+import com.rest.server.repositories.inmemory.InMemoryFollowTargetRepository;
+import com.rest.server.repositories.inmemory.InMemoryPostRepository;
+import com.rest.server.repositories.inmemory.InMemoryTagRepository;
+import com.rest.server.repositories.inmemory.InMemoryTimelineRepository;
+import com.rest.server.repositories.inmemory.InMemoryUserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class FeedServiceTest {
+
+    private InMemoryPostRepository postRepository;
+    private InMemoryFollowTargetRepository followTargetRepository;
+    private FeedService feedService;
+
+    @BeforeEach
+    void setUp() {
+        postRepository = new InMemoryPostRepository();
+        followTargetRepository = new InMemoryFollowTargetRepository();
+        InMemoryUserRepository userRepository = new InMemoryUserRepository();
+        InMemoryTagRepository tagRepository = new InMemoryTagRepository();
+        for (String id : List.of("author", "fan", "tag-fan", "stranger")) {
+            User user = new User();
+            user.setId(id);
+            user.setUserEmail(id + "@example.com");
+            userRepository.save(user);
+        }
+        tagRepository.save(new Tag("java", "java"));
+
+        feedService = new FeedService();
+        ReflectionTestUtils.setField(feedService, "followRepository", new InMemoryFollowRepository());
+        ReflectionTestUtils.setField(feedService, "followTargetRepository", followTargetRepository);
+        ReflectionTestUtils.setField(feedService, "timelineRepository", new InMemoryTimelineRepository());
+        ReflectionTestUtils.setField(feedService, "postRepository", postRepository);
+        ReflectionTestUtils.setField(feedService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(feedService, "tagRepository", tagRepository);
+        ReflectionTestUtils.setField(feedService, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(feedService, "changeLog", mock(ChangeLog.class));
+        ReflectionTestUtils.setField(feedService, "timelineSize", 100);
+        ReflectionTestUtils.setField(feedService, "fanoutThreshold", 100L);
+        ReflectionTestUtils.setField(feedService, "fanoutBatch", 2);
+        ReflectionTestUtils.setField(feedService, "backfill", 20);
+        ReflectionTestUtils.setField(feedService, "fanoutThreads", 1);
+        ReflectionTestUtils.setField(feedService, "fanoutQueueCapacity", 100);
+        feedService.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        feedService.shutdown();
+    }
+
+    @Test
+    void aPostIsPushedToTheAuthorAndFollowersOfTheAuthorAndItsTags() throws InterruptedException {
+        feedService.follow("fan", Follow.TARGET_USER, "author");
+        feedService.follow("fan", Follow.TARGET_TAG, "java");
+        feedService.follow("tag-fan", Follow.TARGET_TAG, "java");
+
+        publish("p1", "2024-01-01", "java");
+
+        assertEquals(List.of("p1"), feedIds("author"));
+        assertEquals(List.of("p1"), feedIds("fan"));
+        assertEquals(List.of("p1"), feedIds("tag-fan"));
+        assertEquals(List.of(), feedIds("stranger"));
+    }
+
+    @Test
+    void followingBackfillsRecentPostsAndUnfollowingUndoesTheCount() throws InterruptedException {
+        publish("old", "2024-01-01");
+        publish("new", "2024-01-02");
+
+        assertTrue(feedService.follow("fan", Follow.TARGET_USER, "author"));
+        assertFalse(feedService.follow("fan", Follow.TARGET_USER, "author"));
+        assertEquals(List.of("new", "old"), feedIds("fan"));
+        assertEquals(1, followTargetRepository.findById("USER:author").orElseThrow().getFollowerCount());
+
+        assertTrue(feedService.unfollow("fan", Follow.TARGET_USER, "author"));
+        assertEquals(0, followTargetRepository.findById("USER:author").orElseThrow().getFollowerCount());
+    }
+
+    @Test
+    void popularTargetsAreReadAtFeedTimeInsteadOfFannedOut() throws InterruptedException {
+        ReflectionTestUtils.setField(feedService, "fanoutThreshold", 1L);
+        feedService.follow("fan", Follow.TARGET_USER, "author");
+        feedService.follow("tag-fan", Follow.TARGET_USER, "author");
+
+        publish("p1", "2024-01-01");
+
+        assertEquals(List.of("p1"), feedIds("fan"));
+        assertEquals(List.of("p1"), feedIds("tag-fan"));
+    }
+
+    @Test
+    void cursorsWalkTheFeedNewestFirstWithoutGapsOrRepeats() throws InterruptedException {
+        feedService.follow("fan", Follow.TARGET_USER, "author");
+        publish("p1", "2024-01-01");
+        publish("p2", "2024-01-02");
+        publish("p3", "2024-01-02");
+        publish("p4", "2024-01-03");
+
+        FeedService.FeedPage first = feedService.feed("fan", 3, null);
+        assertEquals(List.of("p4", "p3", "p2"), ids(first));
+        assertTrue(first.hasNextPage());
+        FeedService.FeedPage second = feedService.feed("fan", 3, first.cursors().get(2));
+        assertEquals(List.of("p1"), ids(second));
+        assertFalse(second.hasNextPage());
+        assertThrows(IllegalArgumentException.class, () -> feedService.feed("fan", 2, "not a cursor"));
+    }
+
+    @Test
+    void deletedPostsAreSkippedWhenTheFeedIsRead() throws InterruptedException {
+        feedService.follow("fan", Follow.TARGET_USER, "author");
+        publish("p1", "2024-01-01");
+        publish("p2", "2024-01-02");
+
+        postRepository.deleteById("p2");
+
+        assertEquals(List.of("p1"), feedIds("fan"));
+    }
+
+    @Test
+    void targetsAreValidated() {
+        assertThrows(IllegalArgumentException.class, () -> feedService.follow("fan", Follow.TARGET_USER, "fan"));
+        assertThrows(ResourceNotFoundException.class, () -> feedService.follow("fan", Follow.TARGET_TAG, "missing"));
+        assertThrows(IllegalArgumentException.class, () -> feedService.follow("fan", "GROUP", "java"));
+    }
+
+    // Saves the post and waits for its fan-out
+    private void publish(String id, String publishDate, String... tags) throws InterruptedException {
+        Post post = new Post();
+        post.setPostId(id);
+        post.setPostOwnerId("author");
+        post.setPostPublishDate(publishDate);
+        post.setPostTags(List.of(tags));
+        postRepository.save(post);
+        feedService.onPostCreated(post);
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) ReflectionTestUtils.getField(feedService, "fanoutExecutor");
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        feedService.start();
+    }
+
+    private List<String> feedIds(String userId) {
+        return ids(feedService.feed(userId, 10, null));
+    }
+
+    private static List<String> ids(FeedService.FeedPage page) {
+        return page.posts().stream().map(Post::getPostId).toList();
+    }
+}
@@ -0,0 +1,109 @@
+package com.rest.server.services;
+
+import com.rest.server.models.IdempotencyRecord;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class IdempotencyServiceTest {
+
+    @Test
+    void theFirstClaimWinsAndLaterOnesSeeItsRecord() {
+        IdempotencyService service = service(null);
+
+        assertNull(service.claim("user-1:k", "f"));
+        assertTrue(service.claim("user-1:k", "f").isPending());
+
+        service.complete("user-1:k", "{\"id\":1}");
+        IdempotencyRecord completed = service.claim("user-1:k", "f");
+        assertEquals(IdempotencyRecord.COMPLETED, completed.getStatus());
+        assertEquals("{\"id\":1}", completed.getResponse());
+    }
+
+    @Test
+    void aReleasedKeyCanBeClaimedAgain() {
+        IdempotencyService service = service(null);
+        service.claim("user-1:k", "f");
+
+        service.release("user-1:k");
+
+        assertNull(service.claim("user-1:k", "f"));
+    }
+
+    @Test
+    void aPendingClaimPastItsTimeoutIsTakenOver() {
+        IdempotencyService service = service(null);
+        ReflectionTestUtils.setField(service, "pendingTimeout", Duration.ZERO);
+        service.claim("user-1:k", "f");
+        IdempotencyRecord pending = service.claim("user-1:k", "f");
+        pending.setCreatedAt(new Date(System.currentTimeMillis() - 1_000));
+
+        assertNull(service.claim("user-1:k", "f"));
+    }
+
+    @Test
+    void aKeyHeldByAnotherNodeReturnsItsRecord() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        IdempotencyRecord remote = new IdempotencyRecord("user-1:k", "f", IdempotencyRecord.COMPLETED, "{}", new Date());
+        doThrow(new DuplicateKeyException("idempotency_keys")).when(mongoTemplate).insert(any(IdempotencyRecord.class));
+        doReturn(remote).when(mongoTemplate).findById("user-1:k", IdempotencyRecord.class);
+        IdempotencyService service = service(mongoTemplate);
+
+        assertEquals(remote, service.claim("user-1:k", "f"));
+        // Completed records stay in the near-cache, so the retry skips Mongo
+        assertEquals(remote, service.claim("user-1:k", "f"));
+        verify(mongoTemplate, times(1)).insert(any(IdempotencyRecord.class));
+    }
+
+    @Test
+    void aStalePendingClaimInMongoIsTakenOver() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        doThrow(new DuplicateKeyException("idempotency_keys")).when(mongoTemplate).insert(any(IdempotencyRecord.class));
+        doReturn(new IdempotencyRecord()).when(mongoTemplate)
+                .findAndModify(any(Query.class), any(Update.class), eq(IdempotencyRecord.class));
+        IdempotencyService service = service(mongoTemplate);
+
+        assertNull(service.claim("user-1:k", "f"));
+    }
+
+    @Test
+    void aFailedClaimLeavesNothingPendingBehind() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        doThrow(new DataAccessResourceFailureException("down")).doReturn(null)
+                .when(mongoTemplate).insert(any(IdempotencyRecord.class));
+        IdempotencyService service = service(mongoTemplate);
+
+        assertThrows(DataAccessResourceFailureException.class, () -> service.claim("user-1:k", "f"));
+        assertNull(service.claim("user-1:k", "f"));
+    }
+
+    // In memory only unless a MongoTemplate is given
+    private static IdempotencyService service(MongoTemplate mongoTemplate) {
+        IdempotencyService service = new IdempotencyService();
+        ReflectionTestUtils.setField(service, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(service, "persistent", mongoTemplate != null);
+        ReflectionTestUtils.setField(service, "ttl", Duration.ofHours(24));
+        ReflectionTestUtils.setField(service, "pendingTimeout", Duration.ofSeconds(30));
+        ReflectionTestUtils.setField(service, "nearCacheSize", 100);
+        return service;
+    }
+}
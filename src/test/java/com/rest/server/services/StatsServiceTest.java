@@ -0,0 +1,151 @@
+package com.rest.server.services;
+
+import com.rest.server.index.TagIndex;
+import com.rest.server.models.Rollup;
+import com.rest.server.models.Tag;
+import com.rest.server.models.User;
+import com.rest.server.repositories.inmemory.InMemoryRollupRepository;
+import com.rest.server.repositories.inmemory.InMemoryTagRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+class StatsServiceTest {
+
+    private FailingRollupRepository rollupRepository;
+    private StatsService statsService;
+
+    @BeforeEach
+    void setUp() {
+        rollupRepository = new FailingRollupRepository();
+        InMemoryTagRepository tagRepository = new InMemoryTagRepository();
+        tagRepository.save(new Tag("t1", "java"));
+        TagIndex tagIndex = mock(TagIndex.class);
+        doReturn(Optional.empty()).when(tagIndex).tagName(anyString());
+
+        statsService = new StatsService();
+        ReflectionTestUtils.setField(statsService, "rollupRepository", rollupRepository);
+        ReflectionTestUtils.setField(statsService, "tagIndex", tagIndex);
+        ReflectionTestUtils.setField(statsService, "tagRepository", tagRepository);
+        ReflectionTestUtils.setField(statsService, "locationService", mock(LocationService.class));
+        ReflectionTestUtils.setField(statsService, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(statsService, "enabled", true);
+        ReflectionTestUtils.setField(statsService, "hourlyRetention", Duration.ofDays(30));
+        statsService.init();
+    }
+
+    @Test
+    void flushedCountsAreReadBackPerHourAndDay() {
+        statsService.record(Rollup.POSTS_BY_TAG, List.of("t1", "t2"));
+        statsService.record(Rollup.POSTS_BY_TAG, "t1");
+
+        statsService.flush();
+
+        assertEquals(Map.of("t1", 2L, "t2", 1L), counts(statsService.series(Rollup.POSTS_BY_TAG, Rollup.HOUR, null, null, null, 10)));
+        assertEquals(Map.of("t1", 2L, "t2", 1L), counts(statsService.series(Rollup.POSTS_BY_TAG, Rollup.DAY, null, null, null, 10)));
+        Map<String, Object> top = statsService.top(Rollup.POSTS_BY_TAG, Rollup.DAY, null, null, 1).get(0);
+        assertEquals("t1", top.get("key"));
+        assertEquals("java", top.get("label"));
+    }
+
+    @Test
+    void onlyHourlyRollupsExpire() {
+        statsService.record(Rollup.COMMENTS_BY_POST, "p1");
+
+        statsService.flush();
+
+        for (Rollup rollup : rollupRepository.findAll()) {
+            if (Rollup.HOUR.equals(rollup.getGranularity())) {
+                assertNotNull(rollup.getExpiresAt());
+            } else {
+                assertNull(rollup.getExpiresAt());
+            }
+        }
+    }
+
+    @Test
+    void aFailedFlushPutsItsCountsBackForTheNextOne() {
+        statsService.record(Rollup.COMMENTS_BY_POST, "p1");
+        rollupRepository.failAll = true;
+
+        statsService.flush();
+        assertEquals(0, rollupRepository.count());
+
+        rollupRepository.failAll = false;
+        statsService.record(Rollup.COMMENTS_BY_POST, "p1");
+        statsService.flush();
+        assertEquals(Map.of("p1", 2L), counts(statsService.series(Rollup.COMMENTS_BY_POST, Rollup.DAY, null, null, "p1", 10)));
+    }
+
+    @Test
+    void aPartlyFailedFlushPutsBackOnlyTheFailedCounts() {
+        statsService.record(Rollup.COMMENTS_BY_POST, List.of("p1", "p2"));
+        rollupRepository.failKey = "p2";
+
+        statsService.flush();
+        assertEquals(Map.of("p1", 1L), counts(statsService.series(Rollup.COMMENTS_BY_POST, Rollup.DAY, null, null, null, 10)));
+
+        rollupRepository.failKey = null;
+        statsService.flush();
+        assertEquals(Map.of("p1", 1L, "p2", 1L), counts(statsService.series(Rollup.COMMENTS_BY_POST, Rollup.DAY, null, null, null, 10)));
+    }
+
+    @Test
+    void signupsWithoutALocationCountAsUnknown() {
+        statsService.recordSignup(new User());
+        statsService.flush();
+
+        assertEquals(Map.of("unknown", 1L), counts(statsService.series(Rollup.SIGNUPS_BY_COUNTRY, Rollup.DAY, null, null, null, 10)));
+    }
+
+    @Test
+    void unknownMetricsAndDatesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> statsService.series("LIKES", Rollup.DAY, null, null, null, 10));
+        assertThrows(IllegalArgumentException.class, () -> statsService.series(Rollup.POSTS_BY_TAG, "WEEK", null, null, null, 10));
+        assertThrows(IllegalArgumentException.class, () -> statsService.top(Rollup.POSTS_BY_TAG, Rollup.DAY, "yesterday", null, 10));
+    }
+
+    private static Map<String, Long> counts(List<Map<String, Object>> items) {
+        Map<String, Long> counts = new HashMap<>();
+        items.forEach(item -> counts.merge((String) item.get("key"), (Long) item.get("count"), Long::sum));
+        return counts;
+    }
+
+    // Fails the whole bulk, or reports the deltas of one key as failed like an unordered bulk write would
+    private static class FailingRollupRepository extends InMemoryRollupRepository {
+        boolean failAll;
+        String failKey;
+
+        @Override
+        public synchronized Map<Integer, String> incrementAll(List<Rollup> deltas) {
+            if (failAll) {
+                throw new DataAccessResourceFailureException("down");
+            }
+            Map<Integer, String> failures = new HashMap<>();
+            for (int i = 0; i < deltas.size(); i++) {
+                if (deltas.get(i).getKey().equals(failKey)) {
+                    failures.put(i, "write error");
+                } else {
+                    super.incrementAll(List.of(deltas.get(i)));
+                }
+            }
+            return failures;
+        }
+    }
+}